@@ -23,7 +23,6 @@ import org.zstack.core.thread.SyncTaskChain;
 import org.zstack.core.thread.ThreadFacade;
 import org.zstack.core.workflow.FlowChainBuilder;
 import org.zstack.core.workflow.ShareFlow;
-import org.zstack.header.allocator.AllocationScene;
 import org.zstack.header.allocator.HostAllocatorConstant;
 import org.zstack.header.core.Completion;
 import org.zstack.header.core.NoErrorCompletion;
@@ -94,6 +93,8 @@ public abstract class HostBase extends AbstractHost {
     @Autowired
     protected HostMaintenancePolicyManager hostMaintenancePolicyMgr;
     @Autowired
+    protected VmMigrationScheduler migrationScheduler;
+    @Autowired
     @Qualifier("HostSingleFlight")
     protected TaskSingleFlight<String, ConnectHostReply> singleFlight;
 
@@ -242,8 +243,8 @@ public abstract class HostBase extends AbstractHost {
                         }
 
                         int migrateQuantity = quantity;
+                        boolean keepOrder = false;
                         HostInventory host = getSelfInventory();
-                        Map<String, ErrorCode> vmFailedToMigrate = Collections.synchronizedMap(new HashMap<>());
                         for (OrderVmBeforeMigrationDuringHostMaintenanceExtensionPoint ext : pluginRgty.getExtensionList(OrderVmBeforeMigrationDuringHostMaintenanceExtensionPoint.class)) {
                             List<String> ordered = ext.orderVmBeforeMigrationDuringHostMaintenance(host, vmUuids);
                             if (ordered != null) {
@@ -252,37 +253,14 @@ public abstract class HostBase extends AbstractHost {
                                 logger.debug(String.format("%s ordered VMs for host maintenance, to keep the order, we will migrate VMs one by one",
                                         ext.getClass()));
                                 migrateQuantity = 1;
+                                keepOrder = true;
                             }
                         }
 
-                        // Migrate applianceVM first.
-                        final List<String> applianceVMs = Q.New(VmInstanceVO.class)
-                                .select(VmInstanceVO_.uuid)
-                                .notEq(VmInstanceVO_.type, VmInstanceConstant.USER_VM_TYPE)
-                                .in(VmInstanceVO_.uuid, vmUuids)
-                                .listValues();
-                        if (!applianceVMs.isEmpty()) {
-                            vmUuids.removeAll(applianceVMs);
-                            vmUuids.addAll(0, applianceVMs);
-                        }
-
-                        new While<>(vmUuids).step((vmUuid, compl) -> {
-                            MigrateVmMsg msg = new MigrateVmMsg();
-                            msg.setVmInstanceUuid(vmUuid);
-                            msg.setAllocationScene(AllocationScene.Auto);
-                            bus.makeTargetServiceIdByResourceUuid(msg, VmInstanceConstant.SERVICE_ID, vmUuid);
-                            bus.send(msg, new CloudBusCallBack(compl) {
-                                @Override
-                                public void run(MessageReply reply) {
-                                    if (!reply.isSuccess()) {
-                                        vmFailedToMigrate.put(msg.getVmInstanceUuid(), reply.getError());
-                                    }
-                                    compl.done();
-                                }
-                            });
-                        }, migrateQuantity).run(new WhileDoneCompletion(trigger) {
+                        // appliance vms are migrated first
+                        migrationScheduler.migrate(host, vmUuids, migrateQuantity, keepOrder, new ReturnValueCompletion<Map<String, ErrorCode>>(trigger) {
                             @Override
-                            public void done(ErrorCodeList errorCodeList) {
+                            public void success(Map<String, ErrorCode> vmFailedToMigrate) {
                                 if (!vmFailedToMigrate.isEmpty()) {
                                     if (HostMaintenancePolicyManager.HostMaintenancePolicy.JustMigrate.equals(hostMaintenancePolicyMgr.getHostMaintenancePolicy(self.getUuid()))) {
                                         trigger.fail(operr("failed to migrate vm[uuids:%s] on host[uuid:%s, name:%s, ip:%s], will try stopping it.",
@@ -305,6 +283,11 @@ public abstract class HostBase extends AbstractHost {
                                 }
                                 trigger.next();
                             }
+
+                            @Override
+                            public void fail(ErrorCode errorCode) {
+                                trigger.fail(errorCode);
+                            }
                         });
                     }
                 });
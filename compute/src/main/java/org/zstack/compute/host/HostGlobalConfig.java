@@ -49,4 +49,10 @@ public class HostGlobalConfig {
     public static GlobalConfig REPORT_HOST_CAPACITY_INTERVAL = new GlobalConfig(CATEGORY, "reportHostCapacityInterval");
     @GlobalConfigValidation(numberGreaterThan = 0, numberLessThan = 65535)
     public static GlobalConfig HOST_PORT_ALLOCATION_START_PORT = new GlobalConfig(CATEGORY, "host.port.allocate.start.port");
+    @GlobalConfigValidation
+    public static GlobalConfig MAINTENANCE_MIGRATION_PLAN_DESTINATION = new GlobalConfig(CATEGORY, "maintenance.migration.planDestination");
+    @GlobalConfigValidation(numberGreaterThan = -1)
+    public static GlobalConfig MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_DESTINATION_HOST = new GlobalConfig(CATEGORY, "maintenance.migration.maxConcurrentPerDestinationHost");
+    @GlobalConfigValidation(numberGreaterThan = -1)
+    public static GlobalConfig MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_CLUSTER = new GlobalConfig(CATEGORY, "maintenance.migration.maxConcurrentPerCluster");
 }
@@ -6,7 +6,6 @@ import org.zstack.core.cloudbus.*;
 import org.zstack.core.componentloader.PluginRegistry;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.Q;
-import org.zstack.core.db.SQLBatch;
 import org.zstack.core.thread.AsyncThread;
 import org.zstack.core.thread.AsyncTimer;
 import org.zstack.core.thread.ThreadFacade;
@@ -33,13 +32,12 @@ import java.util.stream.Collectors;
 public class HostTrackImpl implements HostTracker, ManagementNodeChangeListener, Component, ManagementNodeReadyExtensionPoint {
     private final static CLogger logger = Utils.getLogger(HostTrackImpl.class);
 
-    private Map<String, Tracker> trackers = new HashMap<>();
+    private Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+    private ResourceTakeoverPipeline takeover;
 
     @Autowired
     private DatabaseFacade dbf;
     @Autowired
-    private ResourceDestinationMaker destMaker;
-    @Autowired
     private CloudBus bus;
     @Autowired
     private ThreadFacade thdf;
@@ -274,39 +272,47 @@ public class HostTrackImpl implements HostTracker, ManagementNodeChangeListener,
         reScanHost(false);
     }
 
+    private synchronized ResourceTakeoverPipeline getTakeover() {
+        if (takeover == null) {
+            takeover = new ResourceTakeoverPipeline("host", HostVO.class) {
+                @Override
+                protected void takeOver(List<String> hostUuids) {
+                    trackHost(hostUuids.stream().filter(huuid -> !trackers.containsKey(huuid)).collect(Collectors.toList()));
+                }
+
+                @Override
+                protected void giveUp(List<String> hostUuids) {
+                    untrackHost(hostUuids);
+                }
+
+                @Override
+                protected boolean isTakenOver(String hostUuid) {
+                    // a tracker cancelled by ReconnectDecision.StopPing is removed from the map
+                    return trackers.containsKey(hostUuid);
+                }
+            };
+        }
+
+        return takeover;
+    }
+
     private void reScanHost(boolean skipExisting) {
         if (!skipExisting) {
             new HashSet<>(trackers.values()).forEach(Tracker::cancel);
         }
 
-        new SQLBatch() {
-            @Override
-            protected void scripts() {
-                long count = sql("select count(h) from HostVO h", Long.class).find();
-                sql("select h.uuid from HostVO h", String.class).limit(1000).paginate(count, (List<String> hostUuids) -> {
-                    List<String> byUs = hostUuids.stream().filter(huuid -> {
-                        if (skipExisting) {
-                            return destMaker.isManagedByUs(huuid) && !trackers.containsKey(huuid);
-                        } else {
-                            return destMaker.isManagedByUs(huuid);
-                        }
-                    }).collect(Collectors.toList());
-
-                    trackHost(byUs);
-                });
-            }
-        }.execute();
+        getTakeover().takeOverAll();
     }
 
     @Override
     @AsyncThread
     public void nodeJoin(ManagementNodeInventory inv) {
-        reScanHost();
+        getTakeover().takeOverMovedResources();
     }
 
     @Override
     public void nodeLeft(ManagementNodeInventory inv) {
-        reScanHost();
+        getTakeover().takeOverMovedResources();
     }
 
     @Override
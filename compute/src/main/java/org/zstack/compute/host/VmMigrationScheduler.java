@@ -0,0 +1,408 @@
+package org.zstack.compute.host;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.zstack.compute.vm.VmSystemTags;
+import org.zstack.core.asyncbatch.While;
+import org.zstack.core.cloudbus.CloudBus;
+import org.zstack.core.cloudbus.CloudBusCallBack;
+import org.zstack.core.db.Q;
+import org.zstack.core.jmx.JmxFacade;
+import org.zstack.header.allocator.AllocationScene;
+import org.zstack.header.core.NoErrorCompletion;
+import org.zstack.header.core.ReturnValueCompletion;
+import org.zstack.header.core.WhileDoneCompletion;
+import org.zstack.header.errorcode.ErrorCode;
+import org.zstack.header.errorcode.ErrorCodeList;
+import org.zstack.header.host.HostInventory;
+import org.zstack.header.message.MessageReply;
+import org.zstack.header.tag.SystemTagVO;
+import org.zstack.header.tag.SystemTagVO_;
+import org.zstack.header.vm.*;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import javax.persistence.Tuple;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.zstack.utils.CollectionDSL.e;
+import static org.zstack.utils.CollectionDSL.map;
+
+/**
+ * migrates vms off hosts entering maintenance mode.
+ *
+ * destinations of all vms on a host are planned before migrating them: candidate hosts of each vm are got from
+ * the host allocator by a dry run, and vms are spread over candidates by the memory planned to migrate to them.
+ * Appliance vms are migrated first, then vms of High priority. A migration starts only when its source host,
+ * destination host and destination cluster are under their limits, limits of destination hosts and clusters are
+ * host.maintenance.migration.maxConcurrentPerDestinationHost and host.maintenance.migration.maxConcurrentPerCluster
+ * shared by all hosts entering maintenance mode on this management node. Vms without planned destinations are
+ * limited by their source hosts only.
+ *
+ * a vm failing to migrate to the planned host is migrated again to a host chosen by the allocator.
+ * Progress and throughput of evacuations are exposed by JMX.
+ */
+public class VmMigrationScheduler implements VmMigrationSchedulerMXBean {
+    private static final CLogger logger = Utils.getLogger(VmMigrationScheduler.class);
+
+    private static final int PLAN_PARALLELISM = 10;
+
+    @Autowired
+    private CloudBus bus;
+    @Autowired
+    private JmxFacade jmxf;
+
+    // evacuations having vms pending or migrating in the order of submission, guarded by this
+    private final List<Evacuation> evacuations = new ArrayList<>();
+    private final Map<String, Integer> runningByHost = new HashMap<>();
+    private final Map<String, Integer> runningByCluster = new HashMap<>();
+    // the latest evacuation of each host
+    private final Map<String, EvacuationProgress> progresses = new ConcurrentHashMap<>();
+
+    public static class EvacuationProgress {
+        private String hostUuid;
+        private int total;
+        private volatile int succeeded;
+        private volatile int failed;
+        private volatile int running;
+        private volatile long migratedMemorySize;
+        private long startTime;
+        private volatile long endTime;
+
+        public String getHostUuid() {
+            return hostUuid;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getRunning() {
+            return running;
+        }
+
+        public int getPending() {
+            return total - succeeded - failed - running;
+        }
+
+        public long getMigratedMemorySize() {
+            return migratedMemorySize;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        public boolean isFinished() {
+            return endTime != 0;
+        }
+
+        public long getElapsedMillis() {
+            return (endTime == 0 ? System.currentTimeMillis() : endTime) - startTime;
+        }
+
+        /**
+         * @return memory of migrated vms in bytes per second
+         */
+        public long getThroughput() {
+            return migratedMemorySize * 1000 / Math.max(getElapsedMillis(), 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s/%s vms migrated off the host[uuid:%s], %s failed, %s running, %s bytes/s",
+                    succeeded, total, hostUuid, failed, running, getThroughput());
+        }
+    }
+
+    private static class Migration {
+        final String vmUuid;
+        final long memorySize;
+        HostInventory destination;
+        final List<String> avoidHostUuids = new ArrayList<>();
+
+        Migration(String vmUuid, long memorySize) {
+            this.vmUuid = vmUuid;
+            this.memorySize = memorySize;
+        }
+    }
+
+    private static class Evacuation {
+        final int concurrency;
+        final boolean keepOrder;
+        final LinkedList<Migration> pending;
+        final Map<String, ErrorCode> failures = new HashMap<>();
+        final EvacuationProgress progress = new EvacuationProgress();
+        final ReturnValueCompletion<Map<String, ErrorCode>> completion;
+        int running;
+
+        Evacuation(String hostUuid, List<Migration> migrations, int concurrency, boolean keepOrder,
+                   ReturnValueCompletion<Map<String, ErrorCode>> completion) {
+            this.pending = new LinkedList<>(migrations);
+            this.concurrency = concurrency;
+            this.keepOrder = keepOrder;
+            this.completion = completion;
+            progress.hostUuid = hostUuid;
+            progress.total = migrations.size();
+            progress.startTime = System.currentTimeMillis();
+        }
+    }
+
+    void init() {
+        jmxf.registerBean("VmMigrationScheduler", this);
+    }
+
+    /**
+     * migrates the vms off the host
+     *
+     * @param concurrency max number of vms migrating off the host at the same time
+     * @param keepOrder migrate vms in the given order one after another if blocked by limits, otherwise
+     *                  vms are ordered by priority
+     * @param completion gets vms failed to migrate and their errors, never fails
+     */
+    public void migrate(HostInventory host, List<String> vmUuids, int concurrency, boolean keepOrder,
+                        ReturnValueCompletion<Map<String, ErrorCode>> completion) {
+        if (vmUuids.isEmpty()) {
+            completion.success(new HashMap<>());
+            return;
+        }
+
+        List<Migration> migrations = prioritize(vmUuids, keepOrder);
+        plan(migrations, new NoErrorCompletion(completion) {
+            @Override
+            public void done() {
+                Evacuation evacuation = new Evacuation(host.getUuid(), migrations, concurrency, keepOrder, completion);
+                progresses.put(host.getUuid(), evacuation.progress);
+                synchronized (VmMigrationScheduler.this) {
+                    evacuations.add(evacuation);
+                }
+
+                logger.debug(String.format("start migrating %s vms off the host[uuid:%s], %s of them have planned destinations",
+                        migrations.size(), host.getUuid(), migrations.stream().filter(m -> m.destination != null).count()));
+                dispatch();
+            }
+        });
+    }
+
+    private List<Migration> prioritize(List<String> vmUuids, boolean keepOrder) {
+        Map<String, Tuple> vms = new HashMap<>();
+        Q.New(VmInstanceVO.class)
+                .select(VmInstanceVO_.uuid, VmInstanceVO_.type, VmInstanceVO_.memorySize)
+                .in(VmInstanceVO_.uuid, vmUuids)
+                .listTuple()
+                .forEach(t -> vms.put(t.get(0, String.class), t));
+
+        Set<String> highPriorityVms = new HashSet<>();
+        if (!keepOrder) {
+            highPriorityVms.addAll(Q.New(SystemTagVO.class)
+                    .select(SystemTagVO_.resourceUuid)
+                    .in(SystemTagVO_.resourceUuid, vmUuids)
+                    .eq(SystemTagVO_.tag, VmSystemTags.VM_PRIORITY.instantiateTag(
+                            map(e(VmSystemTags.VM_PRIORITY_TOKEN, VmPriorityLevel.High.toString()))))
+                    .listValues());
+        }
+
+        List<Migration> migrations = new ArrayList<>();
+        for (String vmUuid : vmUuids) {
+            Tuple t = vms.get(vmUuid);
+            migrations.add(new Migration(vmUuid, t == null || t.get(2, Long.class) == null ? 0 : t.get(2, Long.class)));
+        }
+
+        // appliance vms first, then vms of high priority, the sort is stable
+        migrations.sort(Comparator.comparingInt(m -> {
+            Tuple t = vms.get(m.vmUuid);
+            if (t != null && !VmInstanceConstant.USER_VM_TYPE.equals(t.get(1, String.class))) {
+                return 0;
+            }
+            return highPriorityVms.contains(m.vmUuid) ? 1 : 2;
+        }));
+
+        return migrations;
+    }
+
+    private void plan(List<Migration> migrations, NoErrorCompletion completion) {
+        if (!HostGlobalConfig.MAINTENANCE_MIGRATION_PLAN_DESTINATION.value(Boolean.class)) {
+            completion.done();
+            return;
+        }
+
+        Map<String, List<HostInventory>> candidates = new ConcurrentHashMap<>();
+        new While<>(migrations).step((m, compl) -> {
+            GetVmMigrationTargetHostMsg msg = new GetVmMigrationTargetHostMsg();
+            msg.setVmInstanceUuid(m.vmUuid);
+            bus.makeTargetServiceIdByResourceUuid(msg, VmInstanceConstant.SERVICE_ID, m.vmUuid);
+            bus.send(msg, new CloudBusCallBack(compl) {
+                @Override
+                public void run(MessageReply reply) {
+                    List<HostInventory> hosts = reply.isSuccess() ? ((GetVmMigrationTargetHostReply) reply).getHosts() : null;
+                    if (hosts != null && !hosts.isEmpty()) {
+                        candidates.put(m.vmUuid, hosts);
+                    } else {
+                        logger.debug(String.format("no destination planned for the vm[uuid:%s], the allocator will choose one when migrating it%s",
+                                m.vmUuid, reply.isSuccess() ? "" : ", " + reply.getError()));
+                    }
+                    compl.done();
+                }
+            });
+        }, PLAN_PARALLELISM).run(new WhileDoneCompletion(completion) {
+            @Override
+            public void done(ErrorCodeList errorCodeList) {
+                // memory planned to migrate to each host
+                Map<String, Long> planned = new HashMap<>();
+                for (Migration m : migrations) {
+                    List<HostInventory> hosts = candidates.get(m.vmUuid);
+                    if (hosts == null) {
+                        continue;
+                    }
+
+                    m.destination = hosts.stream()
+                            .min(Comparator.comparingLong(h -> planned.getOrDefault(h.getUuid(), 0L)))
+                            .get();
+                    planned.merge(m.destination.getUuid(), m.memorySize, Long::sum);
+                }
+
+                completion.done();
+            }
+        });
+    }
+
+    private void dispatch() {
+        List<Runnable> starts = new ArrayList<>();
+        synchronized (this) {
+            for (Evacuation evacuation : evacuations) {
+                Iterator<Migration> it = evacuation.pending.iterator();
+                while (evacuation.running < evacuation.concurrency && it.hasNext()) {
+                    Migration m = it.next();
+                    if (!acquire(m)) {
+                        if (evacuation.keepOrder) {
+                            break;
+                        }
+                        continue;
+                    }
+
+                    it.remove();
+                    evacuation.running++;
+                    evacuation.progress.running = evacuation.running;
+                    starts.add(() -> run(evacuation, m));
+                }
+            }
+        }
+
+        starts.forEach(Runnable::run);
+    }
+
+    // called with the lock held
+    private boolean acquire(Migration m) {
+        if (m.destination == null) {
+            return true;
+        }
+
+        String hostUuid = m.destination.getUuid();
+        String clusterUuid = m.destination.getClusterUuid();
+        int hostLimit = HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_DESTINATION_HOST.value(Integer.class);
+        int clusterLimit = HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_CLUSTER.value(Integer.class);
+        if (hostLimit > 0 && runningByHost.getOrDefault(hostUuid, 0) >= hostLimit) {
+            return false;
+        }
+        if (clusterLimit > 0 && runningByCluster.getOrDefault(clusterUuid, 0) >= clusterLimit) {
+            return false;
+        }
+
+        runningByHost.merge(hostUuid, 1, Integer::sum);
+        runningByCluster.merge(clusterUuid, 1, Integer::sum);
+        return true;
+    }
+
+    // called with the lock held
+    private void release(Migration m) {
+        if (m.destination == null) {
+            return;
+        }
+
+        runningByHost.computeIfPresent(m.destination.getUuid(), (k, v) -> v > 1 ? v - 1 : null);
+        runningByCluster.computeIfPresent(m.destination.getClusterUuid(), (k, v) -> v > 1 ? v - 1 : null);
+    }
+
+    private void run(Evacuation evacuation, Migration m) {
+        MigrateVmMsg msg = new MigrateVmMsg();
+        msg.setVmInstanceUuid(m.vmUuid);
+        msg.setAllocationScene(AllocationScene.Auto);
+        if (m.destination != null) {
+            msg.setTargetHostUuid(m.destination.getUuid());
+        }
+        if (!m.avoidHostUuids.isEmpty()) {
+            msg.setAvoidHostUuids(new ArrayList<>(m.avoidHostUuids));
+        }
+        bus.makeTargetServiceIdByResourceUuid(msg, VmInstanceConstant.SERVICE_ID, m.vmUuid);
+        bus.send(msg, new CloudBusCallBack(null) {
+            @Override
+            public void run(MessageReply reply) {
+                done(evacuation, m, reply);
+            }
+        });
+    }
+
+    private void done(Evacuation evacuation, Migration m, MessageReply reply) {
+        EvacuationProgress progress = evacuation.progress;
+        boolean finished;
+        synchronized (this) {
+            release(m);
+            evacuation.running--;
+
+            if (reply.isSuccess()) {
+                progress.succeeded++;
+                progress.migratedMemorySize += m.memorySize;
+            } else if (m.destination != null) {
+                logger.debug(String.format("failed to migrate the vm[uuid:%s] to the planned host[uuid:%s], migrate it to" +
+                        " a host chosen by the allocator, %s", m.vmUuid, m.destination.getUuid(), reply.getError()));
+                m.avoidHostUuids.add(m.destination.getUuid());
+                m.destination = null;
+                evacuation.pending.addFirst(m);
+            } else {
+                evacuation.failures.put(m.vmUuid, reply.getError());
+                progress.failed++;
+            }
+
+            progress.running = evacuation.running;
+            finished = evacuation.pending.isEmpty() && evacuation.running == 0;
+            if (finished) {
+                evacuations.remove(evacuation);
+                progress.endTime = System.currentTimeMillis();
+            }
+        }
+
+        logger.debug(progress.toString());
+        if (finished) {
+            evacuation.completion.success(evacuation.failures);
+        }
+
+        dispatch();
+    }
+
+    @Override
+    public Map<String, EvacuationProgress> getEvacuations() {
+        return new HashMap<>(progresses);
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getRunningMigrationsByDestinationHost() {
+        return new HashMap<>(runningByHost);
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getRunningMigrationsByCluster() {
+        return new HashMap<>(runningByCluster);
+    }
+}
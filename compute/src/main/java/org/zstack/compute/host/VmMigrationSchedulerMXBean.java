@@ -0,0 +1,11 @@
+package org.zstack.compute.host;
+
+import java.util.Map;
+
+public interface VmMigrationSchedulerMXBean {
+    Map<String, VmMigrationScheduler.EvacuationProgress> getEvacuations();
+
+    Map<String, Integer> getRunningMigrationsByDestinationHost();
+
+    Map<String, Integer> getRunningMigrationsByCluster();
+}
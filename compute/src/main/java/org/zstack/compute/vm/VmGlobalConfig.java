@@ -86,4 +86,8 @@ public class VmGlobalConfig {
     @GlobalConfigDef(defaultValue = "Microsoft Hv", type = String.class, description = "set vendor_id")
     @BindResourceConfig(value = {VmInstanceVO.class, ClusterVO.class})
     public static GlobalConfig VENDOR_ID = new GlobalConfig(CATEGORY, "vendorId");
+
+    @GlobalConfigValidation(inNumberRange = {1, 100})
+    @GlobalConfigDef(defaultValue = "10", type = Integer.class, description = "max number of vms created in parallel by a batch create vm api")
+    public static GlobalConfig BATCH_CREATE_PARALLELISM_DEGREE = new GlobalConfig(CATEGORY, "batchCreate.parallelismDegree");
 }
@@ -84,6 +84,8 @@ public class VmInstanceApiInterceptor implements ApiMessageInterceptor {
     public APIMessage intercept(APIMessage msg) throws ApiMessageInterceptionException {
         if (msg instanceof APIDestroyVmInstanceMsg) {
             validate((APIDestroyVmInstanceMsg) msg);
+        } else if (msg instanceof APIBatchCreateVmInstanceMsg) {
+            validate((APIBatchCreateVmInstanceMsg) msg);
         } else if (msg instanceof APICreateVmInstanceMsg) {
             validate((APICreateVmInstanceMsg) msg);
         } else if (msg instanceof APICreateVmInstanceFromVolumeMsg) {
@@ -996,6 +998,24 @@ public class VmInstanceApiInterceptor implements ApiMessageInterceptor {
         msg.setMemorySize(ivo.getMemorySize());
     }
 
+    private void validate(APIBatchCreateVmInstanceMsg msg) {
+        if (msg.getResourceUuid() != null) {
+            throw new ApiMessageInterceptionException(argerr("resourceUuid cannot be specified when creating vms in batch"));
+        }
+
+        if (msg.getSystemTags() != null) {
+            msg.getSystemTags().stream()
+                    .filter(t -> VmSystemTags.STATIC_IP.isMatch(t) || VmSystemTags.CUSTOM_MAC.isMatch(t)
+                            || VmSystemTags.HOSTNAME.isMatch(t))
+                    .findAny()
+                    .ifPresent(t -> {
+                        throw new ApiMessageInterceptionException(argerr("system tag[%s] cannot be shared by vms created in batch", t));
+                    });
+        }
+
+        validate((APICreateVmInstanceMsg) msg);
+    }
+
     private void validate(APICreateVmInstanceMsg msg) {
         validate((NewVmInstanceMessage2) msg);
 
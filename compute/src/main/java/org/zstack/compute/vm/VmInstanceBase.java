@@ -5629,7 +5629,7 @@ public class VmInstanceBase extends AbstractVmInstance {
                                     }
                                 }
                                 dbf.updateAndRefresh(nicVO);
-                                dbf.updateCollection(ipVOS);
+                                dbf.bulkUpdate(ipVOS);
                                 data.put(VmInstanceConstant.Params.VmNicInventory.toString(), nicVO);
                                 trigger.next();
                             }
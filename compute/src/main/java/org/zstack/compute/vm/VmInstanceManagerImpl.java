@@ -28,12 +28,16 @@ import org.zstack.header.AbstractService;
 import org.zstack.header.allocator.AllocateHostDryRunReply;
 import org.zstack.header.allocator.DesignatedAllocateHostMsg;
 import org.zstack.header.allocator.HostAllocatorConstant;
+import org.zstack.header.allocator.HostCapacityOverProvisioningManager;
+import org.zstack.header.allocator.HostCapacityVO;
+import org.zstack.header.allocator.HostCapacityVO_;
 import org.zstack.header.apimediator.ApiMessageInterceptionException;
 import org.zstack.header.apimediator.GlobalApiMessageInterceptor;
 import org.zstack.header.cluster.ClusterInventory;
 import org.zstack.header.cluster.ClusterVO;
 import org.zstack.header.configuration.*;
 import org.zstack.header.core.Completion;
+import org.zstack.header.core.NoErrorCompletion;
 import org.zstack.header.core.NopeWhileDoneCompletion;
 import org.zstack.header.core.ReturnValueCompletion;
 import org.zstack.header.core.WhileDoneCompletion;
@@ -163,6 +167,8 @@ public class VmInstanceManagerImpl extends AbstractService implements
     @Autowired
     private HostAllocatorManager hostAllocatorMgr;
     @Autowired
+    private HostCapacityOverProvisioningManager ratioMgr;
+    @Autowired
     protected VmInstanceExtensionPointEmitter extEmitter;
     @Autowired
     protected L3NetworkManager l3nm;
@@ -213,7 +219,9 @@ public class VmInstanceManagerImpl extends AbstractService implements
     }
 
     private void handleApiMessage(APIMessage msg) {
-        if (msg instanceof APICreateVmInstanceMsg) {
+        if (msg instanceof APIBatchCreateVmInstanceMsg) {
+            handle((APIBatchCreateVmInstanceMsg) msg);
+        } else if (msg instanceof APICreateVmInstanceMsg) {
             handle((APICreateVmInstanceMsg) msg);
         } else if(msg instanceof APICreateVmNicMsg) {
             handle((APICreateVmNicMsg) msg);
@@ -517,7 +525,7 @@ public class VmInstanceManagerImpl extends AbstractService implements
         bus.reply(msg, reply);
     }
 
-    private void handle(APIGetCandidateZonesClustersHostsForCreatingVmMsg msg) {
+    private DesignatedAllocateHostMsg makeCandidateHostsDryRunMsg(APIGetCandidateZonesClustersHostsForCreatingVmMsg msg) {
         DesignatedAllocateHostMsg amsg = new DesignatedAllocateHostMsg();
 
         ImageVO image = dbf.findByUuid(msg.getImageUuid(), ImageVO.class);
@@ -595,6 +603,12 @@ public class VmInstanceManagerImpl extends AbstractService implements
             amsg.setSystemTags(new ArrayList<String>(msg.getSystemTags()));
         }
 
+        return amsg;
+    }
+
+    private void handle(APIGetCandidateZonesClustersHostsForCreatingVmMsg msg) {
+        DesignatedAllocateHostMsg amsg = makeCandidateHostsDryRunMsg(msg);
+
         APIGetCandidateZonesClustersHostsForCreatingVmReply areply = new APIGetCandidateZonesClustersHostsForCreatingVmReply();
         bus.makeLocalServiceId(amsg, HostAllocatorConstant.SERVICE_ID);
         bus.send(amsg, new CloudBusCallBack(msg) {
@@ -1133,6 +1147,166 @@ public class VmInstanceManagerImpl extends AbstractService implements
         });
     }
 
+    private void handle(final APIBatchCreateVmInstanceMsg msg) {
+        List<CreateVmInstanceMsg> cmsgs = new ArrayList<>();
+        for (int i = 1; i <= msg.getCount(); i++) {
+            CreateVmInstanceMsg cmsg = fromAPICreateVmInstanceMsg(msg);
+            cmsg.setName(String.format("%s-%s", msg.getName(), i));
+            cmsgs.add(cmsg);
+        }
+
+        planHostsForBatchCreatingVm(msg, cmsgs, new NoErrorCompletion(msg) {
+            @Override
+            public void done() {
+                batchCreateVmInstances(msg, cmsgs);
+            }
+        });
+    }
+
+    // vms of a batch are placed by one dry run of the host allocator instead of one allocation per vm,
+    // vms not fitting in the candidates are left to the allocator of their own creation flows
+    private void planHostsForBatchCreatingVm(APIBatchCreateVmInstanceMsg msg, List<CreateVmInstanceMsg> cmsgs, NoErrorCompletion completion) {
+        if (cmsgs.size() == 1 || msg.getHostUuid() != null ||
+                VmCreationStrategy.JustCreate == VmCreationStrategy.valueOf(msg.getStrategy())) {
+            completion.done();
+            return;
+        }
+
+        APIGetCandidateZonesClustersHostsForCreatingVmMsg gmsg = new APIGetCandidateZonesClustersHostsForCreatingVmMsg();
+        gmsg.setImageUuid(msg.getImageUuid());
+        gmsg.setZoneUuid(msg.getZoneUuid());
+        gmsg.setClusterUuid(msg.getClusterUuid());
+        gmsg.setInstanceOfferingUuid(msg.getInstanceOfferingUuid());
+        gmsg.setCpuNum(msg.getCpuNum());
+        gmsg.setMemorySize(msg.getMemorySize());
+        gmsg.setRootDiskOfferingUuid(msg.getRootDiskOfferingUuid());
+        gmsg.setRootDiskSize(msg.getRootDiskSize());
+        gmsg.setDataDiskOfferingUuids(msg.getDataDiskOfferingUuids());
+        gmsg.setL3NetworkUuids(msg.getL3NetworkUuids());
+        gmsg.setDefaultL3NetworkUuid(msg.getDefaultL3NetworkUuid());
+        gmsg.setSystemTags(msg.getSystemTags());
+
+        DesignatedAllocateHostMsg amsg;
+        try {
+            amsg = makeCandidateHostsDryRunMsg(gmsg);
+        } catch (OperationFailureException e) {
+            logger.warn(String.format("unable to plan hosts for batch creating vms, let vms allocate hosts by themselves, %s", e.getErrorCode()));
+            completion.done();
+            return;
+        }
+
+        bus.makeLocalServiceId(amsg, HostAllocatorConstant.SERVICE_ID);
+        bus.send(amsg, new CloudBusCallBack(completion) {
+            @Override
+            public void run(MessageReply reply) {
+                if (!reply.isSuccess()) {
+                    logger.warn(String.format("unable to plan hosts for batch creating vms, let vms allocate hosts by themselves, %s", reply.getError()));
+                    completion.done();
+                    return;
+                }
+
+                List<String> hostUuids = ((AllocateHostDryRunReply) reply).getHosts().stream()
+                        .map(HostInventory::getUuid).collect(Collectors.toList());
+                assignHostsForBatchCreatingVm(hostUuids, cmsgs);
+                completion.done();
+            }
+        });
+    }
+
+    private void assignHostsForBatchCreatingVm(List<String> hostUuids, List<CreateVmInstanceMsg> cmsgs) {
+        if (hostUuids.isEmpty()) {
+            return;
+        }
+
+        int cpuNum = cmsgs.get(0).getCpuNum();
+        long memorySize = cmsgs.get(0).getMemorySize();
+
+        Map<String, Long> availableCpu = new HashMap<>();
+        Map<String, Long> availableMemory = new HashMap<>();
+        List<Tuple> ts = Q.New(HostCapacityVO.class)
+                .select(HostCapacityVO_.uuid, HostCapacityVO_.availableCpu, HostCapacityVO_.availableMemory)
+                .in(HostCapacityVO_.uuid, hostUuids)
+                .listTuple();
+        for (Tuple t : ts) {
+            availableCpu.put(t.get(0, String.class), t.get(1, Long.class));
+            availableMemory.put(t.get(0, String.class), t.get(2, Long.class));
+        }
+
+        for (CreateVmInstanceMsg cmsg : cmsgs) {
+            // spread vms by the available memory, the same measure the allocator sorts hosts by
+            String hostUuid = availableMemory.keySet().stream()
+                    .filter(uuid -> availableCpu.get(uuid) >= cpuNum)
+                    .filter(uuid -> ratioMgr.calculateHostAvailableMemoryByRatio(uuid, availableMemory.get(uuid)) >= memorySize)
+                    .max(Comparator.comparingLong(uuid -> ratioMgr.calculateHostAvailableMemoryByRatio(uuid, availableMemory.get(uuid))))
+                    .orElse(null);
+            if (hostUuid == null) {
+                continue;
+            }
+
+            cmsg.setHostUuid(hostUuid);
+            availableCpu.put(hostUuid, availableCpu.get(hostUuid) - cpuNum);
+            availableMemory.put(hostUuid, availableMemory.get(hostUuid) - ratioMgr.calculateMemoryByRatio(hostUuid, memorySize));
+        }
+    }
+
+    private void batchCreateVmInstances(APIBatchCreateVmInstanceMsg msg, List<CreateVmInstanceMsg> cmsgs) {
+        APIBatchCreateVmInstanceEvent evt = new APIBatchCreateVmInstanceEvent(msg.getId());
+        Map<CreateVmInstanceMsg, BatchCreateVmInstanceStruct> results = Collections.synchronizedMap(new HashMap<>());
+
+        new While<>(cmsgs).step((cmsg, whileCompletion) -> {
+            BatchCreateVmInstanceStruct struct = new BatchCreateVmInstanceStruct();
+            struct.setName(cmsg.getName());
+            results.put(cmsg, struct);
+
+            createVmInstanceOfBatch(msg, cmsg, new ReturnValueCompletion<VmInstanceInventory>(whileCompletion) {
+                @Override
+                public void success(VmInstanceInventory inv) {
+                    struct.setSuccess(true);
+                    struct.setInventory(inv);
+                    whileCompletion.done();
+                }
+
+                @Override
+                public void fail(ErrorCode errorCode) {
+                    struct.setSuccess(false);
+                    struct.setError(errorCode);
+                    whileCompletion.done();
+                }
+            });
+        }, VmGlobalConfig.BATCH_CREATE_PARALLELISM_DEGREE.value(Integer.class)).run(new WhileDoneCompletion(msg) {
+            @Override
+            public void done(ErrorCodeList errorCodeList) {
+                evt.setResults(cmsgs.stream().map(results::get).collect(Collectors.toList()));
+                bus.publish(evt);
+            }
+        });
+    }
+
+    // hosts planned for a batch are checked against cpu and memory only, a vm failing on its planned host
+    // is created once more with the host chosen by the allocator, as it would be if created alone
+    private void createVmInstanceOfBatch(APIBatchCreateVmInstanceMsg msg, CreateVmInstanceMsg cmsg, ReturnValueCompletion<VmInstanceInventory> completion) {
+        String plannedHostUuid = msg.getHostUuid() == null ? cmsg.getHostUuid() : null;
+        doCreateVmInstance(cmsg, msg, new ReturnValueCompletion<VmInstanceInventory>(completion) {
+            @Override
+            public void success(VmInstanceInventory inv) {
+                completion.success(inv);
+            }
+
+            @Override
+            public void fail(ErrorCode errorCode) {
+                if (plannedHostUuid == null) {
+                    completion.fail(errorCode);
+                    return;
+                }
+
+                logger.debug(String.format("failed to create the vm[name:%s] on the planned host[uuid:%s], let the allocator" +
+                        " choose a host for it, %s", cmsg.getName(), plannedHostUuid, errorCode));
+                cmsg.setHostUuid(null);
+                doCreateVmInstance(cmsg, msg, completion);
+            }
+        });
+    }
+
     private void doDeleteVmNic(VmNicInventory nic, Completion completion) {
         thdf.chainSubmit(new ChainTask(completion) {
             @Override
@@ -1912,6 +2086,7 @@ public class VmInstanceManagerImpl extends AbstractService implements
         quota.addPair(p);
 
         quota.addMessageNeedValidation(APICreateVmInstanceMsg.class);
+        quota.addMessageNeedValidation(APIBatchCreateVmInstanceMsg.class);
         quota.addMessageNeedValidation(APIRecoverVmInstanceMsg.class);
         quota.addMessageNeedValidation(APICreateDataVolumeMsg.class);
         quota.addMessageNeedValidation(APIRecoverDataVolumeMsg.class);
@@ -54,7 +54,7 @@ public class VmNicFactory implements VmInstanceNicFactory {
             ipVO.setVmNicUuid(vnic.getUuid());
             ipVOS.add(ipVO);
         }
-        dbf.updateCollection(ipVOS);
+        dbf.bulkUpdate(ipVOS);
 
         vnic = dbf.reload(vnic);
         spec.getDestNics().add(VmNicInventory.valueOf(vnic));
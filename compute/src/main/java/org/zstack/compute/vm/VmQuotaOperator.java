@@ -463,21 +463,24 @@ public class VmQuotaOperator implements Quota.QuotaOperator {
         long allVolumeSizeQuota = pairs.get(VmQuotaConstant.VOLUME_SIZE).getValue();
 
 
+        // a batch create asks for the resources of all its vms at once
+        int vmNumAsked = msg instanceof APIBatchCreateVmInstanceMsg ? ((APIBatchCreateVmInstanceMsg) msg).getCount() : 1;
+
         VmQuotaUtil.VmQuota vmQuotaUsed = new VmQuotaUtil().getUsedVmCpuMemory(currentAccountUuid);
 
-        if (vmQuotaUsed.totalVmNum + 1 > totalVmNumQuota) {
+        if (vmQuotaUsed.totalVmNum + vmNumAsked > totalVmNumQuota) {
             throw new ApiMessageInterceptionException(new QuotaUtil().buildQuataExceedError(
                     currentAccountUuid, VmQuotaConstant.VM_TOTAL_NUM, totalVmNumQuota));
         }
 
-        if (vmQuotaUsed.runningVmNum + 1 > runningVmNumQuota) {
+        if (vmQuotaUsed.runningVmNum + vmNumAsked > runningVmNumQuota) {
             throw new ApiMessageInterceptionException(new QuotaUtil().buildQuataExceedError(
                     currentAccountUuid, VmQuotaConstant.VM_RUNNING_NUM, runningVmNumQuota));
         }
 
         final Pair<Integer, Long> pair = getInstanceOfferingAsked(msg);
-        int cpuNumAsked = pair.first();
-        long memoryAsked = pair.second();
+        long cpuNumAsked = (long) pair.first() * vmNumAsked;
+        long memoryAsked = pair.second() * vmNumAsked;
 
         if (vmQuotaUsed.runningVmCpuNum + cpuNumAsked > runningVmCpuNumQuota) {
             throw new ApiMessageInterceptionException(new QuotaUtil().buildQuataExceedError(
@@ -492,7 +495,7 @@ public class VmQuotaOperator implements Quota.QuotaOperator {
         // check data volume num
         if (msg.getDataDiskOfferingUuids() != null && !msg.getDataDiskOfferingUuids().isEmpty()) {
             long dataVolumeNumUsed = new VmQuotaUtil().getUsedDataVolumeCount(currentAccountUuid);
-            long dataVolumeNumAsked = msg.getDataDiskOfferingUuids().size();
+            long dataVolumeNumAsked = (long) msg.getDataDiskOfferingUuids().size() * vmNumAsked;
             if (dataVolumeNumUsed + dataVolumeNumAsked > dataVolumeNumQuota) {
                 throw new ApiMessageInterceptionException(new QuotaUtil().buildQuataExceedError(
                         currentAccountUuid, VmQuotaConstant.DATA_VOLUME_NUM, dataVolumeNumQuota));
@@ -555,7 +558,7 @@ public class VmQuotaOperator implements Quota.QuotaOperator {
             quotaCompareInfo.quotaName = VmQuotaConstant.VOLUME_SIZE;
             quotaCompareInfo.quotaValue = allVolumeSizeQuota;
             quotaCompareInfo.currentUsed = allVolumeSizeUsed;
-            quotaCompareInfo.request = allVolumeSizeAsked;
+            quotaCompareInfo.request = allVolumeSizeAsked * vmNumAsked;
             new QuotaUtil().CheckQuota(quotaCompareInfo);
         }
     }
@@ -58,3 +58,6 @@ UPDATE `zstack`.`BareMetal2ChassisVO` SET status = "IPxeBootFailed" WHERE status
 UPDATE `zstack`.`BareMetal2ChassisVO` SET status = "IPxeBooting" WHERE status = "iPxeBooting";
 
 ALTER TABLE QuotaVO MODIFY COLUMN `value` bigint DEFAULT 0;
+
+ALTER TABLE `zstack`.`ImageCacheVO` ADD COLUMN `lastAccessDate` timestamp NULL DEFAULT NULL;
+ALTER TABLE `zstack`.`ImageCacheVO` ADD COLUMN `accessCount` bigint unsigned NOT NULL DEFAULT 0;
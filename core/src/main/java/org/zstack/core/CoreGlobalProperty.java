@@ -48,6 +48,10 @@ public class CoreGlobalProperty {
     public static int REST_FACADE_MAX_PER_ROUTE;
     @GlobalProperty(name = "RESTFacade.maxTotal", defaultValue = "128")
     public static int REST_FACADE_MAX_TOTAL;
+    @GlobalProperty(name = "RESTFacade.maxConcurrencyPerDestination", defaultValue = "32")
+    public static int REST_FACADE_MAX_CONCURRENCY_PER_DESTINATION;
+    @GlobalProperty(name = "RESTFacade.maxQueueSizePerDestination", defaultValue = "2000")
+    public static int REST_FACADE_MAX_QUEUE_SIZE_PER_DESTINATION;
     @GlobalProperty(name = "upgradeStartOn", defaultValue = "false")
     public static boolean IS_UPGRADE_START;
     @GlobalProperty(name = "shadowEntityOn", defaultValue = "false")
@@ -82,4 +86,10 @@ public class CoreGlobalProperty {
     public static boolean CHAIN_TASK_QOS;
     @GlobalProperty(name = "rest.api.result.max.length", defaultValue = "64000")
     public static int REST_API_RESULT_MAX_LENGTH;
+    @GlobalProperty(name = "resourceTakeover.pageSize", defaultValue = "1000")
+    public static int RESOURCE_TAKEOVER_PAGE_SIZE;
+    @GlobalProperty(name = "resourceTakeover.parallelismDegree", defaultValue = "4")
+    public static int RESOURCE_TAKEOVER_PARALLELISM_DEGREE;
+    @GlobalProperty(name = "resourceTakeover.timeoutInSeconds", defaultValue = "600")
+    public static long RESOURCE_TAKEOVER_TIMEOUT_IN_SECONDS;
 }
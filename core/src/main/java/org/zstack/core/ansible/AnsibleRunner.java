@@ -9,6 +9,9 @@ import org.zstack.core.cloudbus.CloudBus;
 import org.zstack.core.cloudbus.CloudBusCallBack;
 import org.zstack.core.defer.Defer;
 import org.zstack.core.defer.Deferred;
+import org.zstack.core.thread.Task;
+import org.zstack.core.thread.ThreadFacade;
+import org.zstack.core.thread.ThreadGlobalProperty;
 import org.zstack.header.core.Completion;
 import org.zstack.header.core.ReturnValueCompletion;
 import org.zstack.header.errorcode.ErrorCode;
@@ -32,6 +35,7 @@ import java.net.URI;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
+import static org.zstack.core.Platform.inerr;
 import static org.zstack.core.Platform.operr;
 import static org.zstack.utils.CollectionDSL.e;
 import static org.zstack.utils.CollectionDSL.map;
@@ -49,6 +53,8 @@ public class AnsibleRunner {
     private CloudBus bus;
     @Autowired
     private RESTFacade restf;
+    @Autowired
+    private ThreadFacade thdf;
 
     private static String privKeyFile;
     private List<AnsibleChecker> checkers = new ArrayList<AnsibleChecker>();
@@ -382,6 +388,34 @@ public class AnsibleRunner {
     }
 
     public void run(ReturnValueCompletion<Boolean> completion) {
+        if (!ThreadGlobalProperty.BLOCKING_POOL_ENABLED) {
+            doRun(completion);
+            return;
+        }
+
+        // checking and preparing the target go through ssh, don't hold a thread of the fixed pool for them
+        thdf.submitBlockingPool(new Task<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    doRun(completion);
+                } catch (OperationFailureException e) {
+                    completion.fail(e.getErrorCode());
+                } catch (Throwable t) {
+                    logger.warn(t.getMessage(), t);
+                    completion.fail(inerr(t.getMessage()));
+                }
+                return null;
+            }
+
+            @Override
+            public String getName() {
+                return String.format("run-ansible-%s-on-%s", playBookName, targetIp);
+            }
+        });
+    }
+
+    private void doRun(ReturnValueCompletion<Boolean> completion) {
         try {
             if (!forceRun && !isNeedRun()) {
                 completion.success(false);
@@ -0,0 +1,26 @@
+package org.zstack.core.cloudbus;
+
+import org.zstack.header.message.LocalEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * canonical events fired on a management node in a period, published to other nodes together
+ */
+public class CanonicalEventBatch extends LocalEvent {
+    private List<CanonicalEvent> events = new ArrayList<>();
+
+    @Override
+    public String getSubCategory() {
+        return "canonicalEventBatch";
+    }
+
+    public List<CanonicalEvent> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<CanonicalEvent> events) {
+        this.events = events;
+    }
+}
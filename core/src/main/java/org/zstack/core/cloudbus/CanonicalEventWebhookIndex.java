@@ -0,0 +1,153 @@
+package org.zstack.core.cloudbus;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.zstack.core.db.DatabaseFacade;
+import org.zstack.core.db.Q;
+import org.zstack.core.thread.PeriodicTask;
+import org.zstack.core.thread.ThreadFacade;
+import org.zstack.core.webhook.WebhookGlobalProperty;
+import org.zstack.header.DependentComponent;
+import org.zstack.header.core.webhooks.WebhookInventory;
+import org.zstack.header.core.webhooks.WebhookVO;
+import org.zstack.header.core.webhooks.WebhookVO_;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * webhooks of canonical events indexed by their path globs, so firing an event doesn't
+ * query webhooks from the database.
+ *
+ * the index is refreshed by {@link #refresh(String)} when a webhook is created, updated or deleted,
+ * other management nodes are notified by a canonical event; webhooks are also reloaded every
+ * Webhook.subscription.reloadInterval seconds in case of changes made out of the webhook service.
+ */
+public class CanonicalEventWebhookIndex implements DependentComponent {
+    private static final CLogger logger = Utils.getLogger(CanonicalEventWebhookIndex.class);
+
+    public static final String WEBHOOK_CHANGED_PATH = "/webhook/change";
+
+    @Autowired
+    private EventFacade evtf;
+    @Autowired
+    private ThreadFacade thdf;
+
+    private final EventPathIndex<WebhookInventory> index = new EventPathIndex<>();
+    private Future<Void> reloadThread;
+
+    public List<WebhookInventory> match(String path) {
+        return index.match(path);
+    }
+
+    private void put(WebhookVO vo) {
+        if (!EventFacade.WEBHOOK_TYPE.equals(vo.getType()) || vo.getOpaque() == null) {
+            index.remove(vo.getUuid());
+            return;
+        }
+
+        try {
+            index.put(vo.getUuid(), vo.getOpaque(),
+                    EventFacadeImpl.createRegexFromGlob(vo.getOpaque().replaceAll("\\{.*\\}", ".*")),
+                    WebhookInventory.valueOf(vo));
+        } catch (Exception e) {
+            index.remove(vo.getUuid());
+            logger.warn(String.format("invalid path[%s] of the webhook[uuid:%s, name:%s], it will never be called",
+                    vo.getOpaque(), vo.getUuid(), vo.getName()), e);
+        }
+    }
+
+    /**
+     * reloads the webhook from the database on this management node
+     */
+    public void refresh(String uuid) {
+        WebhookVO vo = Q.New(WebhookVO.class).eq(WebhookVO_.uuid, uuid).find();
+        if (vo == null) {
+            index.remove(uuid);
+        } else {
+            put(vo);
+        }
+    }
+
+    /**
+     * reloads the webhook on all management nodes, must be called after the change of the webhook is committed
+     */
+    public void notifyChanged(String uuid) {
+        refresh(uuid);
+        evtf.fire(WEBHOOK_CHANGED_PATH, uuid);
+    }
+
+    void reload() {
+        List<WebhookVO> vos = Q.New(WebhookVO.class).eq(WebhookVO_.type, EventFacade.WEBHOOK_TYPE).list();
+        Set<String> stale = index.ids();
+        for (WebhookVO vo : vos) {
+            stale.remove(vo.getUuid());
+            put(vo);
+        }
+
+        stale.forEach(index::remove);
+    }
+
+    @Override
+    public List<Class<?>> getDependencies() {
+        // the index is loaded from the database and kept in sync by canonical events only
+        return Arrays.asList(DatabaseFacade.class, EventFacade.class);
+    }
+
+    @Override
+    public boolean start() {
+        reload();
+
+        evtf.on(WEBHOOK_CHANGED_PATH, new EventCallback<String>() {
+            @Override
+            protected void run(Map<String, String> tokens, String uuid) {
+                if (!evtf.isFromThisManagementNode(tokens)) {
+                    refresh(uuid);
+                }
+            }
+        });
+
+        if (WebhookGlobalProperty.SUBSCRIPTION_RELOAD_INTERVAL > 0) {
+            reloadThread = thdf.submitPeriodicTask(new PeriodicTask() {
+                @Override
+                public TimeUnit getTimeUnit() {
+                    return TimeUnit.SECONDS;
+                }
+
+                @Override
+                public long getInterval() {
+                    return WebhookGlobalProperty.SUBSCRIPTION_RELOAD_INTERVAL;
+                }
+
+                @Override
+                public String getName() {
+                    return "canonical-event-webhook-reload-thread";
+                }
+
+                @Override
+                public void run() {
+                    try {
+                        reload();
+                    } catch (Throwable t) {
+                        logger.warn("failed to reload webhooks of canonical events", t);
+                    }
+                }
+            });
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean stop() {
+        if (reloadThread != null) {
+            reloadThread.cancel(true);
+        }
+        return true;
+    }
+}
@@ -57,4 +57,9 @@ public class CloudBusGlobalProperty {
     // Unit of SYNC_CALL_TIMEOUT: millisecond
     @GlobalProperty(name="Cloudbus.syncCallTimeout", defaultValue = "900000")
     public static int SYNC_CALL_TIMEOUT;
+    // Unit of EVENT_PUBLISH_BATCH_INTERVAL: millisecond, 0 publishes every canonical event to other nodes at once
+    @GlobalProperty(name="EventFacade.publishBatchInterval", defaultValue = "100")
+    public static int EVENT_PUBLISH_BATCH_INTERVAL;
+    @GlobalProperty(name="EventFacade.publishBatchSize", defaultValue = "500")
+    public static int EVENT_PUBLISH_BATCH_SIZE;
 }
@@ -2,16 +2,15 @@ package org.zstack.core.cloudbus;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.zstack.core.Platform;
-import org.zstack.core.db.Q;
 import org.zstack.core.thread.AsyncThread;
-import org.zstack.core.webhook.WebhookCaller;
-import org.zstack.header.core.webhooks.WebhookVO_;
+import org.zstack.core.thread.PeriodicTask;
+import org.zstack.core.thread.ThreadFacade;
+import org.zstack.core.webhook.WebhookDeliveryQueue;
 import org.zstack.header.Component;
 import org.zstack.header.apimediator.ApiMessageInterceptionException;
 import org.zstack.header.apimediator.GlobalApiMessageInterceptor;
 import org.zstack.header.core.webhooks.APICreateWebhookMsg;
 import org.zstack.header.core.webhooks.WebhookInventory;
-import org.zstack.header.core.webhooks.WebhookVO;
 import org.zstack.header.message.APIMessage;
 import org.zstack.header.message.Event;
 import org.zstack.utils.TaskContext;
@@ -20,9 +19,10 @@ import org.zstack.utils.gson.JSONObjectUtil;
 import static org.zstack.core.Platform.argerr;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
 
@@ -35,9 +35,21 @@ import static java.util.Arrays.asList;
 public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Component, GlobalApiMessageInterceptor {
     @Autowired
     private CloudBus bus;
+    @Autowired
+    private ThreadFacade thdf;
+    @Autowired
+    private ResourceDestinationMaker destMaker;
+    @Autowired
+    private CanonicalEventWebhookIndex webhookIndex;
+    @Autowired
+    private WebhookDeliveryQueue webhookDeliveryQueue;
+
+    private final EventPathIndex<CallbackWrapper> global = new EventPathIndex<>();
+    private final EventPathIndex<CallbackWrapper> local = new EventPathIndex<>();
 
-    private final Map<String, CallbackWrapper> global = new ConcurrentHashMap<>();
-    private final Map<String, CallbackWrapper> local =  new ConcurrentHashMap<>();
+    // events waiting to be published to other management nodes in a batch
+    private final Queue<CanonicalEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    private Future<Void> publishThread;
 
     private EventSubscriberReceipt unsubscriber;
 
@@ -127,7 +139,7 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
         }
     }
 
-    public String createRegexFromGlob(String glob) {
+    public static String createRegexFromGlob(String glob) {
         String out = "^";
         for(int i = 0; i < glob.length(); ++i) {
             final char c = glob.charAt(i);
@@ -169,19 +181,24 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
         return ret;
     }
 
+    private void subscribe(EventPathIndex<CallbackWrapper> index, String path, AbstractEventFacadeCallback cb) {
+        CallbackWrapper w = new CallbackWrapper(path, cb);
+        index.put(cb.uniqueIdentity, path, w.getGlob(), w);
+    }
+
     @Override
     public void on(String path, AutoOffEventCallback cb) {
-        global.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        subscribe(global, path, cb);
     }
 
     @Override
     public void on(String path, final EventCallback cb) {
-        global.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        subscribe(global, path, cb);
     }
 
     @Override
     public void on(String path, EventRunnable cb) {
-        global.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        subscribe(global, path, cb);
     }
 
     @Override
@@ -192,17 +209,17 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
 
     @Override
     public void onLocal(String path, AutoOffEventCallback cb) {
-        local.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        subscribe(local, path, cb);
     }
 
     @Override
     public void onLocal(String path, EventCallback cb) {
-        local.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        subscribe(local, path, cb);
     }
 
     @Override
     public void onLocal(String path, EventRunnable cb) {
-        local.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        subscribe(local, path, cb);
     }
 
     @Override
@@ -224,36 +241,61 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
         fireLocal(evt);
 
         callWebhooks(evt);
-        
-        bus.publish(evt);
+
+        publishToOtherNodes(evt);
     }
 
-    private void callWebhooks(CanonicalEvent event) {
-        new WebhookCaller() {
-            @Override
-            public void call() {
-                List<WebhookVO> vos = Q.New(WebhookVO.class).eq(WebhookVO_.type, EventFacade.WEBHOOK_TYPE).list();
-                vos = vos.stream().filter(
-                        vo -> event.getPath().matches(
-                                createRegexFromGlob(vo.getOpaque().replaceAll("\\{.*\\}", ".*"))
-                        )).collect(Collectors.toList());
-
-                if (!vos.isEmpty()) {
-                    postToWebhooks(WebhookInventory.valueOf(vos), JSONObjectUtil.toJsonString(event));
-                }
+    private void publishToOtherNodes(CanonicalEvent evt) {
+        if (destMaker.getManagementNodeCount() <= 1) {
+            return;
+        }
+
+        if (CloudBusGlobalProperty.EVENT_PUBLISH_BATCH_INTERVAL <= 0) {
+            bus.publish(evt);
+        } else {
+            pendingEvents.add(evt);
+        }
+    }
+
+    private void publishPendingEvents() {
+        int batchSize = Math.max(CloudBusGlobalProperty.EVENT_PUBLISH_BATCH_SIZE, 1);
+        while (!pendingEvents.isEmpty()) {
+            List<CanonicalEvent> events = new ArrayList<>();
+            CanonicalEvent evt;
+            while (events.size() < batchSize && (evt = pendingEvents.poll()) != null) {
+                events.add(evt);
+            }
+
+            if (events.size() == 1) {
+                bus.publish(events.get(0));
+            } else if (!events.isEmpty()) {
+                CanonicalEventBatch batch = new CanonicalEventBatch();
+                batch.setEvents(events);
+                bus.publish(batch);
             }
-        }.call();
+        }
+    }
+
+    private void callWebhooks(CanonicalEvent event) {
+        List<WebhookInventory> hooks = webhookIndex.match(event.getPath());
+        if (!hooks.isEmpty()) {
+            webhookDeliveryQueue.submit(hooks, JSONObjectUtil.toJsonString(event));
+        }
     }
 
+    // subscribers on this node get the event directly, other nodes get it by publishToOtherNodes()
     private void fireLocal(CanonicalEvent cevt) {
-        Map<String, CallbackWrapper> wrappers = new HashMap<>();
-        wrappers.putAll(local);
+        local.match(cevt.getPath()).forEach(w -> w.call(cevt));
+        global.match(cevt.getPath()).forEach(w -> w.call(cevt));
+    }
 
-        for (CallbackWrapper w : wrappers.values()) {
-            if (cevt.getPath().matches(w.getGlob())) {
-                w.call(cevt);
-            }
+    private void fireFromOtherNode(CanonicalEvent cevt) {
+        if (Platform.getManagementServerId().equals(cevt.getManagementNodeId())) {
+            // delivered by fireLocal() already
+            return;
         }
+
+        global.match(cevt.getPath()).forEach(w -> w.call(cevt));
     }
 
     @Override
@@ -263,17 +305,10 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
 
     @Override
     public boolean handleEvent(Event evt) {
-        if (!(evt instanceof CanonicalEvent)) {
-            return false;
-        }
-
-        CanonicalEvent cevt = (CanonicalEvent)evt;
-        Map<String, CallbackWrapper> wrappers = new HashMap<>();
-        wrappers.putAll(global);
-        for (CallbackWrapper w : wrappers.values()) {
-            if (cevt.getPath().matches(w.getGlob())) {
-                w.call(cevt);
-            }
+        if (evt instanceof CanonicalEvent) {
+            fireFromOtherNode((CanonicalEvent) evt);
+        } else if (evt instanceof CanonicalEventBatch) {
+            ((CanonicalEventBatch) evt).getEvents().forEach(this::fireFromOtherNode);
         }
 
         return false;
@@ -281,12 +316,41 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
 
     @Override
     public boolean start() {
-        unsubscriber =  bus.subscribeEvent(this, new CanonicalEvent());
+        unsubscriber =  bus.subscribeEvent(this, new CanonicalEvent(), new CanonicalEventBatch());
+
+        if (CloudBusGlobalProperty.EVENT_PUBLISH_BATCH_INTERVAL > 0) {
+            publishThread = thdf.submitPeriodicTask(new PeriodicTask() {
+                @Override
+                public TimeUnit getTimeUnit() {
+                    return TimeUnit.MILLISECONDS;
+                }
+
+                @Override
+                public long getInterval() {
+                    return CloudBusGlobalProperty.EVENT_PUBLISH_BATCH_INTERVAL;
+                }
+
+                @Override
+                public String getName() {
+                    return "canonical-event-publish-thread";
+                }
+
+                @Override
+                public void run() {
+                    publishPendingEvents();
+                }
+            });
+        }
         return true;
     }
 
     @Override
     public boolean stop() {
+        if (publishThread != null) {
+            publishThread.cancel(true);
+        }
+        publishPendingEvents();
+
         if (unsubscriber != null) {
             unsubscriber.unsubscribeAll();
         }
@@ -0,0 +1,112 @@
+package org.zstack.core.cloudbus;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * subscriptions of EventFacade indexed by the literal prefix of their paths.
+ *
+ * the prefix of a path is the part before its first segment having a variable or a wildcard,
+ * e.g. "/host/status/" for "/host/status/{uuid}", or the whole path if it has none. An event
+ * path is matched only against the compiled patterns of the subscriptions whose prefix is
+ * a prefix of the event path ending with '/', or is the event path itself. Lookups are lock-free.
+ */
+class EventPathIndex<T> {
+    private static final String META_CHARS = "{}*?.\\[]()+^$|";
+
+    private static class Entry<T> {
+        final String prefix;
+        final Pattern pattern;
+        final T value;
+
+        Entry(String prefix, Pattern pattern, T value) {
+            this.prefix = prefix;
+            this.pattern = pattern;
+            this.value = value;
+        }
+    }
+
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Entry<T>>> buckets = new ConcurrentHashMap<>();
+
+    static String literalPrefix(String path) {
+        int segmentStart = 0;
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '/') {
+                segmentStart = i + 1;
+            } else if (META_CHARS.indexOf(c) >= 0) {
+                return path.substring(0, segmentStart);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * @param regex the regex compiled from the glob of path, the event paths it matches must start with the literal prefix of path
+     */
+    synchronized void put(String id, String path, String regex, T value) {
+        remove(id);
+
+        Entry<T> e = new Entry<>(literalPrefix(path), Pattern.compile(regex), value);
+        entries.put(id, e);
+        buckets.compute(e.prefix, (k, m) -> {
+            if (m == null) {
+                m = new ConcurrentHashMap<>();
+            }
+            m.put(id, e);
+            return m;
+        });
+    }
+
+    synchronized T remove(String id) {
+        Entry<T> e = entries.remove(id);
+        if (e == null) {
+            return null;
+        }
+
+        buckets.computeIfPresent(e.prefix, (k, m) -> {
+            m.remove(id);
+            return m.isEmpty() ? null : m;
+        });
+        return e.value;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    Set<String> ids() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    private void collect(String prefix, String path, List<T> ret) {
+        Map<String, Entry<T>> m = buckets.get(prefix);
+        if (m == null) {
+            return;
+        }
+
+        for (Entry<T> e : m.values()) {
+            if (e.pattern.matcher(path).matches()) {
+                ret.add(e.value);
+            }
+        }
+    }
+
+    List<T> match(String path) {
+        List<T> ret = new ArrayList<>();
+        collect("", path, ret);
+        for (int i = path.indexOf('/'); i >= 0; i = path.indexOf('/', i + 1)) {
+            collect(path.substring(0, i + 1), path, ret);
+        }
+        if (!path.isEmpty() && !path.endsWith("/")) {
+            collect(path, path, ret);
+        }
+        return ret;
+    }
+}
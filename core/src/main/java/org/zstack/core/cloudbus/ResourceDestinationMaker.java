@@ -2,6 +2,7 @@ package org.zstack.core.cloudbus;
 
 import org.zstack.header.managementnode.ManagementNodeInventory;
 import org.zstack.header.managementnode.ManagementNodeVO;
+import org.zstack.utils.hash.ConsistentHash;
 
 import java.util.Collection;
 
@@ -56,4 +57,10 @@ public interface ResourceDestinationMaker {
     int getManagementNodeCount();
 
     boolean isNodeInCircle(String nodeId);
+
+    /**
+     * build a hash ring of the given management nodes that places resources the same
+     * way as this maker does, used to find out resources moved by a ring change
+     */
+    ConsistentHash<String> buildHashRing(Collection<String> nodeUuids);
 }
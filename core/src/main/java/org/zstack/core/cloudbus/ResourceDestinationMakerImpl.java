@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.zstack.core.Platform;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.Q;
+import org.zstack.core.jmx.JmxFacade;
 import org.zstack.header.exception.CloudRuntimeException;
 import org.zstack.header.managementnode.ManagementNodeChangeListener;
 import org.zstack.header.managementnode.ManagementNodeInventory;
@@ -19,12 +20,20 @@ import java.util.*;
  * Time: 12:36 AM
  * To change this template use File | Settings | File Templates.
  */
-public class ResourceDestinationMakerImpl implements ManagementNodeChangeListener, ResourceDestinationMaker {
-    private final ConsistentHash<String> nodeHash = new ConsistentHash<>(new ApacheHash(), 500, new ArrayList<String>()) ;
+public class ResourceDestinationMakerImpl implements ManagementNodeChangeListener, ResourceDestinationMaker, ResourceDestinationMakerMXBean {
+    private static final int VIRTUAL_NODE_NUM = 500;
+
+    private final ConsistentHash<String> nodeHash = new ConsistentHash<>(new ApacheHash(), VIRTUAL_NODE_NUM, new ArrayList<String>()) ;
     private final Map<String, NodeInfo> nodes = new HashMap<>();
 
     @Autowired
     private DatabaseFacade dbf;
+    @Autowired
+    private JmxFacade jmxf;
+
+    void init() {
+        jmxf.registerBean("ResourceDestinationMaker", this);
+    }
 
     @Override
     public void nodeJoin(ManagementNodeInventory inv) {
@@ -106,4 +115,14 @@ public class ResourceDestinationMakerImpl implements ManagementNodeChangeListene
     public boolean isNodeInCircle(String nodeId) {
         return nodeHash.hasNode(nodeId);
     }
+
+    @Override
+    public ConsistentHash<String> buildHashRing(Collection<String> nodeUuids) {
+        return new ConsistentHash<>(new ApacheHash(), VIRTUAL_NODE_NUM, nodeUuids);
+    }
+
+    @Override
+    public Map<String, ResourceTakeoverStatistic> getResourceTakeoverStatistics() {
+        return ResourceTakeoverPipeline.getStatistics();
+    }
 }
@@ -0,0 +1,9 @@
+package org.zstack.core.cloudbus;
+
+import java.util.Map;
+
+/**
+ */
+public interface ResourceDestinationMakerMXBean {
+    Map<String, ResourceTakeoverStatistic> getResourceTakeoverStatistics();
+}
@@ -0,0 +1,232 @@
+package org.zstack.core.cloudbus;
+
+import org.springframework.beans.factory.annotation.Autowire;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Configurable;
+import org.zstack.core.CoreGlobalProperty;
+import org.zstack.core.Platform;
+import org.zstack.core.db.SQL;
+import org.zstack.core.thread.Task;
+import org.zstack.core.thread.ThreadFacade;
+import org.zstack.utils.Utils;
+import org.zstack.utils.hash.ConsistentHash;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Hands resources over between management nodes when the hash ring changes.
+ *
+ * instead of dropping every tracked resource and checking all of them again with
+ * {@link ResourceDestinationMaker#isManagedByUs(String)}, the pipeline remembers the
+ * management nodes of its last run, pages through the resource uuids and compares
+ * the owner in the old ring with the owner in the current ring. Only moved resources
+ * are handed to {@link #takeOver(List)} and {@link #giveUp(List)}, in chunks and with
+ * bounded concurrency.
+ *
+ * resources this node keeps owning are taken over again if {@link #isTakenOver(String)}
+ * says they have been dropped since, e.g. a host tracker stopped pinging, the same as
+ * the full rescan used to do on every management node change.
+ */
+@Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
+public abstract class ResourceTakeoverPipeline {
+    private static final CLogger logger = Utils.getLogger(ResourceTakeoverPipeline.class);
+
+    private static final Map<String, ResourceTakeoverStatistic> statistics = new ConcurrentHashMap<>();
+
+    @Autowired
+    protected ResourceDestinationMaker destMaker;
+    @Autowired
+    protected ThreadFacade thdf;
+
+    private final String name;
+    private final String entityName;
+    private Set<String> lastNodes;
+
+    /**
+     * @param name used in logs and statistics
+     * @param entityClass the VO class of the resource, which must have a uuid field
+     */
+    public ResourceTakeoverPipeline(String name, Class entityClass) {
+        this.name = name;
+        this.entityName = entityClass.getSimpleName();
+    }
+
+    /**
+     * called with resources now managed by this node but not before
+     */
+    protected abstract void takeOver(List<String> resourceUuids);
+
+    /**
+     * called with resources managed by this node before but not anymore
+     */
+    protected abstract void giveUp(List<String> resourceUuids);
+
+    /**
+     * @return false if the resource managed by this node is not tracked anymore, so it's taken
+     * over again on the next hash ring change even if its owner doesn't change
+     */
+    protected boolean isTakenOver(String resourceUuid) {
+        return true;
+    }
+
+    protected int getPageSize() {
+        return CoreGlobalProperty.RESOURCE_TAKEOVER_PAGE_SIZE;
+    }
+
+    protected int getParallelismDegree() {
+        return CoreGlobalProperty.RESOURCE_TAKEOVER_PARALLELISM_DEGREE;
+    }
+
+    public static Map<String, ResourceTakeoverStatistic> getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * take over all resources managed by this node, regardless of the last run.
+     * Used when the management node starts or the caller has dropped everything it tracked.
+     */
+    public synchronized void takeOverAll() {
+        run(null);
+    }
+
+    /**
+     * take over and give up resources moved since the last run
+     */
+    public synchronized void takeOverMovedResources() {
+        run(lastNodes);
+    }
+
+    private Set<String> currentNodes() {
+        Collection<String> nodes = destMaker.getManagementNodesInHashRing();
+        // the ring returns a synchronized set, copy it under its lock
+        synchronized (nodes) {
+            return new HashSet<>(nodes);
+        }
+    }
+
+    private void run(Set<String> oldNodes) {
+        long start = System.currentTimeMillis();
+        Set<String> newNodes = currentNodes();
+        if (oldNodes != null && oldNodes.equals(newNodes)) {
+            logger.debug(String.format("[%s takeover] hash ring doesn't change since the last run, skip it", name));
+            return;
+        }
+
+        ConsistentHash<String> oldRing = oldNodes == null ? null : destMaker.buildHashRing(oldNodes);
+        ConsistentHash<String> newRing = destMaker.buildHashRing(newNodes);
+        String myId = Platform.getManagementServerId();
+
+        Queue<List<String>> toTakeOver = new ConcurrentLinkedQueue<>();
+        Queue<List<String>> toGiveUp = new ConcurrentLinkedQueue<>();
+        int pageSize = getPageSize();
+        long scanned = 0;
+        long takenOver = 0;
+        long givenUp = 0;
+        String last = "";
+        while (true) {
+            List<String> uuids = SQL.New(String.format("select r.uuid from %s r where r.uuid > :last order by r.uuid", entityName), String.class)
+                    .param("last", last).limit(pageSize).list();
+            if (uuids.isEmpty()) {
+                break;
+            }
+
+            List<String> in = new ArrayList<>();
+            List<String> out = new ArrayList<>();
+            for (String uuid : uuids) {
+                boolean ours = myId.equals(newRing.get(uuid));
+                boolean oursBefore = oldRing != null && myId.equals(oldRing.get(uuid));
+                if (ours && (!oursBefore || !isTakenOver(uuid))) {
+                    in.add(uuid);
+                } else if (!ours && oursBefore) {
+                    out.add(uuid);
+                }
+            }
+
+            if (!in.isEmpty()) {
+                toTakeOver.add(in);
+                takenOver += in.size();
+            }
+            if (!out.isEmpty()) {
+                toGiveUp.add(out);
+                givenUp += out.size();
+            }
+
+            scanned += uuids.size();
+            last = uuids.get(uuids.size() - 1);
+            if (uuids.size() < pageSize) {
+                break;
+            }
+        }
+
+        // give up first, so a resource is never tracked by two nodes longer than necessary
+        handOver(toGiveUp, this::giveUp);
+        handOver(toTakeOver, this::takeOver);
+        lastNodes = newNodes;
+
+        long duration = System.currentTimeMillis() - start;
+        statistics.computeIfAbsent(name, ResourceTakeoverStatistic::new).record(duration, scanned, takenOver, givenUp);
+        logger.debug(String.format("[%s takeover] scanned %s resources in %sms, took over %s, gave up %s",
+                name, scanned, duration, takenOver, givenUp));
+    }
+
+    private interface Handler {
+        void handle(List<String> resourceUuids);
+    }
+
+    private void handOver(Queue<List<String>> chunks, Handler handler) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+
+        int workerNum = Math.min(Math.max(getParallelismDegree(), 1), chunks.size());
+        if (workerNum == 1) {
+            drain(chunks, handler);
+            return;
+        }
+
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < workerNum; i++) {
+            futures.add(thdf.submit(new Task<Void>() {
+                @Override
+                public Void call() {
+                    drain(chunks, handler);
+                    return null;
+                }
+
+                @Override
+                public String getName() {
+                    return String.format("resource-takeover-%s", name);
+                }
+            }));
+        }
+
+        for (Future<Void> f : futures) {
+            try {
+                f.get(CoreGlobalProperty.RESOURCE_TAKEOVER_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                logger.warn(String.format("[%s takeover] failed to hand over resources", name), e);
+            }
+        }
+    }
+
+    private void drain(Queue<List<String>> chunks, Handler handler) {
+        List<String> chunk;
+        while ((chunk = chunks.poll()) != null) {
+            try {
+                handler.handle(chunk);
+            } catch (Throwable t) {
+                logger.warn(String.format("[%s takeover] unhandled exception when handing over %s resources", name, chunk.size()), t);
+            }
+        }
+    }
+}
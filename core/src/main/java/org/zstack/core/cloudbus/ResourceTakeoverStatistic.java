@@ -0,0 +1,67 @@
+package org.zstack.core.cloudbus;
+
+import java.beans.ConstructorProperties;
+
+/**
+ */
+public class ResourceTakeoverStatistic {
+    private String name;
+    private long runNum;
+    private long totalDurationInMillis;
+    private long lastDurationInMillis;
+    private long lastScannedNum;
+    private long lastTakenOverNum;
+    private long lastGivenUpNum;
+
+    public ResourceTakeoverStatistic(String name) {
+        this.name = name;
+    }
+
+    @ConstructorProperties({"name", "runNum", "totalDurationInMillis", "lastDurationInMillis", "lastScannedNum", "lastTakenOverNum", "lastGivenUpNum"})
+    public ResourceTakeoverStatistic(String name, long runNum, long totalDurationInMillis, long lastDurationInMillis, long lastScannedNum, long lastTakenOverNum, long lastGivenUpNum) {
+        this.name = name;
+        this.runNum = runNum;
+        this.totalDurationInMillis = totalDurationInMillis;
+        this.lastDurationInMillis = lastDurationInMillis;
+        this.lastScannedNum = lastScannedNum;
+        this.lastTakenOverNum = lastTakenOverNum;
+        this.lastGivenUpNum = lastGivenUpNum;
+    }
+
+    synchronized void record(long duration, long scanned, long takenOver, long givenUp) {
+        runNum++;
+        totalDurationInMillis += duration;
+        lastDurationInMillis = duration;
+        lastScannedNum = scanned;
+        lastTakenOverNum = takenOver;
+        lastGivenUpNum = givenUp;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRunNum() {
+        return runNum;
+    }
+
+    public long getTotalDurationInMillis() {
+        return totalDurationInMillis;
+    }
+
+    public long getLastDurationInMillis() {
+        return lastDurationInMillis;
+    }
+
+    public long getLastScannedNum() {
+        return lastScannedNum;
+    }
+
+    public long getLastTakenOverNum() {
+        return lastTakenOverNum;
+    }
+
+    public long getLastGivenUpNum() {
+        return lastGivenUpNum;
+    }
+}
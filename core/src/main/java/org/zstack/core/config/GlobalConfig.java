@@ -46,6 +46,8 @@ public class GlobalConfig {
     private String validatorRegularExpression;
     private String defaultValue;
     private volatile String value;
+    // value parsed to the common types, replaced as a whole every time the value changes
+    private transient volatile TypedValue typedValue;
     private boolean linked;
     private transient List<GlobalConfigUpdateExtensionPoint> updateExtensions = new ArrayList<>();
     private transient List<GlobalConfigBeforeUpdateExtensionPoint> beforeUpdateExtensions = new ArrayList<>();
@@ -101,7 +103,7 @@ public class GlobalConfig {
         try {
             Class clz = Class.forName(type);
             Object v = TypeUtils.stringToValue(value, clz);
-            value = v.toString();
+            setValue(v.toString());
         } catch (ClassNotFoundException e) {
             throw new CloudRuntimeException(e);
         }
@@ -231,11 +233,75 @@ public class GlobalConfig {
     }
 
     void setValue(String value) {
+        this.typedValue = new TypedValue(value);
         this.value = value;
     }
 
+    /**
+     * reads a pre-parsed value for boolean, number and string types, which neither parses
+     * nor allocates; other types are converted by {@link TypeUtils#stringToValue(String, Class)}
+     */
     public <T> T value(Class<T> clz) {
-        return TypeUtils.stringToValue(value(), clz);
+        String v = value;
+        TypedValue tv = typedValue;
+        if (tv == null || tv.raw != v) {
+            // the value is being updated, or not set by setValue() e.g. deserialized
+            return TypeUtils.stringToValue(v, clz);
+        }
+        return tv.get(clz);
+    }
+
+    private static class TypedValue {
+        final String raw;
+        final Boolean booleanValue;
+        final Integer intValue;
+        final Long longValue;
+        final Short shortValue;
+        final Float floatValue;
+        final Double doubleValue;
+
+        TypedValue(String raw) {
+            this.raw = raw;
+            booleanValue = Boolean.valueOf(raw);
+
+            Double d = null;
+            if (raw != null) {
+                try {
+                    d = Double.valueOf(raw);
+                } catch (NumberFormatException ignored) {
+                    // not a number, converting it to a number fails in TypeUtils as before
+                }
+            }
+
+            doubleValue = d;
+            intValue = d == null ? null : d.intValue();
+            longValue = d == null ? null : d.longValue();
+            shortValue = d == null ? null : d.shortValue();
+            floatValue = d == null ? null : d.floatValue();
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T get(Class<T> clz) {
+            if (clz == String.class) {
+                return (T) raw;
+            } else if (clz == Boolean.class || clz == Boolean.TYPE) {
+                return (T) booleanValue;
+            } else if (doubleValue == null) {
+                return TypeUtils.stringToValue(raw, clz);
+            } else if (clz == Integer.class || clz == Integer.TYPE) {
+                return (T) intValue;
+            } else if (clz == Long.class || clz == Long.TYPE) {
+                return (T) longValue;
+            } else if (clz == Double.class || clz == Double.TYPE) {
+                return (T) doubleValue;
+            } else if (clz == Float.class || clz == Float.TYPE) {
+                return (T) floatValue;
+            } else if (clz == Short.class || clz == Short.TYPE) {
+                return (T) shortValue;
+            }
+
+            return TypeUtils.stringToValue(raw, clz);
+        }
     }
 
     public <T> T defaultValue(Class<T> clz) {
@@ -363,7 +429,7 @@ public class GlobalConfig {
             }
         }
 
-        value = newValue;
+        setValue(newValue);
 
         if (localUpdate) {
             vo.setValue(newValue);
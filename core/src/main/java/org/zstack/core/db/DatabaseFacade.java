@@ -34,6 +34,19 @@ public interface DatabaseFacade {
 
     void updateCollection(Collection entities);
 
+    /**
+     * persist entities in JDBC batches grouped by entity class, classes are written in the order
+     * they first appear in the collection. Entities with database generated ids, which Hibernate
+     * can't batch, are inserted by JDBC directly and optionally by multi-row INSERTs.
+     */
+    void bulkPersist(Collection entities);
+
+    /**
+     * update entities in JDBC batches grouped by entity class, the current rows of a batch are
+     * loaded by one query instead of one query per entity
+     */
+    void bulkUpdate(Collection entities);
+
     void remove(Object entity);
 
     void removeCollection(Collection entities, Class entityClazz);
@@ -1,6 +1,7 @@
 package org.zstack.core.db;
 
 import com.mysql.jdbc.exceptions.jdbc4.MySQLIntegrityConstraintViolationException;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.transaction.annotation.Propagation;
@@ -26,6 +27,7 @@ import javax.sql.DataSource;
 import java.lang.reflect.Field;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.zstack.utils.CollectionDSL.list;
@@ -55,6 +57,7 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
     private Map<Class, List<HardDeleteEntityExtensionPoint>> hardDeleteExtensions = new HashMap<Class, List<HardDeleteEntityExtensionPoint>>();
     private List<HardDeleteEntityExtensionPoint> hardDeleteForAllExtensions = new ArrayList<HardDeleteEntityExtensionPoint>();
     private Map<Class, EntityInfo> entityInfoMap = new HashMap<Class, EntityInfo>();
+    private Map<Class, Optional<JdbcBatchInserter>> jdbcBatchInserters = new ConcurrentHashMap<>();
     private String dbVersion;
 
     class EntityInfo {
@@ -424,6 +427,14 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
             return query.getResultList();
         }
 
+        // joins the current transaction, loaded entities stay in its persistence context
+        void loadByPrimaryKeys(Collection ids) {
+            String sql = String.format("select e from %s e where e.%s in (:ids)", voClass.getSimpleName(), voPrimaryKeyField.getName());
+            TypedQuery query = getEntityManager().createQuery(sql, voClass);
+            query.setParameter("ids", ids);
+            query.getResultList();
+        }
+
         @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
         boolean isExist(Object id) {
             String sql = String.format("select count(*) from %s ref where ref.%s = :id", voClass.getSimpleName(), voPrimaryKeyField.getName());
@@ -478,7 +489,9 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
 
     @Override
     public <T> void update(T entity) {
+        long begin = DbQueryAccounting.start();
         getEntityInfo(entity.getClass()).update(entity);
+        account("update", entity.getClass(), begin, 1);
     }
 
     @Override
@@ -499,13 +512,18 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
     @Override
     @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
     public <T> T findById(long id, Class<T> entityClass) {
-        return getEntityManager().find(entityClass, id);
+        long begin = DbQueryAccounting.start();
+        T ret = getEntityManager().find(entityClass, id);
+        account("findById", entityClass, begin, ret == null ? 0 : 1);
+        return ret;
     }
 
     @Override
     @DeadlockAutoRestart
     public void remove(Object entity) {
+        long begin = DbQueryAccounting.start();
         getEntityInfo(entity.getClass()).remove(entity);
+        account("remove", entity.getClass(), begin, 1);
     }
 
     @Override
@@ -515,7 +533,9 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
             return;
         }
 
+        long begin = DbQueryAccounting.start();
         getEntityInfo(entityClass).removeCollection(entities);
+        account("removeCollection", entityClass, begin, entities.size());
     }
 
     @Override
@@ -524,19 +544,27 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
         if (priKeys.isEmpty()) {
             return;
         }
+        long begin = DbQueryAccounting.start();
         getEntityInfo(entityClazz).removeByPrimaryKeys(priKeys);
+        account("removeByPrimaryKeys", entityClazz, begin, priKeys.size());
     }
 
 
     @Override
     public <T> T updateAndRefresh(T entity) {
-        return (T) getEntityInfo(entity.getClass()).updateAndRefresh(entity);
+        long begin = DbQueryAccounting.start();
+        T ret = (T) getEntityInfo(entity.getClass()).updateAndRefresh(entity);
+        account("updateAndRefresh", entity.getClass(), begin, 1);
+        return ret;
     }
 
     @Override
     @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
     public <T> T findByUuid(String uuid, Class<T> entityClass) {
-        return this.getEntityManager().find(entityClass, uuid);
+        long begin = DbQueryAccounting.start();
+        T ret = this.getEntityManager().find(entityClass, uuid);
+        account("findByUuid", entityClass, begin, ret == null ? 0 : 1);
+        return ret;
     }
 
     @Override
@@ -552,7 +580,9 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
     @Override
     @DeadlockAutoRestart
     public void removeByPrimaryKey(Object primaryKey, Class<?> entityClass) {
+        long begin = DbQueryAccounting.start();
         getEntityInfo(entityClass).removeByPrimaryKey(primaryKey);
+        account("removeByPrimaryKey", entityClass, begin, 1);
     }
 
     @Override
@@ -583,7 +613,10 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
 
     @DeadlockAutoRestart
     private <T> T persist(T entity, boolean isRefresh) {
-        return doPersist(entity, isRefresh);
+        long begin = DbQueryAccounting.start();
+        T ret = doPersist(entity, isRefresh);
+        account(isRefresh ? "persistAndRefresh" : "persist", entity.getClass(), begin, 1);
+        return ret;
     }
 
     @Override
@@ -644,7 +677,10 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
 
     @Override
     public <T> T reload(T entity) {
-        return (T) getEntityInfo(entity.getClass()).reload(entity);
+        long begin = DbQueryAccounting.start();
+        T ret = (T) getEntityInfo(entity.getClass()).reload(entity);
+        account("reload", entity.getClass(), begin, ret == null ? 0 : 1);
+        return ret;
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -657,7 +693,97 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
     @Override
     @DeadlockAutoRestart
     public void updateCollection(Collection entities) {
+        long begin = DbQueryAccounting.start();
         doUpdateCollection(entities);
+        account("updateCollection", entities, begin);
+    }
+
+    private Map<Class, List<Object>> groupByClass(Collection entities) {
+        Map<Class, List<Object>> ret = new LinkedHashMap<>();
+        for (Object e : entities) {
+            ret.computeIfAbsent(e.getClass(), k -> new ArrayList<>()).add(e);
+        }
+        return ret;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    private void doBulkPersist(Collection entities) {
+        Session session = getEntityManager().unwrap(Session.class);
+        int batchSize = Math.max(DbGlobalProperty.JDBC_BATCH_SIZE, 1);
+        session.setJdbcBatchSize(batchSize);
+
+        for (Map.Entry<Class, List<Object>> e : groupByClass(entities).entrySet()) {
+            Class clz = e.getKey();
+            List<Object> group = e.getValue();
+            entityForTranscationCallback(Operation.PERSIST, clz);
+
+            JdbcBatchInserter inserter = jdbcBatchInserters.computeIfAbsent(clz, k -> Optional.ofNullable(JdbcBatchInserter.create(k))).orElse(null);
+            if (inserter != null) {
+                group.forEach(o -> entityEvent(EntityEvent.PRE_PERSIST, o));
+                session.doWork(conn -> inserter.insert(conn, group, batchSize, DbGlobalProperty.MULTI_ROW_INSERT));
+                group.forEach(o -> entityEvent(EntityEvent.POST_PERSIST, o));
+                continue;
+            }
+
+            for (int i = 0; i < group.size(); i++) {
+                getEntityManager().persist(group.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    getEntityManager().flush();
+                    getEntityManager().clear();
+                }
+            }
+            getEntityManager().flush();
+            getEntityManager().clear();
+        }
+    }
+
+    @Override
+    @DeadlockAutoRestart
+    public void bulkPersist(Collection entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        long begin = DbQueryAccounting.start();
+        doBulkPersist(entities);
+        account("bulkPersist", entities, begin);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    private void doBulkUpdate(Collection entities) {
+        Session session = getEntityManager().unwrap(Session.class);
+        int batchSize = Math.max(DbGlobalProperty.JDBC_BATCH_SIZE, 1);
+        session.setJdbcBatchSize(batchSize);
+
+        for (Map.Entry<Class, List<Object>> e : groupByClass(entities).entrySet()) {
+            EntityInfo info = getEntityInfo(e.getKey());
+            List<Object> group = e.getValue();
+            for (int start = 0; start < group.size(); start += batchSize) {
+                List<Object> batch = group.subList(start, Math.min(start + batchSize, group.size()));
+                if (!info.compositePrimaryKey) {
+                    // load the batch into the persistence context, so merge() doesn't select rows one by one
+                    List<Object> ids = new ArrayList<>();
+                    batch.forEach(o -> ids.add(info.getVOPrimaryKeyValue(o)));
+                    info.loadByPrimaryKeys(ids);
+                }
+
+                batch.forEach(o -> getEntityManager().merge(o));
+                getEntityManager().flush();
+                getEntityManager().clear();
+            }
+        }
+    }
+
+    @Override
+    @DeadlockAutoRestart
+    public void bulkUpdate(Collection entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        long begin = DbQueryAccounting.start();
+        doBulkUpdate(entities);
+        account("bulkUpdate", entities, begin);
     }
 
     @Override
@@ -698,21 +824,41 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
 
     @Override
     public <T> List<T> listByPrimaryKeys(Collection ids, int offset, int length, Class<T> clazz) {
-        return getEntityInfo(clazz).listByPrimaryKeys(ids, offset, length);
+        long begin = DbQueryAccounting.start();
+        List<T> ret = getEntityInfo(clazz).listByPrimaryKeys(ids, offset, length);
+        account("listByPrimaryKeys", clazz, begin, ret.size());
+        return ret;
     }
 
     @Override
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void persistCollection(Collection entities) {
+        long begin = DbQueryAccounting.start();
         for (Object e : entities) {
             this.entityForTranscationCallback(Operation.PERSIST, e.getClass());
             this.getEntityManager().persist(e);
         }
+        account("persistCollection", entities, begin);
     }
 
     @Override
     public boolean isExist(Object id, Class<?> clazz) {
-        return getEntityInfo(clazz).isExist(id);
+        long begin = DbQueryAccounting.start();
+        boolean ret = getEntityInfo(clazz).isExist(id);
+        account("isExist", clazz, begin, 1);
+        return ret;
+    }
+
+    private static void account(String method, Class entityClass, long begin, int rows) {
+        if (begin != 0) {
+            DbQueryAccounting.record(String.format("DatabaseFacade.%s %s", method, entityClass.getSimpleName()), begin, rows);
+        }
+    }
+
+    private static void account(String method, Collection entities, long begin) {
+        if (begin != 0 && !entities.isEmpty()) {
+            account(method, entities.iterator().next().getClass(), begin, entities.size());
+        }
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -9,4 +9,12 @@ public class DbGlobalProperty {
     public static String ENTITY_PACKAGES;
     @GlobalProperty(name="C3p0ConnectionTester.isValidTimeout", defaultValue = "60")
     public static int C3P0_IS_VALID_TIMEOUT;
+    @GlobalProperty(name="DatabaseFacade.jdbcBatchSize", defaultValue = "100")
+    public static int JDBC_BATCH_SIZE;
+    @GlobalProperty(name="DatabaseFacade.multiRowInsert", defaultValue = "false")
+    public static boolean MULTI_ROW_INSERT;
+    @GlobalProperty(name="DatabaseFacade.queryAccounting", defaultValue = "true")
+    public static boolean QUERY_ACCOUNTING;
+    @GlobalProperty(name="DatabaseFacade.repeatedQueryThreshold", defaultValue = "20")
+    public static int REPEATED_QUERY_THRESHOLD;
 }
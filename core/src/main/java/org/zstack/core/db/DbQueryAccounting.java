@@ -0,0 +1,147 @@
+package org.zstack.core.db;
+
+import org.apache.logging.log4j.ThreadContext;
+import org.zstack.header.Constants;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * attributes database calls made through Q, SQL, SimpleQuery, UpdateQuery and DatabaseFacade
+ * to the API in the log4j ThreadContext of the calling thread, which follows an API through
+ * CloudBus messages and ThreadFacade tasks.
+ *
+ * every call counts as one query, with the rows it returned or changed and the time it took.
+ * When the API replies, its counts are merged into the {@link DbQueryStatistic} of the API
+ * class, and the queries of the same shape (the JPQL, or the entity, method and conditions
+ * of a SimpleQuery) repeated DatabaseFacade.repeatedQueryThreshold times or more are
+ * reported as a likely N+1 pattern. Calls out of any API are counted under {@link #NON_API}.
+ */
+public class DbQueryAccounting {
+    private static final CLogger logger = Utils.getLogger(DbQueryAccounting.class);
+
+    public static final String NON_API = "non-api";
+
+    // distinct shapes tracked per request, queries of other shapes are counted but not checked for repetition
+    private static final int MAX_SHAPES_PER_REQUEST = 1000;
+    private static final int MAX_REPEATED_QUERY_SAMPLES = 5;
+
+    private static final Map<String, RequestAccount> requests = new ConcurrentHashMap<>();
+    private static final Map<String, DbQueryStatistic> statistics = new ConcurrentHashMap<>();
+
+    private static class RequestAccount {
+        final String apiName;
+        long queryNum;
+        long rowNum;
+        long dbTimeInNanos;
+        volatile long lastAccessTime = System.currentTimeMillis();
+        final Map<String, Integer> shapes = new HashMap<>();
+
+        RequestAccount(String apiName) {
+            this.apiName = apiName;
+        }
+
+        synchronized void add(String shape, long nanos, int rows) {
+            queryNum++;
+            rowNum += rows;
+            dbTimeInNanos += nanos;
+            lastAccessTime = System.currentTimeMillis();
+
+            Integer count = shapes.get(shape);
+            if (count != null) {
+                shapes.put(shape, count + 1);
+            } else if (shapes.size() < MAX_SHAPES_PER_REQUEST) {
+                shapes.put(shape, 1);
+            }
+        }
+
+        synchronized List<String> getRepeatedQueries(int threshold) {
+            return shapes.entrySet().stream()
+                    .filter(e -> e.getValue() >= threshold)
+                    .sorted((e1, e2) -> e2.getValue() - e1.getValue())
+                    .map(e -> String.format("%s times: %s", e.getValue(), e.getKey()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @return the start time to pass to {@link #record(String, long, int)}, or 0 if the accounting is off
+     */
+    static long start() {
+        return DbGlobalProperty.QUERY_ACCOUNTING ? System.nanoTime() : 0;
+    }
+
+    static void record(String shape, long start, int rows) {
+        if (start == 0) {
+            return;
+        }
+
+        long nanos = System.nanoTime() - start;
+        String apiId = ThreadContext.get(Constants.THREAD_CONTEXT_API);
+        if (apiId == null) {
+            getStatistic(NON_API).addQuery(rows, nanos);
+            return;
+        }
+
+        requests.computeIfAbsent(apiId, k -> {
+            String apiName = ThreadContext.get(Constants.THREAD_CONTEXT_TASK_NAME);
+            return new RequestAccount(apiName == null ? NON_API : apiName);
+        }).add(shape, nanos, rows);
+    }
+
+    private static DbQueryStatistic getStatistic(String apiName) {
+        return statistics.computeIfAbsent(apiName, DbQueryStatistic::new);
+    }
+
+    /**
+     * called when the API replies, merges its queries into the statistic of the API class
+     */
+    public static void complete(String apiId) {
+        RequestAccount r = requests.remove(apiId);
+        if (r == null) {
+            return;
+        }
+
+        List<String> repeated = r.getRepeatedQueries(DbGlobalProperty.REPEATED_QUERY_THRESHOLD);
+        if (!repeated.isEmpty()) {
+            logger.warn(String.format("API[name:%s, id:%s] made %s database queries, the same query repeated in %s," +
+                    " it may load associations one by one (N+1 queries)", r.apiName, apiId, r.queryNum, repeated));
+        }
+
+        getStatistic(r.apiName).addRequest(r.queryNum, r.rowNum, r.dbTimeInNanos, repeated, MAX_REPEATED_QUERY_SAMPLES);
+    }
+
+    /**
+     * drops requests not making any query for idleTimeInMillis, e.g. APIs replied by another management node
+     */
+    static int cleanIdleRequests(long idleTimeInMillis) {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Iterator<Map.Entry<String, RequestAccount>> it = requests.entrySet().iterator(); it.hasNext(); ) {
+            if (now - it.next().getValue().lastAccessTime > idleTimeInMillis) {
+                it.remove();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param apiName the full or simple class name of an API, or null for all APIs
+     * @return statistics ordered by the number of queries, the most first
+     */
+    public static List<DbQueryStatistic> getStatistics(String apiName) {
+        return statistics.values().stream()
+                .filter(s -> apiName == null || s.getApiName().equals(apiName) || s.getApiName().endsWith("." + apiName))
+                .map(DbQueryStatistic::copy)
+                .sorted((s1, s2) -> Long.compare(s2.getQueryNum(), s1.getQueryNum()))
+                .collect(Collectors.toList());
+    }
+
+    public static void cleanStatistics() {
+        statistics.clear();
+    }
+}
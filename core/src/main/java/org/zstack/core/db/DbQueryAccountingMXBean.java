@@ -0,0 +1,9 @@
+package org.zstack.core.db;
+
+import java.util.List;
+
+public interface DbQueryAccountingMXBean {
+    List<DbQueryStatistic> getDbQueryStatistics();
+
+    void cleanDbQueryStatistics();
+}
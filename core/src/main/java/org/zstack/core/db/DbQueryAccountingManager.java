@@ -0,0 +1,112 @@
+package org.zstack.core.db;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.zstack.core.jmx.JmxFacade;
+import org.zstack.core.thread.PeriodicTask;
+import org.zstack.core.thread.ThreadFacade;
+import org.zstack.header.DependentComponent;
+import org.zstack.header.message.APIEvent;
+import org.zstack.header.message.APIReply;
+import org.zstack.header.message.Message;
+import org.zstack.header.rest.RestAPIExtensionPoint;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * completes the accounting of an API when it replies, and exposes the statistics by JMX
+ */
+public class DbQueryAccountingManager implements DbQueryAccountingMXBean, DependentComponent, RestAPIExtensionPoint {
+    private static final CLogger logger = Utils.getLogger(DbQueryAccountingManager.class);
+
+    private static final long IDLE_REQUEST_TIMEOUT_IN_MINUTES = 30;
+
+    @Autowired
+    private JmxFacade jmxf;
+    @Autowired
+    private ThreadFacade thdf;
+
+    private Future<Void> cleanupThread;
+
+    @Override
+    public List<DbQueryStatistic> getDbQueryStatistics() {
+        return DbQueryAccounting.getStatistics(null);
+    }
+
+    @Override
+    public void cleanDbQueryStatistics() {
+        DbQueryAccounting.cleanStatistics();
+    }
+
+    @Override
+    public void afterAPIRequest(Message method) {
+    }
+
+    @Override
+    public void beforeAPIResponse(Message msg) {
+        if (msg instanceof APIReply) {
+            String apiId = ((APIReply) msg).getCorrelationId();
+            if (apiId != null) {
+                DbQueryAccounting.complete(apiId);
+            }
+        } else if (msg instanceof APIEvent) {
+            DbQueryAccounting.complete(((APIEvent) msg).getApiId());
+        }
+    }
+
+    @Override
+    public void beforeRestResponse(String method, int statusCode) {
+    }
+
+    @Override
+    public void afterRestRequest(String method) {
+    }
+
+    @Override
+    public List<Class<?>> getDependencies() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean start() {
+        jmxf.registerBean("DbQueryAccounting", this);
+
+        cleanupThread = thdf.submitPeriodicTask(new PeriodicTask() {
+            @Override
+            public TimeUnit getTimeUnit() {
+                return TimeUnit.MINUTES;
+            }
+
+            @Override
+            public long getInterval() {
+                return IDLE_REQUEST_TIMEOUT_IN_MINUTES;
+            }
+
+            @Override
+            public String getName() {
+                return "db-query-accounting-cleanup-thread";
+            }
+
+            @Override
+            public void run() {
+                int count = DbQueryAccounting.cleanIdleRequests(TimeUnit.MINUTES.toMillis(IDLE_REQUEST_TIMEOUT_IN_MINUTES));
+                if (count > 0) {
+                    logger.debug(String.format("dropped db query accounting of %s idle requests", count));
+                }
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean stop() {
+        if (cleanupThread != null) {
+            cleanupThread.cancel(true);
+        }
+        return true;
+    }
+}
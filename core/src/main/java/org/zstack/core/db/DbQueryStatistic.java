@@ -0,0 +1,139 @@
+package org.zstack.core.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * database calls made by requests of the same API, see {@link DbQueryAccounting}
+ */
+public class DbQueryStatistic {
+    private String apiName;
+    private long requestNum;
+    private long queryNum;
+    private long rowNum;
+    private long dbTimeInMillis;
+    private long maxQueryNum;
+    private long averageQueryNum;
+    private long repeatedQueryRequestNum;
+    private List<String> repeatedQueries = new ArrayList<>();
+
+    private transient long dbTimeInNanos;
+
+    public DbQueryStatistic() {
+    }
+
+    public DbQueryStatistic(String apiName) {
+        this.apiName = apiName;
+    }
+
+    synchronized void addQuery(int rows, long nanos) {
+        queryNum++;
+        rowNum += rows;
+        dbTimeInNanos += nanos;
+        dbTimeInMillis = dbTimeInNanos / 1000000;
+    }
+
+    synchronized void addRequest(long queries, long rows, long nanos, List<String> repeated, int maxSamples) {
+        requestNum++;
+        queryNum += queries;
+        rowNum += rows;
+        dbTimeInNanos += nanos;
+        dbTimeInMillis = dbTimeInNanos / 1000000;
+        maxQueryNum = Math.max(maxQueryNum, queries);
+        averageQueryNum = queryNum / requestNum;
+
+        if (!repeated.isEmpty()) {
+            repeatedQueryRequestNum++;
+            // keep the latest samples
+            repeatedQueries.addAll(repeated);
+            if (repeatedQueries.size() > maxSamples) {
+                repeatedQueries = new ArrayList<>(repeatedQueries.subList(repeatedQueries.size() - maxSamples, repeatedQueries.size()));
+            }
+        }
+    }
+
+    synchronized DbQueryStatistic copy() {
+        DbQueryStatistic s = new DbQueryStatistic(apiName);
+        s.requestNum = requestNum;
+        s.queryNum = queryNum;
+        s.rowNum = rowNum;
+        s.dbTimeInMillis = dbTimeInMillis;
+        s.maxQueryNum = maxQueryNum;
+        s.averageQueryNum = averageQueryNum;
+        s.repeatedQueryRequestNum = repeatedQueryRequestNum;
+        s.repeatedQueries = new ArrayList<>(repeatedQueries);
+        return s;
+    }
+
+    public String getApiName() {
+        return apiName;
+    }
+
+    public void setApiName(String apiName) {
+        this.apiName = apiName;
+    }
+
+    public long getRequestNum() {
+        return requestNum;
+    }
+
+    public void setRequestNum(long requestNum) {
+        this.requestNum = requestNum;
+    }
+
+    public long getQueryNum() {
+        return queryNum;
+    }
+
+    public void setQueryNum(long queryNum) {
+        this.queryNum = queryNum;
+    }
+
+    public long getRowNum() {
+        return rowNum;
+    }
+
+    public void setRowNum(long rowNum) {
+        this.rowNum = rowNum;
+    }
+
+    public long getDbTimeInMillis() {
+        return dbTimeInMillis;
+    }
+
+    public void setDbTimeInMillis(long dbTimeInMillis) {
+        this.dbTimeInMillis = dbTimeInMillis;
+    }
+
+    public long getMaxQueryNum() {
+        return maxQueryNum;
+    }
+
+    public void setMaxQueryNum(long maxQueryNum) {
+        this.maxQueryNum = maxQueryNum;
+    }
+
+    public long getAverageQueryNum() {
+        return averageQueryNum;
+    }
+
+    public void setAverageQueryNum(long averageQueryNum) {
+        this.averageQueryNum = averageQueryNum;
+    }
+
+    public long getRepeatedQueryRequestNum() {
+        return repeatedQueryRequestNum;
+    }
+
+    public void setRepeatedQueryRequestNum(long repeatedQueryRequestNum) {
+        this.repeatedQueryRequestNum = repeatedQueryRequestNum;
+    }
+
+    public List<String> getRepeatedQueries() {
+        return repeatedQueries;
+    }
+
+    public void setRepeatedQueries(List<String> repeatedQueries) {
+        this.repeatedQueries = repeatedQueries;
+    }
+}
@@ -0,0 +1,61 @@
+package org.zstack.core.db
+
+doc {
+
+	title "API数据库查询统计"
+
+	field {
+		name "apiName"
+		desc "API的完整类名，non-api为API之外的查询"
+		type "String"
+		since "4.3.0"
+	}
+	field {
+		name "requestNum"
+		desc "已完成的API请求数"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "queryNum"
+		desc "数据库查询次数"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "rowNum"
+		desc "查询返回或修改的行数"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "dbTimeInMillis"
+		desc "数据库查询总时间，单位毫秒"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "maxQueryNum"
+		desc "单个请求的最多查询次数"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "averageQueryNum"
+		desc "单个请求的平均查询次数"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "repeatedQueryRequestNum"
+		desc "重复执行同一查询超过阈值的请求数，可能存在N+1查询"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "repeatedQueries"
+		desc "最近重复执行的查询及次数"
+		type "List"
+		since "4.3.0"
+	}
+}
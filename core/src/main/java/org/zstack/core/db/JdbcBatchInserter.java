@@ -0,0 +1,219 @@
+package org.zstack.core.db;
+
+import org.zstack.header.vo.EO;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import javax.persistence.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts entities whose id is generated by the database with plain JDBC batches.
+ *
+ * Hibernate disables JDBC batching for IDENTITY ids because it has to read back every id
+ * right after its INSERT, so such entities are inserted one statement per row. This class
+ * handles the simple ones, a single table of basic columns without JPA callbacks, and
+ * returns null from {@link #create(Class)} for everything else.
+ */
+class JdbcBatchInserter {
+    private static final CLogger logger = Utils.getLogger(JdbcBatchInserter.class);
+
+    private static final List<Class> SUPPORTED_TYPES = Arrays.asList(
+            String.class, Integer.class, Integer.TYPE, Long.class, Long.TYPE, Short.class, Short.TYPE,
+            Boolean.class, Boolean.TYPE, Double.class, Double.TYPE, Float.class, Float.TYPE, Timestamp.class
+    );
+
+    private final Class entityClass;
+    private final Field idField;
+    private final List<Field> columns;
+    private final String columnList;
+    private final String rowPlaceholder;
+    private final String table;
+
+    private JdbcBatchInserter(Class entityClass, Field idField, List<Field> columns) {
+        this.entityClass = entityClass;
+        this.idField = idField;
+        this.columns = columns;
+
+        Table at = (Table) entityClass.getAnnotation(Table.class);
+        table = at != null && !at.name().isEmpty() ? at.name() : entityClass.getSimpleName();
+        columnList = columns.stream().map(JdbcBatchInserter::columnName).collect(Collectors.joining(", "));
+        rowPlaceholder = columns.stream().map(f -> "?").collect(Collectors.joining(", ", "(", ")"));
+    }
+
+    private static String columnName(Field f) {
+        Column at = f.getAnnotation(Column.class);
+        return at != null && !at.name().isEmpty() ? at.name() : f.getName();
+    }
+
+    static JdbcBatchInserter create(Class entityClass) {
+        if (!entityClass.isAnnotationPresent(Entity.class) || entityClass.isAnnotationPresent(EO.class)
+                || entityClass.isAnnotationPresent(Inheritance.class) || entityClass.isAnnotationPresent(PrimaryKeyJoinColumn.class)
+                || entityClass.isAnnotationPresent(SecondaryTable.class) || entityClass.isAnnotationPresent(IdClass.class)
+                || entityClass.isAnnotationPresent(EntityListeners.class)) {
+            return null;
+        }
+
+        Field idField = null;
+        List<Field> columns = new ArrayList<>();
+        for (Class c = entityClass; c != Object.class; c = c.getSuperclass()) {
+            if (c != entityClass && c.isAnnotationPresent(Entity.class)) {
+                // inheritance between entities
+                return null;
+            }
+
+            if (c != entityClass && !c.isAnnotationPresent(MappedSuperclass.class)) {
+                continue;
+            }
+
+            for (Method m : c.getDeclaredMethods()) {
+                if (m.isAnnotationPresent(PrePersist.class) || m.isAnnotationPresent(PostPersist.class)) {
+                    return null;
+                }
+            }
+
+            for (Field f : c.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers()) || Modifier.isTransient(f.getModifiers()) || f.isAnnotationPresent(Transient.class)) {
+                    continue;
+                }
+
+                if (f.isAnnotationPresent(Id.class)) {
+                    GeneratedValue gv = f.getAnnotation(GeneratedValue.class);
+                    if (gv == null || gv.strategy() != GenerationType.IDENTITY || idField != null) {
+                        return null;
+                    }
+
+                    idField = f;
+                    continue;
+                }
+
+                if (!isBasicColumn(f)) {
+                    return null;
+                }
+
+                Column at = f.getAnnotation(Column.class);
+                if (at != null && !at.insertable()) {
+                    continue;
+                }
+
+                f.setAccessible(true);
+                columns.add(f);
+            }
+        }
+
+        if (idField == null || columns.isEmpty()) {
+            return null;
+        }
+
+        idField.setAccessible(true);
+        return new JdbcBatchInserter(entityClass, idField, columns);
+    }
+
+    private static boolean isBasicColumn(Field f) {
+        if (f.isAnnotationPresent(OneToOne.class) || f.isAnnotationPresent(OneToMany.class) || f.isAnnotationPresent(ManyToOne.class)
+                || f.isAnnotationPresent(ManyToMany.class) || f.isAnnotationPresent(ElementCollection.class)
+                || f.isAnnotationPresent(Embedded.class) || f.isAnnotationPresent(EmbeddedId.class)
+                || f.isAnnotationPresent(Convert.class) || f.isAnnotationPresent(Version.class)) {
+            return false;
+        }
+
+        return SUPPORTED_TYPES.contains(f.getType()) || f.getType().isEnum();
+    }
+
+    private Object columnValue(Field f, Object entity) throws IllegalAccessException {
+        Object v = f.get(entity);
+        if (v instanceof Enum) {
+            Enumerated at = f.getAnnotation(Enumerated.class);
+            return at != null && at.value() == EnumType.STRING ? ((Enum) v).name() : ((Enum) v).ordinal();
+        }
+        return v;
+    }
+
+    private void setId(Object entity, long id) throws IllegalAccessException {
+        Class type = idField.getType();
+        if (type == Integer.class || type == Integer.TYPE) {
+            idField.set(entity, (int) id);
+        } else if (type == Long.class || type == Long.TYPE) {
+            idField.set(entity, id);
+        }
+    }
+
+    /**
+     * inserts the entities in batches of batchSize rows; with multiRow, every batch is one
+     * multi-row INSERT instead of a JDBC batch of single row INSERTs
+     */
+    void insert(Connection conn, List entities, int batchSize, boolean multiRow) throws SQLException {
+        batchSize = Math.max(batchSize, 1);
+        for (int start = 0; start < entities.size(); start += batchSize) {
+            List batch = entities.subList(start, Math.min(start + batchSize, entities.size()));
+            try {
+                if (multiRow) {
+                    insertMultiRow(conn, batch);
+                } else {
+                    insertBatch(conn, batch);
+                }
+            } catch (IllegalAccessException e) {
+                throw new SQLException(String.format("unable to access columns of %s", entityClass.getName()), e);
+            }
+        }
+    }
+
+    private String insertSql(int rows) {
+        StringBuilder sb = new StringBuilder(String.format("INSERT INTO `%s` (%s) VALUES ", table, columnList));
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(rowPlaceholder);
+        }
+        return sb.toString();
+    }
+
+    private void insertBatch(Connection conn, List batch) throws SQLException, IllegalAccessException {
+        try (PreparedStatement ps = conn.prepareStatement(insertSql(1), Statement.RETURN_GENERATED_KEYS)) {
+            for (Object entity : batch) {
+                for (int i = 0; i < columns.size(); i++) {
+                    ps.setObject(i + 1, columnValue(columns.get(i), entity));
+                }
+                ps.addBatch();
+            }
+
+            ps.executeBatch();
+            readGeneratedIds(ps, batch);
+        }
+    }
+
+    private void insertMultiRow(Connection conn, List batch) throws SQLException, IllegalAccessException {
+        try (PreparedStatement ps = conn.prepareStatement(insertSql(batch.size()), Statement.RETURN_GENERATED_KEYS)) {
+            int index = 1;
+            for (Object entity : batch) {
+                for (Field f : columns) {
+                    ps.setObject(index++, columnValue(f, entity));
+                }
+            }
+
+            ps.executeUpdate();
+            readGeneratedIds(ps, batch);
+        }
+    }
+
+    private void readGeneratedIds(PreparedStatement ps, List batch) throws SQLException, IllegalAccessException {
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            int i = 0;
+            while (rs.next() && i < batch.size()) {
+                setId(batch.get(i++), rs.getLong(1));
+            }
+
+            if (i < batch.size()) {
+                logger.debug(String.format("only got %s generated ids for %s %s inserted", i, batch.size(), entityClass.getSimpleName()));
+            }
+        }
+    }
+}
@@ -85,8 +85,7 @@ public class SQL {
 
     @Transactional(readOnly = true)
     private List transactionalList() {
-        rebuildQueryInTransaction();
-        return query.getResultList();
+        return resultList();
     }
 
     public <T> List<T> list()  {
@@ -95,11 +94,18 @@ public class SQL {
 
     @Transactional(readOnly = true)
     private <K> K transactionalFind() {
-        rebuildQueryInTransaction();
-        List lst = query.getResultList();
+        List lst = resultList();
         return lst.isEmpty() ? null : (K) lst.get(0);
     }
 
+    private List resultList() {
+        long begin = DbQueryAccounting.start();
+        rebuildQueryInTransaction();
+        List ret = query.getResultList();
+        DbQueryAccounting.record(sql, begin, ret.size());
+        return ret;
+    }
+
     private void rebuildQueryInTransaction() {
         query = entityClass == null ? dbf.getEntityManager().createQuery(sql) : dbf.getEntityManager().createQuery(sql, entityClass);
         if (first != null) {
@@ -122,9 +128,11 @@ public class SQL {
 
     @Transactional
     private int transactionalExecute() {
+        long begin = DbQueryAccounting.start();
         rebuildQueryInTransaction();
         int ret = query.executeUpdate();
         dbf.getEntityManager().flush();
+        DbQueryAccounting.record(sql, begin, ret);
         return ret;
     }
 
@@ -137,8 +145,7 @@ public class SQL {
         List<T> items = new ArrayList<>();
         int times = (int) (total / max) + (total % max != 0 ? 1 : 0);
         for (int i=0; i<times; i++) {
-            rebuildQueryInTransaction();
-            for (T item : (List<T>) query.getResultList()) {
+            for (T item : (List<T>) resultList()) {
                 if (predicate.test(item)) {
                     items.add(item);
                     if (items.size() >= maxCount) {
@@ -160,8 +167,7 @@ public class SQL {
 
         int times = (int) (total / max) + (total % max != 0 ? 1 : 0);
         for (int i=0; i<times; i++) {
-            rebuildQueryInTransaction();
-            consumer.accept(query.getResultList());
+            consumer.accept(resultList());
             first += max;
         }
     }
@@ -188,8 +194,7 @@ public class SQL {
             return;
         }
 
-        rebuildQueryInTransaction();
-        consumer.accept(query.getResultList(), new PaginateCompletion() {
+        consumer.accept(resultList(), new PaginateCompletion() {
             @Override
             public void done() {
                 if (!skipIncreaseOffset) {
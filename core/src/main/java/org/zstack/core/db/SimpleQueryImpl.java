@@ -206,6 +206,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
     @Transactional
     T _find() {
         assert _selects.size() == 0 : "find() for entity doesn't need any parameter in Query.Select(), you have put some parameter in Query.select(..), either removing these parameters or using findValue() or findTuple()";
+        long begin = DbQueryAccounting.start();
         done();
 
         T vo = null;
@@ -218,6 +219,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
         } catch (NoResultException e) {
         } catch (EmptyResultDataAccessException e) {
         }
+        account("find", begin, vo == null ? 0 : 1);
         if (vo != null) {
             return vo;
         } else {
@@ -234,6 +236,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
     @Transactional
     <K> List<K> _list() {
         assert _selects.size() == 0 : "list() for entities doesn't need any parameter in Query.Select(), you have put some parameter in Query.select(..), either removing these parameters or using listValue() or listTuple()";
+        long begin = DbQueryAccounting.start();
         done();
         Query q = _dbf.getEntityManager().createQuery(_query);
         if (limit != null) {
@@ -243,6 +246,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
             q.setFirstResult(start);
         }
         List<T> vos = q.getResultList();
+        account("list", begin, vos.size());
         List<K> ros = new ArrayList<K>(vos.size());
         for (T vo : vos) {
            ros.add((K) vo);
@@ -259,6 +263,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
     @Transactional
     <K> K _findValue() {
         assert _selects.size() == 1 : String.format("findValue() only need one parameter in Query.Select(), you have put %s parameter in Query.select(..), either correcting the parameter or using find() or findTuple()", _selects.size());
+        long begin = DbQueryAccounting.start();
         done();
         K value = null;
         try {
@@ -273,7 +278,8 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
         } catch (NoResultException e) {
         } catch (EmptyResultDataAccessException e) {
         }
-        
+
+        account("findValue", begin, value == null ? 0 : 1);
         return value;
     }
 
@@ -286,6 +292,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
     @Transactional
     <K> List<K> _listValue() {
         assert _selects.size() == 1 : String.format("listValue() only need one parameter in Query.Select(), you have put %s parameter in Query.select(..), either correcting the parameter or using list() or listTuple()", _selects.size());
+        long begin = DbQueryAccounting.start();
         done();
         Query q = _dbf.getEntityManager().createQuery(_query);
         if (limit != null) {
@@ -295,6 +302,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
             q.setFirstResult(start);
         }
         List<K> vals = q.getResultList();
+        account("listValue", begin, vals.size());
         return vals;
     }
 
@@ -307,6 +315,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
     @Transactional
     Tuple _findTuple() {
         assert _selects.size() > 1 : String.format("findTuple() needs more than one parameter in Query.Select(), you have put %s parameter in Query.select(..), either correcting the parameter or using find() or findValue()", _selects.size());
+        long begin = DbQueryAccounting.start();
         done();
         Tuple ret = null;
         try {
@@ -318,6 +327,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
         } catch (NoResultException e) {
         } catch (EmptyResultDataAccessException e) {
         }
+        account("findTuple", begin, ret == null ? 0 : 1);
         return ret;
     }
 
@@ -330,6 +340,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
     @Transactional
     List<Tuple> _listTuple() {
         assert _selects.size() > 1 : String.format("listTuple() needs more than one parameter in Query.Select(), you have put %s parameter in Query.select(..), either correcting the parameter or using list() or listValue()", _selects.size());
+        long begin = DbQueryAccounting.start();
         done();
         Query q = _dbf.getEntityManager().createQuery(_query);
         if (limit != null) {
@@ -339,6 +350,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
             q.setFirstResult(start);
         }
         List<Tuple> rets =  q.getResultList();
+        account("listTuple", begin, rets.size());
         return rets;
     }
 
@@ -351,11 +363,14 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
     @Transactional
     Long _count() {
         assert _selects.size() == 0 : "count() for entity doesn't need any parameter in Query.Select(), you have put some parameter in Query.select(..), either removing these parameters or using findValue() or findTuple()";
+        long begin = DbQueryAccounting.start();
         _query = _builder.createQuery(Long.class);
         _root = _query.from(_entityClass);
         _query.select(_builder.count(_root));
         _query.where(whereClause());
-        return (Long) _dbf.getEntityManager().createQuery(_query).getSingleResult();
+        Long count = (Long) _dbf.getEntityManager().createQuery(_query).getSingleResult();
+        account("count", begin, 1);
+        return count;
     }
 
     @Override
@@ -384,6 +399,7 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
     @Transactional
     boolean _isExists() {
         assert _selects.size() == 0 : "isExists() for entity doesn't need any parameter in Query.Select(), you have put some parameter in Query.select(..), either removing these parameters or using findValue() or findTuple()";
+        long begin = DbQueryAccounting.start();
         _query = _builder.createQuery(Long.class);
         _root = _query.from(_entityClass);
         _query.select(_builder.count(_root));
@@ -391,9 +407,43 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
         TypedQuery<Long> tq = _dbf.getEntityManager().createQuery(_query);
         tq.setMaxResults(1);
         long count = tq.getSingleResult();
+        account("isExists", begin, 1);
         return count >= 1;
     }
 
+    private void account(String method, long begin, int rows) {
+        if (begin != 0) {
+            DbQueryAccounting.record(shape(method), begin, rows);
+        }
+    }
+
+    // the query without values, the same for every call of a query built by the same code
+    private String shape(String method) {
+        StringBuilder sb = new StringBuilder(_entityClass.getSimpleName()).append(".").append(method);
+        if (!_selects.isEmpty()) {
+            sb.append(" select");
+            for (AttrInfo info : _selects) {
+                sb.append(" ").append(info._attr.getName());
+            }
+        }
+        if (!_conditions.isEmpty()) {
+            sb.append(" where");
+            for (Condition cond : _conditions) {
+                sb.append(" ").append(cond._attr.getName()).append(" ").append(cond._op);
+            }
+        }
+        if (!orderInfos.isEmpty()) {
+            sb.append(" order by");
+            for (OrderInfo info : orderInfos) {
+                sb.append(" ").append(info.attr.getName()).append(" ").append(info.od);
+            }
+        }
+        if (groupByInfo != null) {
+            sb.append(" group by ").append(groupByInfo.getName());
+        }
+        return sb.toString();
+    }
+
     @Override
     public SimpleQuery<T> setLimit(int limit) {
         this.limit = limit;
@@ -190,6 +190,7 @@ public class UpdateQueryImpl implements UpdateQuery {
     private int _hardDelete() {
         DebugUtils.Assert(entityClass!=null, "entity class cannot be null");
 
+        long begin = DbQueryAccounting.start();
         StringBuilder sb = new StringBuilder(String.format("DELETE FROM %s vo", entityClass.getSimpleName()));
 
         String where = where();
@@ -210,6 +211,7 @@ public class UpdateQueryImpl implements UpdateQuery {
 
         int ret = q.executeUpdate();
         dbf.getEntityManager().flush();
+        DbQueryAccounting.record(sql, begin, ret);
         return ret;
     }
 
@@ -223,6 +225,7 @@ public class UpdateQueryImpl implements UpdateQuery {
     private void _delete() {
         DebugUtils.Assert(entityClass!=null, "entity class cannot be null");
 
+        long begin = DbQueryAccounting.start();
         EntityInfo info = dbf.getEntityInfo(entityClass);
 
         DebugUtils.Assert(!info.hasCompositePrimaryKey(), "entity with composite primary key should use hardDelete()");
@@ -246,6 +249,7 @@ public class UpdateQueryImpl implements UpdateQuery {
         }
 
         List ids = q.getResultList();
+        DbQueryAccounting.record(sql, begin, ids.size());
         if (ids.isEmpty()) {
             return;
         }
@@ -263,6 +267,7 @@ public class UpdateQueryImpl implements UpdateQuery {
     private int _update() {
         DebugUtils.Assert(entityClass!=null, "entity class cannot be null");
 
+        long begin = DbQueryAccounting.start();
         StringBuilder sb = new StringBuilder(String.format("UPDATE %s vo", entityClass.getSimpleName()));
         List<String> setters = new ArrayList<>();
         for (Map.Entry<SingularAttribute, Object> e : setValues.entrySet())  {
@@ -292,6 +297,7 @@ public class UpdateQueryImpl implements UpdateQuery {
 
         int n = q.executeUpdate();
         dbf.getEntityManager().flush();
+        DbQueryAccounting.record(sql, begin, n);
         return n;
     }
 }
@@ -0,0 +1,34 @@
+package org.zstack.core.debug;
+
+import org.springframework.http.HttpMethod;
+import org.zstack.header.message.APIParam;
+import org.zstack.header.message.APISyncCallMessage;
+import org.zstack.header.rest.RestRequest;
+
+/**
+ * get database queries made by APIs on the management node receiving the API,
+ * of the API of apiName only if it's specified
+ */
+@RestRequest(
+        path = "/debug/db-query-statistics",
+        method = HttpMethod.GET,
+        responseClass = APIGetDbQueryStatisticsReply.class
+)
+public class APIGetDbQueryStatisticsMsg extends APISyncCallMessage {
+    @APIParam(required = false)
+    private String apiName;
+
+    public String getApiName() {
+        return apiName;
+    }
+
+    public void setApiName(String apiName) {
+        this.apiName = apiName;
+    }
+
+    public static APIGetDbQueryStatisticsMsg __example__() {
+        APIGetDbQueryStatisticsMsg msg = new APIGetDbQueryStatisticsMsg();
+        msg.setApiName("APIQueryVmInstanceMsg");
+        return msg;
+    }
+}
@@ -0,0 +1,61 @@
+package org.zstack.core.debug
+
+import org.zstack.core.debug.APIGetDbQueryStatisticsReply
+
+doc {
+    title "GetDbQueryStatistics"
+
+    category "debug"
+
+    desc """获取管理节点上各API的数据库查询统计"""
+
+    rest {
+        request {
+			url "GET /v1/debug/db-query-statistics"
+
+			header (Authorization: 'OAuth the-session-uuid')
+
+            clz APIGetDbQueryStatisticsMsg.class
+
+            desc """"""
+            
+			params {
+
+				column {
+					name "apiName"
+					enclosedIn ""
+					desc "API的类名或完整类名，不指定时返回所有API的统计"
+					location "query"
+					type "String"
+					optional true
+					since "4.3.0"
+					
+				}
+				column {
+					name "systemTags"
+					enclosedIn ""
+					desc "系统标签"
+					location "query"
+					type "List"
+					optional true
+					since "4.3.0"
+					
+				}
+				column {
+					name "userTags"
+					enclosedIn ""
+					desc "用户标签"
+					location "query"
+					type "List"
+					optional true
+					since "4.3.0"
+					
+				}
+			}
+        }
+
+        response {
+            clz APIGetDbQueryStatisticsReply.class
+        }
+    }
+}
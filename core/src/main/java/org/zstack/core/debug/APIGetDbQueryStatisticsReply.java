@@ -0,0 +1,39 @@
+package org.zstack.core.debug;
+
+import org.zstack.core.db.DbQueryStatistic;
+import org.zstack.header.message.APIReply;
+import org.zstack.header.rest.RestResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+@RestResponse(allTo = "statistics")
+public class APIGetDbQueryStatisticsReply extends APIReply {
+    private List<DbQueryStatistic> statistics = new ArrayList<>();
+
+    public List<DbQueryStatistic> getStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(List<DbQueryStatistic> statistics) {
+        this.statistics = statistics;
+    }
+
+    public static APIGetDbQueryStatisticsReply __example__() {
+        APIGetDbQueryStatisticsReply reply = new APIGetDbQueryStatisticsReply();
+        DbQueryStatistic stat = new DbQueryStatistic("org.zstack.header.vm.APIQueryVmInstanceMsg");
+        stat.setRequestNum(10);
+        stat.setQueryNum(1200);
+        stat.setRowNum(5000);
+        stat.setDbTimeInMillis(800);
+        stat.setMaxQueryNum(150);
+        stat.setAverageQueryNum(120);
+        stat.setRepeatedQueryRequestNum(10);
+        stat.setRepeatedQueries(asList("100 times: VmNicVO.list where vmInstanceUuid ="));
+
+        reply.setStatistics(asList(stat));
+        return reply;
+    }
+}
@@ -0,0 +1,32 @@
+package org.zstack.core.debug
+
+import org.zstack.header.errorcode.ErrorCode
+import org.zstack.core.db.DbQueryStatistic
+
+doc {
+
+	title "数据库查询统计"
+
+	field {
+		name "success"
+		desc ""
+		type "boolean"
+		since "4.3.0"
+	}
+	ref {
+		name "error"
+		path "org.zstack.core.debug.APIGetDbQueryStatisticsReply.error"
+		desc "错误码，若不为null，则表示操作失败, 操作成功时该字段为null",false
+		type "ErrorCode"
+		since "4.3.0"
+		clz ErrorCode.class
+	}
+	ref {
+		name "statistics"
+		path "org.zstack.core.debug.APIGetDbQueryStatisticsReply.statistics"
+		desc "按API统计的数据库查询，查询次数多的在前"
+		type "List"
+		since "4.3.0"
+		clz DbQueryStatistic.class
+	}
+}
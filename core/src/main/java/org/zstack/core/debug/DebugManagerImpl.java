@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.zstack.core.cloudbus.CloudBus;
 import org.zstack.core.cloudbus.CloudBusCallBack;
 import org.zstack.core.cloudbus.MessageSafe;
+import org.zstack.core.db.DbQueryAccounting;
 import org.zstack.core.thread.ThreadFacade;
 import org.zstack.header.AbstractService;
 import org.zstack.header.core.progress.ChainInfo;
@@ -51,6 +52,8 @@ public class DebugManagerImpl extends AbstractService implements DebugManager {
             handle((APIGetDebugSignalMsg) msg);
         } else if (msg instanceof APICleanQueueMsg) {
             handle((APICleanQueueMsg) msg);
+        } else if (msg instanceof APIGetDbQueryStatisticsMsg) {
+            handle((APIGetDbQueryStatisticsMsg) msg);
         } else {
             handleLocalMessage(msg);
         }
@@ -125,6 +128,12 @@ public class DebugManagerImpl extends AbstractService implements DebugManager {
         bus.reply(msg, reply);
     }
 
+    private void handle(APIGetDbQueryStatisticsMsg msg) {
+        APIGetDbQueryStatisticsReply reply = new APIGetDbQueryStatisticsReply();
+        reply.setStatistics(DbQueryAccounting.getStatistics(msg.getApiName()));
+        bus.reply(msg, reply);
+    }
+
     private void handle(APIDebugSignalMsg msg) {
         APIDebugSignalEvent evt = new APIDebugSignalEvent(msg.getId());
         for (String sig : msg.getSignals()) {
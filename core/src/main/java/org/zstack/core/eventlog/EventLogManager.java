@@ -4,7 +4,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 import org.zstack.core.cloudbus.CloudBus;
 import org.zstack.core.db.DatabaseFacade;
-import org.zstack.core.db.SQLBatch;
 import org.zstack.core.db.UpdateQuery;
 import org.zstack.core.thread.PeriodicTask;
 import org.zstack.core.thread.ThreadFacade;
@@ -54,22 +53,20 @@ public class EventLogManager implements EventLogger, Component, ManagementNodeRe
         List<EventLogBuilder> builders = new ArrayList<>();
         eventLogQueue.drainTo(builders);
 
-        new SQLBatch() {
-            @Override
-            protected void scripts() {
-                for (EventLogBuilder builder: builders) {
-                    EventLogVO vo = new EventLogVO();
-                    vo.setTime(System.currentTimeMillis());
-                    vo.setCategory(builder.category);
-                    vo.setResourceUuid(builder.resourceUuid);
-                    vo.setResourceType(builder.resourceType);
-                    vo.setTrackingId(builder.trackingId);
-                    vo.setContent(String.format(builder.content, builder.arguments.toArray()));
-                    vo.setType(builder.type);
-                    dbf.getEntityManager().persist(vo);
-                }
-            }
-        }.execute();
+        List<EventLogVO> vos = new ArrayList<>();
+        for (EventLogBuilder builder: builders) {
+            EventLogVO vo = new EventLogVO();
+            vo.setTime(System.currentTimeMillis());
+            vo.setCategory(builder.category);
+            vo.setResourceUuid(builder.resourceUuid);
+            vo.setResourceType(builder.resourceType);
+            vo.setTrackingId(builder.trackingId);
+            vo.setContent(String.format(builder.content, builder.arguments.toArray()));
+            vo.setType(builder.type);
+            vos.add(vo);
+        }
+
+        dbf.bulkPersist(vos);
     }
 
     private void start_consumer() {
@@ -0,0 +1,33 @@
+package org.zstack.core.gc;
+
+import org.springframework.http.HttpMethod;
+import org.zstack.header.managementnode.ManagementNodeVO;
+import org.zstack.header.message.APIParam;
+import org.zstack.header.message.APISyncCallMessage;
+import org.zstack.header.rest.RestRequest;
+
+/**
+ * get the scheduler statistics of time-based GC jobs on a management node,
+ * the node receiving the API if managementNodeUuid is not specified
+ */
+@RestRequest(
+        path = "/gc-job-statistics",
+        method = HttpMethod.GET,
+        responseClass = APIGetGCJobStatisticsReply.class
+)
+public class APIGetGCJobStatisticsMsg extends APISyncCallMessage {
+    @APIParam(resourceType = ManagementNodeVO.class, required = false)
+    private String managementNodeUuid;
+
+    public String getManagementNodeUuid() {
+        return managementNodeUuid;
+    }
+
+    public void setManagementNodeUuid(String managementNodeUuid) {
+        this.managementNodeUuid = managementNodeUuid;
+    }
+
+    public static APIGetGCJobStatisticsMsg __example__() {
+        return new APIGetGCJobStatisticsMsg();
+    }
+}
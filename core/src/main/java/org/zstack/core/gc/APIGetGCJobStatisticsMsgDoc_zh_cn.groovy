@@ -0,0 +1,61 @@
+package org.zstack.core.gc
+
+import org.zstack.core.gc.APIGetGCJobStatisticsReply
+
+doc {
+    title "GetGCJobStatistics"
+
+    category "gc"
+
+    desc """获取管理节点上基于时间的GC任务调度统计"""
+
+    rest {
+        request {
+			url "GET /v1/gc-job-statistics"
+
+			header (Authorization: 'OAuth the-session-uuid')
+
+            clz APIGetGCJobStatisticsMsg.class
+
+            desc """"""
+            
+			params {
+
+				column {
+					name "managementNodeUuid"
+					enclosedIn ""
+					desc "管理节点UUID，不指定时为接收API的管理节点"
+					location "query"
+					type "String"
+					optional true
+					since "4.3.0"
+					
+				}
+				column {
+					name "systemTags"
+					enclosedIn ""
+					desc "系统标签"
+					location "query"
+					type "List"
+					optional true
+					since "4.3.0"
+					
+				}
+				column {
+					name "userTags"
+					enclosedIn ""
+					desc "用户标签"
+					location "query"
+					type "List"
+					optional true
+					since "4.3.0"
+					
+				}
+			}
+        }
+
+        response {
+            clz APIGetGCJobStatisticsReply.class
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.zstack.core.gc;
+
+import org.zstack.header.message.APIReply;
+import org.zstack.header.rest.RestResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+@RestResponse(fieldsTo = {"all"})
+public class APIGetGCJobStatisticsReply extends APIReply {
+    private long queueDepth;
+    private long overdueNum;
+    private int runningNum;
+    private List<GarbageCollectorTypeStatistic> typeStatistics = new ArrayList<>();
+
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(long queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public long getOverdueNum() {
+        return overdueNum;
+    }
+
+    public void setOverdueNum(long overdueNum) {
+        this.overdueNum = overdueNum;
+    }
+
+    public int getRunningNum() {
+        return runningNum;
+    }
+
+    public void setRunningNum(int runningNum) {
+        this.runningNum = runningNum;
+    }
+
+    public List<GarbageCollectorTypeStatistic> getTypeStatistics() {
+        return typeStatistics;
+    }
+
+    public void setTypeStatistics(List<GarbageCollectorTypeStatistic> typeStatistics) {
+        this.typeStatistics = typeStatistics;
+    }
+
+    public static APIGetGCJobStatisticsReply __example__() {
+        APIGetGCJobStatisticsReply reply = new APIGetGCJobStatisticsReply();
+        GarbageCollectorTypeStatistic stat = new GarbageCollectorTypeStatistic("org.zstack.storage.volume.VolumeGC");
+        stat.setExecutedTimes(10);
+        stat.setFailedTimes(2);
+        stat.setTotalTimeInMillis(1500);
+        stat.setMaxTimeInMillis(400);
+        stat.setAverageTimeInMillis(150);
+
+        reply.setQueueDepth(120);
+        reply.setOverdueNum(3);
+        reply.setRunningNum(50);
+        reply.setTypeStatistics(asList(stat));
+        return reply;
+    }
+}
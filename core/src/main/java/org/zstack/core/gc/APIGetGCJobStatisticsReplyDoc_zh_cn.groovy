@@ -0,0 +1,50 @@
+package org.zstack.core.gc
+
+import org.zstack.header.errorcode.ErrorCode
+import org.zstack.core.gc.GarbageCollectorTypeStatistic
+
+doc {
+
+	title "GC任务调度统计"
+
+	field {
+		name "queueDepth"
+		desc "等待调度的GC任务数"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "overdueNum"
+		desc "已到期但因并发限制仍在等待的GC任务数"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "runningNum"
+		desc "正在执行的GC任务数"
+		type "int"
+		since "4.3.0"
+	}
+	field {
+		name "success"
+		desc ""
+		type "boolean"
+		since "4.3.0"
+	}
+	ref {
+		name "error"
+		path "org.zstack.core.gc.APIGetGCJobStatisticsReply.error"
+		desc "错误码，若不为null，则表示操作失败, 操作成功时该字段为null",false
+		type "ErrorCode"
+		since "4.3.0"
+		clz ErrorCode.class
+	}
+	ref {
+		name "typeStatistics"
+		path "org.zstack.core.gc.APIGetGCJobStatisticsReply.typeStatistics"
+		desc "按GC类型统计的执行情况"
+		type "List"
+		since "4.3.0"
+		clz GarbageCollectorTypeStatistic.class
+	}
+}
@@ -14,6 +14,7 @@ public abstract class CycleBasedGarbageCollector extends TimeBasedGarbageCollect
     protected void success() {
         assert uuid != null;
         unlock();
+        consecutiveFailures = 0;
 
         logger.debug(String.format("[GC] a job[name:%s, id:%s] completes successfully", NAME, uuid));
 
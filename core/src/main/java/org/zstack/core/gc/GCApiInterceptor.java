@@ -29,6 +29,10 @@ public class GCApiInterceptor implements ApiMessageInterceptor {
             setServiceId((GarbageCollectorMessage) msg);
         }
 
+        if (msg instanceof APIGetGCJobStatisticsMsg && ((APIGetGCJobStatisticsMsg) msg).getManagementNodeUuid() != null) {
+            bus.makeServiceIdByManagementNodeId(msg, GCConstants.SERVICE_ID, ((APIGetGCJobStatisticsMsg) msg).getManagementNodeUuid());
+        }
+
         return msg;
     }
 
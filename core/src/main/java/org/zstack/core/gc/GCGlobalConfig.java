@@ -19,4 +19,10 @@ public class GCGlobalConfig {
 
     @GlobalConfigValidation
     public static GlobalConfig RETENTION_TIME = new GlobalConfig(CATEGORY, "retentionTime");
+
+    @GlobalConfigValidation(numberGreaterThan = 0)
+    public static GlobalConfig TIME_BASED_JOB_PARALLELISM_DEGREE = new GlobalConfig(CATEGORY, "timeBasedJobParallelismDegree");
+
+    @GlobalConfigValidation(numberGreaterThan = -1)
+    public static GlobalConfig RETRY_MAX_INTERVAL = new GlobalConfig(CATEGORY, "retryMaxInterval");
 }
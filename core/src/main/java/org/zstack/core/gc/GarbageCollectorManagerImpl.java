@@ -60,6 +60,8 @@ public class GarbageCollectorManagerImpl extends AbstractService
 
     private ConcurrentHashMap<String, GarbageCollector> managedGarbageCollectors = new ConcurrentHashMap<>();
 
+    private final TimeBasedGCScheduler timeBasedGCScheduler = new TimeBasedGCScheduler();
+
     private void startScanOrphanJobs() {
         if (scanOrphanJobsTask != null) {
             scanOrphanJobsTask.cancel(true);
@@ -163,15 +165,26 @@ public class GarbageCollectorManagerImpl extends AbstractService
 
     void deregisterGC(GarbageCollector gc) {
         managedGarbageCollectors.remove(gc.uuid);
+        timeBasedGCScheduler.unschedule(gc);
+    }
+
+    void scheduleTimeBasedGC(TimeBasedGarbageCollector gc, long delayInMillis, boolean failed) {
+        timeBasedGCScheduler.schedule(gc, delayInMillis, failed);
+    }
+
+    void unscheduleTimeBasedGC(TimeBasedGarbageCollector gc) {
+        timeBasedGCScheduler.unschedule(gc);
     }
 
     @Override
     public boolean start() {
+        timeBasedGCScheduler.start();
         return true;
     }
 
     @Override
     public boolean stop() {
+        timeBasedGCScheduler.stop();
         return true;
     }
 
@@ -287,11 +300,22 @@ public class GarbageCollectorManagerImpl extends AbstractService
             handle((APITriggerGCJobMsg) msg);
         } else if (msg instanceof APIDeleteGCJobMsg) {
             handle((APIDeleteGCJobMsg) msg);
+        } else if (msg instanceof APIGetGCJobStatisticsMsg) {
+            handle((APIGetGCJobStatisticsMsg) msg);
         } else {
             bus.dealWithUnknownMessage(msg);
         }
     }
 
+    private void handle(APIGetGCJobStatisticsMsg msg) {
+        APIGetGCJobStatisticsReply reply = new APIGetGCJobStatisticsReply();
+        reply.setQueueDepth(timeBasedGCScheduler.getQueueDepth());
+        reply.setOverdueNum(timeBasedGCScheduler.getOverdueNum());
+        reply.setRunningNum(timeBasedGCScheduler.getRunningNum());
+        reply.setTypeStatistics(timeBasedGCScheduler.getStatistics());
+        bus.reply(msg, reply);
+    }
+
     private void handle(APIDeleteGCJobMsg msg) {
         GarbageCollector gc = managedGarbageCollectors.get(msg.getUuid());
         if (gc != null) {
@@ -0,0 +1,78 @@
+package org.zstack.core.gc;
+
+/**
+ * execution statistics of time-based GC jobs of the same runner class
+ */
+public class GarbageCollectorTypeStatistic {
+    private String runnerClass;
+    private long executedTimes;
+    private long failedTimes;
+    private long totalTimeInMillis;
+    private long maxTimeInMillis;
+    private long averageTimeInMillis;
+
+    public GarbageCollectorTypeStatistic() {
+    }
+
+    public GarbageCollectorTypeStatistic(String runnerClass) {
+        this.runnerClass = runnerClass;
+    }
+
+    synchronized void record(long timeInMillis, boolean failed) {
+        executedTimes++;
+        if (failed) {
+            failedTimes++;
+        }
+        totalTimeInMillis += timeInMillis;
+        maxTimeInMillis = Math.max(maxTimeInMillis, timeInMillis);
+        averageTimeInMillis = totalTimeInMillis / executedTimes;
+    }
+
+    public String getRunnerClass() {
+        return runnerClass;
+    }
+
+    public void setRunnerClass(String runnerClass) {
+        this.runnerClass = runnerClass;
+    }
+
+    public long getExecutedTimes() {
+        return executedTimes;
+    }
+
+    public void setExecutedTimes(long executedTimes) {
+        this.executedTimes = executedTimes;
+    }
+
+    public long getFailedTimes() {
+        return failedTimes;
+    }
+
+    public void setFailedTimes(long failedTimes) {
+        this.failedTimes = failedTimes;
+    }
+
+    public long getTotalTimeInMillis() {
+        return totalTimeInMillis;
+    }
+
+    public void setTotalTimeInMillis(long totalTimeInMillis) {
+        this.totalTimeInMillis = totalTimeInMillis;
+    }
+
+    public long getMaxTimeInMillis() {
+        return maxTimeInMillis;
+    }
+
+    public void setMaxTimeInMillis(long maxTimeInMillis) {
+        this.maxTimeInMillis = maxTimeInMillis;
+    }
+
+    public long getAverageTimeInMillis() {
+        return averageTimeInMillis;
+    }
+
+    public void setAverageTimeInMillis(long averageTimeInMillis) {
+        this.averageTimeInMillis = averageTimeInMillis;
+    }
+}
@@ -0,0 +1,43 @@
+package org.zstack.core.gc
+
+doc {
+
+	title "GC类型执行统计"
+
+	field {
+		name "runnerClass"
+		desc "GC任务的实现类"
+		type "String"
+		since "4.3.0"
+	}
+	field {
+		name "executedTimes"
+		desc "执行次数"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "failedTimes"
+		desc "执行失败次数"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "totalTimeInMillis"
+		desc "总执行时间，单位毫秒"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "maxTimeInMillis"
+		desc "最长执行时间，单位毫秒"
+		type "long"
+		since "4.3.0"
+	}
+	field {
+		name "averageTimeInMillis"
+		desc "平均执行时间，单位毫秒"
+		type "long"
+		since "4.3.0"
+	}
+}
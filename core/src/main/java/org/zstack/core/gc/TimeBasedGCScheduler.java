@@ -0,0 +1,217 @@
+package org.zstack.core.gc;
+
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One time-ordered queue and one dispatcher thread for all time-based GC jobs of
+ * this management node, replacing a java.util.Timer thread per job.
+ *
+ * at most {@link GCGlobalConfig#TIME_BASED_JOB_PARALLELISM_DEGREE} jobs run at the
+ * same time; a job counts as running from the moment it's dispatched until it's
+ * rescheduled, cancelled or deregistered. Due jobs exceeding the limit stay in the
+ * queue and are reported as overdue.
+ */
+class TimeBasedGCScheduler {
+    private static final CLogger logger = Utils.getLogger(TimeBasedGCScheduler.class);
+
+    private static final AtomicLong seq = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final TreeSet<Entry> queue = new TreeSet<>();
+    private final Map<TimeBasedGarbageCollector, Entry> scheduled = new HashMap<>();
+    private final Map<TimeBasedGarbageCollector, Long> running = new HashMap<>();
+    private final Map<String, GarbageCollectorTypeStatistic> statistics = new ConcurrentHashMap<>();
+
+    private Thread dispatcher;
+    private volatile boolean stopped;
+
+    private static class Entry implements Comparable<Entry> {
+        final TimeBasedGarbageCollector gc;
+        final long dueTime;
+        final long order = seq.incrementAndGet();
+
+        Entry(TimeBasedGarbageCollector gc, long dueTime) {
+            this.gc = gc;
+            this.dueTime = dueTime;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int ret = Long.compare(dueTime, o.dueTime);
+            return ret != 0 ? ret : Long.compare(order, o.order);
+        }
+    }
+
+    void start() {
+        lock.lock();
+        try {
+            if (dispatcher != null) {
+                return;
+            }
+
+            stopped = false;
+            dispatcher = new Thread(this::dispatchLoop, "zs-gc-scheduler");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void stop() {
+        lock.lock();
+        try {
+            stopped = true;
+            dispatcher = null;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param failed whether the run of the job that reschedules itself has failed,
+     * only counted if the job is running
+     */
+    void schedule(TimeBasedGarbageCollector gc, long delayInMillis, boolean failed) {
+        lock.lock();
+        try {
+            finish(gc, failed);
+            Entry old = scheduled.remove(gc);
+            if (old != null) {
+                queue.remove(old);
+            }
+
+            Entry e = new Entry(gc, System.currentTimeMillis() + Math.max(delayInMillis, 0));
+            scheduled.put(gc, e);
+            queue.add(e);
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (dispatcher == null && !stopped) {
+            start();
+        }
+    }
+
+    void unschedule(GarbageCollector gc) {
+        if (!(gc instanceof TimeBasedGarbageCollector)) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            finish((TimeBasedGarbageCollector) gc, false);
+            Entry old = scheduled.remove(gc);
+            if (old != null) {
+                queue.remove(old);
+            }
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called with the lock held
+    private void finish(TimeBasedGarbageCollector gc, boolean failed) {
+        Long start = running.remove(gc);
+        if (start == null) {
+            return;
+        }
+
+        statistics.computeIfAbsent(gc.getClass().getName(), GarbageCollectorTypeStatistic::new)
+                .record(System.currentTimeMillis() - start, failed);
+    }
+
+    private int getParallelismDegree() {
+        return Math.max(GCGlobalConfig.TIME_BASED_JOB_PARALLELISM_DEGREE.value(Integer.class), 1);
+    }
+
+    private void dispatchLoop() {
+        while (!stopped) {
+            TimeBasedGarbageCollector gc = null;
+            lock.lock();
+            try {
+                Entry head = queue.isEmpty() ? null : queue.first();
+                long now = System.currentTimeMillis();
+                if (head == null) {
+                    changed.await();
+                } else if (running.size() >= getParallelismDegree()) {
+                    // the limit may be raised by a global config update, check it again after a while
+                    changed.await(1, TimeUnit.SECONDS);
+                } else if (head.dueTime > now) {
+                    changed.await(head.dueTime - now, TimeUnit.MILLISECONDS);
+                } else {
+                    queue.pollFirst();
+                    scheduled.remove(head.gc);
+                    running.put(head.gc, now);
+                    gc = head.gc;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            if (gc != null) {
+                dispatch(gc);
+            }
+        }
+    }
+
+    private void dispatch(TimeBasedGarbageCollector gc) {
+        try {
+            gc.runTrigger();
+        } catch (Throwable t) {
+            logger.warn(String.format("[GC] failed to dispatch a job[name:%s, id:%s]", gc.NAME, gc.getUuid()), t);
+            lock.lock();
+            try {
+                finish(gc, true);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    long getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getOverdueNum() {
+        lock.lock();
+        try {
+            return queue.headSet(new Entry(null, System.currentTimeMillis()), true).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getRunningNum() {
+        lock.lock();
+        try {
+            return running.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    List<GarbageCollectorTypeStatistic> getStatistics() {
+        return new ArrayList<>(statistics.values());
+    }
+}
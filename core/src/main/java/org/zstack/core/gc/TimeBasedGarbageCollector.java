@@ -2,8 +2,6 @@ package org.zstack.core.gc;
 
 import org.zstack.header.errorcode.ErrorCode;
 
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -15,39 +13,56 @@ public abstract class TimeBasedGarbageCollector extends GarbageCollector {
     @GC
     public volatile TimeUnit NEXT_TIME_UNIT;
 
-    private TimerTask currentTimer;
+    // failures since the last success, used to back off retries
+    int consecutiveFailures;
 
     public TimeBasedGarbageCollector() {
         canceller = () -> {};
     }
 
+    private long getDelayInMillis() {
+        long delay = NEXT_TIME_UNIT.toMillis(NEXT_TIME);
+        if (consecutiveFailures == 0) {
+            return delay;
+        }
+
+        long max = TimeUnit.SECONDS.toMillis(GCGlobalConfig.RETRY_MAX_INTERVAL.value(Long.class));
+        if (max <= delay) {
+            return delay;
+        }
+
+        return Math.min(max, delay << Math.min(consecutiveFailures - 1, 30));
+    }
+
     protected void setupTimer() {
-        logger.debug(String.format("[GC] schedule a GC job[name:%s, id:%s] to run after %s %s",
-                NAME, uuid, NEXT_TIME, NEXT_TIME_UNIT));
+        setupTimer(false);
+    }
 
-        currentTimer = new TimerTask() {
-            @Override
-            public void run() {
-                runTrigger();
-            }
-        };
+    private void setupTimer(boolean failed) {
+        long delay = getDelayInMillis();
+        logger.debug(String.format("[GC] schedule a GC job[name:%s, id:%s] to run after %s ms",
+                NAME, uuid, delay));
 
-        new Timer().schedule(currentTimer, NEXT_TIME_UNIT.toMillis(NEXT_TIME));
+        gcMgr.scheduleTimeBasedGC(this, delay, failed);
     }
 
     @Override
-    protected void cancel() {
-        if (currentTimer != null)  {
-            currentTimer.cancel();
-        }
+    protected void success() {
+        consecutiveFailures = 0;
+        super.success();
+    }
 
+    @Override
+    protected void cancel() {
+        gcMgr.unscheduleTimeBasedGC(this);
         super.cancel();
     }
 
     @Override
     protected void fail(ErrorCode err) {
+        consecutiveFailures++;
         super.fail(err);
-        setupTimer();
+        setupTimer(true);
     }
 
     public void load(GarbageCollectorVO vo) {
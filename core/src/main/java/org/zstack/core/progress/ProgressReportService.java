@@ -65,9 +65,12 @@ public class ProgressReportService extends AbstractService implements Management
     private int DELETE_DELAY = 300;
 
     private Future<Void> cleanupThread;
+    private Future<Void> flushThread;
 
     private static Map<String, ParallelTaskStage> parallelTaskStage = new ConcurrentHashMap<>();
 
+    private static final TaskProgressStore store = new TaskProgressStore();
+
     private void startCleanupThread() {
         if (cleanupThread != null) {
             cleanupThread.cancel(true);
@@ -107,6 +110,42 @@ public class ProgressReportService extends AbstractService implements Management
         });
     }
 
+    private void startFlushThread() {
+        if (flushThread != null) {
+            flushThread.cancel(true);
+        }
+
+        logger.debug(String.format("progress flush thread starts with interval %ss", ProgressGlobalConfig.FLUSH_INTERVAL.value(Integer.class)));
+        flushThread = thdf.submitPeriodicTask(new PeriodicTask() {
+            @Override
+            public TimeUnit getTimeUnit() {
+                return TimeUnit.SECONDS;
+            }
+
+            @Override
+            public long getInterval() {
+                return ProgressGlobalConfig.FLUSH_INTERVAL.value(Long.class);
+            }
+
+            @Override
+            public String getName() {
+                return "progress-flush-thread";
+            }
+
+            @Override
+            public void run() {
+                flushTaskProgress();
+            }
+        });
+    }
+
+    /**
+     * writes progress records reported since the last flush to the database
+     */
+    public void flushTaskProgress() {
+        store.flush(dbf, TimeUnit.SECONDS.toMillis(ProgressGlobalConfig.PROGRESS_TTL.value(Long.class)));
+    }
+
     public void setDELETE_DELAY(int DELETE_DELAY) {
         DebugUtils.Assert(DELETE_DELAY > 0, "DELETE_DELAY must be greater than 0");
         this.DELETE_DELAY = DELETE_DELAY;
@@ -159,17 +198,31 @@ public class ProgressReportService extends AbstractService implements Management
             }
         });
 
+        ProgressGlobalConfig.FLUSH_INTERVAL.installUpdateExtension(new GlobalConfigUpdateExtensionPoint() {
+            @Override
+            public void updateGlobalConfig(GlobalConfig oldConfig, GlobalConfig newConfig) {
+                startFlushThread();
+            }
+        });
+
         startCleanupThread();
+        startFlushThread();
 
         return true;
     }
 
-    @Transactional
     public void cleanTaskProgress(String apiId) {
         if (apiId == null) {
             return;
         }
 
+        // the API completes, write its records before they're read from the database
+        store.flushAndRemove(dbf, apiId);
+        markTaskProgressToDelete(apiId);
+    }
+
+    @Transactional
+    private void markTaskProgressToDelete(String apiId) {
         Query query = dbf.getEntityManager().createNativeQuery("select unix_timestamp()");
         Long current = ((BigInteger) query.getSingleResult()).longValue() * 1000;
         SQL.New(TaskProgressVO.class).eq(TaskProgressVO_.apiId, apiId).set(TaskProgressVO_.timeToDelete,
@@ -178,6 +231,11 @@ public class ProgressReportService extends AbstractService implements Management
 
     @Override
     public boolean stop() {
+        if (flushThread != null) {
+            flushThread.cancel(true);
+        }
+
+        flushTaskProgress();
         return true;
     }
 
@@ -220,9 +278,7 @@ public class ProgressReportService extends AbstractService implements Management
         return inv;
     }
 
-    @Transactional
-    private List<TaskProgressInventory> getAllProgress(String apiId) {
-        List<TaskProgressVO> vos = Q.New(TaskProgressVO.class).eq(TaskProgressVO_.apiId, apiId).list();
+    private List<TaskProgressInventory> getAllProgress(List<TaskProgressVO> vos) {
         if (vos.isEmpty()) {
             return new ArrayList<>();
         }
@@ -256,9 +312,42 @@ public class ProgressReportService extends AbstractService implements Management
         return invs;
     }
 
+    // the latest record of the API, followed by the latest record of each ancestor task
+    private List<TaskProgressInventory> getLastProgress(List<TaskProgressVO> vos) {
+        // records are in the order they were reported, the later one wins a tie
+        TaskProgressVO vo = vos.stream().reduce((a, b) -> b.getTime() >= a.getTime() ? b : a).orElse(null);
+        if (vo == null) {
+            return new ArrayList<>();
+        }
+
+        List<TaskProgressInventory> invs = new ArrayList<>();
+        invs.add(inventory(vo));
+        while (vo.getParentUuid() != null) {
+            String parentUuid = vo.getParentUuid();
+            vo = vos.stream().filter(it -> parentUuid.equals(it.getTaskUuid()))
+                    .reduce((a, b) -> b.getTime() >= a.getTime() ? b : a).orElse(null);
+            if (vo == null) {
+                break;
+            }
+
+            invs.add(inventory(vo));
+        }
+
+        Collections.reverse(invs);
+        return invs;
+    }
+
     private void handle(final APIGetTaskProgressMsg msg) {
         APIGetTaskProgressReply reply = new APIGetTaskProgressReply();
 
+        List<TaskProgressVO> vos = store.get(msg.getApiId());
+        if (vos != null) {
+            // the API is running on this management node
+            reply.setInventories(msg.isAll() ? getAllProgress(vos) : getLastProgress(vos));
+            bus.reply(msg, reply);
+            return;
+        }
+
         new SQLBatch() {
             @Override
             protected void scripts() {
@@ -313,7 +402,7 @@ public class ProgressReportService extends AbstractService implements Management
             }
 
             private void replyAllProgress() {
-                reply.setInventories(getAllProgress(msg.getApiId()));
+                reply.setInventories(getAllProgress(Q.New(TaskProgressVO.class).eq(TaskProgressVO_.apiId, msg.getApiId()).list()));
             }
         }.execute();
 
@@ -377,7 +466,7 @@ public class ProgressReportService extends AbstractService implements Management
         vo.setManagementUuid(Platform.getManagementServerId());
         vo.setTaskName(ThreadContext.get(Constants.THREAD_CONTEXT_TASK_NAME));
 
-        Platform.getComponentLoader().getComponent(DatabaseFacade.class).persist(vo);
+        store.add(vo, false);
 
         // use content as the subtask name
         ThreadContext.put(Constants.THREAD_CONTEXT_TASK_NAME, vo.getContent());
@@ -411,7 +500,7 @@ public class ProgressReportService extends AbstractService implements Management
             logger.trace(String.format("report progress is : %s", vo.getContent()));
         }
 
-        Platform.getComponentLoader().getComponent(DatabaseFacade.class).persist(vo);
+        store.add(vo, ProgressGlobalConfig.COALESCE.value(Boolean.class));
     }
 
     private static void taskProgress(TaskType type, String fmt, Object...args) {
@@ -486,7 +575,17 @@ public class ProgressReportService extends AbstractService implements Management
             @Override
             @Deferred
             public boolean run() {
-                // get current progress
+                Runnable cleanup = ThreadContextUtils.saveThreadContext();
+                Defer.defer(cleanup);
+                ThreadContext.put(THREAD_CONTEXT_API, apiId);
+                ThreadContext.put(THREAD_CONTEXT_TASK_NAME, taskName);
+
+                // get current progress, from memory if the API is still running here
+                Integer percent = store.getMaxPercent(apiId);
+                if (percent != null) {
+                    return reportOneStep(percent);
+                }
+
                 Tuple res = SQL.New("SELECT content, timeToDelete FROM TaskProgressVO" +
                         " WHERE apiId = :apiId" +
                         " AND type = :type" +
@@ -501,12 +600,10 @@ public class ProgressReportService extends AbstractService implements Management
                     return true;
                 }
 
-                int currentPercent = res == null ? 0 : new Double(res.get(0, String.class)).intValue();
+                return reportOneStep(res == null ? 0 : new Double(res.get(0, String.class)).intValue());
+            }
 
-                Runnable cleanup = ThreadContextUtils.saveThreadContext();
-                Defer.defer(cleanup);
-                ThreadContext.put(THREAD_CONTEXT_API, apiId);
-                ThreadContext.put(THREAD_CONTEXT_TASK_NAME, taskName);
+            private boolean reportOneStep(int currentPercent) {
                 if (endPercent <= currentPercent) {
                     reportProgress(String.valueOf(currentPercent));
                     return true;
@@ -0,0 +1,168 @@
+package org.zstack.core.progress;
+
+import org.zstack.core.db.DatabaseFacade;
+import org.zstack.header.core.progress.TaskProgressVO;
+import org.zstack.header.core.progress.TaskType;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Progress records of the APIs running on this management node, kept in memory.
+ *
+ * every record is written to the database by {@link #flush(DatabaseFacade, long)} on a cadence
+ * and by {@link #flushAndRemove(DatabaseFacade, String)} when the API completes. With
+ * coalescing, a progress report replaces the previous report of the same task if that one
+ * hasn't been written yet, so only the latest percent in every flush interval is persisted.
+ *
+ * records of an API are served from here until the API completes; completed APIs and
+ * APIs running on other management nodes are read from the database.
+ */
+class TaskProgressStore {
+    private static final CLogger logger = Utils.getLogger(TaskProgressStore.class);
+
+    private final Map<String, ApiProgress> progresses = new ConcurrentHashMap<>();
+
+    private static class ApiProgress {
+        final List<TaskProgressVO> records = new ArrayList<>();
+        // records not written to the database yet
+        List<TaskProgressVO> pending = new ArrayList<>();
+        // task -> the last progress report of the task, if it's still pending
+        final Map<String, TaskProgressVO> pendingProgress = new HashMap<>();
+        long lastUpdateTime;
+
+        synchronized void add(TaskProgressVO vo, boolean coalesce) {
+            lastUpdateTime = System.currentTimeMillis();
+
+            if (vo.getType() == TaskType.Progress && coalesce) {
+                TaskProgressVO last = pendingProgress.get(taskKey(vo));
+                if (last != null) {
+                    last.setContent(vo.getContent());
+                    last.setArguments(vo.getArguments());
+                    last.setTaskName(vo.getTaskName());
+                    last.setParentUuid(vo.getParentUuid());
+                    last.setTime(vo.getTime());
+                    return;
+                }
+            }
+
+            // the vo may be reused by the caller, keep a copy
+            TaskProgressVO copy = copy(vo);
+            records.add(copy);
+            pending.add(copy);
+            if (copy.getType() == TaskType.Progress) {
+                pendingProgress.put(taskKey(copy), copy);
+            }
+        }
+
+        synchronized List<TaskProgressVO> takePending() {
+            List<TaskProgressVO> ret = pending;
+            pending = new ArrayList<>();
+            pendingProgress.clear();
+            return ret;
+        }
+
+        synchronized List<TaskProgressVO> snapshot() {
+            return records.stream().map(TaskProgressStore::copy).collect(Collectors.toList());
+        }
+    }
+
+    // reports made out of any sub task get a random task uuid each, they all belong to the API itself
+    private static String taskKey(TaskProgressVO vo) {
+        return vo.getParentUuid() == null ? "" : vo.getTaskUuid();
+    }
+
+    private static TaskProgressVO copy(TaskProgressVO vo) {
+        TaskProgressVO ret = new TaskProgressVO();
+        ret.setApiId(vo.getApiId());
+        ret.setTaskUuid(vo.getTaskUuid());
+        ret.setParentUuid(vo.getParentUuid());
+        ret.setTaskName(vo.getTaskName());
+        ret.setType(vo.getType());
+        ret.setContent(vo.getContent());
+        ret.setArguments(vo.getArguments());
+        ret.setOpaque(vo.getOpaque());
+        ret.setManagementUuid(vo.getManagementUuid());
+        ret.setTime(vo.getTime());
+        return ret;
+    }
+
+    void add(TaskProgressVO vo, boolean coalesce) {
+        // added in compute() so a record never goes to an API being removed
+        progresses.compute(vo.getApiId(), (k, p) -> {
+            p = p == null ? new ApiProgress() : p;
+            p.add(vo, coalesce);
+            return p;
+        });
+    }
+
+    /**
+     * copies of the progress records of the API in the order they were reported,
+     * or null if the API isn't tracked by this management node
+     */
+    List<TaskProgressVO> get(String apiId) {
+        ApiProgress p = progresses.get(apiId);
+        return p == null ? null : p.snapshot();
+    }
+
+    /**
+     * the max percent the API has reported, or null if the API isn't tracked by this management node
+     */
+    Integer getMaxPercent(String apiId) {
+        ApiProgress p = progresses.get(apiId);
+        if (p == null) {
+            return null;
+        }
+
+        synchronized (p) {
+            return p.records.stream().filter(it -> it.getType() == TaskType.Progress && it.getContent() != null)
+                    .map(it -> new Double(it.getContent()).intValue())
+                    .max(Integer::compare).orElse(0);
+        }
+    }
+
+    private void persist(DatabaseFacade dbf, List<TaskProgressVO> vos) {
+        if (vos.isEmpty()) {
+            return;
+        }
+
+        try {
+            dbf.bulkPersist(vos);
+        } catch (Throwable t) {
+            logger.warn(String.format("failed to persist %s task progress records", vos.size()), t);
+        }
+    }
+
+    /**
+     * writes the pending records of all APIs, and forgets APIs not updated in ttl milliseconds
+     */
+    void flush(DatabaseFacade dbf, long ttl) {
+        List<TaskProgressVO> vos = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (String apiId : progresses.keySet()) {
+            progresses.computeIfPresent(apiId, (k, p) -> {
+                vos.addAll(p.takePending());
+                return now - p.lastUpdateTime > ttl ? null : p;
+            });
+        }
+
+        persist(dbf, vos);
+    }
+
+    /**
+     * writes the pending records of the API and stops tracking it
+     */
+    void flushAndRemove(DatabaseFacade dbf, String apiId) {
+        ApiProgress p = progresses.remove(apiId);
+        if (p != null) {
+            persist(dbf, p.takePending());
+        }
+    }
+
+    int size() {
+        return progresses.size();
+    }
+}
@@ -0,0 +1,102 @@
+package org.zstack.core.rest;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Bounds the concurrent async http requests to one destination(host:port),
+ * so a slow agent cannot take all connections of the shared pool.
+ *
+ * requests over the concurrency limit wait in a bounded queue, requests
+ * over the queue limit are rejected immediately. A queued request that has
+ * been completed in the meantime, e.g. timed out, is dropped instead of
+ * being sent when a slot frees.
+ */
+public class HttpDestinationQueue {
+    public interface Request extends Runnable {
+        /**
+         * @return true if the caller has been completed, e.g. timeout, and the request needn't be sent
+         */
+        boolean isCompleted();
+    }
+
+    private final String destination;
+    private final Queue<Request> pending = new ArrayDeque<>();
+    private int active;
+
+    private long totalRequestNum;
+    private long rejectedRequestNum;
+    private long droppedRequestNum;
+    private long totalLatency;
+    private long completedRequestNum;
+    private long maxLatency;
+
+    public HttpDestinationQueue(String destination) {
+        this.destination = destination;
+    }
+
+    /**
+     * @return false if the queue is full and the request is rejected
+     */
+    public boolean offer(Request request, int maxConcurrency, int maxQueueSize) {
+        synchronized (this) {
+            totalRequestNum++;
+
+            if (active >= maxConcurrency) {
+                if (pending.size() >= maxQueueSize) {
+                    pending.removeIf(this::drop);
+                }
+
+                if (pending.size() >= maxQueueSize) {
+                    rejectedRequestNum++;
+                    return false;
+                }
+
+                pending.offer(request);
+                return true;
+            }
+
+            active++;
+        }
+
+        request.run();
+        return true;
+    }
+
+    private boolean drop(Request request) {
+        if (!request.isCompleted()) {
+            return false;
+        }
+
+        droppedRequestNum++;
+        return true;
+    }
+
+    public void release() {
+        Request next;
+        synchronized (this) {
+            do {
+                next = pending.poll();
+            } while (next != null && drop(next));
+
+            if (next == null) {
+                active--;
+            }
+        }
+
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    synchronized void recordLatency(long latency) {
+        completedRequestNum++;
+        totalLatency += latency;
+        maxLatency = Math.max(maxLatency, latency);
+    }
+
+    public synchronized HttpDestinationStatistic getStatistic() {
+        return new HttpDestinationStatistic(destination, active, pending.size(), totalRequestNum, rejectedRequestNum,
+                droppedRequestNum, completedRequestNum == 0 ? 0 : totalLatency / completedRequestNum, maxLatency);
+    }
+}
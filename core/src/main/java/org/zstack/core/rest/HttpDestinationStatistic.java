@@ -0,0 +1,60 @@
+package org.zstack.core.rest;
+
+import java.beans.ConstructorProperties;
+
+/**
+ */
+public class HttpDestinationStatistic {
+    private String destination;
+    private int activeRequestNum;
+    private int queuedRequestNum;
+    private long totalRequestNum;
+    private long rejectedRequestNum;
+    private long droppedRequestNum;
+    private long averageLatency;
+    private long maxLatency;
+
+    @ConstructorProperties({"destination", "activeRequestNum", "queuedRequestNum", "totalRequestNum", "rejectedRequestNum", "droppedRequestNum", "averageLatency", "maxLatency"})
+    public HttpDestinationStatistic(String destination, int activeRequestNum, int queuedRequestNum, long totalRequestNum, long rejectedRequestNum, long droppedRequestNum, long averageLatency, long maxLatency) {
+        this.destination = destination;
+        this.activeRequestNum = activeRequestNum;
+        this.queuedRequestNum = queuedRequestNum;
+        this.totalRequestNum = totalRequestNum;
+        this.rejectedRequestNum = rejectedRequestNum;
+        this.droppedRequestNum = droppedRequestNum;
+        this.averageLatency = averageLatency;
+        this.maxLatency = maxLatency;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public int getActiveRequestNum() {
+        return activeRequestNum;
+    }
+
+    public int getQueuedRequestNum() {
+        return queuedRequestNum;
+    }
+
+    public long getTotalRequestNum() {
+        return totalRequestNum;
+    }
+
+    public long getRejectedRequestNum() {
+        return rejectedRequestNum;
+    }
+
+    public long getDroppedRequestNum() {
+        return droppedRequestNum;
+    }
+
+    public long getAverageLatency() {
+        return averageLatency;
+    }
+
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+}
@@ -17,6 +17,7 @@ import org.zstack.core.CoreGlobalProperty;
 import org.zstack.core.MessageCommandRecorder;
 import org.zstack.core.Platform;
 import org.zstack.core.debug.DebugManager;
+import org.zstack.core.jmx.JmxFacade;
 import org.zstack.core.retry.Retry;
 import org.zstack.core.retry.RetryCondition;
 import org.zstack.core.thread.AsyncThread;
@@ -50,7 +51,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.zstack.core.Platform.*;
 
-public class RESTFacadeImpl implements RESTFacade {
+public class RESTFacadeImpl implements RESTFacade, RESTFacadeMXBean {
     private static final CLogger logger = Utils.getSafeLogger(RESTFacadeImpl.class);
     
     @Autowired
@@ -59,6 +60,8 @@ public class RESTFacadeImpl implements RESTFacade {
     private ApiTimeoutManager timeoutMgr;
     @Autowired
     private ValidationFacade vf;
+    @Autowired
+    private JmxFacade jmxf;
 
     private String hostname;
     private int port = 8080;
@@ -78,6 +81,8 @@ public class RESTFacadeImpl implements RESTFacade {
         void fail(ErrorCode err);
 
         void success(HttpEntity<String> responseEntity);
+
+        boolean isCompleted();
     }
 
     private interface HttpCallHandlerWrapper {
@@ -87,6 +92,7 @@ public class RESTFacadeImpl implements RESTFacade {
     }
 
     final private Map<String, AsyncHttpWrapper> wrappers = new ConcurrentHashMap<String, AsyncHttpWrapper>();
+    final private Map<String, HttpDestinationQueue> destinationQueues = new ConcurrentHashMap<>();
 
     void init() {
         DebugManager.registerDebugSignalHandler("DumpRestStats", () -> {
@@ -102,6 +108,12 @@ public class RESTFacadeImpl implements RESTFacade {
                     sb.append("\n");
                 }
             }
+            sb.append("# per destination statistics\n");
+            getDestinationStatistics().values().forEach(stat -> sb.append(String.format("%s: active %s, queued %s, total %s," +
+                    " rejected %s, dropped %s, average latency %sms, max latency %sms\n", stat.getDestination(), stat.getActiveRequestNum(),
+                    stat.getQueuedRequestNum(), stat.getTotalRequestNum(), stat.getRejectedRequestNum(),
+                    stat.getDroppedRequestNum(), stat.getAverageLatency(),
+                    stat.getMaxLatency())));
             sb.append("================ END: REST CALL Statistics =====================\n");
             logger.debug(sb.toString());
         });
@@ -140,6 +152,8 @@ public class RESTFacadeImpl implements RESTFacade {
                 CoreGlobalProperty.REST_FACADE_CONNECT_TIMEOUT,
                 CoreGlobalProperty.REST_FACADE_MAX_PER_ROUTE,
                 CoreGlobalProperty.REST_FACADE_MAX_TOTAL);
+
+        jmxf.registerBean("RESTFacade", this);
     }
 
     // timeout are in milliseconds
@@ -301,6 +315,8 @@ public class RESTFacadeImpl implements RESTFacade {
 
         final String taskUuid = Platform.getUuid();
         final long finalStime = stime;
+        final long requestTime = System.currentTimeMillis();
+        final HttpDestinationQueue destinationQueue = getDestinationQueue(url);
 
         HttpHeaders requestHeaders = new HttpHeaders();
         requestHeaders.setContentLength(body.length());
@@ -350,6 +366,7 @@ public class RESTFacadeImpl implements RESTFacade {
 
                     wrappers.remove(taskUuid);
                     cancelTimeout();
+                    destinationQueue.recordLatency(System.currentTimeMillis() - requestTime);
 
                     if (logger.isTraceEnabled()) {
                         List<String> hs = responseEntity.getHeaders().get(RESTConstant.TASK_UUID);
@@ -395,6 +412,7 @@ public class RESTFacadeImpl implements RESTFacade {
                     if (!SysErrors.TIMEOUT.toString().equals(err.getCode())) {
                         cancelTimeout();
                     }
+                    destinationQueue.recordLatency(System.currentTimeMillis() - requestTime);
 
                     logger.warn(String.format("Unable to post to %s: %s", url, err.getDetails()));
                     callback.fail(err);
@@ -410,23 +428,65 @@ public class RESTFacadeImpl implements RESTFacade {
             public void success(HttpEntity<String> responseEntity) {
                 completion.success(responseEntity);
             }
+
+            @Override
+            public boolean isCompleted() {
+                return called.get();
+            }
         };
 
-        try {
-            wrappers.put(taskUuid, wrapper);
+        wrappers.put(taskUuid, wrapper);
 
-            if (logger.isTraceEnabled()) {
-                logger.trace(String.format("json %s [%s], %s", method.toString(), url, req));
+        boolean accepted = destinationQueue.offer(new HttpDestinationQueue.Request() {
+            @Override
+            public boolean isCompleted() {
+                // the caller has been failed while the request was queued, e.g. timeout
+                return wrapper.isCompleted();
             }
 
-            ListenableFuture<ResponseEntity<String>> f = asyncRestTemplate.exchange(url, method, req, String.class);
-            f.addCallback(rsp -> {}, e -> wrapper.fail(err(SysErrors.HTTP_ERROR, e.getLocalizedMessage())));
-        } catch (RestClientException e) {
-            logger.warn(String.format("Unable to %s to %s: %s", method.toString(), url, e.getMessage()));
-            wrapper.fail(ExceptionDSL.isCausedBy(e, ResourceAccessException.class) ? err(SysErrors.IO_ERROR, e.getMessage()) : inerr(e.getMessage()));
+            @Override
+            public void run() {
+                try {
+                    if (logger.isTraceEnabled()) {
+                        logger.trace(String.format("json %s [%s], %s", method.toString(), url, req));
+                    }
+
+                    ListenableFuture<ResponseEntity<String>> f = asyncRestTemplate.exchange(url, method, req, String.class);
+                    f.addCallback(rsp -> destinationQueue.release(), e -> {
+                        destinationQueue.release();
+                        ErrorCode error = err(SysErrors.HTTP_ERROR, e.getLocalizedMessage());
+                        if (e instanceof HttpStatusCodeException) {
+                            error.putToOpaque(RESTConstant.HTTP_STATUS_CODE, ((HttpStatusCodeException) e).getRawStatusCode());
+                        }
+                        wrapper.fail(error);
+                    });
+                } catch (RestClientException e) {
+                    destinationQueue.release();
+                    logger.warn(String.format("Unable to %s to %s: %s", method.toString(), url, e.getMessage()));
+                    wrapper.fail(ExceptionDSL.isCausedBy(e, ResourceAccessException.class) ? err(SysErrors.IO_ERROR, e.getMessage()) : inerr(e.getMessage()));
+                }
+            }
+        }, CoreGlobalProperty.REST_FACADE_MAX_CONCURRENCY_PER_DESTINATION, CoreGlobalProperty.REST_FACADE_MAX_QUEUE_SIZE_PER_DESTINATION);
+
+        if (!accepted) {
+            wrapper.fail(operr("too many pending requests to %s, the queue[size:%s] is full, drop the request to %s",
+                    destinationQueue.getStatistic().getDestination(), CoreGlobalProperty.REST_FACADE_MAX_QUEUE_SIZE_PER_DESTINATION, url));
         }
     }
 
+    private HttpDestinationQueue getDestinationQueue(String url) {
+        URI uri = URI.create(url);
+        String destination = String.format("%s:%s", uri.getHost(), uri.getPort());
+        return destinationQueues.computeIfAbsent(destination, HttpDestinationQueue::new);
+    }
+
+    @Override
+    public Map<String, HttpDestinationStatistic> getDestinationStatistics() {
+        Map<String, HttpDestinationStatistic> ret = new HashMap<>();
+        destinationQueues.forEach((dest, queue) -> ret.put(dest, queue.getStatistic()));
+        return ret;
+    }
+
     @Override
     public void asyncJsonPost(String url, Object body, Map<String, String> headers, AsyncRESTCallback callback) {
         Long timeout = timeoutMgr.getTimeout();
@@ -38,6 +38,13 @@ public abstract class AbstractSingleFlight<K, V> {
         return context.count();
     }
 
+    /**
+     * @return keys of running calls
+     */
+    public synchronized Set<K> keys() {
+        return new HashSet<>(calls.keySet());
+    }
+
     @AsyncThread
     protected void success(ReturnValueCompletion<V> consumer, final V v) {
         consumer.success(v);
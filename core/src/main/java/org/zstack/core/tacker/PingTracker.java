@@ -5,6 +5,7 @@ import org.zstack.core.CoreGlobalProperty;
 import org.zstack.core.Platform;
 import org.zstack.core.cloudbus.CloudBus;
 import org.zstack.core.cloudbus.CloudBusSteppingCallback;
+import org.zstack.core.cloudbus.ResourceTakeoverPipeline;
 import org.zstack.core.thread.PeriodicTask;
 import org.zstack.core.thread.ThreadFacade;
 import org.zstack.header.Component;
@@ -29,9 +30,10 @@ public abstract class PingTracker implements Component {
 
     private final static CLogger logger = Utils.getLogger(PingTracker.class);
 
-    private final List<String> resourceUuids = Collections.synchronizedList(new ArrayList<String>());
+    private final Set<String> resourceUuids = Collections.synchronizedSet(new LinkedHashSet<String>());
     private final Set<String> resourceInTracking = Collections.synchronizedSet(new HashSet<String>());
     private Future<Void> trackerThread = null;
+    private ResourceTakeoverPipeline takeover;
 
     @Autowired
     protected CloudBus bus;
@@ -155,6 +157,45 @@ public abstract class PingTracker implements Component {
         }
     }
 
+    private synchronized ResourceTakeoverPipeline getTakeover(Class resourceClass) {
+        if (takeover == null) {
+            takeover = new ResourceTakeoverPipeline(getResourceName(), resourceClass) {
+                @Override
+                protected void takeOver(List<String> resourceUuids) {
+                    track(resourceUuids);
+                }
+
+                @Override
+                protected void giveUp(List<String> resourceUuids) {
+                    // goes through untrackHook, so subclasses drop their per resource states
+                    untrack(resourceUuids);
+                }
+
+                @Override
+                protected boolean isTakenOver(String resourceUuid) {
+                    return PingTracker.this.resourceUuids.contains(resourceUuid);
+                }
+            };
+        }
+
+        return takeover;
+    }
+
+    /**
+     * drop all tracked resources and track all resources of the class managed by this node
+     */
+    protected void trackAllManagedByUs(Class resourceClass) {
+        untrackAll();
+        getTakeover(resourceClass).takeOverAll();
+    }
+
+    /**
+     * track and untrack only resources moved by management node changes since the last scan
+     */
+    protected void trackMovedResources(Class resourceClass) {
+        getTakeover(resourceClass).takeOverMovedResources();
+    }
+
     protected void startTracker() {
         if (trackerThread != null) {
             trackerThread.cancel(true);
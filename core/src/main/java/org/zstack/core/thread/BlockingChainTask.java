@@ -0,0 +1,12 @@
+package org.zstack.core.thread;
+
+import org.zstack.header.core.AsyncBackup;
+
+/**
+ * a ChainTask that blocks its thread, see {@link BlockingTask}
+ */
+public abstract class BlockingChainTask extends ChainTask implements BlockingTask {
+    public BlockingChainTask(AsyncBackup one, AsyncBackup... others) {
+        super(one, others);
+    }
+}
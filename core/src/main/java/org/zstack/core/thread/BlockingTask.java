@@ -0,0 +1,12 @@
+package org.zstack.core.thread;
+
+/**
+ * a marker for SyncTask and ChainTask blocking their thread for a long time, e.g. waiting for
+ * a remote call synchronously.
+ *
+ * when ThreadFacade.blockingPool.enabled is true, queues having such tasks run on an elastic
+ * blocking pool instead of the fixed thread pools, so they don't starve unrelated queues.
+ * The sync level of the queue still limits how many of its tasks run at the same time.
+ */
+public interface BlockingTask {
+}
@@ -252,11 +252,17 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
         }
     }
 
+    private static boolean isBlocking(Object task) {
+        return ThreadGlobalProperty.BLOCKING_POOL_ENABLED && task instanceof BlockingTask;
+    }
+
     private class SyncTaskQueueWrapper {
         ConcurrentLinkedQueue queue = new ConcurrentLinkedQueue();
         AtomicInteger counter = new AtomicInteger(0);
         int maxThreadNum = -1;
         String syncSignature;
+        // once a blocking task joins the queue, the queue runs on the blocking pool until it drains
+        boolean blocking;
 
         void addTask(SyncTaskFuture task) {
             queue.offer(task);
@@ -266,6 +272,9 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
             if (syncSignature == null) {
                 syncSignature = task.getSyncSignature();
             }
+            if (!blocking && isBlocking(task.getTask())) {
+                blocking = true;
+            }
         }
 
         void startThreadIfNeeded() {
@@ -274,7 +283,7 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
             }
 
             counter.incrementAndGet();
-            _threadFacade.submitSyncPool(new Task<Void>() {
+            Task<Void> runner = new Task<Void>() {
                 @Override
                 public String getName() {
                     return syncSignature;
@@ -305,7 +314,13 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
                     run();
                     return null;
                 }
-            });
+            };
+
+            if (blocking) {
+                _threadFacade.submitBlockingPool(runner);
+            } else {
+                _threadFacade.submitSyncPool(runner);
+            }
         }
     }
 
@@ -330,7 +345,7 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
     @Override
     public <T> Future<T> syncSubmit(SyncTask<T> task) {
         if (task.getSyncLevel() <= 0) {
-            return _threadFacade.submitSyncPool(task);
+            return isBlocking(task) ? _threadFacade.submitBlockingPool(task) : _threadFacade.submitSyncPool(task);
         } else {
             return doSyncSubmit(task);
         }
@@ -420,6 +435,8 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
         AtomicInteger counter = new AtomicInteger(0);
         int maxThreadNum = -1;
         String syncSignature;
+        // once a blocking task joins the queue, the queue runs on the blocking pool until it drains
+        volatile boolean blocking;
 
         int addSubPending(String deduplicateStr) {
             subPendingMap.compute(deduplicateStr, (k, v) -> {
@@ -486,9 +503,21 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
             if (syncSignature == null) {
                 syncSignature = task.getSyncSignature();
             }
+
+            if (!blocking && isBlocking(task.getTask())) {
+                blocking = true;
+            }
             return true;
         }
 
+        private void submitRunner(Task<Void> runner) {
+            if (blocking) {
+                _threadFacade.submitBlockingPool(runner);
+            } else {
+                _threadFacade.submit(runner);
+            }
+        }
+
         void startThreadIfNeeded() {
             if (counter.get() >= maxThreadNum) {
                 logger.debug(String.format("syncSignature: %s reached maxThreadNum: %s, current: %d", syncSignature, maxThreadNum, counter.get()));
@@ -496,14 +525,12 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
             }
 
             counter.incrementAndGet();
-            _threadFacade.submit(new Task<Void>() {
+            submitRunner(new Task<Void>() {
                 @Override
                 public String getName() {
                     return "sync-chain-thread";
                 }
 
-                // start a new thread every time to avoid stack overflow
-                @AsyncThread
                 private void runQueue() {
                     ChainFuture cf;
                     synchronized (chainTasks) {
@@ -556,7 +583,8 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
                             }
                         }
 
-                        runQueue();
+                        // start a new thread every time to avoid stack overflow
+                        submitRunner(this);
                     });
                 }
 
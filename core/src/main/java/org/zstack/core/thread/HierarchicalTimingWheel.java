@@ -0,0 +1,304 @@
+package org.zstack.core.thread;
+
+import org.zstack.core.thread.ThreadFacadeImpl.TimeoutTaskReceipt;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hierarchical timing wheel for one-shot timeouts.
+ *
+ * level 0 has {@code wheelSize} buckets of one tick each, every upper level has
+ * {@code wheelSize} buckets each covering a full round of the level below. A timeout
+ * is put into the lowest level that can hold its deadline and is cascaded down
+ * when the wheel below rolls over, so both schedule and cancel are O(1) no matter
+ * how many timeouts are in flight.
+ *
+ * buckets are only touched by the ticker thread, callers hand over new and cancelled
+ * timeouts through lock-free queues. Expired tasks are run by the given executor,
+ * never by the ticker thread.
+ */
+public class HierarchicalTimingWheel {
+    private static final CLogger logger = Utils.getLogger(HierarchicalTimingWheel.class);
+
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final String name;
+    private final long tickNanos;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final Bucket[][] wheels;
+    private final Executor executor;
+
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingNum = new AtomicLong();
+    private final AtomicLong expiredNum = new AtomicLong();
+    private final AtomicLong cancelledNum = new AtomicLong();
+
+    private volatile long startTime;
+    private volatile boolean stopped;
+    private volatile Thread ticker;
+    // only accessed by the ticker thread
+    private long currentTick;
+
+    private static class Bucket {
+        Timeout head;
+        Timeout tail;
+
+        void add(Timeout t) {
+            t.bucket = this;
+            if (head == null) {
+                head = tail = t;
+            } else {
+                tail.next = t;
+                t.prev = tail;
+                tail = t;
+            }
+        }
+
+        void remove(Timeout t) {
+            if (t.prev != null) {
+                t.prev.next = t.next;
+            } else {
+                head = t.next;
+            }
+
+            if (t.next != null) {
+                t.next.prev = t.prev;
+            } else {
+                tail = t.prev;
+            }
+
+            t.prev = t.next = null;
+            t.bucket = null;
+        }
+
+        Timeout takeAll() {
+            Timeout ret = head;
+            head = tail = null;
+            return ret;
+        }
+    }
+
+    private class Timeout implements TimeoutTaskReceipt {
+        final Runnable task;
+        final long deadlineTick;
+        volatile int state = ST_INIT;
+
+        Bucket bucket;
+        Timeout prev;
+        Timeout next;
+
+        Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+
+            pendingNum.decrementAndGet();
+            cancelledNum.incrementAndGet();
+            cancelledTimeouts.add(this);
+            return true;
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    /**
+     * @param tickDuration the time a level 0 bucket covers; timeouts fire at most one tick late
+     * @param wheelSize buckets per level, must be a power of 2
+     * @param levels number of levels; the wheel holds timeouts up to tickDuration * wheelSize ^ levels
+     * without extra cascading
+     */
+    public HierarchicalTimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize, int levels, Executor executor) {
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException(String.format("wheelSize must be a power of 2, but got %s", wheelSize));
+        }
+
+        if (levels < 1 || Integer.numberOfTrailingZeros(wheelSize) * levels > 62) {
+            throw new IllegalArgumentException(String.format("invalid levels[%s] for wheelSize[%s]", levels, wheelSize));
+        }
+
+        this.name = name;
+        this.tickNanos = Math.max(unit.toNanos(tickDuration), TimeUnit.MILLISECONDS.toNanos(1));
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levels = levels;
+        this.executor = executor;
+        this.wheels = new Bucket[levels][wheelSize];
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < wheelSize; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+    }
+
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+
+        startTime = System.nanoTime();
+        ticker = new Thread(this::tickLoop, "zs-timing-wheel-" + name);
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    public synchronized void stop() {
+        stopped = true;
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+    }
+
+    public TimeoutTaskReceipt schedule(Runnable task, TimeUnit unit, long delay) {
+        if (ticker == null) {
+            start();
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(delay, 0)) - startTime;
+        // round up so a timeout never fires before its delay
+        Timeout t = new Timeout(task, (deadline + tickNanos - 1) / tickNanos);
+        pendingNum.incrementAndGet();
+        newTimeouts.add(t);
+        return t;
+    }
+
+    public long getTickInMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+    }
+
+    public int getWheelSize() {
+        return mask + 1;
+    }
+
+    public int getLevels() {
+        return levels;
+    }
+
+    public long getPendingTimeoutNum() {
+        return pendingNum.get();
+    }
+
+    public long getExpiredTimeoutNum() {
+        return expiredNum.get();
+    }
+
+    public long getCancelledTimeoutNum() {
+        return cancelledNum.get();
+    }
+
+    private void tickLoop() {
+        while (!stopped) {
+            long sleep = startTime + (currentTick + 1) * tickNanos - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+
+            try {
+                tick(++currentTick);
+            } catch (Throwable t) {
+                logger.warn(String.format("unhandled exception in timing wheel[%s]", name), t);
+            }
+        }
+    }
+
+    private void tick(long tick) {
+        Timeout t;
+        while ((t = cancelledTimeouts.poll()) != null) {
+            if (t.bucket != null) {
+                t.bucket.remove(t);
+            }
+        }
+
+        while ((t = newTimeouts.poll()) != null) {
+            if (t.state == ST_INIT) {
+                place(t, tick);
+            }
+        }
+
+        // cascade from the top level so timeouts moved down can't land in a bucket that has already been cascaded
+        for (int level = levels - 1; level > 0; level--) {
+            if ((tick & ((1L << (bits * level)) - 1)) != 0) {
+                continue;
+            }
+
+            Timeout c = wheels[level][(int) ((tick >>> (bits * level)) & mask)].takeAll();
+            while (c != null) {
+                Timeout next = c.next;
+                c.prev = c.next = null;
+                c.bucket = null;
+                if (c.state == ST_INIT) {
+                    place(c, tick);
+                }
+                c = next;
+            }
+        }
+
+        Timeout e = wheels[0][(int) (tick & mask)].takeAll();
+        while (e != null) {
+            Timeout next = e.next;
+            e.prev = e.next = null;
+            e.bucket = null;
+            if (e.deadlineTick <= tick) {
+                expire(e);
+            } else if (e.state == ST_INIT) {
+                place(e, tick);
+            }
+            e = next;
+        }
+    }
+
+    private void place(Timeout t, long tick) {
+        long delta = t.deadlineTick - tick;
+        if (delta <= 0) {
+            expire(t);
+            return;
+        }
+
+        long deadlineTick = t.deadlineTick;
+        int level = 0;
+        while (level < levels && delta >= (1L << (bits * (level + 1)))) {
+            level++;
+        }
+
+        if (level == levels) {
+            // beyond the top level, park it at the farthest bucket and re-place it when it's cascaded
+            level = levels - 1;
+            deadlineTick = tick + (1L << (bits * levels)) - 1;
+        }
+
+        wheels[level][(int) ((deadlineTick >>> (bits * level)) & mask)].add(t);
+    }
+
+    private void expire(Timeout t) {
+        if (!STATE.compareAndSet(t, ST_INIT, ST_EXPIRED)) {
+            return;
+        }
+
+        pendingNum.decrementAndGet();
+        expiredNum.incrementAndGet();
+        try {
+            executor.execute(t.task);
+        } catch (Throwable th) {
+            logger.warn(String.format("timing wheel[%s] failed to run %s", name, t.task.getClass().getName()), th);
+        }
+    }
+}
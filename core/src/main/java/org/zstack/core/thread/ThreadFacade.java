@@ -12,6 +12,8 @@ public interface ThreadFacade extends Component {
 
     <T> Future<T> submitSyncPool(Task<T> task);
 
+    <T> Future<T> submitBlockingPool(Task<T> task);
+
     <T> Future<T> syncSubmit(SyncTask<T> task);
     
     Future<Void> chainSubmit(ChainTask task);
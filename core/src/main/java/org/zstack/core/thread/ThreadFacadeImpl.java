@@ -18,10 +18,13 @@ public class ThreadFacadeImpl implements ThreadFacade, ThreadFactory, RejectedEx
     private final Map<PeriodicTask, ScheduledFuture<?>> _periodicTasks = new ConcurrentHashMap<PeriodicTask, ScheduledFuture<?>>();
     private final Map<CancelablePeriodicTask, ScheduledFuture<?>> cancelablePeriodicTasks = new ConcurrentHashMap<CancelablePeriodicTask, ScheduledFuture<?>>();
     private static final AtomicInteger seqNum = new AtomicInteger(0);
+    private static final AtomicInteger blockingSeqNum = new AtomicInteger(0);
     private ScheduledThreadPoolExecutorExt _pool;
     private ScheduledThreadPoolExecutorExt _syncpool;  // for sync tasks
+    private ScheduledThreadPoolExecutorExt _blockingpool;  // for tasks marked as BlockingTask
     private DispatchQueue dpq;
     private final TimerPool timerPool = new TimerPool(5);
+    private HierarchicalTimingWheel timingWheel;
 
     @Autowired
     private JmxFacade jmxf;
@@ -83,18 +86,47 @@ public class ThreadFacadeImpl implements ThreadFacade, ThreadFactory, RejectedEx
         return dpq.getChainTaskStatistics();
     }
 
-    @Override
-    public ThreadPoolStatistic getThreadPoolStatistic() {
-        long completedTask = _pool.getCompletedTaskCount();
-        long pendingTask = _pool.getTaskCount() - completedTask;
+    private ThreadPoolStatistic getThreadPoolStatistic(ThreadPoolExecutor pool) {
+        long completedTask = pool.getCompletedTaskCount();
+        long pendingTask = pool.getTaskCount() - completedTask;
         return new ThreadPoolStatistic(
-                _pool.getPoolSize(),
-                _pool.getActiveCount(),
+                pool.getPoolSize(),
+                pool.getActiveCount(),
                 completedTask,
                 pendingTask,
-                _pool.getCorePoolSize(),
-                _pool.getMaximumPoolSize(),
-                _pool.getQueue().size()
+                pool.getCorePoolSize(),
+                pool.getMaximumPoolSize(),
+                pool.getQueue().size()
+        );
+    }
+
+    @Override
+    public ThreadPoolStatistic getThreadPoolStatistic() {
+        return getThreadPoolStatistic(_pool);
+    }
+
+    /**
+     * queued tasks of the blocking pool are blocking tasks waiting for a thread while all
+     * ThreadFacade.blockingPool.maxThreadNum threads are blocked
+     */
+    @Override
+    public ThreadPoolStatistic getBlockingThreadPoolStatistic() {
+        return getThreadPoolStatistic(_blockingpool);
+    }
+
+    @Override
+    public TimingWheelStatistic getTimingWheelStatistic() {
+        if (timingWheel == null) {
+            return null;
+        }
+
+        return new TimingWheelStatistic(
+                timingWheel.getTickInMillis(),
+                timingWheel.getWheelSize(),
+                timingWheel.getLevels(),
+                timingWheel.getPendingTimeoutNum(),
+                timingWheel.getExpiredTimeoutNum(),
+                timingWheel.getCancelledTimeoutNum()
         );
     }
 
@@ -134,15 +166,31 @@ public class ThreadFacadeImpl implements ThreadFacade, ThreadFactory, RejectedEx
         }
         _pool = new ScheduledThreadPoolExecutorExt(totalThreadNum, this, this);
         _syncpool = new ScheduledThreadPoolExecutorExt(getSyncThreadNum(totalThreadNum), this, this);
+        // threads of the blocking pool are created on demand and exit after being idle for a while
+        _blockingpool = new ScheduledThreadPoolExecutorExt(Math.max(ThreadGlobalProperty.BLOCKING_POOL_MAX_THREAD_NUM, 1),
+                r -> new Thread(r, "zs-blocking-thread-" + blockingSeqNum.getAndIncrement()), this);
+        _blockingpool.setKeepAliveTime(Math.max(ThreadGlobalProperty.BLOCKING_POOL_KEEP_ALIVE_IN_SECONDS, 1), TimeUnit.SECONDS);
+        _blockingpool.allowCoreThreadTimeOut(true);
         _logger.debug(String.format("create ThreadFacade with max thread number:%s", totalThreadNum));
         dpq = new DispatchQueueImpl();
 
+        if (ThreadGlobalProperty.TIMING_WHEEL_ENABLED) {
+            // 4 levels of 256 buckets cover more than a year with 10ms ticks
+            timingWheel = new HierarchicalTimingWheel("timeout", ThreadGlobalProperty.TIMING_WHEEL_TICK_IN_MILLIS,
+                    TimeUnit.MILLISECONDS, 256, 4, this::executeRightNow);
+            timingWheel.start();
+        }
+
         jmxf.registerBean("ThreadFacade", this);
     }
 
     public void destroy() {
+        if (timingWheel != null) {
+            timingWheel.stop();
+        }
         _pool.shutdownNow();
         _syncpool.shutdown();
+        _blockingpool.shutdown();
     }
 
     @Override
@@ -154,6 +202,11 @@ public class ThreadFacadeImpl implements ThreadFacade, ThreadFactory, RejectedEx
         return _syncpool.submit(new Worker<T>(task));
     }
 
+    @Override
+    public <T> Future<T> submitBlockingPool(Task<T> task) {
+        return _blockingpool.submit(new Worker<T>(task));
+    }
+
     @Override
     public Thread newThread(@Nonnull Runnable arg0) {
         return new Thread(arg0, "zs-thread-" + seqNum.getAndIncrement());
@@ -205,12 +258,14 @@ public class ThreadFacadeImpl implements ThreadFacade, ThreadFactory, RejectedEx
     public void registerHook(ThreadAroundHook hook) {
         _pool.registerHook(hook);
         _syncpool.registerHook(hook);
+        _blockingpool.registerHook(hook);
     }
 
     @Override
     public void unregisterHook(ThreadAroundHook hook) {
         _pool.unregisterHook(hook);
         _syncpool.unregisterHook(hook);
+        _blockingpool.unregisterHook(hook);
     }
 
     @Override
@@ -254,6 +309,14 @@ public class ThreadFacadeImpl implements ThreadFacade, ThreadFactory, RejectedEx
 
     @Override
     public TimeoutTaskReceipt submitTimeoutTask(Runnable task, TimeUnit unit, long delay, boolean executeRightNow) {
+        if (timingWheel != null) {
+            TimeoutTaskReceipt receipt = timingWheel.schedule(task, unit, delay);
+            if (executeRightNow) {
+                executeRightNow(task);
+            }
+            return receipt;
+        }
+
         final TimerWrapper timer = timerPool.getTimer();
 
         class TimerTaskWorker extends java.util.TimerTask implements TimeoutTaskReceipt {
@@ -322,7 +385,11 @@ public class ThreadFacadeImpl implements ThreadFacade, ThreadFactory, RejectedEx
     @Override
     public boolean stop() {
         _pool.shutdown();
+        _blockingpool.shutdown();
         timerPool.stop();
+        if (timingWheel != null) {
+            timingWheel.stop();
+        }
         return true;
     }
 
@@ -9,4 +9,14 @@ import org.zstack.core.GlobalPropertyDefinition;
 public class ThreadGlobalProperty {
     @GlobalProperty(name="ThreadFacade.maxThreadNum", defaultValue = "150")
     public static int MAX_THREAD_NUM;
+    @GlobalProperty(name="ThreadFacade.timingWheel.enabled", defaultValue = "true")
+    public static boolean TIMING_WHEEL_ENABLED;
+    @GlobalProperty(name="ThreadFacade.timingWheel.tickInMillis", defaultValue = "10")
+    public static long TIMING_WHEEL_TICK_IN_MILLIS;
+    @GlobalProperty(name="ThreadFacade.blockingPool.enabled", defaultValue = "false")
+    public static boolean BLOCKING_POOL_ENABLED;
+    @GlobalProperty(name="ThreadFacade.blockingPool.maxThreadNum", defaultValue = "500")
+    public static int BLOCKING_POOL_MAX_THREAD_NUM;
+    @GlobalProperty(name="ThreadFacade.blockingPool.keepAliveInSeconds", defaultValue = "60")
+    public static long BLOCKING_POOL_KEEP_ALIVE_IN_SECONDS;
 }
@@ -0,0 +1,48 @@
+package org.zstack.core.thread;
+
+import java.beans.ConstructorProperties;
+
+/**
+ */
+public class TimingWheelStatistic {
+    private long tickInMillis;
+    private int wheelSize;
+    private int levels;
+    private long pendingTimeoutNum;
+    private long expiredTimeoutNum;
+    private long cancelledTimeoutNum;
+
+    @ConstructorProperties({"tickInMillis", "wheelSize", "levels", "pendingTimeoutNum", "expiredTimeoutNum", "cancelledTimeoutNum"})
+    public TimingWheelStatistic(long tickInMillis, int wheelSize, int levels, long pendingTimeoutNum, long expiredTimeoutNum, long cancelledTimeoutNum) {
+        this.tickInMillis = tickInMillis;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.pendingTimeoutNum = pendingTimeoutNum;
+        this.expiredTimeoutNum = expiredTimeoutNum;
+        this.cancelledTimeoutNum = cancelledTimeoutNum;
+    }
+
+    public long getTickInMillis() {
+        return tickInMillis;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public int getLevels() {
+        return levels;
+    }
+
+    public long getPendingTimeoutNum() {
+        return pendingTimeoutNum;
+    }
+
+    public long getExpiredTimeoutNum() {
+        return expiredTimeoutNum;
+    }
+
+    public long getCancelledTimeoutNum() {
+        return cancelledTimeoutNum;
+    }
+}
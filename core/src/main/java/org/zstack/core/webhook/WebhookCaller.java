@@ -29,18 +29,21 @@ public abstract class WebhookCaller {
             (int)TimeUnit.SECONDS.toMillis(30)
     );
 
+    static ResponseEntity<String> post(String url, String body) {
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.setContentType(MediaType.valueOf(RESTConstant.APP_JSON_UTF8));
+        requestHeaders.setContentLength(body.length());
+        HttpEntity<String> req = new HttpEntity<String>(body, requestHeaders);
+        return restTemplate.exchange(url, HttpMethod.POST, req, String.class);
+    }
+
     protected void postToWebhooks(List<WebhookInventory> hooks, String body) {
         for (WebhookInventory hook : hooks) {
-            HttpHeaders requestHeaders = new HttpHeaders();
-            requestHeaders.setContentType(MediaType.valueOf(RESTConstant.APP_JSON_UTF8));
-            requestHeaders.setContentLength(body.length());
-            HttpEntity<String> req = new HttpEntity<String>(body, requestHeaders);
-
             ResponseEntity<String> rsp = new Retry<ResponseEntity<String>>() {
                 @Override
                 @RetryCondition(onExceptions = {IOException.class, RestClientException.class})
                 protected ResponseEntity<String> call() {
-                    return restTemplate.exchange(hook.getUrl(), HttpMethod.POST, req, String.class);
+                    return post(hook.getUrl(), body);
                 }
             }.run();
 
@@ -0,0 +1,253 @@
+package org.zstack.core.webhook;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.zstack.core.jmx.JmxFacade;
+import org.zstack.core.thread.Task;
+import org.zstack.core.thread.ThreadFacade;
+import org.zstack.header.core.webhooks.WebhookInventory;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * delivers webhook calls asynchronously, so the thread making a call never waits for the endpoint.
+ *
+ * calls are queued by the url of their endpoints, a thread of the blocking pool drains at most
+ * Webhook.delivery.batchSize calls of an endpoint each time. Threads draining an endpoint and all
+ * endpoints are limited by Webhook.delivery.concurrencyPerEndpoint and Webhook.delivery.maxConcurrency.
+ * A call failed by a network error or a 5xx status is retried with exponential backoff, and calls are
+ * dropped when Webhook.delivery.queueSize calls are waiting.
+ */
+public class WebhookDeliveryQueue implements WebhookDeliveryQueueMXBean {
+    private static final CLogger logger = Utils.getLogger(WebhookDeliveryQueue.class);
+
+    @Autowired
+    private ThreadFacade thdf;
+    @Autowired
+    private JmxFacade jmxf;
+
+    private class Delivery {
+        final WebhookInventory hook;
+        final String body;
+        final long submitTime = System.currentTimeMillis();
+        int attempts;
+
+        Delivery(WebhookInventory hook, String body) {
+            this.hook = hook;
+            this.body = body;
+        }
+    }
+
+    private class Endpoint {
+        final String url;
+        final Queue<Delivery> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger drainers = new AtomicInteger();
+        // whether the endpoint is waiting for a permit in waitingEndpoints
+        final AtomicBoolean waiting = new AtomicBoolean();
+
+        Endpoint(String url) {
+            this.url = url;
+        }
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Queue<Endpoint> waitingEndpoints = new ConcurrentLinkedQueue<>();
+    private final Semaphore permits = new Semaphore(Math.max(WebhookGlobalProperty.DELIVERY_MAX_CONCURRENCY, 1));
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    void init() {
+        jmxf.registerBean("WebhookDeliveryQueue", this);
+    }
+
+    public void submit(List<WebhookInventory> hooks, String body) {
+        for (WebhookInventory hook : hooks) {
+            if (pending.incrementAndGet() > WebhookGlobalProperty.DELIVERY_QUEUE_SIZE) {
+                pending.decrementAndGet();
+                dropped.incrementAndGet();
+                logger.warn(String.format("drop the call to the webhook[uuid:%s, name:%s, url:%s], %s calls are waiting to be delivered",
+                        hook.getUuid(), hook.getName(), hook.getUrl(), WebhookGlobalProperty.DELIVERY_QUEUE_SIZE));
+                continue;
+            }
+
+            Endpoint ep = endpoints.computeIfAbsent(hook.getUrl(), Endpoint::new);
+            ep.queue.add(new Delivery(hook, body));
+            schedule(ep);
+        }
+    }
+
+    private void schedule(Endpoint ep) {
+        while (!ep.queue.isEmpty()) {
+            int n = ep.drainers.get();
+            if (n >= Math.max(WebhookGlobalProperty.DELIVERY_CONCURRENCY_PER_ENDPOINT, 1)) {
+                // a running drainer schedules the endpoint again when it's done
+                return;
+            }
+
+            if (!permits.tryAcquire()) {
+                if (ep.waiting.compareAndSet(false, true)) {
+                    waitingEndpoints.add(ep);
+                }
+
+                if (permits.availablePermits() == 0) {
+                    // a running drainer schedules the waiting endpoints when it's done
+                    return;
+                }
+
+                continue;
+            }
+
+            if (ep.drainers.compareAndSet(n, n + 1)) {
+                drain(ep);
+                return;
+            }
+
+            permits.release();
+        }
+    }
+
+    private void drain(Endpoint ep) {
+        thdf.submitBlockingPool(new Task<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    Delivery d;
+                    for (int i = 0; i < Math.max(WebhookGlobalProperty.DELIVERY_BATCH_SIZE, 1) && (d = ep.queue.poll()) != null; i++) {
+                        deliver(ep, d);
+                    }
+                } finally {
+                    ep.drainers.decrementAndGet();
+                    permits.release();
+
+                    schedule(ep);
+
+                    Endpoint w;
+                    while (permits.availablePermits() > 0 && (w = waitingEndpoints.poll()) != null) {
+                        w.waiting.set(false);
+                        schedule(w);
+                    }
+                }
+
+                return null;
+            }
+
+            @Override
+            public String getName() {
+                return String.format("deliver-webhook-calls-to-%s", ep.url);
+            }
+        });
+    }
+
+    private void deliver(Endpoint ep, Delivery d) {
+        d.attempts++;
+
+        String error;
+        try {
+            ResponseEntity<String> rsp = WebhookCaller.post(ep.url, d.body);
+            if (rsp.getStatusCode().is2xxSuccessful()) {
+                done(d);
+                return;
+            }
+
+            error = String.format("status code: %s, body: %s", rsp.getStatusCode(), rsp.getBody());
+            if (!rsp.getStatusCode().is5xxServerError()) {
+                fail(d, error);
+                return;
+            }
+        } catch (HttpClientErrorException e) {
+            fail(d, e.getMessage());
+            return;
+        } catch (RestClientException e) {
+            error = e.getMessage();
+        } catch (Throwable t) {
+            logger.warn(String.format("unhandled exception when calling the webhook[uuid:%s, url:%s]", d.hook.getUuid(), ep.url), t);
+            fail(d, t.getMessage());
+            return;
+        }
+
+        if (d.attempts > WebhookGlobalProperty.DELIVERY_MAX_RETRIES) {
+            fail(d, error);
+            return;
+        }
+
+        retried.incrementAndGet();
+        long delay = WebhookGlobalProperty.DELIVERY_RETRY_INTERVAL << Math.min(d.attempts - 1, 10);
+        logger.debug(String.format("failed to call the webhook[uuid:%s, url:%s], %s, retry in %s ms",
+                d.hook.getUuid(), ep.url, error, delay));
+        thdf.submitTimeoutTask(() -> {
+            ep.queue.add(d);
+            schedule(ep);
+        }, TimeUnit.MILLISECONDS, delay);
+    }
+
+    private void done(Delivery d) {
+        pending.decrementAndGet();
+        delivered.incrementAndGet();
+
+        long latency = System.currentTimeMillis() - d.submitTime;
+        totalLatency.addAndGet(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+    }
+
+    private void fail(Delivery d, String error) {
+        pending.decrementAndGet();
+        failed.incrementAndGet();
+        logger.warn(String.format("unable to call the webhook[uuid:%s, name:%s, url:%s] after %s attempts, %s",
+                d.hook.getUuid(), d.hook.getName(), d.hook.getUrl(), d.attempts, error));
+    }
+
+    @Override
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    @Override
+    public long getAverageLatencyInMillis() {
+        long n = delivered.get();
+        return n == 0 ? 0 : totalLatency.get() / n;
+    }
+
+    @Override
+    public long getMaxLatencyInMillis() {
+        return maxLatency.get();
+    }
+}
@@ -0,0 +1,19 @@
+package org.zstack.core.webhook;
+
+/**
+ */
+public interface WebhookDeliveryQueueMXBean {
+    int getPendingCount();
+
+    long getDeliveredCount();
+
+    long getFailedCount();
+
+    long getDroppedCount();
+
+    long getRetriedCount();
+
+    long getAverageLatencyInMillis();
+
+    long getMaxLatencyInMillis();
+}
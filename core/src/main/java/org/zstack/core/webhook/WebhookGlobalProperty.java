@@ -0,0 +1,29 @@
+package org.zstack.core.webhook;
+
+import org.zstack.core.GlobalProperty;
+import org.zstack.core.GlobalPropertyDefinition;
+
+/**
+ */
+@GlobalPropertyDefinition
+public class WebhookGlobalProperty {
+    // webhook calls waiting to be delivered or retried, new calls are dropped when the queue is full
+    @GlobalProperty(name="Webhook.delivery.queueSize", defaultValue = "10000")
+    public static int DELIVERY_QUEUE_SIZE;
+    // calls delivered to an endpoint by a thread before giving the thread to other endpoints
+    @GlobalProperty(name="Webhook.delivery.batchSize", defaultValue = "50")
+    public static int DELIVERY_BATCH_SIZE;
+    // 1 delivers calls to an endpoint in the order they are made
+    @GlobalProperty(name="Webhook.delivery.concurrencyPerEndpoint", defaultValue = "1")
+    public static int DELIVERY_CONCURRENCY_PER_ENDPOINT;
+    @GlobalProperty(name="Webhook.delivery.maxConcurrency", defaultValue = "32")
+    public static int DELIVERY_MAX_CONCURRENCY;
+    @GlobalProperty(name="Webhook.delivery.maxRetries", defaultValue = "3")
+    public static int DELIVERY_MAX_RETRIES;
+    // Unit of DELIVERY_RETRY_INTERVAL: millisecond, doubled on every retry
+    @GlobalProperty(name="Webhook.delivery.retryInterval", defaultValue = "1000")
+    public static long DELIVERY_RETRY_INTERVAL;
+    // Unit of SUBSCRIPTION_RELOAD_INTERVAL: second, 0 never reloads webhooks from the database periodically
+    @GlobalProperty(name="Webhook.subscription.reloadInterval", defaultValue = "600")
+    public static int SUBSCRIPTION_RELOAD_INTERVAL;
+}
@@ -2,6 +2,7 @@ package org.zstack.core.webhook;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.zstack.core.Platform;
+import org.zstack.core.cloudbus.CanonicalEventWebhookIndex;
 import org.zstack.core.cloudbus.CloudBus;
 import org.zstack.core.cloudbus.MessageSafe;
 import org.zstack.core.db.DatabaseFacade;
@@ -22,6 +23,8 @@ public class WebhookManagerImpl extends AbstractService implements WebhookManage
     private DatabaseFacade dbf;
     @Autowired
     private CloudBus bus;
+    @Autowired
+    private CanonicalEventWebhookIndex webhookIndex;
 
     @Override
     public boolean start() {
@@ -96,6 +99,8 @@ public class WebhookManagerImpl extends AbstractService implements WebhookManage
             }
         }.execute();
 
+        webhookIndex.notifyChanged(msg.getUuid());
+
         APIUpdateWebhookEvent evt = new APIUpdateWebhookEvent(msg.getId());
         evt.setInventory(WebhookInventory.valueOf(vo));
         bus.publish(evt);
@@ -104,6 +109,7 @@ public class WebhookManagerImpl extends AbstractService implements WebhookManage
     private void handle(APIDeleteWebhookMsg msg) {
         APIDeleteWebhookEvent evt = new APIDeleteWebhookEvent(msg.getId());
         SQL.New(WebhookVO.class).eq(WebhookVO_.uuid, msg.getUuid()).hardDelete();
+        webhookIndex.notifyChanged(msg.getUuid());
         bus.publish(evt);
     }
 
@@ -116,6 +122,7 @@ public class WebhookManagerImpl extends AbstractService implements WebhookManage
         vo.setType(msg.getType());
         vo.setOpaque(msg.getOpaque());
         vo = dbf.persistAndRefresh(vo);
+        webhookIndex.notifyChanged(vo.getUuid());
 
         APICreateWebhookEvent evt = new APICreateWebhookEvent(msg.getId());
         evt.setInventory(WebhookInventory.valueOf(vo));
@@ -0,0 +1,18 @@
+package org.zstack.header;
+
+import java.util.List;
+
+/**
+ * a Component declaring the components it depends on, so the management node can start it
+ * in parallel with components it doesn't depend on.
+ *
+ * a Component not implementing this interface is started after all components before it in
+ * the plugin order, the same as components are started one by one.
+ */
+public interface DependentComponent extends Component {
+    /**
+     * @return classes or interfaces of components which must be started before this one,
+     * an empty list if it depends on none
+     */
+    List<Class<?>> getDependencies();
+}
@@ -12,6 +12,7 @@ public class IdentityCanonicalEvents {
     public static final String USER_DELETED_PATH = "/user/delete";
     public static final String ACCOUNT_LOGIN_PATH = "/account/login";
     public static final String SESSION_FORCE_LOGOUT_PATH = "/session/logout";
+    public static final String RBAC_POLICY_CHANGED_PATH = "/rbac/policy/change";
 
     public static final String SESSION_FORCE_LOGOUT = "SessionForceLogout";
 
@@ -3,13 +3,38 @@ package org.zstack.header.identity.rbac;
 import org.springframework.util.AntPathMatcher;
 
 import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PolicyMatcher {
+    // policy patterns and API names are a limited set, so results are memoized for all matchers;
+    // the memo is dropped when it grows too large, e.g. by patterns matching many resource uuids
+    private static final int MAX_MEMOIZED_RESULTS = 100000;
+    private static final Map<String, Boolean> results = new ConcurrentHashMap<>();
+
     private AntPathMatcher matcher = new AntPathMatcher();
 
     public boolean match(String policy, String path) {
-        policy = policy.replaceAll("\\.", "/");
-        path = path.replaceAll("\\.", "/");
+        if (policy == null || path == null) {
+            return doMatch(policy, path);
+        }
+
+        String key = policy + '\n' + path;
+        Boolean ret = results.get(key);
+        if (ret == null) {
+            ret = doMatch(policy, path);
+            if (results.size() >= MAX_MEMOIZED_RESULTS) {
+                results.clear();
+            }
+            results.put(key, ret);
+        }
+
+        return ret;
+    }
+
+    private boolean doMatch(String policy, String path) {
+        policy = policy.replace('.', '/');
+        path = path.replace('.', '/');
         return matcher.match(policy, path) || path.endsWith(policy);
     }
 
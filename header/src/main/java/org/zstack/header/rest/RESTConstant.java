@@ -9,6 +9,10 @@ public interface RESTConstant {
     public static final String REST_API_CALL = "/api";
     static final String COMMAND_PATH = "commandpath";
     public static final String DEFAULT_PARAMETER_NAME = "";
+    /**
+     * the key in the opaque of a SysErrors.HTTP_ERROR to the http status code replied by the peer
+     */
+    public static final String HTTP_STATUS_CODE = "httpStatusCode";
 
     public static final String APP_JSON_UTF8 = "application/json; charset=utf-8";
 }
@@ -0,0 +1,19 @@
+package org.zstack.header.storage.primary;
+
+import org.zstack.header.message.APIEvent;
+import org.zstack.header.rest.RestResponse;
+
+@RestResponse
+public class APIPrewarmImageCacheEvent extends APIEvent {
+    public APIPrewarmImageCacheEvent() {
+    }
+
+    public APIPrewarmImageCacheEvent(String apiId) {
+        super(apiId);
+    }
+
+    public static APIPrewarmImageCacheEvent __example__() {
+        APIPrewarmImageCacheEvent event = new APIPrewarmImageCacheEvent();
+        return event;
+    }
+}
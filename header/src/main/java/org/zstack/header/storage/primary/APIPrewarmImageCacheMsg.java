@@ -0,0 +1,64 @@
+package org.zstack.header.storage.primary;
+
+import org.springframework.http.HttpMethod;
+import org.zstack.header.host.HostVO;
+import org.zstack.header.image.ImageVO;
+import org.zstack.header.message.APIMessage;
+import org.zstack.header.message.APIParam;
+import org.zstack.header.rest.RestRequest;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+/**
+ * downloads the image to caches of primary storages in the background, so the first vm created from the image
+ * doesn't wait for the download. If primaryStorageUuids is not set, the image is pushed to all primary storages
+ * supporting image cache prewarm in zones the image is available; if hostUuids is not set, the image is pushed
+ * to all connected hosts of primary storages having image caches per host
+ */
+@RestRequest(
+        path = "/primary-storage/image-caches/prewarm",
+        method = HttpMethod.POST,
+        parameterName = "params",
+        responseClass = APIPrewarmImageCacheEvent.class
+)
+public class APIPrewarmImageCacheMsg extends APIMessage {
+    @APIParam(resourceType = ImageVO.class)
+    private String imageUuid;
+    @APIParam(required = false, nonempty = true, resourceType = PrimaryStorageVO.class)
+    private List<String> primaryStorageUuids;
+    @APIParam(required = false, nonempty = true, resourceType = HostVO.class)
+    private List<String> hostUuids;
+
+    public String getImageUuid() {
+        return imageUuid;
+    }
+
+    public void setImageUuid(String imageUuid) {
+        this.imageUuid = imageUuid;
+    }
+
+    public List<String> getPrimaryStorageUuids() {
+        return primaryStorageUuids;
+    }
+
+    public void setPrimaryStorageUuids(List<String> primaryStorageUuids) {
+        this.primaryStorageUuids = primaryStorageUuids;
+    }
+
+    public List<String> getHostUuids() {
+        return hostUuids;
+    }
+
+    public void setHostUuids(List<String> hostUuids) {
+        this.hostUuids = hostUuids;
+    }
+
+    public static APIPrewarmImageCacheMsg __example__() {
+        APIPrewarmImageCacheMsg msg = new APIPrewarmImageCacheMsg();
+        msg.setImageUuid(uuid());
+        msg.setPrimaryStorageUuids(asList(uuid()));
+        return msg;
+    }
+}
@@ -0,0 +1,76 @@
+package org.zstack.header.storage.primary
+
+import org.zstack.header.storage.primary.APIPrewarmImageCacheEvent
+
+doc {
+    title "预热镜像缓存(PrewarmImageCache)"
+
+    category "storage.primary"
+
+    desc """在后台将镜像下载到主存储的镜像缓存，避免从该镜像创建的第一个云主机等待镜像下载"""
+
+    rest {
+        request {
+			url "POST /v1/primary-storage/image-caches/prewarm"
+
+			header (Authorization: 'OAuth the-session-uuid')
+
+            clz APIPrewarmImageCacheMsg.class
+
+            desc """"""
+            
+			params {
+
+				column {
+					name "imageUuid"
+					enclosedIn "params"
+					desc "镜像UUID"
+					location "body"
+					type "String"
+					optional false
+					since "4.3.0"
+				}
+				column {
+					name "primaryStorageUuids"
+					enclosedIn "params"
+					desc "主存储UUID列表，不指定时预热到镜像可用区域内所有支持预热的主存储"
+					location "body"
+					type "List"
+					optional true
+					since "4.3.0"
+				}
+				column {
+					name "hostUuids"
+					enclosedIn "params"
+					desc "物理机UUID列表，仅对每个物理机有独立镜像缓存的主存储(如本地存储)有效，不指定时预热到所有已连接的物理机"
+					location "body"
+					type "List"
+					optional true
+					since "4.3.0"
+				}
+				column {
+					name "systemTags"
+					enclosedIn ""
+					desc "系统标签"
+					location "body"
+					type "List"
+					optional true
+					since "4.3.0"
+				}
+				column {
+					name "userTags"
+					enclosedIn ""
+					desc "用户标签"
+					location "body"
+					type "List"
+					optional true
+					since "4.3.0"
+				}
+			}
+        }
+
+        response {
+            clz APIPrewarmImageCacheEvent.class
+        }
+    }
+}
@@ -42,6 +42,12 @@ public class ImageCacheVO implements ShadowEntity {
     @Column
     private String md5sum;
 
+    @Column
+    private Timestamp lastAccessDate;
+
+    @Column
+    private long accessCount;
+
     @Column
     private Timestamp createDate;
 
@@ -108,6 +114,22 @@ public class ImageCacheVO implements ShadowEntity {
         this.md5sum = md5sum;
     }
 
+    public Timestamp getLastAccessDate() {
+        return lastAccessDate;
+    }
+
+    public void setLastAccessDate(Timestamp lastAccessDate) {
+        this.lastAccessDate = lastAccessDate;
+    }
+
+    public long getAccessCount() {
+        return accessCount;
+    }
+
+    public void setAccessCount(long accessCount) {
+        this.accessCount = accessCount;
+    }
+
     public Timestamp getCreateDate() {
         return createDate;
     }
@@ -22,6 +22,8 @@ public class PrimaryStorageType {
     private int order;
     private PrimaryStorageFindBackupStorage primaryStorageFindBackupStorage;
     private  boolean supportCreateVolumeSnapshotCheckCapacity = true;
+    private boolean supportImageCachePrewarm;
+    private boolean imageCachePerHost;
 
     public boolean isSupportSharedVolume() {
         return supportSharedVolume;
@@ -193,4 +195,30 @@ public class PrimaryStorageType {
     public void setSupportCreateVolumeSnapshotCheckCapacity(boolean supportCreateVolumeSnapshotCheckCapacity) {
         this.supportCreateVolumeSnapshotCheckCapacity = supportCreateVolumeSnapshotCheckCapacity;
     }
+
+    public static List<String> getSupportImageCachePrewarmTypeNames() {
+        return types.values().stream()
+                .filter(PrimaryStorageType::isSupportImageCachePrewarm)
+                .map(PrimaryStorageType::toString)
+                .collect(Collectors.toList());
+    }
+
+    public boolean isSupportImageCachePrewarm() {
+        return supportImageCachePrewarm;
+    }
+
+    public void setSupportImageCachePrewarm(boolean supportImageCachePrewarm) {
+        this.supportImageCachePrewarm = supportImageCachePrewarm;
+    }
+
+    /**
+     * @return true if every host has its own image cache on the primary storage, e.g. local storage
+     */
+    public boolean isImageCachePerHost() {
+        return imageCachePerHost;
+    }
+
+    public void setImageCachePerHost(boolean imageCachePerHost) {
+        this.imageCachePerHost = imageCachePerHost;
+    }
 }
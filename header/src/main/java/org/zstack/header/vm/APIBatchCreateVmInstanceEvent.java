@@ -0,0 +1,46 @@
+package org.zstack.header.vm;
+
+import org.zstack.header.message.APIEvent;
+import org.zstack.header.rest.RestResponse;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RestResponse(fieldsTo = {"all"})
+public class APIBatchCreateVmInstanceEvent extends APIEvent {
+    private List<BatchCreateVmInstanceStruct> results;
+
+    public APIBatchCreateVmInstanceEvent(String apiId) {
+        super(apiId);
+    }
+
+    public APIBatchCreateVmInstanceEvent() {
+        super(null);
+    }
+
+    public List<BatchCreateVmInstanceStruct> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchCreateVmInstanceStruct> results) {
+        this.results = results;
+    }
+
+    public static APIBatchCreateVmInstanceEvent __example__() {
+        APIBatchCreateVmInstanceEvent event = new APIBatchCreateVmInstanceEvent();
+
+        VmInstanceInventory vm = new VmInstanceInventory();
+        vm.setName("vm-1");
+        vm.setUuid(uuid());
+        vm.setHostUuid(uuid());
+        vm.setState(VmInstanceState.Running.toString());
+        vm.setType(VmInstanceConstant.USER_VM_TYPE);
+
+        BatchCreateVmInstanceStruct r1 = new BatchCreateVmInstanceStruct();
+        r1.setName("vm-1");
+        r1.setSuccess(true);
+        r1.setInventory(vm);
+        event.setResults(Arrays.asList(r1));
+        return event;
+    }
+}
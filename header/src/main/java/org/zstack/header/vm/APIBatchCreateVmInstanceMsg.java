@@ -0,0 +1,85 @@
+package org.zstack.header.vm;
+
+import org.springframework.http.HttpMethod;
+import org.zstack.header.identity.Action;
+import org.zstack.header.message.APIEvent;
+import org.zstack.header.message.APIMessage;
+import org.zstack.header.message.APIParam;
+import org.zstack.header.message.DefaultTimeout;
+import org.zstack.header.other.APIAuditor;
+import org.zstack.header.other.APIMultiAuditor;
+import org.zstack.header.rest.RestRequest;
+import org.zstack.header.tag.TagResourceType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * @api create a batch of vm instances sharing the same specification
+ *
+ * vms are placed by one allocation pass and created with limited concurrency, the result of
+ * each vm is returned in the event.
+ *
+ * @since 4.3.0
+ *
+ * @summary 批量创建云主机
+ */
+@TagResourceType(VmInstanceVO.class)
+@Action(category = VmInstanceConstant.ACTION_CATEGORY)
+@RestRequest(
+        path = "/vm-instances/batch-create",
+        method = HttpMethod.POST,
+        responseClass = APIBatchCreateVmInstanceEvent.class,
+        parameterName = "params"
+)
+@DefaultTimeout(timeunit = TimeUnit.HOURS, value = 12)
+public class APIBatchCreateVmInstanceMsg extends APICreateVmInstanceMsg implements APIMultiAuditor {
+    /**
+     * @desc number of vms to create, vms are named as name-1, name-2 ...
+     */
+    @APIParam(numberRange = {1, 1000})
+    private int count;
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public static APIBatchCreateVmInstanceMsg __example__() {
+        APIBatchCreateVmInstanceMsg msg = new APIBatchCreateVmInstanceMsg();
+        msg.setName("vm");
+        msg.setDescription("this is a vm");
+        msg.setClusterUuid(uuid());
+        msg.setImageUuid(uuid());
+        msg.setInstanceOfferingUuid(uuid());
+        msg.setL3NetworkUuids(asList(uuid()));
+        msg.setCount(10);
+        return msg;
+    }
+
+    @Override
+    public Result audit(APIMessage msg, APIEvent rsp) {
+        return new Result("", VmInstanceVO.class);
+    }
+
+    @Override
+    public List<APIAuditor.Result> multiAudit(APIMessage msg, APIEvent rsp) {
+        List<APIAuditor.Result> res = new ArrayList<>();
+        if (!rsp.isSuccess()) {
+            return res;
+        }
+
+        for (BatchCreateVmInstanceStruct struct : ((APIBatchCreateVmInstanceEvent) rsp).getResults()) {
+            if (struct.isSuccess()) {
+                res.add(new APIAuditor.Result(struct.getInventory().getUuid(), VmInstanceVO.class));
+            }
+        }
+        return res;
+    }
+}
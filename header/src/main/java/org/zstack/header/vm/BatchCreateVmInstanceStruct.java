@@ -0,0 +1,42 @@
+package org.zstack.header.vm;
+
+import org.zstack.header.errorcode.ErrorCode;
+
+public class BatchCreateVmInstanceStruct {
+    private String name;
+    private boolean success;
+    private VmInstanceInventory inventory;
+    private ErrorCode error;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public VmInstanceInventory getInventory() {
+        return inventory;
+    }
+
+    public void setInventory(VmInstanceInventory inventory) {
+        this.inventory = inventory;
+    }
+
+    public ErrorCode getError() {
+        return error;
+    }
+
+    public void setError(ErrorCode error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,38 @@
+package org.zstack.header.vm
+
+import org.zstack.header.errorcode.ErrorCode
+import org.zstack.header.vm.VmInstanceInventory
+
+doc {
+
+	title "创建云主机结果"
+
+	field {
+		name "name"
+		desc "云主机名称"
+		type "String"
+		since "4.3.0"
+	}
+	field {
+		name "success"
+		desc "是否成功"
+		type "boolean"
+		since "4.3.0"
+	}
+	ref {
+		name "inventory"
+		path "org.zstack.header.vm.BatchCreateVmInstanceStruct.inventory"
+		desc "云主机清单，创建失败时为null"
+		type "VmInstanceInventory"
+		since "4.3.0"
+		clz VmInstanceInventory.class
+	}
+	ref {
+		name "error"
+		path "org.zstack.header.vm.BatchCreateVmInstanceStruct.error"
+		desc "错误码，创建成功时为null"
+		type "ErrorCode"
+		since "4.3.0"
+		clz ErrorCode.class
+	}
+}
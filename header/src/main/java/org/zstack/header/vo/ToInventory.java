@@ -81,21 +81,22 @@ public interface ToInventory {
 
     Map<Class, InventoryMetadata> inventoryMetadata = new HashMap<>();
 
-    static Object toInventory(Object vo) {
-        InventoryMetadata m = null;
-        Class clz = vo.getClass();
+    static InventoryMetadata findInventoryMetadata(Class voClass) {
+        Class clz = voClass;
         while (clz != Object.class) {
-            m = inventoryMetadata.get(clz);
+            InventoryMetadata m = inventoryMetadata.get(clz);
             if (m != null) {
-                break;
+                return m;
             }
 
             clz = clz.getSuperclass();
         }
 
-        if (m == null) {
-            throw new CloudRuntimeException(String.format("no Inventory class for %s", vo.getClass()));
-        }
+        throw new CloudRuntimeException(String.format("no Inventory class for %s", voClass));
+    }
+
+    static Object toInventory(Object vo) {
+        InventoryMetadata m = findInventoryMetadata(vo.getClass());
 
         try {
             return m.valueOf.invoke(null, vo);
@@ -105,6 +106,20 @@ public interface ToInventory {
         }
     }
 
+    /**
+     * converts VOs of the voClass by the collection valueOf method of their inventory class
+     */
+    static Collection toInventories(Class voClass, Collection vos) {
+        InventoryMetadata m = findInventoryMetadata(voClass);
+
+        try {
+            return (Collection) m.valueOfCollection.invoke(null, vos);
+        } catch (Exception e) {
+            logger.warn(String.format("unable to convert collection of class[%s] to inventories[%s]", voClass, m.inventoryClass));
+            throw new CloudRuntimeException(e);
+        }
+    }
+
     default <T> T toInventory() {
         return null;
     }
@@ -30,6 +30,7 @@ import org.zstack.header.identity.role.RoleVO;
 import org.zstack.header.identity.role.RoleVO_;
 import org.zstack.header.message.APIMessage;
 import org.zstack.header.message.Message;
+import org.zstack.identity.rbac.RBACPolicyCache;
 import org.zstack.utils.CollectionUtils;
 import org.zstack.utils.DebugUtils;
 import org.zstack.utils.ExceptionDSL;
@@ -178,6 +179,7 @@ public class AccountBase extends AbstractAccount {
                     @Override
                     public void handle(Map data) {
                         dbf.remove(self);
+                        RBACPolicyCache.invalidate();
                         acntMgr.adminAdoptAllOrphanedResource(resourceUuids, self.getUuid());
 
                         AccountDeletedData evtData = new AccountDeletedData();
@@ -351,6 +353,7 @@ public class AccountBase extends AbstractAccount {
         q.setParameter("userUuid", msg.getUserUuid());
         q.executeUpdate();
 
+        RBACPolicyCache.invalidate();
         APIDetachPoliciesFromUserEvent evt = new APIDetachPoliciesFromUserEvent(msg.getId());
         bus.publish(evt);
     }
@@ -373,6 +376,7 @@ public class AccountBase extends AbstractAccount {
             }
         }
 
+        RBACPolicyCache.invalidate();
         APIAttachPoliciesToUserEvent evt = new APIAttachPoliciesToUserEvent(msg.getId());
         bus.publish(evt);
     }
@@ -621,6 +625,7 @@ public class AccountBase extends AbstractAccount {
             dbf.remove(ref);
         }
 
+        RBACPolicyCache.invalidate();
         bus.publish(new APIRemoveUserFromGroupEvent(msg.getId()));
     }
 
@@ -633,6 +638,7 @@ public class AccountBase extends AbstractAccount {
             dbf.remove(ref);
         }
 
+        RBACPolicyCache.invalidate();
         bus.publish(new APIDetachPolicyFromUserGroupEvent(msg.getId()));
     }
 
@@ -645,11 +651,13 @@ public class AccountBase extends AbstractAccount {
             dbf.remove(ref);
         }
 
+        RBACPolicyCache.invalidate();
         bus.publish(new APIDetachPolicyFromUserEvent(msg.getId()));
     }
 
     private void handle(APIDeletePolicyMsg msg) {
         dbf.removeByPrimaryKey(msg.getUuid(), PolicyVO.class);
+        RBACPolicyCache.invalidate();
         APIDeletePolicyEvent evt = new APIDeletePolicyEvent(msg.getId());
         bus.publish(evt);
     }
@@ -666,12 +674,14 @@ public class AccountBase extends AbstractAccount {
             dbf.remove(user);
         }
 
+        RBACPolicyCache.invalidate();
         APIDeleteUserEvent evt = new APIDeleteUserEvent(msg.getId());
         bus.publish(evt);
     }
 
     private void handle(APIDeleteUserGroupMsg msg) {
         dbf.removeByPrimaryKey(msg.getUuid(), UserGroupVO.class);
+        RBACPolicyCache.invalidate();
         APIDeleteUserGroupEvent evt = new APIDeleteUserGroupEvent(msg.getId());
         bus.publish(evt);
     }
@@ -681,6 +691,7 @@ public class AccountBase extends AbstractAccount {
         ugvo.setGroupUuid(msg.getGroupUuid());
         ugvo.setUserUuid(msg.getUserUuid());
         dbf.persist(ugvo);
+        RBACPolicyCache.invalidate();
         APIAddUserToGroupEvent evt = new APIAddUserToGroupEvent(msg.getId());
         bus.publish(evt);
     }
@@ -700,6 +711,7 @@ public class AccountBase extends AbstractAccount {
             // the policy is already attached
         }
 
+        RBACPolicyCache.invalidate();
         APIAttachPolicyToUserGroupEvent evt = new APIAttachPolicyToUserGroupEvent(msg.getId());
         bus.publish(evt);
     }
@@ -745,6 +757,7 @@ public class AccountBase extends AbstractAccount {
             // the policy is already attached
         }
 
+        RBACPolicyCache.invalidate();
         APIAttachPolicyToUserEvent evt = new APIAttachPolicyToUserEvent(msg.getId());
         bus.publish(evt);
     }
@@ -7,6 +7,10 @@ import org.zstack.core.GlobalPropertyDefinition;
 public class IdentityGlobalProperty {
     @GlobalProperty(name = "identity.authorizationBackend.session.cache.size", defaultValue = "500")
     public static int AUTHORIZATION_SESSION_CACHE_SIZE;
+    @GlobalProperty(name = "identity.rbac.policyCache.size", defaultValue = "2000")
+    public static int RBAC_POLICY_CACHE_SIZE;
+    @GlobalProperty(name = "identity.rbac.policyCache.expireInSeconds", defaultValue = "300")
+    public static long RBAC_POLICY_CACHE_EXPIRE_IN_SECONDS;
     @GlobalProperty(name = "identity.init.type", defaultValue = "IAM,IAM2")
     public static String IDENTITY_INIT_TYPE;
 }
@@ -0,0 +1,155 @@
+package org.zstack.identity.rbac;
+
+import org.zstack.header.identity.PolicyInventory;
+import org.zstack.header.identity.PolicyStatement;
+import org.zstack.header.identity.rbac.PolicyMatcher;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * policies of a principal(an account or a user) with their statements split by effect.
+ *
+ * the statements applied to the principal and matching an API are memoized by the API name,
+ * so an API is matched against the policies only the first time the principal calls it.
+ * Instances are shared by {@link RBACPolicyCache} until policies change.
+ */
+public class CompiledPolicySet {
+    private static final PolicyMatcher policyMatcher = new PolicyMatcher();
+
+    public static class StatementMatch {
+        private final PolicyInventory policy;
+        private final String action;
+        private final String apiFields;
+
+        StatementMatch(PolicyInventory policy, String action, String apiFields) {
+            this.policy = policy;
+            this.action = action;
+            this.apiFields = apiFields;
+        }
+
+        public PolicyInventory getPolicy() {
+            return policy;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        /**
+         * @return fields of the API a deny statement forbids to set, or null if the statement denies the API
+         */
+        public String getApiFields() {
+            return apiFields;
+        }
+    }
+
+    private final List<PolicyInventory> policies;
+    private final Map<PolicyInventory, List<PolicyStatement>> denyStatements;
+    private final Map<PolicyInventory, List<PolicyStatement>> allowStatements;
+
+    private final Map<PolicyStatement, Boolean> principalMatched = new ConcurrentHashMap<>();
+    private final Map<String, List<StatementMatch>> denies = new ConcurrentHashMap<>();
+    private final Map<String, Optional<StatementMatch>> allows = new ConcurrentHashMap<>();
+    private volatile Boolean hasAllowAction;
+
+    CompiledPolicySet(List<PolicyInventory> policies) {
+        this.policies = Collections.unmodifiableList(policies);
+        denyStatements = RBACManager.collectDenyStatements(policies);
+        allowStatements = RBACManager.collectAllowedStatements(policies);
+    }
+
+    public List<PolicyInventory> getPolicies() {
+        return policies;
+    }
+
+    public Map<PolicyInventory, List<PolicyStatement>> getDenyStatements() {
+        return denyStatements;
+    }
+
+    public Map<PolicyInventory, List<PolicyStatement>> getAllowStatements() {
+        return allowStatements;
+    }
+
+    // principals of a statement are matched against the principal owning this set, the result never changes
+    private boolean isPrincipalMatched(PolicyStatement statement, Predicate<List<String>> principalMatcher) {
+        Boolean ret = principalMatched.get(statement);
+        if (ret == null) {
+            ret = principalMatcher.test(statement.getPrincipals());
+            principalMatched.put(statement, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * @return deny statements applied to the principal whose action matches the API, in the format of
+     * api-full-name:optional-api-field-list-split-by-comma
+     */
+    public List<StatementMatch> getDenyMatches(String apiName, Predicate<List<String>> principalMatcher) {
+        List<StatementMatch> ret = denies.get(apiName);
+        if (ret != null) {
+            return ret;
+        }
+
+        ret = new ArrayList<>();
+        for (Map.Entry<PolicyInventory, List<PolicyStatement>> e : denyStatements.entrySet()) {
+            for (PolicyStatement st : e.getValue()) {
+                if (!isPrincipalMatched(st, principalMatcher)) {
+                    continue;
+                }
+
+                for (String action : st.getActions()) {
+                    String[] ss = action.split(":", 2);
+                    if (policyMatcher.match(ss[0], apiName)) {
+                        ret.add(new StatementMatch(e.getKey(), action, ss.length > 1 ? ss[1] : null));
+                    }
+                }
+            }
+        }
+
+        denies.put(apiName, ret);
+        return ret;
+    }
+
+    /**
+     * @return the first allow statement applied to the principal whose action matches the API, or null
+     */
+    public StatementMatch getAllowMatch(String apiName, Predicate<List<String>> principalMatcher) {
+        Optional<StatementMatch> ret = allows.get(apiName);
+        if (ret != null) {
+            return ret.orElse(null);
+        }
+
+        ret = Optional.empty();
+        loop:
+        for (Map.Entry<PolicyInventory, List<PolicyStatement>> e : allowStatements.entrySet()) {
+            for (PolicyStatement st : e.getValue()) {
+                if (!isPrincipalMatched(st, principalMatcher)) {
+                    continue;
+                }
+
+                for (String action : st.getActions()) {
+                    if (policyMatcher.match(PolicyUtils.apiNamePatternFromAction(action, true), apiName)) {
+                        ret = Optional.of(new StatementMatch(e.getKey(), action, null));
+                        break loop;
+                    }
+                }
+            }
+        }
+
+        allows.put(apiName, ret);
+        return ret.orElse(null);
+    }
+
+    /**
+     * @return whether any allow statement with actions applies to the principal
+     */
+    public boolean hasAllowAction(Predicate<List<String>> principalMatcher) {
+        if (hasAllowAction == null) {
+            hasAllowAction = allowStatements.values().stream().flatMap(Collection::stream)
+                    .anyMatch(st -> isPrincipalMatched(st, principalMatcher) && !st.getActions().isEmpty());
+        }
+        return hasAllowAction;
+    }
+}
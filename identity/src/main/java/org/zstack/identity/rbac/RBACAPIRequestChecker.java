@@ -52,6 +52,10 @@ public class RBACAPIRequestChecker implements APIRequestChecker {
         return RBACManager.getPoliciesByAPI(rbacEntity.getApiMessage());
     }
 
+    protected CompiledPolicySet getCompiledPoliciesForAPI() {
+        return RBACPolicyCache.get(rbacEntity.getApiMessage().getSession());
+    }
+
     /**
      * rule evaluation order:
      * 3. if any user defined policy denies the API, deny
@@ -59,13 +63,11 @@ public class RBACAPIRequestChecker implements APIRequestChecker {
      * 5. then deny by default
      */
     protected void check() {
-        List<PolicyInventory> polices = getPoliciesForAPI();
-        Map<PolicyInventory, List<PolicyStatement>> denyStatements = RBACManager.collectDenyStatements(polices);
-        Map<PolicyInventory, List<PolicyStatement>> allowStatements = RBACManager.collectAllowedStatements(polices);
+        CompiledPolicySet policies = getCompiledPoliciesForAPI();
 
-        evalDenyStatements(denyStatements);
+        evalDenyStatements(policies);
 
-        if (evalAllowStatements(allowStatements)) {
+        if (evalAllowStatements(policies)) {
             // allowed
             return;
         }
@@ -111,6 +113,32 @@ public class RBACAPIRequestChecker implements APIRequestChecker {
         return false;
     }
 
+    protected boolean evalAllowStatements(CompiledPolicySet policies) {
+        if (!policies.hasAllowAction(this::isPrincipalMatched)) {
+            return false;
+        }
+
+        Set<String> apiNeedToCheck = new HashSet<>();
+        apiNeedToCheck.add(rbacEntity.getApiName());
+        apiNeedToCheck.addAll(rbacEntity.getAdditionalApisToCheck());
+
+        CompiledPolicySet.StatementMatch allowed = null;
+        for (String api : apiNeedToCheck) {
+            CompiledPolicySet.StatementMatch m = policies.getAllowMatch(api, this::isPrincipalMatched);
+            if (!RBAC.checkAPIPermission(rbacEntity.getApiMessage(), m != null)) {
+                return false;
+            }
+
+            allowed = m != null ? m : allowed;
+        }
+
+        if (logger.isTraceEnabled() && allowed != null) {
+            logger.trace(String.format("[RBAC] policy[name:%s, uuid:%s]'s statement[%s] allows the API:\n%s", allowed.getPolicy().getName(),
+                    allowed.getPolicy().getUuid(), allowed.getAction(), jsonMessage()));
+        }
+        return true;
+    }
+
     protected boolean evalAllowStatement(String as, String targetApiName) {
         String ap = PolicyUtils.apiNamePatternFromAction(as, true);
         return RBAC.checkAPIPermission(rbacEntity.getApiMessage(), policyMatcher.match(ap, targetApiName));
@@ -152,6 +180,12 @@ public class RBACAPIRequestChecker implements APIRequestChecker {
         return rbacEntity.getAdditionalApisToCheck().stream().anyMatch(api -> policyMatcher.match(apiName, api));
     }
 
+    protected void evalDenyStatements(CompiledPolicySet policies) {
+        List<CompiledPolicySet.StatementMatch> matches = new ArrayList<>(policies.getDenyMatches(rbacEntity.getApiName(), this::isPrincipalMatched));
+        rbacEntity.getAdditionalApisToCheck().forEach(api -> matches.addAll(policies.getDenyMatches(api, this::isPrincipalMatched)));
+        matches.forEach(m -> evalDenyStatement(m.getPolicy(), m.getAction(), m.getApiFields()));
+    }
+
     protected void evalDenyStatements(Map<PolicyInventory, List<PolicyStatement>> denyPolices) {
         // action string format is:
         // api-full-name:optional-api-field-list-split-by-comma
@@ -174,35 +208,38 @@ public class RBACAPIRequestChecker implements APIRequestChecker {
                 }
 
                 // the statement matching this API
+                evalDenyStatement(p, statement, apiFields);
+            });
+        }));
+    }
+
+    private void evalDenyStatement(PolicyInventory p, String statement, String apiFields) {
+        if (apiFields == null) {
+            // no API fields specified, the API is denied by this statement
+            if (logger.isTraceEnabled()) {
+                logger.trace(String.format("[RBAC] policy[name:%s, uuid:%s]'s statement[%s] denies the API:\n%s", p.getName(),
+                        p.getUuid(), statement, jsonMessage()));
+            }
 
-                if (apiFields == null) {
-                    // no API fields specified, the API is denied by this statement
+            throw new OperationFailureException(operr("the operation is denied by the policy[name:%s uuid:%s]", p.getName(), p.getUuid()));
+        }
+
+        Entity entity = Entity.getEntity(rbacEntity.getApiMessage().getClass());
+
+        for (String fname : apiFields.split(",")) {
+            Field field = entity.getFields().get(fname);
+            try {
+                if (field != null && field.get(rbacEntity.getApiMessage()) != null) {
                     if (logger.isTraceEnabled()) {
                         logger.trace(String.format("[RBAC] policy[name:%s, uuid:%s]'s statement[%s] denies the API:\n%s", p.getName(),
                                 p.getUuid(), statement, jsonMessage()));
                     }
-
-                    throw new OperationFailureException(operr("the operation is denied by the policy[name:%s uuid:%s]", p.getName(), p.getUuid()));
+                    throw new OperationFailureException(operr("the operation is denied by the policy[name:%s, uuid:%s], field[%s] is not permitted to set", p.getName(), p.getUuid(), fname));
                 }
-
-                Entity entity = Entity.getEntity(rbacEntity.getApiMessage().getClass());
-
-                for (String fname : apiFields.split(",")) {
-                    Field field = entity.getFields().get(fname);
-                    try {
-                        if (field != null && field.get(rbacEntity.getApiMessage()) != null) {
-                            if (logger.isTraceEnabled()) {
-                                logger.trace(String.format("[RBAC] policy[name:%s, uuid:%s]'s statement[%s] denies the API:\n%s", p.getName(),
-                                        p.getUuid(), statement, jsonMessage()));
-                            }
-                            throw new OperationFailureException(operr("the operation is denied by the policy[name:%s, uuid:%s], field[%s] is not permitted to set", p.getName(), p.getUuid(), fname));
-                        }
-                    } catch (IllegalAccessException e) {
-                        throw new CloudRuntimeException(e);
-                    }
-                }
-            });
-        }));
+            } catch (IllegalAccessException e) {
+                throw new CloudRuntimeException(e);
+            }
+        }
     }
 
     protected boolean checkUserPrincipal(String uuidRegex) {
@@ -214,9 +251,9 @@ public class RBACAPIRequestChecker implements APIRequestChecker {
     }
 
     public Map<String, Boolean> evalAPIPermission(List<Class> classes, SessionInventory session) {
-        List<PolicyInventory> policies = RBACManager.getPoliciesBySession(session);
-        Map<PolicyInventory, List<PolicyStatement>> denyStatements = RBACManager.collectDenyStatements(policies);
-        Map<PolicyInventory, List<PolicyStatement>> allowStatements = RBACManager.collectAllowedStatements(policies);
+        CompiledPolicySet policies = RBACPolicyCache.get(session);
+        Map<PolicyInventory, List<PolicyStatement>> denyStatements = policies.getDenyStatements();
+        Map<PolicyInventory, List<PolicyStatement>> allowStatements = policies.getAllowStatements();
 
         Map<String, Boolean> ret = new HashMap<>();
         classes.forEach(clz -> {
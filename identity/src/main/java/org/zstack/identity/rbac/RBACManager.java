@@ -21,6 +21,10 @@ public interface RBACManager {
     }
 
     static List<PolicyInventory> getPoliciesBySession(final SessionInventory session) {
+        return RBACPolicyCache.get(session).getPolicies();
+    }
+
+    static List<PolicyInventory> loadPoliciesBySession(final SessionInventory session) {
         return new SQLBatchWithReturn<List<PolicyInventory>>() {
             @Override
             protected List<PolicyInventory> scripts() {
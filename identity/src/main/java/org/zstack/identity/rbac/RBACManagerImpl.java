@@ -3,6 +3,8 @@ package org.zstack.identity.rbac;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.zstack.core.Platform;
 import org.zstack.core.cloudbus.CloudBus;
+import org.zstack.core.cloudbus.EventCallback;
+import org.zstack.core.cloudbus.EventFacade;
 import org.zstack.core.cloudbus.MessageSafe;
 import org.zstack.core.componentloader.PluginRegistry;
 import org.zstack.core.db.DatabaseFacade;
@@ -44,6 +46,8 @@ public class RBACManagerImpl extends AbstractService implements RBACManager, Com
     private DatabaseFacade dbf;
     @Autowired
     private PluginRegistry pluginRgty;
+    @Autowired
+    private EventFacade evtf;
 
     @Override
     public boolean start() {
@@ -56,6 +60,16 @@ public class RBACManagerImpl extends AbstractService implements RBACManager, Com
             roleIdentityFactoryMap.put(factory.getIdentity().toString(), factory);
         }
 
+        evtf.on(IdentityCanonicalEvents.RBAC_POLICY_CHANGED_PATH, new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                // the node changing policies has invalidated its own cache
+                if (!evtf.isFromThisManagementNode(tokens)) {
+                    RBACPolicyCache.invalidateLocally();
+                }
+            }
+        });
+
         return true;
     }
 
@@ -117,9 +131,9 @@ public class RBACManagerImpl extends AbstractService implements RBACManager, Com
 
         List<RBAC.Permission> permissions = RBAC.permissions.stream().filter(p -> p.getTargetResources().stream().anyMatch(resource -> resource.getSimpleName().equals(msg.getResourceType()))).collect(Collectors.toList());
 
-        List<PolicyInventory> policies = RBACManager.getPoliciesByAPI(msg);
-        Map<PolicyInventory, List<PolicyStatement>> denyStatements = RBACManager.collectDenyStatements(policies);
-        Map<PolicyInventory, List<PolicyStatement>> allowStatements = RBACManager.collectAllowedStatements(policies);
+        CompiledPolicySet policies = RBACPolicyCache.get(msg.getSession());
+        Map<PolicyInventory, List<PolicyStatement>> denyStatements = policies.getDenyStatements();
+        Map<PolicyInventory, List<PolicyStatement>> allowStatements = policies.getAllowStatements();
 
         List<String> apis = new ArrayList<>();
         APIMessage.apiMessageClasses.forEach(apiClz -> {
@@ -0,0 +1,102 @@
+package org.zstack.identity.rbac;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.zstack.core.cloudbus.CanonicalEventEmitter;
+import org.zstack.header.identity.IdentityCanonicalEvents;
+import org.zstack.header.identity.SessionInventory;
+import org.zstack.identity.IdentityGlobalProperty;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.transaction.support.TransactionSynchronizationManager.isSynchronizationActive;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.registerSynchronization;
+
+/**
+ * compiled policies of principals, so an API call doesn't load policies of the user from the database
+ * and match them against the API again.
+ *
+ * the cache must be invalidated by {@link #invalidate()} when policies, user groups or their attachments
+ * change; other management nodes are notified by a canonical event. Entries also expire after
+ * identity.rbac.policyCache.expireInSeconds in case of changes made out of the identity service.
+ */
+public class RBACPolicyCache {
+    private static final CLogger logger = Utils.getLogger(RBACPolicyCache.class);
+
+    private static final Cache<String, CompiledPolicySet> cache = CacheBuilder.newBuilder()
+            .maximumSize(IdentityGlobalProperty.RBAC_POLICY_CACHE_SIZE)
+            .expireAfterWrite(IdentityGlobalProperty.RBAC_POLICY_CACHE_EXPIRE_IN_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    // increased by every invalidation, policies loaded before an invalidation are not cached
+    private static long generation;
+
+    private static String principalKey(SessionInventory session) {
+        return session.getAccountUuid() + ":" + session.getUserUuid();
+    }
+
+    public static CompiledPolicySet get(SessionInventory session) {
+        String key = principalKey(session);
+        CompiledPolicySet set = cache.getIfPresent(key);
+        if (set != null) {
+            return set;
+        }
+
+        long gen;
+        synchronized (RBACPolicyCache.class) {
+            gen = generation;
+        }
+
+        set = new CompiledPolicySet(RBACManager.loadPoliciesBySession(session));
+
+        synchronized (RBACPolicyCache.class) {
+            if (gen == generation) {
+                cache.put(key, set);
+            }
+        }
+
+        return set;
+    }
+
+    /**
+     * drops compiled policies on this management node
+     */
+    public static void invalidateLocally() {
+        synchronized (RBACPolicyCache.class) {
+            generation++;
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * drops compiled policies on all management nodes. When called in a transaction, policies
+     * are dropped again and other nodes are notified after the transaction commits, so nobody
+     * caches the policies read before the commit
+     */
+    public static void invalidate() {
+        invalidateLocally();
+
+        if (isSynchronizationActive()) {
+            registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidateLocally();
+                    notifyOtherNodes();
+                }
+            });
+        } else {
+            notifyOtherNodes();
+        }
+    }
+
+    private static void notifyOtherNodes() {
+        try {
+            new CanonicalEventEmitter().fire(IdentityCanonicalEvents.RBAC_POLICY_CHANGED_PATH, null);
+        } catch (Throwable t) {
+            logger.warn("failed to notify other management nodes to invalidate RBAC policy cache", t);
+        }
+    }
+}
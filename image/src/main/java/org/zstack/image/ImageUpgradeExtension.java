@@ -9,7 +9,7 @@ import org.zstack.core.cloudbus.EventFacade;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.SimpleQuery;
 import org.zstack.core.db.UpdateQuery;
-import org.zstack.header.Component;
+import org.zstack.header.DependentComponent;
 import org.zstack.header.exception.CloudRuntimeException;
 import org.zstack.header.image.*;
 import org.zstack.header.message.MessageReply;
@@ -26,6 +26,7 @@ import org.zstack.utils.logging.CLogger;
 import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,7 +35,7 @@ import java.util.stream.Collectors;
 /**
  * Created by xing5 on 2016/5/6.
  */
-public class ImageUpgradeExtension implements Component {
+public class ImageUpgradeExtension implements DependentComponent {
     private static final CLogger logger = Utils.getLogger(ImageUpgradeExtension.class);
 
     @Autowired
@@ -44,6 +45,12 @@ public class ImageUpgradeExtension implements Component {
     @Autowired
     private CloudBus bus;
 
+    @Override
+    public List<Class<?>> getDependencies() {
+        // image fixes only touch the database and subscribe to backup storage events
+        return Arrays.asList(DatabaseFacade.class, EventFacade.class);
+    }
+
     @Override
     public boolean start() {
         if (ImageGlobalProperty.SYNC_IMAGE_ACTUAL_SIZE_ON_START) {
@@ -757,7 +757,7 @@ public class L3NetworkManagerImpl extends AbstractService implements L3NetworkMa
         }
 
         if (!ips.isEmpty()) {
-            dbf.updateCollection(ips);
+            dbf.bulkUpdate(ips);
         }
     }
 
@@ -42,6 +42,7 @@ import org.zstack.header.message.MessageReply;
 import org.zstack.header.rest.RESTFacade;
 import org.zstack.header.storage.backup.*;
 import org.zstack.storage.backup.BackupStorageBase;
+import org.zstack.storage.backup.ImageMetadataJournal;
 import org.zstack.storage.ceph.*;
 import org.zstack.storage.ceph.CephMonBase.PingResult;
 import org.zstack.storage.ceph.primary.CephPrimaryStorageVO;
@@ -545,57 +546,6 @@ public class CephBackupStorageBase extends BackupStorageBase {
     public static class DumpImageInfoToMetaDataFileRsp extends AgentResponse {
     }
 
-    public static class DeleteImageInfoFromMetaDataFileCmd extends AgentCommand {
-        private String imageUuid;
-        private String backupStorageUuid;
-        private String poolName;
-
-        public String getPoolName() {
-            return poolName;
-        }
-
-        public void setPoolName(String poolName) {
-            this.poolName = poolName;
-        }
-
-        public String getBackupStorageUuid() {
-            return backupStorageUuid;
-        }
-
-        public void setBackupStorageUuid(String backupStorageUuid) {
-            this.backupStorageUuid = backupStorageUuid;
-        }
-
-        public String getImageUuid() {
-            return imageUuid;
-        }
-
-        public void setImageUuid(String imageUuid) {
-            this.imageUuid = imageUuid;
-        }
-    }
-
-    public static class DeleteImageInfoFromMetaDataFileRsp extends AgentResponse {
-        private Integer ret;
-        private String out;
-
-        public Integer getRet() {
-            return ret;
-        }
-
-        public void setRet(Integer ret) {
-            this.ret = ret;
-        }
-
-        public String getOut() {
-            return out;
-        }
-
-        public void setOut(String out) {
-            this.out = out;
-        }
-    }
-
     public static class CephToCephMigrateImageCmd extends AgentCommand implements Serializable {
         String imageUuid;
         long imageSize;
@@ -697,7 +647,6 @@ public class CephBackupStorageBase extends BackupStorageBase {
     public static final String CHECK_IMAGE_METADATA_FILE_EXIST = "/ceph/backupstorage/checkimagemetadatafileexist";
     public static final String DUMP_IMAGE_METADATA_TO_FILE = "/ceph/backupstorage/dumpimagemetadatatofile";
     public static final String GET_IMAGES_METADATA = "/ceph/backupstorage/getimagesmetadata";
-    public static final String DELETE_IMAGES_METADATA = "/ceph/backupstorage/deleteimagesmetadata";
     public static final String CHECK_POOL_PATH = "/ceph/backupstorage/checkpool";
     public static final String GET_LOCAL_FILE_SIZE = "/ceph/backupstorage/getlocalfilesize";
     public static final String CEPH_TO_CEPH_MIGRATE_IMAGE_PATH = "/ceph/backupstorage/image/migrate";
@@ -975,30 +924,13 @@ public class CephBackupStorageBase extends BackupStorageBase {
 
                 @Override
                 public void success(CheckImageMetaDataFileExistRsp ret) {
-                    dumpImagesBackupStorageInfoToMetaDataFile(msg, reply, false, chain);
+                    dumpImagesBackupStorageInfoToMetaDataFile(msg, reply, new ImageMetadataJournal(msg.getBackupStorageUuid()).needCompaction(), chain);
                 }
             });
         } else if (msg.getOperation().equals(CephConstants.AFTER_EXPUNGE_IMAGE)) {
+            // append an expunge record instead of letting the agent rewrite the metadata file
             final BakeImageMetadataReply reply = new BakeImageMetadataReply();
-            CephBackupStorageBase.DeleteImageInfoFromMetaDataFileCmd deleteCmd = new CephBackupStorageBase.DeleteImageInfoFromMetaDataFileCmd();
-            deleteCmd.setImageUuid(msg.getImg().getUuid());
-            deleteCmd.setBackupStorageUuid(msg.getBackupStorageUuid());
-            deleteCmd.setPoolName(msg.getPoolName());
-            httpCall(DELETE_IMAGES_METADATA, deleteCmd, DeleteImageInfoFromMetaDataFileRsp.class,
-                    new ReturnValueCompletion<DeleteImageInfoFromMetaDataFileRsp>(msg, chain) {
-                @Override
-                public void success(DeleteImageInfoFromMetaDataFileRsp returnValue) {
-                    bus.reply(msg, reply);
-                    chain.next();
-                }
-                @Override
-                public void fail(ErrorCode err) {
-                    reply.setError(err);
-                    logger.error(String.format("delete ceph images metadata failed"));
-                    bus.reply(msg, reply);
-                    chain.next();
-                }
-            });
+            dumpImagesBackupStorageInfoToMetaDataFile(msg, reply, new ImageMetadataJournal(msg.getBackupStorageUuid()).needCompaction(), chain);
         }
     }
 
@@ -1006,11 +938,14 @@ public class CephBackupStorageBase extends BackupStorageBase {
         ImageInventory img = msg.getImg();
         logger.debug("dump ceph images info to meta data file");
         DumpImageInfoToMetaDataFileCmd dumpCmd = new DumpImageInfoToMetaDataFileCmd();
+        ImageMetadataJournal journal = new ImageMetadataJournal(msg.getBackupStorageUuid());
         String metaData;
         if (allImagesInfo) {
-            metaData = metaDataMaker.getAllImageInventories(img, null);
+            metaData = journal.snapshot();
+        } else if (msg.getOperation().equals(CephConstants.AFTER_EXPUNGE_IMAGE)) {
+            metaData = journal.expungeRecord(img.getUuid());
         } else {
-            metaData = JSONObjectUtil.toJsonString(img);
+            metaData = journal.imageRecord(img);
         }
         dumpCmd.setImageMetaData(metaData);
         dumpCmd.setDumpAllMetaData(allImagesInfo);
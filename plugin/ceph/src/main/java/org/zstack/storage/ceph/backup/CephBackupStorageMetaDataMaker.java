@@ -6,11 +6,9 @@ import org.zstack.core.cloudbus.CloudBus;
 import org.zstack.core.cloudbus.CloudBusCallBack;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.Q;
-import org.zstack.core.db.SQL;
 import org.zstack.core.db.SimpleQuery;
 import org.zstack.core.errorcode.ErrorFacade;
 import org.zstack.header.errorcode.ErrorCode;
-import org.zstack.header.identity.AccountConstant;
 import org.zstack.header.image.*;
 import org.zstack.header.message.MessageReply;
 import org.zstack.header.rest.JsonAsyncRESTCallback;
@@ -22,7 +20,7 @@ import org.zstack.header.storage.backup.BakeImageMetadataMsg;
 import org.zstack.header.tag.SystemTagInventory;
 import org.zstack.header.tag.SystemTagVO;
 import org.zstack.header.tag.SystemTagVO_;
-import org.zstack.header.tag.TagType;
+import org.zstack.storage.backup.ImageMetadataJournal;
 import org.zstack.storage.ceph.CephConstants;
 import org.zstack.storage.ceph.CephGlobalProperty;
 import org.zstack.storage.ceph.MonStatus;
@@ -55,28 +53,11 @@ public class CephBackupStorageMetaDataMaker implements AddImageExtensionPoint, A
         return String.format("http://%s:%s%s", hostName, monPort, subPath);
     }
 
-    @Transactional
     protected String getAllImageInventories(ImageInventory img, String bsUuid) {
-        String allImageInventories = null;
-        String sql = "select img from ImageVO img where img.status = :status and uuid in (select imageUuid from ImageBackupStorageRefVO ref where ref.backupStorageUuid= :bsUuid)";
-        TypedQuery<ImageVO> q = dbf.getEntityManager().createQuery(sql, ImageVO.class);
-        q.setParameter("status", ImageStatus.Ready);
-        if (img != null ) {
-            q.setParameter("bsUuid", getBackupStorageUuidFromImageInventory(img));
-        } else {
-            q.setParameter("bsUuid", bsUuid);
+        if (img != null) {
+            bsUuid = getBackupStorageUuidFromImageInventory(img);
         }
-        List<ImageInventory> allImageInv = q.getResultList().stream()
-                .map(imageVO -> ImageInventory.valueOf(imageVO)).collect(Collectors.toList());
-        setAllImagesSystemTags(allImageInv);
-        for (ImageInventory imageInv : allImageInv) {
-            if (allImageInventories != null) {
-                allImageInventories = JSONObjectUtil.toJsonString(imageInv) + "\n" + allImageInventories;
-            } else {
-                allImageInventories = JSONObjectUtil.toJsonString(imageInv);
-            }
-        }
-        return allImageInventories;
+        return new ImageMetadataJournal(bsUuid).snapshot();
     }
 
 
@@ -109,83 +90,7 @@ public class CephBackupStorageMetaDataMaker implements AddImageExtensionPoint, A
     }
 
     protected  void restoreImagesBackupStorageMetadataToDatabase(String imagesMetadata, String backupStorageUuid) {
-        List<ImageVO>  imageVOs = new ArrayList<ImageVO>();
-        List<ImageBackupStorageRefVO> backupStorageRefVOs = new ArrayList<ImageBackupStorageRefVO>();
-        List<SystemTagVO> systemTagVOs = new ArrayList<>();
-        String[] metadatas =  imagesMetadata.split("\n");
-        for ( String metadata : metadatas) {
-            if (metadata.contains("backupStorageRefs")) {
-                ImageInventory imageInventory = JSONObjectUtil.toObject(metadata, ImageInventory.class);
-
-                if (!imageInventory.getStatus().equals(ImageStatus.Ready.toString())
-                        || imageVOs.stream().anyMatch(image -> image.getUuid().equals(imageInventory.getUuid()))) {
-                    continue;
-                }
-
-                for (ImageBackupStorageRefInventory ref : imageInventory.getBackupStorageRefs()) {
-                    ImageBackupStorageRefVO backupStorageRefVO = new ImageBackupStorageRefVO();
-                    backupStorageRefVO.setStatus(ImageStatus.valueOf(ref.getStatus()));
-                    backupStorageRefVO.setInstallPath(ref.getInstallPath());
-                    backupStorageRefVO.setImageUuid(ref.getImageUuid());
-                    backupStorageRefVO.setBackupStorageUuid(backupStorageUuid);
-                    backupStorageRefVO.setExportMd5Sum(ref.getExportMd5Sum());
-                    backupStorageRefVO.setExportUrl(ref.getExportUrl());
-                    backupStorageRefVO.setCreateDate(ref.getCreateDate());
-                    backupStorageRefVO.setLastOpDate(ref.getLastOpDate());
-                    backupStorageRefVOs.add(backupStorageRefVO);
-                }
-
-                if ((long) SQL.New("select count(*) from ImageEO where uuid = :imageUuid")
-                        .param("imageUuid", imageInventory.getUuid())
-                        .find() > 0) {
-                    SQL.New("update ImageEO set status = :status, " +
-                            "deleted = null where uuid = :imageUuid")
-                            .param("status", ImageStatus.Ready)
-                            .param("imageUuid", imageInventory.getUuid())
-                            .execute();
-                    continue;
-                }
-
-                ImageVO imageVO = new ImageVO();
-                imageVO.setActualSize(imageInventory.getActualSize());
-                imageVO.setDescription(imageInventory.getDescription());
-                imageVO.setStatus(ImageStatus.valueOf(imageInventory.getStatus()));
-                imageVO.setFormat(imageInventory.getFormat());
-                imageVO.setGuestOsType(imageInventory.getGuestOsType());
-                imageVO.setMd5Sum(imageInventory.getMd5Sum());
-                imageVO.setMediaType(ImageConstant.ImageMediaType.valueOf(imageInventory.getMediaType()));
-                imageVO.setName(imageInventory.getName());
-                imageVO.setPlatform(ImagePlatform.valueOf(imageInventory.getPlatform()));
-                imageVO.setSize(imageInventory.getSize());
-                imageVO.setState(ImageState.valueOf(imageInventory.getState()));
-                imageVO.setSystem(imageInventory.isSystem());
-                imageVO.setType(imageInventory.getType());
-                imageVO.setUrl(imageInventory.getUrl());
-                imageVO.setUuid(imageInventory.getUuid());
-                imageVO.setCreateDate(imageInventory.getCreateDate());
-                imageVO.setLastOpDate(imageInventory.getLastOpDate());
-                imageVO.setAccountUuid(AccountConstant.INITIAL_SYSTEM_ADMIN_UUID);
-                imageVO.setVirtio(imageInventory.getVirtio());
-                imageVOs.add(imageVO);
-
-                if (imageInventory.getSystemTags() != null) {
-                    for (SystemTagInventory tagInv : imageInventory.getSystemTags()) {
-                        SystemTagVO systemTagVO = new SystemTagVO();
-                        systemTagVO.setCreateDate(tagInv.getCreateDate());
-                        systemTagVO.setLastOpDate(tagInv.getLastOpDate());
-                        systemTagVO.setResourceType(tagInv.getResourceType());
-                        systemTagVO.setResourceUuid(tagInv.getResourceUuid());
-                        systemTagVO.setTag(tagInv.getTag());
-                        systemTagVO.setType(TagType.System.toString().equals(tagInv.getType()) ? TagType.System : TagType.User);
-                        systemTagVO.setUuid(tagInv.getUuid());
-                        systemTagVOs.add(systemTagVO);
-                    }
-                }
-            }
-        }
-        dbf.persistCollection(imageVOs);
-        dbf.persistCollection(backupStorageRefVOs);
-        dbf.persistCollection(systemTagVOs);
+        new ImageMetadataJournal(backupStorageUuid).restore(imagesMetadata);
     }
 
     protected String getHostnameFromBackupStorage(CephBackupStorageInventory inv) {
@@ -380,13 +285,13 @@ public class CephBackupStorageMetaDataMaker implements AddImageExtensionPoint, A
 
         setAllImagesSystemTags(Collections.singletonList(img));
         SimpleQuery<CephBackupStorageVO> query = dbf.createQuery(CephBackupStorageVO.class);
-        query.add(CephBackupStorageVO_.uuid, SimpleQuery.Op.EQ, getBackupStorageUuidFromImageInventory(img));
+        query.add(CephBackupStorageVO_.uuid, SimpleQuery.Op.EQ, backupStorageUuid);
         CephBackupStorageVO cephBackupStorageVO = query.find();
         CephBackupStorageInventory inv = CephBackupStorageInventory.valueOf(cephBackupStorageVO);
 
         BakeImageMetadataMsg msg = new BakeImageMetadataMsg();
         msg.setImg(img);
-        msg.setBackupStorageUuid(getBackupStorageUuidFromImageInventory(img));
+        msg.setBackupStorageUuid(backupStorageUuid);
         msg.setOperation(CephConstants.AFTER_EXPUNGE_IMAGE);
         msg.setPoolName(inv.getPoolName());
         bus.makeLocalServiceId(msg, BackupStorageConstant.SERVICE_ID);
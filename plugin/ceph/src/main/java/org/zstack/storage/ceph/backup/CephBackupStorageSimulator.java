@@ -196,18 +196,6 @@ public class CephBackupStorageSimulator {
         return null;
     }
 
-    @RequestMapping(value=CephBackupStorageBase.DELETE_IMAGES_METADATA, method= RequestMethod.POST)
-    public @ResponseBody
-    String deleteImagesMetadata(HttpEntity<String> entity) {
-        DeleteImageInfoFromMetaDataFileCmd cmd = JSONObjectUtil.toObject(entity.getBody(), DeleteImageInfoFromMetaDataFileCmd.class);
-        config.deleteImageInfoFromMetadataFileCmds.add(cmd);
-        DeleteImageInfoFromMetaDataFileRsp rsp = new DeleteImageInfoFromMetaDataFileRsp();
-        rsp.setRet(0);
-        rsp.setOut("success delete");
-        reply(entity, rsp);
-        return null;
-    }
-
     @RequestMapping(value=CephBackupStorageBase.DUMP_IMAGE_METADATA_TO_FILE, method= RequestMethod.POST)
     public @ResponseBody
     String dumpImagesMetadataToFile(HttpEntity<String> entity) {
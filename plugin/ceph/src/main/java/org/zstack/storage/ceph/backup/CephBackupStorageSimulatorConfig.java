@@ -24,7 +24,6 @@ public class CephBackupStorageSimulatorConfig {
     public List<DownloadCmd> downloadCmds = new ArrayList<DownloadCmd>();
     public List<DeleteCmd> deleteCmds = new ArrayList<DeleteCmd>();
     public List<CheckImageMetaDataFileExistCmd> checkMetadataFileCmds = new ArrayList<CheckImageMetaDataFileExistCmd>();
-    public List<DeleteImageInfoFromMetaDataFileCmd> deleteImageInfoFromMetadataFileCmds = new ArrayList<DeleteImageInfoFromMetaDataFileCmd>();
     public List<DumpImageInfoToMetaDataFileCmd> dumpImageInfoToMetaDataFileCmds = new ArrayList<DumpImageInfoToMetaDataFileCmd>();
     public List<GetImagesMetaDataCmd> getImageInfoToMetaDataFileCmds = new ArrayList<GetImagesMetaDataCmd>();
     public List<PingCmd> pingCmds = new ArrayList<PingCmd>();
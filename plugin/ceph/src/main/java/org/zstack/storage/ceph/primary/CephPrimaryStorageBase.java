@@ -103,6 +103,8 @@ public class CephPrimaryStorageBase extends PrimaryStorageBase {
     private PluginRegistry pluginRgty;
     @Autowired
     private StorageTrash trash;
+    @Autowired
+    private ImageCacheDownloadCoordinator downloadCoordinator;
 
     public CephPrimaryStorageBase() {
     }
@@ -2327,6 +2329,10 @@ public class CephPrimaryStorageBase extends PrimaryStorageBase {
         }
 
         void download(final ReturnValueCompletion<ImageCacheVO> completion) {
+            downloadCoordinator.download(self.getUuid(), null, image.getInventory().getUuid(), this::downloadInQueue, completion);
+        }
+
+        private void downloadInQueue(final ReturnValueCompletion<ImageCacheVO> completion) {
             thdf.chainSubmit(new ChainTask(completion) {
                 @Override
                 public String getSyncSignature() {
@@ -1495,12 +1495,47 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
         });
     }
 
+    private final FlatNetworkServiceApplyCoalescer<List<DhcpInfo>> dhcpApplyCoalescer = new FlatNetworkServiceApplyCoalescer<List<DhcpInfo>>("flat-dhcp-apply") {
+        @Override
+        protected long getWindowInMillis() {
+            return FlatNetwordProviderGlobalConfig.APPLY_COALESCE_WINDOW.value(Long.class);
+        }
+
+        @Override
+        protected int getMaxBatchSize() {
+            return FlatNetwordProviderGlobalConfig.APPLY_COALESCE_MAX_BATCH_SIZE.value(Integer.class);
+        }
+
+        @Override
+        protected void apply(String hostUuid, List<List<DhcpInfo>> items, Completion completion) {
+            if (items.size() == 1) {
+                doApplyDhcpToHost(items.get(0), hostUuid, false, completion);
+                return;
+            }
+
+            // the same nic may be applied more than once in a window, the latest one wins
+            Map<String, DhcpInfo> merged = new LinkedHashMap<>();
+            items.forEach(infos -> infos.forEach(info ->
+                    merged.put(String.format("%s-%s-%s", info.l3NetworkUuid, info.mac, info.ipVersion), info)));
+            doApplyDhcpToHost(new ArrayList<>(merged.values()), hostUuid, false, completion);
+        }
+    };
+
     private void applyDhcpToHosts(List<DhcpInfo> dhcpInfo, final String hostUuid, final boolean rebuild, final Completion completion) {
         if (new FlatNetworkServiceValidator().validate(hostUuid)) {
             completion.success();
             return;
         }
 
+        if (rebuild) {
+            // rebuild resets all dhcp entries on the host, it cannot be merged with others
+            doApplyDhcpToHost(dhcpInfo, hostUuid, true, completion);
+        } else {
+            dhcpApplyCoalescer.submit(hostUuid, dhcpInfo, completion);
+        }
+    }
+
+    private void doApplyDhcpToHost(List<DhcpInfo> dhcpInfo, final String hostUuid, final boolean rebuild, final Completion completion) {
         final Map<String, List<DhcpInfo>> l3DhcpMap = new HashMap<>();
         for (DhcpInfo d : dhcpInfo) {
             // TODO: vDPA do not support flat dhcp service yet;
@@ -1547,6 +1582,16 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
             return;
         }
 
+        // an apply of the vm still waiting in the coalescing window must not land after the release
+        dhcpApplyCoalescer.flush(hostUuid, new NoErrorCompletion(completion) {
+            @Override
+            public void done() {
+                doReleaseDhcpService(info, vmUuid, hostUuid, completion);
+            }
+        });
+    }
+
+    private void doReleaseDhcpService(List<DhcpInfo> info, final String vmUuid, final String hostUuid, final NoErrorCompletion completion) {
         final ReleaseDhcpCmd cmd = new ReleaseDhcpCmd();
         cmd.dhcp = info;
 
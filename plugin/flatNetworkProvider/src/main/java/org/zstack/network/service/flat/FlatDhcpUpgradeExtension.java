@@ -6,7 +6,7 @@ import org.zstack.core.cloudbus.AutoOffEventCallback;
 import org.zstack.core.cloudbus.EventFacade;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.errorcode.ErrorFacade;
-import org.zstack.header.Component;
+import org.zstack.header.DependentComponent;
 import org.zstack.header.errorcode.ErrorCode;
 import org.zstack.header.host.HostCanonicalEvents;
 import org.zstack.header.host.HostCanonicalEvents.HostStatusChangedData;
@@ -27,6 +27,7 @@ import org.zstack.utils.logging.CLogger;
 import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -35,7 +36,7 @@ import static org.zstack.core.Platform.operr;
 /**
  * Created by xing5 on 2016/6/25.
  */
-public class FlatDhcpUpgradeExtension implements Component {
+public class FlatDhcpUpgradeExtension implements DependentComponent {
     private static final CLogger logger = Utils.getLogger(FlatDhcpUpgradeExtension.class);
 
     @Autowired
@@ -89,6 +90,12 @@ public class FlatDhcpUpgradeExtension implements Component {
         return ret;
     }
 
+    @Override
+    public List<Class<?>> getDependencies() {
+        // deprecated namespaces are deleted when hosts reconnect, nothing else is needed at start
+        return Arrays.asList(DatabaseFacade.class, EventFacade.class);
+    }
+
     @Override
     public boolean start() {
         if (FlatNetworkGlobalProperty.DELETE_DEPRECATED_DHCP_NAME_SPACE) {
@@ -13,4 +13,8 @@ public class FlatNetwordProviderGlobalConfig {
 
     @GlobalConfigValidation
     public static GlobalConfig ALLOW_DEFAULT_DNS = new GlobalConfig(CATRGORY, "allow.default.dns");
+    @GlobalConfigValidation(numberGreaterThan = -1)
+    public static GlobalConfig APPLY_COALESCE_WINDOW = new GlobalConfig(CATRGORY, "apply.coalesce.window");
+    @GlobalConfigValidation(numberGreaterThan = 0)
+    public static GlobalConfig APPLY_COALESCE_MAX_BATCH_SIZE = new GlobalConfig(CATRGORY, "apply.coalesce.maxBatchSize");
 }
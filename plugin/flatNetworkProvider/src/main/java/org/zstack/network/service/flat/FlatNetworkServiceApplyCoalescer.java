@@ -0,0 +1,185 @@
+package org.zstack.network.service.flat;
+
+import org.springframework.beans.factory.annotation.Autowire;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Configurable;
+import org.zstack.core.asyncbatch.While;
+import org.zstack.core.thread.ThreadFacade;
+import org.zstack.header.core.Completion;
+import org.zstack.header.core.NoErrorCompletion;
+import org.zstack.header.core.WhileDoneCompletion;
+import org.zstack.header.errorcode.ErrorCode;
+import org.zstack.header.errorcode.ErrorCodeList;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Groups apply requests to the same host that arrive within a short window,
+ * so a mass VM start sends one batch command per host instead of one per VM.
+ *
+ * every caller's completion is called individually; if a merged batch fails,
+ * the requests are re-applied one by one so that a single bad request
+ * does not fail the others in the same batch.
+ */
+@Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
+public abstract class FlatNetworkServiceApplyCoalescer<T> {
+    private static final CLogger logger = Utils.getLogger(FlatNetworkServiceApplyCoalescer.class);
+
+    @Autowired
+    private ThreadFacade thdf;
+
+    private final String name;
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+    private class Pending {
+        T item;
+        Completion completion;
+    }
+
+    private class Batch {
+        String hostUuid;
+        List<Pending> pendings = new ArrayList<>();
+    }
+
+    public FlatNetworkServiceApplyCoalescer(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the window in milliseconds to wait for other requests to the same host,
+     * 0 to apply the request immediately
+     */
+    protected abstract long getWindowInMillis();
+
+    protected abstract int getMaxBatchSize();
+
+    protected abstract void apply(String hostUuid, List<T> items, Completion completion);
+
+    public void submit(String hostUuid, T item, Completion completion) {
+        long window = getWindowInMillis();
+        if (window <= 0) {
+            apply(hostUuid, Collections.singletonList(item), completion);
+            return;
+        }
+
+        Pending pending = new Pending();
+        pending.item = item;
+        pending.completion = completion;
+
+        Batch full = null;
+        synchronized (batches) {
+            Batch batch = batches.get(hostUuid);
+            if (batch == null) {
+                Batch newBatch = new Batch();
+                newBatch.hostUuid = hostUuid;
+                batches.put(hostUuid, newBatch);
+                batch = newBatch;
+
+                thdf.submitTimeoutTask(() -> flush(newBatch), TimeUnit.MILLISECONDS, window);
+            }
+
+            batch.pendings.add(pending);
+            if (batch.pendings.size() >= getMaxBatchSize()) {
+                batches.remove(hostUuid);
+                full = batch;
+            }
+        }
+
+        if (full != null) {
+            doApply(full);
+        }
+    }
+
+    /**
+     * sends the requests to the host that are still waiting in the window right now,
+     * the completion is called after all of them are done. Callers use it to keep
+     * a later command to the host, e.g. a release, from being overtaken by a stale apply.
+     */
+    public void flush(String hostUuid, NoErrorCompletion completion) {
+        Batch batch;
+        synchronized (batches) {
+            batch = batches.remove(hostUuid);
+        }
+
+        if (batch == null) {
+            completion.done();
+            return;
+        }
+
+        doApply(batch, completion);
+    }
+
+    private void flush(Batch batch) {
+        synchronized (batches) {
+            // the batch may have been flushed because it's full
+            if (!batches.remove(batch.hostUuid, batch)) {
+                return;
+            }
+        }
+
+        doApply(batch);
+    }
+
+    private void doApply(Batch batch) {
+        doApply(batch, new NoErrorCompletion() {
+            @Override
+            public void done() {
+            }
+        });
+    }
+
+    private void doApply(Batch batch, NoErrorCompletion done) {
+        List<T> items = batch.pendings.stream().map(p -> p.item).collect(Collectors.toList());
+        logger.debug(String.format("[%s] apply %s coalesced requests to the host[uuid:%s]", name, items.size(), batch.hostUuid));
+
+        apply(batch.hostUuid, items, new Completion(null) {
+            @Override
+            public void success() {
+                batch.pendings.forEach(p -> p.completion.success());
+                done.done();
+            }
+
+            @Override
+            public void fail(ErrorCode errorCode) {
+                if (batch.pendings.size() == 1) {
+                    batch.pendings.get(0).completion.fail(errorCode);
+                    done.done();
+                    return;
+                }
+
+                logger.warn(String.format("[%s] failed to apply %s coalesced requests to the host[uuid:%s], %s;" +
+                        " apply them one by one", name, items.size(), batch.hostUuid, errorCode));
+                applyOneByOne(batch, done);
+            }
+        });
+    }
+
+    private void applyOneByOne(Batch batch, NoErrorCompletion done) {
+        new While<>(batch.pendings).all((p, c) -> apply(batch.hostUuid, Collections.singletonList(p.item), new Completion(c) {
+            @Override
+            public void success() {
+                p.completion.success();
+                c.done();
+            }
+
+            @Override
+            public void fail(ErrorCode errorCode) {
+                p.completion.fail(errorCode);
+                c.done();
+            }
+        })).run(new WhileDoneCompletion(null) {
+            @Override
+            public void done(ErrorCodeList errorCodeList) {
+                done.done();
+            }
+        });
+    }
+}
@@ -540,6 +540,87 @@ public class FlatUserdataBackend implements UserdataBackend, KVMHostConnectExten
         return struct.getUserdataList() != null && !struct.getUserdataList().isEmpty();
     }
 
+    private UserdataTO makeUserdataTO(UserdataStruct struct, String dhcpServerIp) {
+        MetadataTO to = new MetadataTO();
+        to.vmUuid = struct.getVmUuid();
+        to.vmHostname = VmSystemTags.HOSTNAME.getTokenByResourceUuid(struct.getVmUuid(), VmSystemTags.HOSTNAME_TOKEN);
+        UserdataTO uto = new UserdataTO();
+        uto.metadata = to;
+        uto.userdataList = struct.getUserdataList();
+        uto.dhcpServerIp = dhcpServerIp;
+        uto.vmIp = CollectionUtils.find(struct.getVmNics(), new Function<String, VmNicInventory>() {
+            @Override
+            public String call(VmNicInventory arg) {
+                return arg.getL3NetworkUuid().equals(struct.getL3NetworkUuid()) ? arg.getIp() : null;
+            }
+        });
+        uto.netmask = CollectionUtils.find(struct.getVmNics(), new Function<String, VmNicInventory>() {
+            @Override
+            public String call(VmNicInventory arg) {
+                return arg.getL3NetworkUuid().equals(struct.getL3NetworkUuid()) ? arg.getNetmask() : null;
+            }
+        });
+        uto.bridgeName = new BridgeNameFinder().findByL3Uuid(struct.getL3NetworkUuid());
+        uto.namespaceName = FlatDhcpBackend.makeNamespaceName(uto.bridgeName, struct.getL3NetworkUuid());
+        uto.port = UserdataGlobalProperty.HOST_PORT;
+        uto.l3NetworkUuid = struct.getL3NetworkUuid();
+        uto.agentConfig = new HashMap<>();
+        for (BeforeUpdateUserdataExtensionPoint ext : pluginRgty.getExtensionList(BeforeUpdateUserdataExtensionPoint.class)) {
+            ext.beforeApplyUserdata(struct.getVmUuid(), uto);
+        }
+        return uto;
+    }
+
+    private final FlatNetworkServiceApplyCoalescer<UserdataTO> userdataApplyCoalescer = new FlatNetworkServiceApplyCoalescer<UserdataTO>("flat-userdata-apply") {
+        @Override
+        protected long getWindowInMillis() {
+            return FlatNetwordProviderGlobalConfig.APPLY_COALESCE_WINDOW.value(Long.class);
+        }
+
+        @Override
+        protected int getMaxBatchSize() {
+            return FlatNetwordProviderGlobalConfig.APPLY_COALESCE_MAX_BATCH_SIZE.value(Integer.class);
+        }
+
+        @Override
+        protected void apply(String hostUuid, List<UserdataTO> items, Completion completion) {
+            KVMHostAsyncHttpCallMsg msg = new KVMHostAsyncHttpCallMsg();
+            msg.setHostUuid(hostUuid);
+            if (items.size() == 1) {
+                ApplyUserdataCmd cmd = new ApplyUserdataCmd();
+                cmd.hostUuid = hostUuid;
+                cmd.userdata = items.get(0);
+                msg.setCommand(cmd);
+                msg.setPath(APPLY_USER_DATA);
+            } else {
+                BatchApplyUserdataCmd cmd = new BatchApplyUserdataCmd();
+                cmd.userdata = items;
+                cmd.rebuild = false;
+                msg.setCommand(cmd);
+                msg.setPath(BATCH_APPLY_USER_DATA);
+            }
+            bus.makeTargetServiceIdByResourceUuid(msg, HostConstant.SERVICE_ID, hostUuid);
+            bus.send(msg, new CloudBusCallBack(completion) {
+                @Override
+                public void run(MessageReply reply) {
+                    if (!reply.isSuccess()) {
+                        completion.fail(reply.getError());
+                        return;
+                    }
+
+                    KVMHostAsyncHttpCallReply r = reply.castReply();
+                    ApplyUserdataRsp rsp = r.toResponse(ApplyUserdataRsp.class);
+                    if (!rsp.isSuccess()) {
+                        completion.fail(operr("operation error, because:%s", rsp.getError()));
+                        return;
+                    }
+
+                    completion.success();
+                }
+            });
+        }
+    };
+
     @Override
     public void applyUserdata(final UserdataStruct struct, final Completion completion) {
         if (!UserdataGlobalConfig.OPEN_USERDATA_SERVICE_BY_DEFAULT.value(Boolean.class)) {
@@ -604,59 +685,15 @@ public class FlatUserdataBackend implements UserdataBackend, KVMHostConnectExten
 
                     @Override
                     public void run(final FlowTrigger trigger, Map data) {
-                        ApplyUserdataCmd cmd = new ApplyUserdataCmd();
-                        cmd.hostUuid = struct.getHostUuid();
-
-                        MetadataTO to = new MetadataTO();
-                        to.vmUuid = struct.getVmUuid();
-                        to.vmHostname = VmSystemTags.HOSTNAME.getTokenByResourceUuid(struct.getVmUuid(), VmSystemTags.HOSTNAME_TOKEN);
-                        UserdataTO uto = new UserdataTO();
-                        uto.metadata = to;
-                        uto.userdataList = struct.getUserdataList();
-                        uto.dhcpServerIp = dhcpServerIp;
-                        uto.vmIp = CollectionUtils.find(struct.getVmNics(), new Function<String, VmNicInventory>() {
+                        userdataApplyCoalescer.submit(struct.getHostUuid(), makeUserdataTO(struct, dhcpServerIp), new Completion(trigger) {
                             @Override
-                            public String call(VmNicInventory arg) {
-                                return arg.getL3NetworkUuid().equals(struct.getL3NetworkUuid()) ? arg.getIp() : null;
-                            }
-                        });
-                        uto.netmask = CollectionUtils.find(struct.getVmNics(), new Function<String, VmNicInventory>() {
-                            @Override
-                            public String call(VmNicInventory arg) {
-                                return arg.getL3NetworkUuid().equals(struct.getL3NetworkUuid()) ? arg.getNetmask() : null;
+                            public void success() {
+                                trigger.next();
                             }
-                        });
-                        uto.bridgeName = new BridgeNameFinder().findByL3Uuid(struct.getL3NetworkUuid());
-                        uto.namespaceName = FlatDhcpBackend.makeNamespaceName(uto.bridgeName, struct.getL3NetworkUuid());
-                        uto.port = UserdataGlobalProperty.HOST_PORT;
-                        uto.l3NetworkUuid = struct.getL3NetworkUuid();
-                        uto.agentConfig = new HashMap<>();
-                        for (BeforeUpdateUserdataExtensionPoint ext : pluginRgty.getExtensionList(BeforeUpdateUserdataExtensionPoint.class)) {
-                            ext.beforeApplyUserdata(struct.getVmUuid(), uto);
-                        }
-                        cmd.userdata = uto;
 
-                        KVMHostAsyncHttpCallMsg msg = new KVMHostAsyncHttpCallMsg();
-                        msg.setHostUuid(struct.getHostUuid());
-                        msg.setCommand(cmd);
-                        msg.setPath(APPLY_USER_DATA);
-                        bus.makeTargetServiceIdByResourceUuid(msg, HostConstant.SERVICE_ID, struct.getHostUuid());
-                        bus.send(msg, new CloudBusCallBack(trigger) {
                             @Override
-                            public void run(MessageReply reply) {
-                                if (!reply.isSuccess()) {
-                                    trigger.fail(reply.getError());
-                                    return;
-                                }
-
-                                KVMHostAsyncHttpCallReply r = reply.castReply();
-                                ApplyUserdataRsp rsp = r.toResponse(ApplyUserdataRsp.class);
-                                if (!rsp.isSuccess()) {
-                                    trigger.fail(operr("operation error, because:%s", rsp.getError()));
-                                    return;
-                                }
-
-                                trigger.next();
+                            public void fail(ErrorCode errorCode) {
+                                trigger.fail(errorCode);
                             }
                         });
                     }
@@ -297,6 +297,27 @@ public class KVMAgentCommands {
         }
     }
 
+    public static class BatchSubCommand {
+        public String id;
+        public String path;
+        public String command;
+        public Map<String, String> headers;
+        public long timeout;
+    }
+
+    public static class BatchSubResponse {
+        public String id;
+        public String response;
+    }
+
+    public static class BatchCommandsCmd extends AgentCommand {
+        public List<BatchSubCommand> commands;
+    }
+
+    public static class BatchCommandsRsp extends AgentResponse {
+        public List<BatchSubResponse> responses;
+    }
+
     public static class PingCmd extends AgentCommand {
         public String hostUuid;
     }
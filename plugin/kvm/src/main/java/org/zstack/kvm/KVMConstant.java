@@ -14,6 +14,7 @@ public interface KVMConstant {
     String KVM_PING_PATH = "/host/ping";
     String KVM_UPDATE_HOST_CONFIGURATION_PATH = "/host/update/configuration";
     String KVM_ECHO_PATH = "/host/echo";
+    String KVM_BATCH_COMMANDS_PATH = "/host/batch/commands";
     String KVM_CHECK_PHYSICAL_NETWORK_INTERFACE_PATH = "/network/checkphysicalnetworkinterface";
     String KVM_ADD_INTERFACE_TO_BRIDGE_PATH = "/network/bridge/addif";
     String KVM_HOST_CAPACITY_PATH = "/host/capacity";
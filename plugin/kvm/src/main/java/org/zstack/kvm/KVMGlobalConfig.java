@@ -72,4 +72,8 @@ public class KVMGlobalConfig {
     public static GlobalConfig HOST_CONNECTION_CHECK_INTERVAL = new GlobalConfig(CATEGORY, "host.connection.check.interval");
     @GlobalConfigValidation
     public static GlobalConfig CONNECTION_SERVER_UPDATE_INTERVAL = new GlobalConfig(CATEGORY, "connection.server.update.interval");
+    @GlobalConfigValidation(numberGreaterThan = -1)
+    public static GlobalConfig AGENT_COMMAND_BATCH_WINDOW = new GlobalConfig(CATEGORY, "agent.command.batch.window");
+    @GlobalConfigValidation(numberGreaterThan = 0)
+    public static GlobalConfig AGENT_COMMAND_BATCH_MAX_SIZE = new GlobalConfig(CATEGORY, "agent.command.batch.maxSize");
 }
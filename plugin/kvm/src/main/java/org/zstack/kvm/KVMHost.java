@@ -372,7 +372,24 @@ public class KVMHost extends HostBase implements Host {
             Map<String, String> header = new HashMap<>();
             header.put(Constants.AGENT_HTTP_HEADER_RESOURCE_UUID, resourceUuid == null ? self.getUuid() : resourceUuid);
             runBeforeAsyncJsonPostExts(header);
-            if (commandStr != null) {
+            KVMHostCommandPipeline pipeline = factory.getCommandPipeline(self.getUuid(), buildUrl(KVMConstant.KVM_BATCH_COMMANDS_PATH));
+            if (commandStr != null && pipeline.isEnabled()) {
+                pipeline.submit(path, commandStr, header, responseClass, timeoutManager.getTimeout(), new ReturnValueCompletion<T>(completion) {
+                    @Override
+                    public void success(T ret) {
+                        if (dbf.isExist(self.getUuid(), HostVO.class)) {
+                            completion.success(ret);
+                        } else {
+                            completion.fail(operr("host[uuid:%s] has been deleted", self.getUuid()));
+                        }
+                    }
+
+                    @Override
+                    public void fail(ErrorCode errorCode) {
+                        completion.fail(errorCode);
+                    }
+                });
+            } else if (commandStr != null) {
                 restf.asyncJsonPost(path, commandStr, header, new JsonAsyncRESTCallback<T>(completion) {
                     @Override
                     public void fail(ErrorCode err) {
@@ -1327,7 +1344,7 @@ public class KVMHost extends HostBase implements Host {
                         .name("sync-call-on-kvm-" + self.getUuid())
                         .asyncBackup(msg)
                         .asyncBackup(outer)
-                        .run((chain) -> executeSyncHttpCall(msg, new NoErrorCompletion(chain, outer) {
+                        .run((chain) -> executeSyncHttpCallOnBlockingPool(msg, new NoErrorCompletion(chain, outer) {
                             @Override
                             public void done() {
                                 chain.next();
@@ -1337,6 +1354,37 @@ public class KVMHost extends HostBase implements Host {
                 );
     }
 
+    private void executeSyncHttpCallOnBlockingPool(KVMHostSyncHttpCallMsg msg, NoErrorCompletion completion) {
+        if (!ThreadGlobalProperty.BLOCKING_POOL_ENABLED) {
+            executeSyncHttpCall(msg, completion);
+            return;
+        }
+
+        // the call blocks until the agent replies, don't hold a thread of the fixed pool for it
+        thdf.submitBlockingPool(new Task<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    executeSyncHttpCall(msg, completion);
+                } catch (Throwable t) {
+                    logger.warn(String.format("failed to execute sync http call[path:%s] on the kvm host[uuid:%s]",
+                            msg.getPath(), self.getUuid()), t);
+                    KVMHostSyncHttpCallReply reply = new KVMHostSyncHttpCallReply();
+                    reply.setError(t instanceof OperationFailureException ?
+                            ((OperationFailureException) t).getErrorCode() : inerr(t.getMessage()));
+                    bus.reply(msg, reply);
+                    completion.done();
+                }
+                return null;
+            }
+
+            @Override
+            public String getName() {
+                return "sync-call-on-kvm-" + self.getUuid();
+            }
+        });
+    }
+
     private void executeSyncHttpCall(KVMHostSyncHttpCallMsg msg, NoErrorCompletion completion) {
         if (!msg.isNoStatusCheck()) {
             checkStatus();
@@ -3132,6 +3180,7 @@ public class KVMHost extends HostBase implements Host {
 
     @Override
     public void deleteHook() {
+        factory.removeCommandPipeline(self.getUuid());
     }
 
     @Override
@@ -0,0 +1,265 @@
+package org.zstack.kvm;
+
+import org.springframework.beans.factory.annotation.Autowire;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Configurable;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.zstack.core.Platform;
+import org.zstack.core.thread.ThreadFacade;
+import org.zstack.core.thread.ThreadFacadeImpl.TimeoutTaskReceipt;
+import org.zstack.core.validation.ValidationFacade;
+import org.zstack.header.core.ReturnValueCompletion;
+import org.zstack.header.errorcode.ErrorCode;
+import org.zstack.header.errorcode.SysErrors;
+import org.zstack.header.rest.AsyncRESTCallback;
+import org.zstack.header.rest.JsonAsyncRESTCallback;
+import org.zstack.header.rest.RESTConstant;
+import org.zstack.header.rest.RESTFacade;
+import org.zstack.kvm.KVMAgentCommands.BatchCommandsCmd;
+import org.zstack.kvm.KVMAgentCommands.BatchCommandsRsp;
+import org.zstack.kvm.KVMAgentCommands.BatchSubCommand;
+import org.zstack.kvm.KVMAgentCommands.BatchSubResponse;
+import org.zstack.utils.Utils;
+import org.zstack.utils.gson.JSONObjectUtil;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.zstack.core.Platform.inerr;
+import static org.zstack.core.Platform.operr;
+import static org.zstack.core.Platform.touterr;
+
+/**
+ * Batches concurrent agent commands to the same KVM host into one http request
+ * to {@link KVMConstant#KVM_BATCH_COMMANDS_PATH}, the agent executes them and
+ * replies all results in one callback.
+ *
+ * every command keeps its own timeout and its own result; when the agent
+ * replies 404 to the batch url, i.e. it does not support batch commands, the
+ * pipeline falls back to sending commands one by one and stops batching for
+ * this host. Any other failure of a batch fails all commands in it, because
+ * the agent may have executed some of them already.
+ */
+@Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
+public class KVMHostCommandPipeline {
+    private static final CLogger logger = Utils.getLogger(KVMHostCommandPipeline.class);
+
+    @Autowired
+    private RESTFacade restf;
+    @Autowired
+    private ThreadFacade thdf;
+    @Autowired
+    private ValidationFacade vf;
+
+    private final String batchUrl;
+    private volatile boolean batchUnsupported;
+    private List<PendingCommand> pendings = new ArrayList<>();
+
+    private class PendingCommand<T> {
+        String id = Platform.getUuid();
+        String url;
+        String body;
+        Map<String, String> headers;
+        Class<T> returnClass;
+        long timeout;
+        ReturnValueCompletion<T> completion;
+        TimeoutTaskReceipt timeoutReceipt;
+        final AtomicBoolean done = new AtomicBoolean(false);
+
+        void startTimer() {
+            timeoutReceipt = thdf.submitTimeoutTask(() -> fail(touterr(
+                    "[Batch Agent Command Timeout] url: %s, timeout after %s[MILLISECONDS], command: %s", url, timeout, body
+            )), TimeUnit.MILLISECONDS, timeout);
+        }
+
+        BatchSubCommand toSubCommand() {
+            BatchSubCommand sub = new BatchSubCommand();
+            sub.id = id;
+            sub.path = UriComponentsBuilder.fromHttpUrl(url).build().getPath();
+            sub.command = body;
+            sub.headers = headers;
+            sub.timeout = timeout;
+            return sub;
+        }
+
+        void success(String response) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+
+            timeoutReceipt.cancel();
+
+            T ret;
+            try {
+                ret = JSONObjectUtil.toObject(response, returnClass);
+            } catch (Throwable t) {
+                logger.warn(t.getMessage(), t);
+                completion.fail(inerr(t.getMessage()));
+                return;
+            }
+
+            ErrorCode err = vf.validateErrorByErrorCode(ret);
+            if (err != null) {
+                logger.warn(String.format("error response that causes validation failure: %s", response));
+                completion.fail(err);
+                return;
+            }
+
+            completion.success(ret);
+        }
+
+        void fail(ErrorCode err) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+
+            if (!SysErrors.TIMEOUT.toString().equals(err.getCode())) {
+                timeoutReceipt.cancel();
+            }
+
+            completion.fail(err);
+        }
+
+        void sendAlone() {
+            restf.asyncJsonPost(url, body, headers, new AsyncRESTCallback(completion) {
+                @Override
+                public void fail(ErrorCode err) {
+                    PendingCommand.this.fail(err);
+                }
+
+                @Override
+                public void success(HttpEntity<String> responseEntity) {
+                    PendingCommand.this.success(responseEntity.getBody());
+                }
+            }, TimeUnit.MILLISECONDS, timeout);
+        }
+    }
+
+    public KVMHostCommandPipeline(String batchUrl) {
+        this.batchUrl = batchUrl;
+    }
+
+    public String getBatchUrl() {
+        return batchUrl;
+    }
+
+    public boolean isEnabled() {
+        return !batchUnsupported && KVMGlobalConfig.AGENT_COMMAND_BATCH_WINDOW.value(Long.class) > 0;
+    }
+
+    public <T> void submit(String url, String body, Map<String, String> headers, Class<T> returnClass,
+                           long timeout, ReturnValueCompletion<T> completion) {
+        PendingCommand<T> cmd = new PendingCommand<>();
+        cmd.url = url;
+        cmd.body = body;
+        cmd.headers = headers;
+        cmd.returnClass = returnClass;
+        cmd.timeout = timeout;
+        cmd.completion = completion;
+        cmd.startTimer();
+
+        if (!isEnabled()) {
+            cmd.sendAlone();
+            return;
+        }
+
+        List<PendingCommand> toFlush = null;
+        synchronized (this) {
+            pendings.add(cmd);
+            if (pendings.size() == 1) {
+                thdf.submitTimeoutTask(this::flush, TimeUnit.MILLISECONDS, KVMGlobalConfig.AGENT_COMMAND_BATCH_WINDOW.value(Long.class));
+            } else if (pendings.size() >= KVMGlobalConfig.AGENT_COMMAND_BATCH_MAX_SIZE.value(Integer.class)) {
+                toFlush = pendings;
+                pendings = new ArrayList<>();
+            }
+        }
+
+        if (toFlush != null) {
+            send(toFlush);
+        }
+    }
+
+    private void flush() {
+        List<PendingCommand> toFlush;
+        synchronized (this) {
+            if (pendings.isEmpty()) {
+                return;
+            }
+
+            toFlush = pendings;
+            pendings = new ArrayList<>();
+        }
+
+        send(toFlush);
+    }
+
+    private boolean isBatchUnsupported(ErrorCode err) {
+        if (!err.isError(SysErrors.HTTP_ERROR)) {
+            return false;
+        }
+
+        Object statusCode = err.getFromOpaque(RESTConstant.HTTP_STATUS_CODE);
+        return statusCode != null && HttpStatus.NOT_FOUND.value() == ((Number) statusCode).intValue();
+    }
+
+    private void send(List<PendingCommand> cmds) {
+        if (cmds.size() == 1 || batchUnsupported) {
+            cmds.forEach(PendingCommand::sendAlone);
+            return;
+        }
+
+        BatchCommandsCmd batch = new BatchCommandsCmd();
+        batch.commands = new ArrayList<>();
+        long timeout = 0;
+        for (PendingCommand cmd : cmds) {
+            batch.commands.add(cmd.toSubCommand());
+            timeout = Math.max(timeout, cmd.timeout);
+        }
+
+        restf.asyncJsonPost(batchUrl, batch, null, new JsonAsyncRESTCallback<BatchCommandsRsp>(null) {
+            @Override
+            public void fail(ErrorCode err) {
+                if (isBatchUnsupported(err)) {
+                    // the agent rejected the batch url, none of the commands has been executed
+                    logger.warn(String.format("the agent does not support batch commands at %s;" +
+                            " send commands one by one from now on, %s", batchUrl, err));
+                    batchUnsupported = true;
+                    cmds.forEach(PendingCommand::sendAlone);
+                    return;
+                }
+
+                // the agent may have executed some of the commands, replaying them is not safe
+                cmds.forEach(cmd -> cmd.fail(err));
+            }
+
+            @Override
+            public void success(BatchCommandsRsp rsp) {
+                if (!rsp.isSuccess()) {
+                    cmds.forEach(cmd -> cmd.fail(operr("operation error, because:%s", rsp.getError())));
+                    return;
+                }
+
+                for (PendingCommand cmd : cmds) {
+                    BatchSubResponse sub = rsp.responses == null ? null : rsp.responses.stream()
+                            .filter(r -> cmd.id.equals(r.id)).findFirst().orElse(null);
+                    if (sub == null) {
+                        cmd.fail(operr("no response for the command[path:%s] in the batch response from %s", cmd.url, batchUrl));
+                    } else {
+                        cmd.success(sub.response);
+                    }
+                }
+            }
+
+            @Override
+            public Class<BatchCommandsRsp> getReturnClass() {
+                return BatchCommandsRsp.class;
+            }
+        }, TimeUnit.MILLISECONDS, timeout);
+    }
+}
@@ -94,6 +94,7 @@ public class KVMHostFactory extends AbstractService implements HypervisorFactory
     public static Map<String, GuestOsCharacter.Config> allGuestOsCharacter = new ConcurrentHashMap<>();
 
     private final Map<SocketChannel, Long> socketTimeoutMap = new ConcurrentHashMap<>();
+    private final Map<String, KVMHostCommandPipeline> commandPipelines = new ConcurrentHashMap<>();
 
     static {
         RAW_FORMAT.newFormatInputOutputMapping(hypervisorType, QCOW2_FORMAT.toString());
@@ -667,6 +668,15 @@ public class KVMHostFactory extends AbstractService implements HypervisorFactory
         return context;
     }
 
+    public KVMHostCommandPipeline getCommandPipeline(String hostUuid, String batchUrl) {
+        // the management ip of the host may have been changed
+        return commandPipelines.compute(hostUuid, (k, p) -> p == null || !batchUrl.equals(p.getBatchUrl()) ? new KVMHostCommandPipeline(batchUrl) : p);
+    }
+
+    public void removeCommandPipeline(String hostUuid) {
+        commandPipelines.remove(hostUuid);
+    }
+
     public KVMHostContext getHostContext(String hostUuid) {
         KVMHostVO kvo = dbf.findByUuid(hostUuid, KVMHostVO.class);
         return createHostContext(kvo);
@@ -8,20 +8,26 @@ import org.springframework.ldap.filter.AndFilter;
 import org.springframework.ldap.filter.EqualsFilter;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.Q;
-import org.zstack.header.Component;
+import org.zstack.header.DependentComponent;
 import org.zstack.utils.Utils;
 import org.zstack.utils.logging.CLogger;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Created by lining on 2017/10/13.
  */
-public class LdapUpgradeExtension implements Component {
+public class LdapUpgradeExtension implements DependentComponent {
     private static final CLogger logger = Utils.getLogger(LdapUpgradeExtension.class);
 
     @Autowired
     private DatabaseFacade dbf;
 
+    @Override
+    public List<Class<?>> getDependencies() {
+        return Collections.singletonList(DatabaseFacade.class);
+    }
+
     @Override
     public boolean start() {
         if (LdapGlobalProperty.UPDATE_LDAP_UID_TO_LDAP_DN_ON_START) {
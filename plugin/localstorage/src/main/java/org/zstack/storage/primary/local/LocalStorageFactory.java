@@ -85,6 +85,8 @@ public class LocalStorageFactory implements PrimaryStorageFactory, Component,
         type.setSupportVmLiveMigration(true);
         type.setSupportVolumeMigration(true);
         type.setSupportVolumeMigrationInCurrentPrimaryStorage(true);
+        type.setSupportImageCachePrewarm(true);
+        type.setImageCachePerHost(true);
         type.setOrder(999);
     }
 
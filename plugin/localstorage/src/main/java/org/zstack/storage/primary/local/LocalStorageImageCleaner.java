@@ -227,6 +227,12 @@ public class LocalStorageImageCleaner extends ImageCacheCleaner implements Manag
         SimpleFlowChain chain = new SimpleFlowChain();
         chain.setName(String.format("do-clean-up-image-cache-on-local-storage-%s", psUuid));
         chain.then(new NoRollbackFlow() {
+            @Override
+            public void run(FlowTrigger trigger, Map data) {
+                evictImageCache(psUuid, needDestinationCheck);
+                trigger.next();
+            }
+        }).then(new NoRollbackFlow() {
             @Override
             public void run(FlowTrigger trigger, Map data) {
                 cleanUpVolumeCache(psUuid, needDestinationCheck, new NoErrorCompletion() {
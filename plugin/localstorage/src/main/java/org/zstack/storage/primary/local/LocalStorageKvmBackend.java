@@ -49,6 +49,8 @@ import org.zstack.header.vm.VmInstanceVO_;
 import org.zstack.header.volume.*;
 import org.zstack.identity.AccountManager;
 import org.zstack.kvm.*;
+import org.zstack.storage.primary.ImageCacheDownloadCoordinator;
+import org.zstack.storage.primary.ImageCacheUsageTracker;
 import org.zstack.storage.primary.PrimaryStoragePathMaker;
 import org.zstack.storage.primary.PrimaryStorageSystemTags;
 import org.zstack.storage.primary.local.LocalStorageKvmMigrateVmFlow.CopyBitsFromRemoteCmd;
@@ -85,6 +87,10 @@ public class LocalStorageKvmBackend extends LocalStorageHypervisorBackend {
     private LocalStorageFactory localStorageFactory;
     @Autowired
     private RESTFacade restf;
+    @Autowired
+    private ImageCacheUsageTracker usageTracker;
+    @Autowired
+    private ImageCacheDownloadCoordinator downloadCoordinator;
 
     public static class AgentCommand extends KVMAgentCommands.PrimaryStorageCommand {
         public String uuid;
@@ -1209,6 +1215,10 @@ public class LocalStorageKvmBackend extends LocalStorageHypervisorBackend {
             DebugUtils.Assert(hostUuid != null, "host uuid cannot be null");
             DebugUtils.Assert(primaryStorageInstallPath != null, "primaryStorageInstallPath cannot be null");
 
+            downloadCoordinator.download(self.getUuid(), hostUuid, image.getUuid(), this::downloadInQueue, completion);
+        }
+
+        private void downloadInQueue(final ReturnValueCompletion<ImageCacheInventory> completion) {
             thdf.chainSubmit(new ChainTask(completion) {
                 @Override
                 public String getSyncSignature() {
@@ -1364,6 +1374,7 @@ public class LocalStorageKvmBackend extends LocalStorageHypervisorBackend {
                                     path.installPath = primaryStorageInstallPath;
                                     path.hostUuid = hostUuid;
                                     vo.setInstallUrl(path.makeFullPath());
+                                    usageTracker.miss(vo);
                                     dbf.persist(vo);
 
                                     logger.debug(String.format("downloaded image[uuid:%s, name:%s] to the image cache of local primary storage[uuid: %s, installPath: %s] on host[uuid: %s]",
@@ -1412,6 +1423,7 @@ public class LocalStorageKvmBackend extends LocalStorageHypervisorBackend {
                                 logger.debug(String.format("found image[uuid: %s, name: %s] in the image cache of local primary storage[uuid:%s, installPath: %s]",
                                         image.getUuid(), image.getName(), self.getUuid(), installPath));
 
+                                usageTracker.hit(cache);
                                 ImageCacheInventory inv = ImageCacheInventory.valueOf(cache);
                                 inv.setInstallUrl(installPath);
                                 completion.success(inv);
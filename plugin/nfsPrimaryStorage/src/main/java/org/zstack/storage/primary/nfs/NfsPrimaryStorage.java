@@ -51,6 +51,7 @@ import org.zstack.header.vm.VmInstanceVO;
 import org.zstack.header.vm.VmInstanceVO_;
 import org.zstack.header.volume.*;
 import org.zstack.kvm.KVMConstant;
+import org.zstack.storage.primary.ImageCacheDownloadCoordinator;
 import org.zstack.storage.primary.PrimaryStorageBase;
 import org.zstack.storage.primary.PrimaryStorageCapacityUpdater;
 import org.zstack.storage.volume.VolumeSystemTags;
@@ -90,6 +91,8 @@ public class NfsPrimaryStorage extends PrimaryStorageBase {
     private NfsPrimaryStorageImageCacheCleaner imageCacheCleaner;
     @Autowired
     private PluginRegistry pluginRgty;
+    @Autowired
+    private ImageCacheDownloadCoordinator downloadCoordinator;
 
     public NfsPrimaryStorage() {
     }
@@ -759,24 +762,18 @@ public class NfsPrimaryStorage extends PrimaryStorageBase {
                     flow(new NoRollbackFlow() {
                         @Override
                         public void run(final FlowTrigger trigger, Map data) {
-                            NfsDownloadImageToCacheJob job = new NfsDownloadImageToCacheJob();
-                            job.setImage(msg.getTemplateSpec());
-                            job.setPrimaryStorage(primaryStorage);
-
-                            jobf.execute(NfsPrimaryStorageKvmHelper.makeDownloadImageJobName(image, primaryStorage),
-                                    NfsPrimaryStorageKvmHelper.makeJobOwnerName(primaryStorage), job,
-                                    new ReturnValueCompletion<ImageCacheInventory>(trigger) {
-                                        @Override
-                                        public void success(ImageCacheInventory returnValue) {
-                                            imageCache = returnValue;
-                                            trigger.next();
-                                        }
-
-                                        @Override
-                                        public void fail(ErrorCode errorCode) {
-                                            trigger.fail(errorCode);
-                                        }
-                                    }, ImageCacheInventory.class);
+                            downloadImageToCache(msg.getTemplateSpec(), new ReturnValueCompletion<ImageCacheInventory>(trigger) {
+                                @Override
+                                public void success(ImageCacheInventory returnValue) {
+                                    imageCache = returnValue;
+                                    trigger.next();
+                                }
+
+                                @Override
+                                public void fail(ErrorCode errorCode) {
+                                    trigger.fail(errorCode);
+                                }
+                            });
                         }
                     });
 
@@ -947,6 +944,18 @@ public class NfsPrimaryStorage extends PrimaryStorageBase {
         }
     }
 
+    private void downloadImageToCache(ImageSpec spec, ReturnValueCompletion<ImageCacheInventory> completion) {
+        PrimaryStorageInventory pinv = getSelfInventory();
+        downloadCoordinator.download(self.getUuid(), null, spec.getInventory().getUuid(), (ReturnValueCompletion<ImageCacheInventory> comp) -> {
+            NfsDownloadImageToCacheJob job = new NfsDownloadImageToCacheJob();
+            job.setPrimaryStorage(pinv);
+            job.setImage(spec);
+
+            jobf.execute(NfsPrimaryStorageKvmHelper.makeDownloadImageJobName(spec.getInventory(), pinv),
+                    NfsPrimaryStorageKvmHelper.makeJobOwnerName(pinv), job, comp, ImageCacheInventory.class);
+        }, completion);
+    }
+
     @Override
     protected void handle(CreateImageCacheFromVolumeOnPrimaryStorageMsg msg) {
         CreateImageCacheFromVolumeOnPrimaryStorageReply reply = new CreateImageCacheFromVolumeOnPrimaryStorageReply();
@@ -1230,36 +1239,28 @@ public class NfsPrimaryStorage extends PrimaryStorageBase {
     protected void handle(final DownloadIsoToPrimaryStorageMsg msg) {
         final DownloadIsoToPrimaryStorageReply reply = new DownloadIsoToPrimaryStorageReply();
         final PrimaryStorageInventory pinv = getSelfInventory();
-        NfsDownloadImageToCacheJob job = new NfsDownloadImageToCacheJob();
-        job.setPrimaryStorage(pinv);
-        job.setImage(msg.getIsoSpec());
-
         final ImageInventory img = msg.getIsoSpec().getInventory();
-        jobf.execute(NfsPrimaryStorageKvmHelper.makeDownloadImageJobName(msg.getIsoSpec().getInventory(), pinv),
-                NfsPrimaryStorageKvmHelper.makeJobOwnerName(pinv), job,
-                new ReturnValueCompletion<ImageCacheInventory>(msg) {
-
-                    @Override
-                    public void success(ImageCacheInventory returnValue) {
-                        logger.debug(String.format("successfully downloaded iso[uuid:%s, name:%s] from backup storage[uuid:%s] to primary storage[uuid:%s, name:%s], path in cache: %s",
-                                img.getUuid(), img.getName(), msg.getIsoSpec().getSelectedBackupStorage().getBackupStorageUuid(),
-                                pinv.getUuid(), pinv.getName(), returnValue.getInstallUrl()));
-
-                        reply.setInstallPath(returnValue.getInstallUrl());
-                        bus.reply(msg, reply);
-                    }
+        downloadImageToCache(msg.getIsoSpec(), new ReturnValueCompletion<ImageCacheInventory>(msg) {
+            @Override
+            public void success(ImageCacheInventory returnValue) {
+                logger.debug(String.format("successfully downloaded iso[uuid:%s, name:%s] from backup storage[uuid:%s] to primary storage[uuid:%s, name:%s], path in cache: %s",
+                        img.getUuid(), img.getName(), msg.getIsoSpec().getSelectedBackupStorage().getBackupStorageUuid(),
+                        pinv.getUuid(), pinv.getName(), returnValue.getInstallUrl()));
 
-                    @Override
-                    public void fail(ErrorCode errorCode) {
-                        String err = String.format("failed to downloaded iso[uuid:%s, name:%s] from backup storage[uuid:%s] to primary storage[uuid:%s, name:%s]",
-                                img.getUuid(), img.getName(), msg.getIsoSpec().getSelectedBackupStorage().getBackupStorageUuid(),
-                                pinv.getUuid(), pinv.getName());
-                        logger.warn(err);
-                        reply.setError(errorCode);
-                        bus.reply(msg, reply);
-                    }
-                }, ImageCacheInventory.class);
+                reply.setInstallPath(returnValue.getInstallUrl());
+                bus.reply(msg, reply);
+            }
 
+            @Override
+            public void fail(ErrorCode errorCode) {
+                String err = String.format("failed to downloaded iso[uuid:%s, name:%s] from backup storage[uuid:%s] to primary storage[uuid:%s, name:%s]",
+                        img.getUuid(), img.getName(), msg.getIsoSpec().getSelectedBackupStorage().getBackupStorageUuid(),
+                        pinv.getUuid(), pinv.getName());
+                logger.warn(err);
+                reply.setError(errorCode);
+                bus.reply(msg, reply);
+            }
+        });
     }
 
     @Override
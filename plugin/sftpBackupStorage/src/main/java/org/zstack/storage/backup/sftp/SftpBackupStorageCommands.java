@@ -340,57 +340,6 @@ public class SftpBackupStorageCommands {
     public static class DumpImageInfoToMetaDataFileRsp extends AgentResponse {
     }
 
-    public static class DeleteImageInfoFromMetaDataFileCmd extends AgentCommand {
-        private String imageUuid;
-        private String imageBackupStorageUuid;
-        private String backupStoragePath;
-
-        public String getBackupStoragePath() {
-            return backupStoragePath;
-        }
-
-        public void setBackupStoragePath(String backupStoragePath) {
-            this.backupStoragePath = backupStoragePath;
-        }
-
-        public String getImageBackupStorageUuid() {
-            return imageBackupStorageUuid;
-        }
-
-        public void setImageBackupStorageUuid(String imageBackupStorageUuid) {
-            this.imageBackupStorageUuid = imageBackupStorageUuid;
-        }
-
-        public String getImageUuid() {
-            return imageUuid;
-        }
-
-        public void setImageUuid(String imageUuid) {
-            this.imageUuid = imageUuid;
-        }
-    }
-
-    public static class DeleteImageInfoFromMetaDataFileRsp extends AgentResponse {
-        private Integer ret;
-        private String out;
-
-        public Integer getRet() {
-            return ret;
-        }
-
-        public void setRet(Integer ret) {
-            this.ret = ret;
-        }
-
-        public String getOut() {
-            return out;
-        }
-
-        public void setOut(String out) {
-            this.out = out;
-        }
-    }
-
     public static class CancelCommand extends AgentCommand implements org.zstack.header.agent.CancelCommand {
         private String cancellationApiId;
 
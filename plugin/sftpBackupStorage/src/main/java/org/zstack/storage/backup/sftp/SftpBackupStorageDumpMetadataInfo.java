@@ -11,6 +11,7 @@ public class SftpBackupStorageDumpMetadataInfo {
     private String backupStorageUrl = null;
     private String backupStorageHostname = null;
     private String backupStorageUuid = null;
+    private boolean expunged;
 
     public ImageInventory getImg() {
         return img;
@@ -51,4 +52,12 @@ public class SftpBackupStorageDumpMetadataInfo {
     public void setBackupStorageUuid(String backupStorageUuid) {
         this.backupStorageUuid = backupStorageUuid;
     }
+
+    public boolean isExpunged() {
+        return expunged;
+    }
+
+    public void setExpunged(boolean expunged) {
+        this.expunged = expunged;
+    }
 }
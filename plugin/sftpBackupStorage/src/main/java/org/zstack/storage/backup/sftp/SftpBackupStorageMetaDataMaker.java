@@ -6,18 +6,17 @@ import org.springframework.web.util.UriComponentsBuilder;
 import org.zstack.core.CoreGlobalProperty;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.Q;
-import org.zstack.core.db.SQL;
 import org.zstack.core.db.SimpleQuery;
 import org.zstack.core.errorcode.ErrorFacade;
 import org.zstack.core.workflow.FlowChainBuilder;
 import org.zstack.core.workflow.ShareFlow;
+import org.zstack.header.core.Completion;
 import org.zstack.header.core.workflow.FlowChain;
 import org.zstack.header.core.workflow.FlowDoneHandler;
 import org.zstack.header.core.workflow.FlowTrigger;
 import org.zstack.header.core.workflow.NoRollbackFlow;
 import org.zstack.header.errorcode.ErrorCode;
 import org.zstack.header.exception.CloudRuntimeException;
-import org.zstack.header.identity.AccountConstant;
 import org.zstack.header.image.*;
 import org.zstack.header.rest.JsonAsyncRESTCallback;
 import org.zstack.header.rest.RESTFacade;
@@ -26,10 +25,9 @@ import org.zstack.header.storage.backup.AddBackupStorageStruct;
 import org.zstack.header.tag.SystemTagInventory;
 import org.zstack.header.tag.SystemTagVO;
 import org.zstack.header.tag.SystemTagVO_;
-import org.zstack.header.tag.TagType;
+import org.zstack.storage.backup.ImageMetadataJournal;
 import org.zstack.utils.DebugUtils;
 import org.zstack.utils.Utils;
-import org.zstack.utils.gson.JSONObjectUtil;
 import org.zstack.utils.logging.CLogger;
 
 import javax.persistence.TypedQuery;
@@ -70,30 +68,11 @@ public class SftpBackupStorageMetaDataMaker implements AddImageExtensionPoint, A
         return ub.build().toUriString();
     }
 
-    @Transactional
-    private String getAllImageInventories(SftpBackupStorageDumpMetadataInfo dumpInfo) {
-        TypedQuery<ImageVO> q;
-        String allImageInventories = null;
-        ImageInventory img = dumpInfo.getImg();
-        String sql = "select img from ImageVO img where img.status = :status and uuid in (select imageUuid from ImageBackupStorageRefVO ref where ref.backupStorageUuid= :bsUuid)";
-        q = dbf.getEntityManager().createQuery(sql, ImageVO.class);
-        q.setParameter("status", ImageStatus.Ready);
-        if (dumpInfo.getImg() != null ) {
-            q.setParameter("bsUuid", getBackupStorageUuidFromImageInventory(img));
-        } else {
-            q.setParameter("bsUuid", dumpInfo.getBackupStorageUuid());
-        }
-        List<ImageInventory> allImageInv = q.getResultList().stream()
-                .map(imageVO -> ImageInventory.valueOf(imageVO)).collect(Collectors.toList());
-        setAllImagesSystemTags(allImageInv);
-        for (ImageInventory imageInv : allImageInv) {
-            if (allImageInventories != null) {
-                allImageInventories = JSONObjectUtil.toJsonString(imageInv) + "\n" + allImageInventories;
-            } else {
-                allImageInventories = JSONObjectUtil.toJsonString(imageInv);
-            }
+    private String getBackupStorageUuid(SftpBackupStorageDumpMetadataInfo dumpInfo) {
+        if (dumpInfo.getBackupStorageUuid() != null) {
+            return dumpInfo.getBackupStorageUuid();
         }
-        return allImageInventories;
+        return getBackupStorageUuidFromImageInventory(dumpInfo.getImg());
     }
 
 
@@ -117,84 +96,7 @@ public class SftpBackupStorageMetaDataMaker implements AddImageExtensionPoint, A
 
 
     private void restoreImagesBackupStorageMetadataToDatabase(String imagesMetadata, String backupStorageUuid) {
-        List<ImageVO> imageVOs = new ArrayList<ImageVO>();
-        List<ImageBackupStorageRefVO> backupStorageRefVOs = new ArrayList<ImageBackupStorageRefVO>();
-        List<SystemTagVO> systemTagVOs = new ArrayList<>();
-        String[] metadatas = imagesMetadata.split("\n");
-        for (String metadata : metadatas) {
-            if (metadata.contains("backupStorageRefs")) {
-                ImageInventory imageInventory = JSONObjectUtil.toObject(metadata, ImageInventory.class);
-
-                if (!imageInventory.getStatus().equals(ImageStatus.Ready.toString())
-                        || imageVOs.stream().anyMatch(image -> image.getUuid().equals(imageInventory.getUuid()))) {
-                    continue;
-                }
-
-                for (ImageBackupStorageRefInventory ref : imageInventory.getBackupStorageRefs()) {
-                    ImageBackupStorageRefVO backupStorageRefVO = new ImageBackupStorageRefVO();
-                    backupStorageRefVO.setStatus(ImageStatus.valueOf(ref.getStatus()));
-                    backupStorageRefVO.setInstallPath(ref.getInstallPath());
-                    backupStorageRefVO.setImageUuid(ref.getImageUuid());
-                    backupStorageRefVO.setBackupStorageUuid(backupStorageUuid);
-                    backupStorageRefVO.setExportMd5Sum(ref.getExportMd5Sum());
-                    backupStorageRefVO.setExportUrl(ref.getExportUrl());
-                    backupStorageRefVO.setCreateDate(ref.getCreateDate());
-                    backupStorageRefVO.setLastOpDate(ref.getLastOpDate());
-                    backupStorageRefVOs.add(backupStorageRefVO);
-                }
-
-                // should persis refs
-                if ((long) SQL.New("select count(*) from ImageEO where uuid = :imageUuid")
-                        .param("imageUuid", imageInventory.getUuid())
-                        .find() > 0) {
-                    SQL.New("update ImageEO set status = :status, " +
-                            "deleted = null where uuid = :imageUuid")
-                            .param("status", ImageStatus.Ready)
-                            .param("imageUuid", imageInventory.getUuid())
-                            .execute();
-                    continue;
-                }
-
-                ImageVO imageVO = new ImageVO();
-                imageVO.setActualSize(imageInventory.getActualSize());
-                imageVO.setDescription(imageInventory.getDescription());
-                imageVO.setStatus(ImageStatus.valueOf(imageInventory.getStatus()));
-                imageVO.setFormat(imageInventory.getFormat());
-                imageVO.setGuestOsType(imageInventory.getGuestOsType());
-                imageVO.setMd5Sum(imageInventory.getMd5Sum());
-                imageVO.setMediaType(ImageConstant.ImageMediaType.valueOf(imageInventory.getMediaType()));
-                imageVO.setName(imageInventory.getName());
-                imageVO.setPlatform(ImagePlatform.valueOf(imageInventory.getPlatform()));
-                imageVO.setSize(imageInventory.getSize());
-                imageVO.setState(ImageState.valueOf(imageInventory.getState()));
-                imageVO.setSystem(imageInventory.isSystem());
-                imageVO.setType(imageInventory.getType());
-                imageVO.setUrl(imageInventory.getUrl());
-                imageVO.setUuid(imageInventory.getUuid());
-                imageVO.setCreateDate(imageInventory.getCreateDate());
-                imageVO.setLastOpDate(imageInventory.getLastOpDate());
-                imageVO.setAccountUuid(AccountConstant.INITIAL_SYSTEM_ADMIN_UUID);
-                imageVO.setVirtio(imageInventory.getVirtio());
-                imageVOs.add(imageVO);
-
-                if (imageInventory.getSystemTags() != null) {
-                    for (SystemTagInventory tagInv : imageInventory.getSystemTags()) {
-                        SystemTagVO systemTagVO = new SystemTagVO();
-                        systemTagVO.setCreateDate(tagInv.getCreateDate());
-                        systemTagVO.setLastOpDate(tagInv.getLastOpDate());
-                        systemTagVO.setResourceType(tagInv.getResourceType());
-                        systemTagVO.setResourceUuid(tagInv.getResourceUuid());
-                        systemTagVO.setTag(tagInv.getTag());
-                        systemTagVO.setType(TagType.System.toString().equals(tagInv.getType()) ? TagType.System : TagType.User);
-                        systemTagVO.setUuid(tagInv.getUuid());
-                        systemTagVOs.add(systemTagVO);
-                    }
-                }
-            }
-        }
-        dbf.persistCollection(imageVOs);
-        dbf.persistCollection(backupStorageRefVOs);
-        dbf.persistCollection(systemTagVOs);
+        new ImageMetadataJournal(backupStorageUuid).restore(imagesMetadata);
     }
 
 
@@ -259,17 +161,35 @@ public class SftpBackupStorageMetaDataMaker implements AddImageExtensionPoint, A
     }
 
     protected void dumpImagesBackupStorageInfoToMetaDataFile(SftpBackupStorageDumpMetadataInfo dumpInfo) {
+        dumpImagesBackupStorageInfoToMetaDataFile(dumpInfo, new Completion(null) {
+            @Override
+            public void success() {
+                logger.info("dump image metadata successfully");
+            }
+
+            @Override
+            public void fail(ErrorCode errorCode) {
+                logger.error("dump image metadata failed" + errorCode.toString());
+            }
+        });
+    }
+
+    private void dumpImagesBackupStorageInfoToMetaDataFile(SftpBackupStorageDumpMetadataInfo dumpInfo, Completion completion) {
         logger.debug("dump all images info to meta data file");
-        boolean allImagesInfo = dumpInfo.getDumpAllInfo();
         ImageInventory img = dumpInfo.getImg();
         String bsUrl = dumpInfo.getBackupStorageUrl();
         String hostName = dumpInfo.getBackupStorageHostname();
+        ImageMetadataJournal journal = new ImageMetadataJournal(getBackupStorageUuid(dumpInfo));
+        // the metadata file is rewritten by a snapshot once in a while, otherwise the record is appended
+        boolean allImagesInfo = dumpInfo.getDumpAllInfo() || journal.needCompaction();
         SftpBackupStorageCommands.DumpImageInfoToMetaDataFileCmd dumpCmd = new SftpBackupStorageCommands.DumpImageInfoToMetaDataFileCmd();
         String metaData;
         if (allImagesInfo) {
-            metaData = getAllImageInventories(dumpInfo);
+            metaData = journal.snapshot();
+        } else if (dumpInfo.isExpunged()) {
+            metaData = journal.expungeRecord(img.getUuid());
         } else {
-            metaData = JSONObjectUtil.toJsonString(img);
+            metaData = journal.imageRecord(img);
         }
         dumpCmd.setImageMetaData(metaData);
         dumpCmd.setDumpAllMetaData(allImagesInfo);
@@ -282,18 +202,18 @@ public class SftpBackupStorageMetaDataMaker implements AddImageExtensionPoint, A
             hostName = getHostNameFromImageInventory(img);
         }
         restf.asyncJsonPost(buildUrl(SftpBackupStorageConstant.DUMP_IMAGE_METADATA_TO_FILE, hostName), dumpCmd,
-                new JsonAsyncRESTCallback<SftpBackupStorageCommands.DumpImageInfoToMetaDataFileRsp>(null) {
+                new JsonAsyncRESTCallback<SftpBackupStorageCommands.DumpImageInfoToMetaDataFileRsp>(completion) {
                     @Override
                     public void fail(ErrorCode err) {
-                        logger.error("dump image metadata failed" + err.toString());
+                        completion.fail(err);
                     }
 
                     @Override
                     public void success(SftpBackupStorageCommands.DumpImageInfoToMetaDataFileRsp rsp) {
                         if (!rsp.isSuccess()) {
-                            logger.error("dump image metadata failed");
+                            completion.fail(operr("dump image metadata failed: %s", rsp.getError()));
                         } else {
-                            logger.info("dump image metadata successfully");
+                            completion.success();
                         }
                     }
 
@@ -505,17 +425,17 @@ public class SftpBackupStorageMetaDataMaker implements AddImageExtensionPoint, A
     }
 
     public void afterExpungeImage(ImageInventory img, String backupStorageUuid) {
-        if (!Q.New(SftpBackupStorageVO.class)
-                .eq(SftpBackupStorageVO_.uuid, backupStorageUuid)
-                .isExists()) {
+        SftpBackupStorageVO bs = dbf.findByUuid(backupStorageUuid, SftpBackupStorageVO.class);
+        if (bs == null) {
             return;
         }
 
         FlowChain chain = FlowChainBuilder.newShareFlowChain();
 
         chain.setName("delete-image-info-from-metadata-file");
-        String hostName = getHostNameFromImageInventory(img);
-        String bsUrl = getBsUrlFromImageInventory(img);
+        // the image reference has been removed, find the backup storage by its uuid
+        String hostName = bs.getHostname();
+        String bsUrl = bs.getUrl();
         chain.then(new ShareFlow() {
             boolean metaDataExist = false;
 
@@ -565,44 +485,30 @@ public class SftpBackupStorageMetaDataMaker implements AddImageExtensionPoint, A
 
 
                 flow(new NoRollbackFlow() {
-                    String __name__ = "delete-image-info";
+                    String __name__ = "append-image-expunge-record";
 
                     @Override
                     public void run(FlowTrigger trigger, Map data) {
-                        SftpBackupStorageCommands.DeleteImageInfoFromMetaDataFileCmd deleteCmd = new SftpBackupStorageCommands.DeleteImageInfoFromMetaDataFileCmd();
-                        deleteCmd.setImageUuid(img.getUuid());
-                        deleteCmd.setImageBackupStorageUuid(backupStorageUuid);
-                        deleteCmd.setBackupStoragePath(bsUrl);
-                        restf.asyncJsonPost(buildUrl(SftpBackupStorageConstant.DELETE_IMAGES_METADATA, hostName), deleteCmd,
-                                new JsonAsyncRESTCallback<SftpBackupStorageCommands.DeleteImageInfoFromMetaDataFileRsp>(trigger) {
-                                    @Override
-                                    public void fail(ErrorCode err) {
-                                        logger.error("delete image metadata file failed" + err.toString());
-                                    }
-
-                                    @Override
-                                    public void success(SftpBackupStorageCommands.DeleteImageInfoFromMetaDataFileRsp rsp) {
-                                        if (!rsp.isSuccess()) {
-                                            ErrorCode ec = operr("delete image metadata file failed: %s", rsp.getError());
-                                            trigger.fail(ec);
-                                        } else {
-                                            if (rsp.getRet() != 0) {
-                                                logger.info(String.format("delete image %s metadata failed : %s", img.getUuid(), rsp.getOut()));
-                                                trigger.next();
-                                            } else {
-                                                logger.info(String.format("delete image %s metadata successfully", img.getUuid()));
-                                                trigger.next();
-                                            }
-                                        }
-                                    }
-
-                                    @Override
-                                    public Class<SftpBackupStorageCommands.DeleteImageInfoFromMetaDataFileRsp> getReturnClass() {
-                                        return SftpBackupStorageCommands.DeleteImageInfoFromMetaDataFileRsp.class;
-                                    }
-                                });
-
-
+                        SftpBackupStorageDumpMetadataInfo dumpInfo = new SftpBackupStorageDumpMetadataInfo();
+                        dumpInfo.setDumpAllInfo(false);
+                        dumpInfo.setExpunged(true);
+                        dumpInfo.setImg(img);
+                        dumpInfo.setBackupStorageUuid(backupStorageUuid);
+                        dumpInfo.setBackupStorageUrl(bsUrl);
+                        dumpInfo.setBackupStorageHostname(hostName);
+                        dumpImagesBackupStorageInfoToMetaDataFile(dumpInfo, new Completion(trigger) {
+                            @Override
+                            public void success() {
+                                logger.info(String.format("append expunge record of image %s to metadata successfully", img.getUuid()));
+                                trigger.next();
+                            }
+
+                            @Override
+                            public void fail(ErrorCode errorCode) {
+                                logger.error(String.format("append expunge record of image %s to metadata failed: %s", img.getUuid(), errorCode));
+                                trigger.fail(errorCode);
+                            }
+                        });
                     }
                 });
 
@@ -49,6 +49,8 @@ import org.zstack.kvm.*;
 import org.zstack.storage.backup.sftp.GetSftpBackupStorageDownloadCredentialMsg;
 import org.zstack.storage.backup.sftp.GetSftpBackupStorageDownloadCredentialReply;
 import org.zstack.storage.backup.sftp.SftpBackupStorageConstant;
+import org.zstack.storage.primary.ImageCacheDownloadCoordinator;
+import org.zstack.storage.primary.ImageCacheUsageTracker;
 import org.zstack.storage.primary.PrimaryStorageCapacityUpdater;
 import org.zstack.storage.primary.PrimaryStoragePathMaker;
 import org.zstack.storage.primary.PrimaryStoragePhysicalCapacityManager;
@@ -87,6 +89,10 @@ public class KvmBackend extends HypervisorBackend {
     protected PluginRegistry pluginRgty;
     @Autowired
     protected SMPPrimaryStorageFactory primaryStorageFactory;
+    @Autowired
+    protected ImageCacheUsageTracker usageTracker;
+    @Autowired
+    protected ImageCacheDownloadCoordinator downloadCoordinator;
 
     public KvmBackend() {
     }
@@ -517,6 +523,10 @@ public class KvmBackend extends HypervisorBackend {
             DebugUtils.Assert(image != null, "image cannot be null");
             DebugUtils.Assert(primaryStorageInstallPath != null, "primaryStorageInstallPath cannot be null");
 
+            downloadCoordinator.download(self.getUuid(), null, image.getUuid(), this::downloadInQueue, completion);
+        }
+
+        private void downloadInQueue(final ReturnValueCompletion<ImageCacheInventory> completion) {
             thdf.chainSubmit(new ChainTask(completion) {
                 @Override
                 public String getSyncSignature() {
@@ -636,6 +646,7 @@ public class KvmBackend extends HypervisorBackend {
                                     vo.setSize(actualSize);
                                     vo.setMd5sum("not calculated");
                                     vo.setInstallUrl(primaryStorageInstallPath);
+                                    usageTracker.miss(vo);
                                     dbf.persist(vo);
 
                                     logger.debug(String.format("downloaded image[uuid:%s, name:%s] to the image cache of local shared mount point storage[uuid: %s, installPath: %s]",
@@ -676,6 +687,7 @@ public class KvmBackend extends HypervisorBackend {
                         public void success(AgentRsp returnValue) {
                             CheckBitsRsp rsp = (CheckBitsRsp) returnValue;
                             if (rsp.existing) {
+                                usageTracker.hit(cache);
                                 completion.success(ImageCacheInventory.valueOf(cache));
                                 chain.next();
                                 return;
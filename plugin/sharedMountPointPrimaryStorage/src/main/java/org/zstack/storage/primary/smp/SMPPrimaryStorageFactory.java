@@ -51,6 +51,7 @@ public class SMPPrimaryStorageFactory implements PrimaryStorageFactory, CreateTe
 
     static {
         type.setSupportHeartbeatFile(true);
+        type.setSupportImageCachePrewarm(true);
         type.setOrder(699);
     }
 
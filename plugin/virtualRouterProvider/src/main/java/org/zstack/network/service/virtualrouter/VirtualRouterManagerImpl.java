@@ -17,6 +17,7 @@ import org.zstack.core.config.GlobalConfigException;
 import org.zstack.core.config.GlobalConfigValidatorExtensionPoint;
 import org.zstack.core.db.*;
 import org.zstack.core.db.SimpleQuery.Op;
+import org.zstack.core.thread.BlockingChainTask;
 import org.zstack.core.thread.ChainTask;
 import org.zstack.core.thread.SyncTaskChain;
 import org.zstack.core.thread.ThreadFacade;
@@ -1164,7 +1165,8 @@ public class VirtualRouterManagerImpl extends AbstractService implements Virtual
 
         //TODO: find a way to remove the GLock
         String syncName = String.format("glock-vr-l3-%s", struct.getL3Network().getUuid());
-        thdf.chainSubmit(new ChainTask(completion) {
+        // waiting for the GLock blocks the thread, let it run on the blocking pool if enabled
+        thdf.chainSubmit(new BlockingChainTask(completion) {
             @Override
             public String getSyncSignature() {
                 return syncName;
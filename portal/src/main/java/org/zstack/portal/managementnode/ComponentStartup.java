@@ -0,0 +1,247 @@
+package org.zstack.portal.managementnode;
+
+import org.zstack.header.Component;
+import org.zstack.header.DependentComponent;
+import org.zstack.header.exception.CloudRuntimeException;
+import org.zstack.portal.managementnode.ManagementNodeManagerImpl.ComponentWrapper;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * starts components in the order of their dependencies, components not depending on each
+ * other are started in parallel by ManagementNode.componentStartParallelLevel threads.
+ *
+ * a {@link DependentComponent} waits for the components it declares, other components wait
+ * for all components before them in the plugin order. The time every component takes to
+ * start is recorded and exposed by JMX.
+ */
+class ComponentStartup implements ComponentStartupMXBean {
+    private static final CLogger logger = Utils.getLogger(ComponentStartup.class);
+
+    private static final int SLOWEST_COMPONENTS_IN_SUMMARY = 10;
+
+    private static class Node {
+        final ComponentWrapper wrapper;
+        final String name;
+        final Set<Node> dependencies = new LinkedHashSet<>();
+        final List<Node> dependents = new ArrayList<>();
+        int waitingDependencyNum;
+
+        Node(ComponentWrapper wrapper) {
+            this.wrapper = wrapper;
+            this.name = wrapper.getComponent().getClass().getName();
+        }
+
+        void dependOn(Node n) {
+            if (n != this && dependencies.add(n)) {
+                n.dependents.add(this);
+            }
+        }
+    }
+
+    private final List<Node> nodes;
+    private final Map<String, Long> startTimes = new ConcurrentHashMap<>();
+    private final List<String> startedComponents = new CopyOnWriteArrayList<>();
+    private volatile long totalStartTime;
+
+    ComponentStartup(List<ComponentWrapper> components) {
+        nodes = components.stream().map(Node::new).collect(Collectors.toList());
+        buildDependencies();
+    }
+
+    private void buildDependencies() {
+        // the latest component not declaring dependencies, and declared components after it
+        Node barrier = null;
+        List<Node> sinceBarrier = new ArrayList<>();
+
+        for (Node n : nodes) {
+            Component c = n.wrapper.getComponent();
+            if (!(c instanceof DependentComponent)) {
+                // depending on the barrier also means depending on all components before the barrier
+                if (barrier != null) {
+                    n.dependOn(barrier);
+                }
+                sinceBarrier.forEach(n::dependOn);
+
+                barrier = n;
+                sinceBarrier.clear();
+                continue;
+            }
+
+            List<Class<?>> deps = ((DependentComponent) c).getDependencies();
+            for (Class<?> dep : deps == null ? Collections.<Class<?>>emptyList() : deps) {
+                List<Node> matched = nodes.stream()
+                        .filter(it -> it != n && dep.isInstance(it.wrapper.getComponent()))
+                        .collect(Collectors.toList());
+                if (matched.isEmpty()) {
+                    logger.warn(String.format("component[%s] depends on %s which is not loaded, ignore the dependency",
+                            n.name, dep.getName()));
+                }
+                matched.forEach(n::dependOn);
+            }
+
+            sinceBarrier.add(n);
+        }
+
+        checkCycle();
+    }
+
+    private void checkCycle() {
+        Map<Node, Integer> waiting = new HashMap<>();
+        Deque<Node> ready = new ArrayDeque<>();
+        for (Node n : nodes) {
+            waiting.put(n, n.dependencies.size());
+            if (n.dependencies.isEmpty()) {
+                ready.add(n);
+            }
+        }
+
+        int sorted = 0;
+        while (!ready.isEmpty()) {
+            sorted++;
+            for (Node d : ready.poll().dependents) {
+                if (waiting.merge(d, -1, Integer::sum) == 0) {
+                    ready.add(d);
+                }
+            }
+        }
+
+        if (sorted != nodes.size()) {
+            List<String> cycle = waiting.entrySet().stream()
+                    .filter(e -> e.getValue() > 0)
+                    .map(e -> e.getKey().name)
+                    .collect(Collectors.toList());
+            throw new CloudRuntimeException(String.format("circular dependencies among components%s", cycle));
+        }
+    }
+
+    private Node startNode(Node n) {
+        long start = System.currentTimeMillis();
+        n.wrapper.start();
+        startTimes.put(n.name, System.currentTimeMillis() - start);
+        startedComponents.add(n.name);
+        return n;
+    }
+
+    void start(int parallelLevel) {
+        long start = System.currentTimeMillis();
+        nodes.forEach(n -> n.waitingDependencyNum = n.dependencies.size());
+
+        if (parallelLevel <= 1) {
+            startInSequence();
+        } else {
+            startInParallel(parallelLevel);
+        }
+
+        totalStartTime = System.currentTimeMillis() - start;
+        logSummary();
+    }
+
+    private void startInSequence() {
+        Deque<Node> ready = nodes.stream().filter(n -> n.waitingDependencyNum == 0).collect(Collectors.toCollection(ArrayDeque::new));
+        while (!ready.isEmpty()) {
+            for (Node d : startNode(ready.poll()).dependents) {
+                if (--d.waitingDependencyNum == 0) {
+                    ready.add(d);
+                }
+            }
+        }
+    }
+
+    private void startInParallel(int parallelLevel) {
+        AtomicInteger seq = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelLevel,
+                r -> new Thread(r, "component-start-thread-" + seq.getAndIncrement()));
+        CompletionService<Node> completion = new ExecutorCompletionService<>(pool);
+
+        // the dependency counters are only touched by this thread
+        int running = 0;
+        Throwable error = null;
+        try {
+            for (Node n : nodes) {
+                if (n.waitingDependencyNum == 0) {
+                    completion.submit(() -> startNode(n));
+                    running++;
+                }
+            }
+
+            while (running > 0) {
+                Future<Node> f = completion.take();
+                running--;
+
+                Node done;
+                try {
+                    done = f.get();
+                } catch (ExecutionException e) {
+                    // stop starting more components, and wait for the running ones
+                    if (error == null) {
+                        error = e.getCause();
+                    }
+                    continue;
+                }
+
+                if (error != null) {
+                    continue;
+                }
+
+                for (Node d : done.dependents) {
+                    if (--d.waitingDependencyNum == 0) {
+                        completion.submit(() -> startNode(d));
+                        running++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CloudRuntimeException("interrupted when starting components", e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        } else if (error != null) {
+            throw new CloudRuntimeException(error);
+        }
+    }
+
+    private void logSummary() {
+        long sum = startTimes.values().stream().mapToLong(Long::longValue).sum();
+        String slowest = startTimes.entrySet().stream()
+                .sorted((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()))
+                .limit(SLOWEST_COMPONENTS_IN_SUMMARY)
+                .map(e -> String.format("%s: %d ms", e.getKey(), e.getValue()))
+                .collect(Collectors.joining(", "));
+        logger.info(String.format("started %d components in %d ms, they cost %d ms in total, the slowest are [%s]",
+                startTimes.size(), totalStartTime, sum, slowest));
+    }
+
+    @Override
+    public Map<String, Long> getComponentStartTimeInMillis() {
+        Map<String, Long> ret = new LinkedHashMap<>();
+        startedComponents.forEach(name -> ret.put(name, startTimes.get(name)));
+        return ret;
+    }
+
+    @Override
+    public long getTotalStartTimeInMillis() {
+        return totalStartTime;
+    }
+
+    /**
+     * @return names of the components a component waits for before starting
+     */
+    List<String> getDependencies(String componentName) {
+        return nodes.stream()
+                .filter(n -> n.name.equals(componentName))
+                .flatMap(n -> n.dependencies.stream().map(d -> d.name))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,11 @@
+package org.zstack.portal.managementnode;
+
+import java.util.Map;
+
+/**
+ */
+public interface ComponentStartupMXBean {
+    Map<String, Long> getComponentStartTimeInMillis();
+
+    long getTotalStartTimeInMillis();
+}
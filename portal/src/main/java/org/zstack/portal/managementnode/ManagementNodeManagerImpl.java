@@ -19,6 +19,7 @@ import org.zstack.core.db.SQLBatch;
 import org.zstack.core.debug.DebugManager;
 import org.zstack.core.defer.Defer;
 import org.zstack.core.defer.Deferred;
+import org.zstack.core.jmx.JmxFacade;
 import org.zstack.core.thread.AsyncThread;
 import org.zstack.core.thread.Task;
 import org.zstack.core.thread.ThreadFacade;
@@ -119,6 +120,8 @@ public class ManagementNodeManagerImpl extends AbstractService implements Manage
     @Autowired
     private DebugManager debugManager;
     @Autowired
+    private JmxFacade jmxf;
+    @Autowired
     private ResourceDestinationMaker destinationMaker;
     @Autowired
     private EventFacade evtf;
@@ -195,7 +198,9 @@ public class ManagementNodeManagerImpl extends AbstractService implements Manage
         }
     };
 
-    private interface ComponentWrapper {
+    interface ComponentWrapper {
+        Component getComponent();
+
         void start();
 
         void stop();
@@ -250,9 +255,9 @@ public class ManagementNodeManagerImpl extends AbstractService implements Manage
 
 
     private void startComponents() {
-        for (ComponentWrapper c : components) {
-            c.start();
-        }
+        ComponentStartup startup = new ComponentStartup(components);
+        jmxf.registerBean("ComponentStartup", startup);
+        startup.start(PortalGlobalProperty.COMPONENT_START_PARALLEL_LEVEL);
     }
 
     private void stopComponents() {
@@ -288,7 +293,12 @@ public class ManagementNodeManagerImpl extends AbstractService implements Manage
         components = new ArrayList<>();
         for (final Component c : pluginRgty.getExtensionList(Component.class)) {
             components.add(new ComponentWrapper() {
-                boolean isStart = false;
+                volatile boolean isStart = false;
+
+                @Override
+                public Component getComponent() {
+                    return c;
+                }
 
                 @Override
                 public void start() {
@@ -318,7 +328,10 @@ public class ManagementNodeManagerImpl extends AbstractService implements Manage
 
     private void callPrepareDbExtensions() {
         for (PrepareDbInitialValueExtensionPoint extp : prepareDbExts) {
+            long start = System.currentTimeMillis();
             extp.prepareDbInitialValue();
+            logger.debug(String.format("extension[%s] prepares db initial values, cost %d ms",
+                    extp.getClass().getName(), System.currentTimeMillis() - start));
         }
     }
 
@@ -12,4 +12,6 @@ public class PortalGlobalProperty {
     public static int MAX_HEARTBEAT_FAILURE;
     @GlobalProperty(name = "ManagementNode.heartbeat.jdbcNetworkTimeout", defaultValue = "5")
     public static int HEART_BEAT_QUERY_TIMEOUT;
+    @GlobalProperty(name = "ManagementNode.componentStartParallelLevel", defaultValue = "8")
+    public static int COMPONENT_START_PARALLEL_LEVEL;
 }
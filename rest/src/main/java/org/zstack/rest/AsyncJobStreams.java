@@ -0,0 +1,74 @@
+package org.zstack.rest;
+
+import org.zstack.header.message.APIEvent;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * job streams opened by clients waiting for async API jobs, a stream receives events of its jobs
+ * completed on this management node until it's closed.
+ *
+ * every management node receives events of all APIs, so a client can open a stream on any node.
+ */
+class AsyncJobStreams {
+    class Stream {
+        private final Set<String> uuids;
+        private final BlockingQueue<APIEvent> completed = new LinkedBlockingQueue<>();
+
+        private Stream(Collection<String> uuids) {
+            this.uuids = new HashSet<>(uuids);
+        }
+
+        APIEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return completed.poll(timeout, unit);
+        }
+
+        void close() {
+            uuids.forEach(uuid -> streams.computeIfPresent(uuid, (k, lst) -> {
+                lst.remove(this);
+                return lst.isEmpty() ? null : lst;
+            }));
+            count.decrementAndGet();
+        }
+    }
+
+    private final Map<String, List<Stream>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * @return the stream, or null if RestServer.jobStream.maxStreams streams are open
+     */
+    Stream open(Collection<String> uuids) {
+        if (count.incrementAndGet() > RestGlobalProperty.JOB_STREAM_MAX_STREAMS) {
+            count.decrementAndGet();
+            return null;
+        }
+
+        Stream s = new Stream(uuids);
+        s.uuids.forEach(uuid -> streams.compute(uuid, (k, lst) -> {
+            if (lst == null) {
+                lst = new CopyOnWriteArrayList<>();
+            }
+            lst.add(s);
+            return lst;
+        }));
+        return s;
+    }
+
+    void complete(APIEvent evt) {
+        List<Stream> lst = streams.get(evt.getApiId());
+        if (lst != null) {
+            lst.forEach(s -> s.completed.add(evt));
+        }
+    }
+
+    int getStreamCount() {
+        return count.get();
+    }
+}
@@ -19,6 +19,8 @@ public interface RestConstants {
     String HEADER_DATE = "Date";
     String HEADER_CONTENT_MD5 = "Content-MD5";
     String HEADER_CONTENT_TYPE = "Content-Type";
+
+    String APP_NDJSON = "application/x-ndjson;charset=utf-8";
     /* request must be received in 15 minutes */
     int REQUEST_DURATION_MINUTES = 15;
 
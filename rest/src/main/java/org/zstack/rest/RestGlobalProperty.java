@@ -10,4 +10,12 @@ import org.zstack.core.GlobalPropertyDefinition;
 public class RestGlobalProperty {
     @GlobalProperty(name="RestServer.maxCachedApiResults", defaultValue = "2000")
     public static int MAX_CACHED_API_RESULTS;
+    // Unit of JOB_STREAM_MAX_WAIT_TIME: second, a job stream is closed after it even if some jobs are not done
+    @GlobalProperty(name="RestServer.jobStream.maxWaitTime", defaultValue = "60")
+    public static int JOB_STREAM_MAX_WAIT_TIME;
+    @GlobalProperty(name="RestServer.jobStream.maxJobs", defaultValue = "1000")
+    public static int JOB_STREAM_MAX_JOBS;
+    // each job stream holds a servlet thread until it's closed
+    @GlobalProperty(name="RestServer.jobStream.maxStreams", defaultValue = "100")
+    public static int JOB_STREAM_MAX_STREAMS;
 }
@@ -146,6 +146,9 @@ public class RestServer implements Component, CloudBusEventListener {
     }
 
     private static final String ASYNC_JOB_PATH_PATTERN = String.format("%s/%s/{uuid}", RestConstants.API_VERSION, RestConstants.ASYNC_JOB_PATH);
+    private static final String ASYNC_JOB_STREAM_PATH = RestConstants.API_VERSION + RestConstants.ASYNC_JOB_PATH;
+
+    private final AsyncJobStreams jobStreams = new AsyncJobStreams();
 
     public static void generateDocTemplate(String path, DocumentGenerator.DocMode mode) {
         DocumentGenerator rg =  GroovyUtils.newInstance("scripts/RestDocumentationGenerator.groovy");
@@ -217,6 +220,7 @@ public class RestServer implements Component, CloudBusEventListener {
     public boolean handleEvent(Event e) {
         if (e instanceof APIEvent) {
             RequestData d = asyncStore.complete((APIEvent) e);
+            jobStreams.complete((APIEvent) e);
 
             if (d != null && d.webHook != null) {
                 try {
@@ -574,6 +578,11 @@ public class RestServer implements Component, CloudBusEventListener {
             return;
         }
 
+        if (ASYNC_JOB_STREAM_PATH.equals(path)) {
+            handleJobStream(entity, req, rsp);
+            return;
+        }
+
         if (matcher.match(ASYNC_JOB_PATH_PATTERN, path)) {
             handleJobQuery(req, rsp);
             return;
@@ -634,18 +643,112 @@ public class RestServer implements Component, CloudBusEventListener {
         }
 
         // task is done
-        APIEvent evt = ret.getResult();
+        sendResponse(writeJobResult(ret.getResult(), response), response, rsp);
+    }
+
+    private int writeJobResult(APIEvent evt, ApiResponse response) throws IllegalAccessException, NoSuchMethodException, InvocationTargetException {
         if (evt.isSuccess()) {
             RestResponseWrapper w = responseAnnotationByClass.get(evt.getClass());
             if (w == null) {
                 throw new CloudRuntimeException(String.format("cannot find RestResponseWrapper for the class[%s]", evt.getClass()));
             }
-            writeResponse(response, w, ret.getResult());
-            sendResponse(HttpStatus.OK.value(), response, rsp);
+            writeResponse(response, w, evt);
+            return HttpStatus.OK.value();
         } else {
             response.setError(evt.getError());
-            sendResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), response, rsp);
+            return HttpStatus.SERVICE_UNAVAILABLE.value();
+        }
+    }
+
+    /**
+     * a job stream reports results of many async API jobs over one connection, the body of the request
+     * is {"uuids": [job uuids], "timeout": milliseconds}. Each job is reported by a line of
+     * {"uuid": job uuid, "statusCode": status code, "body": body} as soon as it's done, the body and status code
+     * are what querying the job returns; the stream is closed when all jobs are reported or it times out,
+     * the client opens another stream for jobs not reported.
+     */
+    private void handleJobStream(HttpEntity<String> entity, HttpServletRequest req, HttpServletResponse rsp) throws IOException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        if (!req.getMethod().equals(HttpMethod.POST.name())) {
+            sendResponse(HttpStatus.METHOD_NOT_ALLOWED.value(), "only POST method is allowed for opening a job stream", rsp);
+            return;
+        }
+
+        Map body = entity.getBody() == null || entity.getBody().isEmpty() ? null : JSONObjectUtil.toObject(entity.getBody(), LinkedHashMap.class);
+        if (body == null || !(body.get("uuids") instanceof List) || ((List) body.get("uuids")).isEmpty()) {
+            sendResponse(HttpStatus.BAD_REQUEST.value(), "the field 'uuids' must be a non-empty list of job uuids", rsp);
+            return;
+        }
+
+        List<String> uuids = ((List<Object>) body.get("uuids")).stream().map(Object::toString).distinct().collect(Collectors.toList());
+        if (uuids.size() > RestGlobalProperty.JOB_STREAM_MAX_JOBS) {
+            sendResponse(HttpStatus.BAD_REQUEST.value(), String.format("a job stream can wait for at most %s jobs", RestGlobalProperty.JOB_STREAM_MAX_JOBS), rsp);
+            return;
+        }
+
+        long timeout = TimeUnit.SECONDS.toMillis(RestGlobalProperty.JOB_STREAM_MAX_WAIT_TIME);
+        if (body.get("timeout") instanceof Number) {
+            timeout = Math.min(timeout, Math.max(((Number) body.get("timeout")).longValue(), 0));
         }
+
+        // open the stream before querying jobs, so no job done after the query is missed
+        AsyncJobStreams.Stream stream = jobStreams.open(uuids);
+        if (stream == null) {
+            sendResponse(HttpStatus.TOO_MANY_REQUESTS.value(), String.format("%s job streams are open, poll the jobs instead", RestGlobalProperty.JOB_STREAM_MAX_STREAMS), rsp);
+            return;
+        }
+
+        try {
+            RequestInfo info = requestInfo.get();
+            extensions.forEach(ext -> ext.beforeRestResponse(info.method, HttpStatus.OK.value()));
+            rsp.setStatus(HttpStatus.OK.value());
+            rsp.setContentType(RestConstants.APP_NDJSON);
+
+            Set<String> waiting = new HashSet<>(uuids);
+            for (String uuid : uuids) {
+                AsyncRestQueryResult ret = asyncStore.query(uuid);
+                if (ret.getState() == AsyncRestState.expired) {
+                    writeJobStreamLine(uuid, HttpStatus.NOT_FOUND.value(), "the job has been expired", rsp);
+                    waiting.remove(uuid);
+                } else if (ret.getState() == AsyncRestState.done) {
+                    writeJobStreamResult(ret.getResult(), rsp);
+                    waiting.remove(uuid);
+                }
+            }
+
+            long deadline = System.currentTimeMillis() + timeout;
+            while (!waiting.isEmpty()) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    break;
+                }
+
+                APIEvent evt = stream.poll(left, TimeUnit.MILLISECONDS);
+                if (evt != null && waiting.remove(evt.getApiId())) {
+                    writeJobStreamResult(evt, rsp);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stream.close();
+        }
+    }
+
+    private void writeJobStreamResult(APIEvent evt, HttpServletResponse rsp) throws IOException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        ApiResponse response = new ApiResponse();
+        int statusCode = writeJobResult(evt, response);
+        writeJobStreamLine(evt.getApiId(), statusCode, CloudBusGson.toJsonForHttpResponse(response), rsp);
+    }
+
+    private void writeJobStreamLine(String uuid, int statusCode, String body, HttpServletResponse rsp) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("uuid", uuid);
+        line.put("statusCode", statusCode);
+        line.put("body", body);
+
+        rsp.getWriter().write(JSONObjectUtil.toJsonString(line));
+        rsp.getWriter().write("\n");
+        rsp.flushBuffer();
     }
 
     private void sendResponse(int statusCode, ApiResponse response, HttpServletResponse rsp) throws IOException {
@@ -0,0 +1,151 @@
+package org.zstack.sdk;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.BufferedReader;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * waits for async API jobs on job streams of the server instead of polling each job.
+ *
+ * jobs submitted at about the same time share one stream, jobs not done when a stream is closed
+ * are carried over to the next stream. Jobs fall back to polling if the server doesn't support
+ * job streams or a stream fails.
+ */
+class AsyncJobWaiter {
+    private static final long STREAM_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    private static final long MIN_STREAM_TIMEOUT = 100;
+    private static final int MAX_JOBS_PER_STREAM = 1000;
+
+    private final String url;
+    private final OkHttpClient http;
+    private final Map<String, ZSClient.Api> jobs = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> queued = new LinkedBlockingQueue<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "zsclient-job-stream");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean supported = true;
+
+    AsyncJobWaiter(String url, OkHttpClient http) {
+        this.url = url;
+        // a stream reads nothing until a job is done
+        this.http = http.newBuilder().readTimeout(STREAM_TIMEOUT * 2, TimeUnit.MILLISECONDS).build();
+
+        Thread t = new Thread(this::dispatch, "zsclient-job-waiter");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    boolean isSupported() {
+        return supported;
+    }
+
+    void waitFor(ZSClient.Api api) {
+        jobs.put(api.jobUuid, api);
+        queued.add(api.jobUuid);
+    }
+
+    void cancel(String jobUuid) {
+        jobs.remove(jobUuid);
+    }
+
+    private void dispatch() {
+        while (true) {
+            List<String> uuids = new ArrayList<>();
+            try {
+                uuids.add(queued.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            queued.drainTo(uuids, MAX_JOBS_PER_STREAM - 1);
+            uuids.removeIf(uuid -> !jobs.containsKey(uuid));
+            if (!uuids.isEmpty()) {
+                executor.submit(() -> stream(uuids));
+            }
+        }
+    }
+
+    private void stream(List<String> uuids) {
+        // close the stream when the first job times out
+        long timeout = STREAM_TIMEOUT;
+        for (String uuid : uuids) {
+            ZSClient.Api api = jobs.get(uuid);
+            if (api != null) {
+                timeout = Math.min(timeout, api.deadline - System.currentTimeMillis());
+            }
+        }
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("uuids", uuids);
+        body.put("timeout", Math.max(timeout, MIN_STREAM_TIMEOUT));
+
+        Request req = new Request.Builder()
+                .url(url)
+                .addHeader(Constants.HEADER_JSON_SCHEMA, Boolean.TRUE.toString())
+                .post(RequestBody.create(Constants.JSON, ZSClient.gson.toJson(body)))
+                .build();
+
+        try (Response rsp = http.newCall(req).execute()) {
+            if (rsp.code() == 404 || rsp.code() == 405) {
+                // the server doesn't support job streams
+                supported = false;
+                fallbackToPolling(uuids);
+                return;
+            }
+
+            if (rsp.code() != 200) {
+                fallbackToPolling(uuids);
+                return;
+            }
+
+            BufferedReader reader = new BufferedReader(rsp.body().charStream());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                Map m = ZSClient.gson.fromJson(line, LinkedHashMap.class);
+                ZSClient.Api api = jobs.remove((String) m.get("uuid"));
+                if (api != null) {
+                    int statusCode = ((Number) m.get("statusCode")).intValue();
+                    String result = (String) m.get("body");
+                    executor.submit(() -> api.wakeUpFromJobStream(statusCode, result));
+                }
+            }
+        } catch (Throwable t) {
+            fallbackToPolling(uuids);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (String uuid : uuids) {
+            ZSClient.Api api = jobs.get(uuid);
+            if (api == null) {
+                continue;
+            }
+
+            if (now < api.deadline) {
+                queued.add(uuid);
+            } else if (jobs.remove(uuid) != null) {
+                executor.submit(api::wakeUpFromJobStreamTimeout);
+            }
+        }
+    }
+
+    private void fallbackToPolling(List<String> uuids) {
+        for (String uuid : uuids) {
+            ZSClient.Api api = jobs.remove(uuid);
+            if (api != null) {
+                executor.submit(api::fallbackToPolling);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.zstack.sdk;
+
+import org.zstack.sdk.VmInstanceInventory;
+import org.zstack.sdk.ErrorCode;
+
+public class BatchCreateVmInstanceStruct  {
+
+    public java.lang.String name;
+    public void setName(java.lang.String name) {
+        this.name = name;
+    }
+    public java.lang.String getName() {
+        return this.name;
+    }
+
+    public boolean success;
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+    public boolean getSuccess() {
+        return this.success;
+    }
+
+    public VmInstanceInventory inventory;
+    public void setInventory(VmInstanceInventory inventory) {
+        this.inventory = inventory;
+    }
+    public VmInstanceInventory getInventory() {
+        return this.inventory;
+    }
+
+    public ErrorCode error;
+    public void setError(ErrorCode error) {
+        this.error = error;
+    }
+    public ErrorCode getError() {
+        return this.error;
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.zstack.sdk;
+
+
+
+public class DbQueryStatistic  {
+
+    public java.lang.String apiName;
+    public void setApiName(java.lang.String apiName) {
+        this.apiName = apiName;
+    }
+    public java.lang.String getApiName() {
+        return this.apiName;
+    }
+
+    public long requestNum;
+    public void setRequestNum(long requestNum) {
+        this.requestNum = requestNum;
+    }
+    public long getRequestNum() {
+        return this.requestNum;
+    }
+
+    public long queryNum;
+    public void setQueryNum(long queryNum) {
+        this.queryNum = queryNum;
+    }
+    public long getQueryNum() {
+        return this.queryNum;
+    }
+
+    public long rowNum;
+    public void setRowNum(long rowNum) {
+        this.rowNum = rowNum;
+    }
+    public long getRowNum() {
+        return this.rowNum;
+    }
+
+    public long dbTimeInMillis;
+    public void setDbTimeInMillis(long dbTimeInMillis) {
+        this.dbTimeInMillis = dbTimeInMillis;
+    }
+    public long getDbTimeInMillis() {
+        return this.dbTimeInMillis;
+    }
+
+    public long maxQueryNum;
+    public void setMaxQueryNum(long maxQueryNum) {
+        this.maxQueryNum = maxQueryNum;
+    }
+    public long getMaxQueryNum() {
+        return this.maxQueryNum;
+    }
+
+    public long averageQueryNum;
+    public void setAverageQueryNum(long averageQueryNum) {
+        this.averageQueryNum = averageQueryNum;
+    }
+    public long getAverageQueryNum() {
+        return this.averageQueryNum;
+    }
+
+    public long repeatedQueryRequestNum;
+    public void setRepeatedQueryRequestNum(long repeatedQueryRequestNum) {
+        this.repeatedQueryRequestNum = repeatedQueryRequestNum;
+    }
+    public long getRepeatedQueryRequestNum() {
+        return this.repeatedQueryRequestNum;
+    }
+
+    public java.util.List repeatedQueries;
+    public void setRepeatedQueries(java.util.List repeatedQueries) {
+        this.repeatedQueries = repeatedQueries;
+    }
+    public java.util.List getRepeatedQueries() {
+        return this.repeatedQueries;
+    }
+
+}
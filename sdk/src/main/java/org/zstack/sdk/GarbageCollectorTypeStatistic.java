@@ -0,0 +1,55 @@
+package org.zstack.sdk;
+
+
+
+public class GarbageCollectorTypeStatistic  {
+
+    public java.lang.String runnerClass;
+    public void setRunnerClass(java.lang.String runnerClass) {
+        this.runnerClass = runnerClass;
+    }
+    public java.lang.String getRunnerClass() {
+        return this.runnerClass;
+    }
+
+    public long executedTimes;
+    public void setExecutedTimes(long executedTimes) {
+        this.executedTimes = executedTimes;
+    }
+    public long getExecutedTimes() {
+        return this.executedTimes;
+    }
+
+    public long failedTimes;
+    public void setFailedTimes(long failedTimes) {
+        this.failedTimes = failedTimes;
+    }
+    public long getFailedTimes() {
+        return this.failedTimes;
+    }
+
+    public long totalTimeInMillis;
+    public void setTotalTimeInMillis(long totalTimeInMillis) {
+        this.totalTimeInMillis = totalTimeInMillis;
+    }
+    public long getTotalTimeInMillis() {
+        return this.totalTimeInMillis;
+    }
+
+    public long maxTimeInMillis;
+    public void setMaxTimeInMillis(long maxTimeInMillis) {
+        this.maxTimeInMillis = maxTimeInMillis;
+    }
+    public long getMaxTimeInMillis() {
+        return this.maxTimeInMillis;
+    }
+
+    public long averageTimeInMillis;
+    public void setAverageTimeInMillis(long averageTimeInMillis) {
+        this.averageTimeInMillis = averageTimeInMillis;
+    }
+    public long getAverageTimeInMillis() {
+        return this.averageTimeInMillis;
+    }
+
+}
@@ -0,0 +1,14 @@
+package org.zstack.sdk;
+
+
+
+public class GetDbQueryStatisticsResult {
+    public java.util.List statistics;
+    public void setStatistics(java.util.List statistics) {
+        this.statistics = statistics;
+    }
+    public java.util.List getStatistics() {
+        return this.statistics;
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.zstack.sdk;
+
+
+
+public class GetGCJobStatisticsResult {
+    public long queueDepth;
+    public void setQueueDepth(long queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+    public long getQueueDepth() {
+        return this.queueDepth;
+    }
+
+    public long overdueNum;
+    public void setOverdueNum(long overdueNum) {
+        this.overdueNum = overdueNum;
+    }
+    public long getOverdueNum() {
+        return this.overdueNum;
+    }
+
+    public int runningNum;
+    public void setRunningNum(int runningNum) {
+        this.runningNum = runningNum;
+    }
+    public int getRunningNum() {
+        return this.runningNum;
+    }
+
+    public java.util.List typeStatistics;
+    public void setTypeStatistics(java.util.List typeStatistics) {
+        this.typeStatistics = typeStatistics;
+    }
+    public java.util.List getTypeStatistics() {
+        return this.typeStatistics;
+    }
+
+}
@@ -0,0 +1,7 @@
+package org.zstack.sdk;
+
+
+
+public class PrewarmImageCacheResult {
+
+}
@@ -32,6 +32,8 @@ public class ZSClient {
     private static final DateTimeFormatter formatter;
 
     private static ConcurrentHashMap<String, Api> waittingApis = new ConcurrentHashMap<>();
+    // job waiters by urls of job streams
+    private static ConcurrentHashMap<String, AsyncJobWaiter> jobWaiters = new ConcurrentHashMap<>();
 
     private static final long ACTION_DEFAULT_TIMEOUT = -1;
     private static final long ACTION_DEFAULT_POLLINGINTERVAL = -1;
@@ -140,6 +142,9 @@ public class ZSClient {
         String jobUuid = UUID.randomUUID().toString().replaceAll("-", "");
 
         private ApiResult resultFromWebHook;
+        private boolean pollingFallback;
+        private String pollingUrl;
+        long deadline;
 
         Api(AbstractAction action) {
             this.action = action;
@@ -168,6 +173,42 @@ public class ZSClient {
             }
         }
 
+        void wakeUpFromJobStream(int statusCode, String body) {
+            ApiResult res;
+            if (statusCode == 200) {
+                res = new ApiResult();
+                res.setResultString(body);
+            } else if (statusCode == 503) {
+                res = gson.fromJson(body, ApiResult.class);
+            } else {
+                res = httpError(statusCode, body);
+            }
+
+            wakeUpFromWebHook(res);
+        }
+
+        void wakeUpFromJobStreamTimeout() {
+            ApiResult res = new ApiResult();
+            res.error = errorCode(
+                    Constants.POLLING_TIMEOUT_ERROR,
+                    "timeout of waiting for API result",
+                    String.format("waiting for result of api[%s] timeout after %s ms", action.getClass().getSimpleName(), getTimeout())
+            );
+
+            wakeUpFromWebHook(res);
+        }
+
+        void fallbackToPolling() {
+            if (completion == null) {
+                synchronized (this) {
+                    pollingFallback = true;
+                    this.notifyAll();
+                }
+            } else {
+                asyncPollResult(pollingUrl);
+            }
+        }
+
         private String substituteUrl(String url, Map<String, Object> tokens) {
             Pattern pattern = Pattern.compile("\\{(.+?)\\}");
             Matcher matcher = pattern.matcher(url);
@@ -506,6 +547,11 @@ public class ZSClient {
                 pollingUrl = String.format("http://%s%s%s", configHost, splitRegex ,pollingUrl.split(splitRegex)[1]);
             }
 
+            AsyncJobWaiter waiter = getJobWaiter(pollingUrl);
+            if (waiter != null) {
+                return jobStreamResult(waiter, pollingUrl);
+            }
+
             if (completion == null) {
                 // sync polling
                 return syncPollResult(pollingUrl);
@@ -516,6 +562,56 @@ public class ZSClient {
             }
         }
 
+        private AsyncJobWaiter getJobWaiter(String pollingUrl) {
+            if (!config.useJobStream) {
+                return null;
+            }
+
+            String streamUrl = pollingUrl.substring(0, pollingUrl.lastIndexOf("/"));
+            AsyncJobWaiter waiter = jobWaiters.computeIfAbsent(streamUrl, url -> new AsyncJobWaiter(url, http));
+            return waiter.isSupported() ? waiter : null;
+        }
+
+        private ApiResult jobStreamResult(AsyncJobWaiter waiter, String url) {
+            pollingUrl = url;
+            deadline = System.currentTimeMillis() + this.getTimeout();
+            waiter.waitFor(this);
+
+            if (completion != null) {
+                return null;
+            }
+
+            synchronized (this) {
+                long left;
+                while (resultFromWebHook == null && !pollingFallback && (left = deadline - System.currentTimeMillis()) > 0) {
+                    try {
+                        this.wait(left);
+                    } catch (InterruptedException e) {
+                        throw new ApiException(e);
+                    }
+                }
+
+                if (resultFromWebHook != null) {
+                    return resultFromWebHook;
+                }
+            }
+
+            waiter.cancel(jobUuid);
+
+            if (pollingFallback) {
+                return syncPollResult(url);
+            }
+
+            ApiResult res = new ApiResult();
+            res.error = errorCode(
+                    Constants.POLLING_TIMEOUT_ERROR,
+                    "timeout of waiting for API result",
+                    String.format("waiting for result of api[%s] timeout after %s ms", action.getClass().getSimpleName(), this.getTimeout())
+            );
+
+            return res;
+        }
+
         private void asyncPollResult(final String url) {
             final long current = System.currentTimeMillis();
             final long timeout = this.getTimeout();
@@ -14,6 +14,8 @@ public class ZSConfig {
     Long readTimeout;
     Long writeTimeout;
     String contextPath;
+    // wait for async APIs on job streams of the server instead of polling each of them
+    boolean useJobStream = true;
 
     public String getHostname() {
         return hostname;
@@ -69,6 +71,11 @@ public class ZSConfig {
             return this;
         }
 
+        public Builder setUseJobStream(boolean useJobStream) {
+            config.useJobStream = useJobStream;
+            return this;
+        }
+
         public Builder setContextPath(String name) {
             config.contextPath = name;
             return this;
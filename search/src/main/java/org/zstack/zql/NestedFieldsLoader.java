@@ -0,0 +1,150 @@
+package org.zstack.zql;
+
+import org.zstack.core.db.EntityMetadata;
+import org.zstack.core.db.SQLBatch;
+import org.zstack.header.vo.ToInventory;
+import org.zstack.header.zql.ASTNode;
+import org.zstack.utils.BeanUtils;
+import org.zstack.utils.FieldUtils;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+import org.zstack.zql.ast.ZQLMetadata;
+
+import javax.persistence.JoinColumn;
+import javax.persistence.OneToMany;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * loads the fields not being columns of the VO, e.g. vmNics of VmInstanceInventory, for a query selecting fields.
+ *
+ * the query only selects the column fields and the primary key, then each collection mapped by @OneToMany and
+ * @JoinColumn is loaded by one query for all inventories and converted by its own inventory class, so neither the
+ * eager collections of the VO nor the fields not asked are loaded or converted. Other fields(e.g. computed ones)
+ * are copied from inventories converted from the VOs.
+ */
+class NestedFieldsLoader {
+    private static final CLogger logger = Utils.getLogger(NestedFieldsLoader.class);
+
+    private final ZQLMetadata.InventoryMetadata inventoryMetadata;
+    private final Class voClass;
+    private final String primaryKeyName;
+    private final boolean unsetPrimaryKey;
+    private final List<String> fieldNames;
+
+    private NestedFieldsLoader(ZQLMetadata.InventoryMetadata inventoryMetadata, String primaryKeyName, boolean unsetPrimaryKey, List<String> fieldNames) {
+        this.inventoryMetadata = inventoryMetadata;
+        this.voClass = inventoryMetadata.inventoryAnnotation.mappingVOClass();
+        this.primaryKeyName = primaryKeyName;
+        this.unsetPrimaryKey = unsetPrimaryKey;
+        this.fieldNames = fieldNames;
+    }
+
+    /**
+     * removes the non-column fields from the target fields of the query and adds the primary key for matching
+     * them back to the inventories
+     *
+     * @return null if the query selects no non-column field
+     */
+    static NestedFieldsLoader fromQuery(ASTNode.Query query) {
+        List<String> fields = query.getTarget().getFields();
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+
+        ZQLMetadata.InventoryMetadata metadata = ZQLMetadata.findInventoryMetadata(query.getTarget().getEntity());
+        List<String> nestedFields = fields.stream()
+                .filter(f -> metadata.selfInventoryFieldNames.contains(f) && !metadata.isColumnField(f))
+                .collect(Collectors.toList());
+        if (nestedFields.isEmpty()) {
+            return null;
+        }
+
+        fields.removeAll(nestedFields);
+        Field primaryKey = EntityMetadata.getPrimaryKeyField(metadata.inventoryAnnotation.mappingVOClass());
+        String primaryKeyName = primaryKey.getName();
+        boolean primaryKeyAdded = !fields.contains(primaryKeyName);
+        if (primaryKeyAdded) {
+            fields.add(primaryKeyName);
+        }
+
+        // a primitive primary key cannot be unset from the inventories, leave it there
+        boolean unsetPrimaryKey = primaryKeyAdded && !primaryKey.getType().isPrimitive();
+
+        return new NestedFieldsLoader(metadata, primaryKeyName, unsetPrimaryKey, nestedFields);
+    }
+
+    void load(List inventories) {
+        if (inventories.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Object> inventoriesByKey = new LinkedHashMap<>();
+        inventories.forEach(inv -> inventoriesByKey.put(BeanUtils.getProperty(inv, primaryKeyName), inv));
+
+        List<Object> keys = new ArrayList<>(inventoriesByKey.keySet());
+        new SQLBatch() {
+            @Override
+            protected void scripts() {
+                List<String> others = fieldNames.stream()
+                        .filter(f -> !loadJoinedCollection(f))
+                        .collect(Collectors.toList());
+
+                if (!others.isEmpty()) {
+                    copyFromInventoriesOfVOs(others);
+                }
+            }
+
+            private boolean loadJoinedCollection(String fieldName) {
+                Field voField = FieldUtils.getField(fieldName, voClass);
+                if (voField == null || !voField.isAnnotationPresent(OneToMany.class) || !voField.isAnnotationPresent(JoinColumn.class)
+                        || !Collection.class.isAssignableFrom(voField.getType())) {
+                    return false;
+                }
+
+                Class elementClass = FieldUtils.getGenericType(voField);
+                String joinFieldName = voField.getAnnotation(JoinColumn.class).name();
+                Field invField = FieldUtils.getField(fieldName, inventoryMetadata.selfInventoryClass);
+                if (elementClass == null || !FieldUtils.hasField(joinFieldName, elementClass)
+                        || invField == null || !invField.getType().isAssignableFrom(List.class)) {
+                    return false;
+                }
+
+                List elements = sql(String.format("select e from %s e where e.%s in (:keys)", elementClass.getSimpleName(), joinFieldName), elementClass)
+                        .param("keys", keys)
+                        .list();
+
+                Map<Object, List> elementsByKey = new HashMap<>();
+                for (Object e : elements) {
+                    elementsByKey.computeIfAbsent(BeanUtils.getProperty(e, joinFieldName), k -> new ArrayList()).add(e);
+                }
+
+                inventoriesByKey.forEach((key, inv) -> BeanUtils.setProperty(inv, fieldName,
+                        ToInventory.toInventories(elementClass, elementsByKey.getOrDefault(key, new ArrayList()))));
+                return true;
+            }
+
+            private void copyFromInventoriesOfVOs(List<String> fields) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace(String.format("fields%s of %s are not collections joined by column, load them by converting the whole VOs",
+                            fields, inventoryMetadata.simpleInventoryName()));
+                }
+
+                List vos = sql(String.format("select vo from %s vo where vo.%s in (:keys)", voClass.getSimpleName(), primaryKeyName), voClass)
+                        .param("keys", keys)
+                        .list();
+
+                for (Object vo : vos) {
+                    Object full = ToInventory.toInventory(vo);
+                    Object inv = inventoriesByKey.get(BeanUtils.getProperty(vo, primaryKeyName));
+                    fields.forEach(f -> BeanUtils.setProperty(inv, f, BeanUtils.getProperty(full, f)));
+                }
+            }
+        }.execute();
+
+        if (unsetPrimaryKey) {
+            inventories.forEach(inv -> BeanUtils.setProperty(inv, primaryKeyName, null));
+        }
+    }
+}
@@ -300,6 +300,7 @@ public class ZQL {
                 clean.run();
             } else if (ctx instanceof ZQLParser.QueryGrammarContext) {
                 ASTNode.Query query = ((ZQLParser.QueryGrammarContext) ctx).query().accept(new org.zstack.zql.ast.parser.visitors.QueryVisitor());
+                NestedFieldsLoader nestedFieldsLoader = NestedFieldsLoader.fromQuery(query);
                 ReturnWithQueryNodeWrapper wrapper = new ReturnWithQueryNodeWrapper(query);
 
                 wrapper.addPrimaryKeyFieldToTargetFieldNamesWhenReturnWithEnabledAndIsFieldQuery();
@@ -336,6 +337,9 @@ public class ZQL {
                 clean.run();
 
                 qr.inventories = ret.vos != null ? entityVOtoInventories(ret.vos) : null;
+                if (nestedFieldsLoader != null && qr.inventories != null) {
+                    nestedFieldsLoader.load(qr.inventories);
+                }
             } else if (ctx instanceof ZQLParser.SumGrammarContext) {
                 ASTNode.Sum sum = ((ZQLParser.SumGrammarContext) ctx).sum().accept(new SumVisitor());
 
@@ -12,7 +12,13 @@ import org.zstack.header.search.TypeField;
 import org.zstack.utils.*;
 import org.zstack.utils.logging.CLogger;
 
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import javax.persistence.Transient;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -108,6 +114,25 @@ public class ZQLMetadata {
             }
         }
 
+        /**
+         * @return true if the field is a column of the mapping VO and can be selected by the query directly,
+         * false for fields like nested inventories which are built from other tables or computed
+         */
+        public boolean isColumnField(String fname) {
+            Field f = FieldUtils.getField(fname, inventoryAnnotation.mappingVOClass());
+            if (f == null || Modifier.isStatic(f.getModifiers()) || Modifier.isTransient(f.getModifiers())) {
+                return false;
+            }
+
+            if (Collection.class.isAssignableFrom(f.getType()) || Map.class.isAssignableFrom(f.getType())) {
+                return false;
+            }
+
+            return !f.isAnnotationPresent(Transient.class) && !f.isAnnotationPresent(OneToMany.class)
+                    && !f.isAnnotationPresent(ManyToOne.class) && !f.isAnnotationPresent(OneToOne.class)
+                    && !f.isAnnotationPresent(ManyToMany.class);
+        }
+
         public void errorIfNoField(String fname) {
             if (!hasInventoryField(fname)) {
                 throw new CloudRuntimeException(String.format("inventory[${selfInventoryClass}] has no field[%s]", fname));
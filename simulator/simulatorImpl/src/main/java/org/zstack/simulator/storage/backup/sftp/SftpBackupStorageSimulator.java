@@ -217,20 +217,6 @@ public class SftpBackupStorageSimulator {
         return null;
     }
 
-    @RequestMapping(value = SftpBackupStorageConstant.DELETE_IMAGES_METADATA, method = RequestMethod.POST)
-    public
-    @ResponseBody
-    String deleteImagesInfoFromMetadataFile(HttpServletRequest req) throws InterruptedException {
-        HttpEntity<String> entity = restf.httpServletRequestToHttpEntity(req);
-        DeleteImageInfoFromMetaDataFileCmd cmd = JSONObjectUtil.toObject(entity.getBody(), DeleteImageInfoFromMetaDataFileCmd.class);
-        DeleteImageInfoFromMetaDataFileRsp rsp = new DeleteImageInfoFromMetaDataFileRsp();
-        rsp.setSuccess(true);
-        rsp.setOut("delete success");
-        rsp.setRet(0);
-        reply(entity, rsp);
-        return null;
-    }
-
     @RequestMapping(value = SftpBackupStorageConstant.GET_IMAGES_METADATA, method = RequestMethod.POST)
     public
     @ResponseBody
@@ -0,0 +1,14 @@
+package org.zstack.storage.backup;
+
+import org.zstack.core.GlobalProperty;
+import org.zstack.core.GlobalPropertyDefinition;
+
+/**
+ */
+@GlobalPropertyDefinition
+public class BackupStorageGlobalProperty {
+    @GlobalProperty(name="BackupStorage.imageMetadata.compactionThreshold", defaultValue = "1000")
+    public static int IMAGE_METADATA_COMPACTION_THRESHOLD;
+    @GlobalProperty(name="BackupStorage.imageMetadata.batchSize", defaultValue = "500")
+    public static int IMAGE_METADATA_BATCH_SIZE;
+}
@@ -1,10 +1,8 @@
 package org.zstack.storage.backup;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.zstack.core.cloudbus.ResourceDestinationMaker;
 import org.zstack.core.config.GlobalConfig;
 import org.zstack.core.config.GlobalConfigUpdateExtensionPoint;
-import org.zstack.core.db.SQLBatch;
 import org.zstack.core.tacker.PingTracker;
 import org.zstack.header.managementnode.ManagementNodeChangeListener;
 import org.zstack.header.managementnode.ManagementNodeInventory;
@@ -16,7 +14,6 @@ import org.zstack.utils.Utils;
 import org.zstack.utils.logging.CLogger;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  */
@@ -25,8 +22,6 @@ public class BackupStoragePingTracker extends PingTracker implements ManagementN
 
     private final Map<String, BackupStorageStatus> statusMap = Collections.synchronizedMap(new HashMap<String, BackupStorageStatus>());
 
-    @Autowired
-    private ResourceDestinationMaker destMaker;
 
     @Override
     public String getResourceName() {
@@ -72,23 +67,8 @@ public class BackupStoragePingTracker extends PingTracker implements ManagementN
     }
 
     private void reScanBackupStorage() {
-        untrackAll();
         statusMap.clear();
-
-        new SQLBatch() {
-            @Override
-            protected void scripts() {
-                long count = sql("select count(bs) from BackupStorageVO bs", Long.class).find();
-                sql("select bs.uuid from BackupStorageVO bs", String.class).limit(1000).paginate(count, (List<String> bsUuids) -> {
-                    List<String> byUs = bsUuids.stream()
-                            .filter(bsUuid ->
-                            destMaker.isManagedByUs(bsUuid))
-                            .collect(Collectors.toList());
-
-                    track(byUs);
-                });
-            }
-        }.execute();
+        trackAllManagedByUs(BackupStorageVO.class);
     }
 
     @Override
@@ -98,12 +78,12 @@ public class BackupStoragePingTracker extends PingTracker implements ManagementN
 
     @Override
     public void nodeJoin(ManagementNodeInventory inv) {
-        reScanBackupStorage();
+        trackMovedResources(BackupStorageVO.class);
     }
 
     @Override
     public void nodeLeft(ManagementNodeInventory inv) {
-        reScanBackupStorage();
+        trackMovedResources(BackupStorageVO.class);
     }
 
     @Override
@@ -0,0 +1,312 @@
+package org.zstack.storage.backup;
+
+import org.springframework.beans.factory.annotation.Autowire;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Configurable;
+import org.zstack.core.db.DatabaseFacade;
+import org.zstack.core.db.Q;
+import org.zstack.core.db.SQL;
+import org.zstack.header.exception.CloudRuntimeException;
+import org.zstack.header.identity.AccountConstant;
+import org.zstack.header.image.*;
+import org.zstack.header.tag.SystemTagInventory;
+import org.zstack.header.tag.SystemTagVO;
+import org.zstack.header.tag.SystemTagVO_;
+import org.zstack.header.tag.TagType;
+import org.zstack.utils.Utils;
+import org.zstack.utils.gson.JSONObjectUtil;
+import org.zstack.utils.logging.CLogger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * image metadata file of a backup storage, used to import images when the backup storage is added
+ * to another zstack.
+ *
+ * The file is a journal of json lines. A line of image inventory records an image added to the backup storage,
+ * a line of {@link ExpungeRecord} records an image expunged from it. Adding or expunging an image appends one line,
+ * and every BackupStorage.imageMetadata.compactionThreshold lines the whole file is rewritten by a {@link #snapshot()}
+ * of images on the backup storage, see {@link #needCompaction()}.
+ *
+ * Lines of image inventory are the same as those of the old metadata file, so files written before are still
+ * restored. Old versions don't know expunge records, they skip them and restore images expunged after
+ * the last compaction as well.
+ */
+@Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
+public class ImageMetadataJournal {
+    private static final CLogger logger = Utils.getLogger(ImageMetadataJournal.class);
+
+    private static final String IMAGE_RECORD_MARK = "backupStorageRefs";
+    private static final String EXPUNGE_RECORD_MARK = "\"journalOp\"";
+    private static final String EXPUNGE_OP = "expunge";
+
+    // records appended to journals of backup storage since they were compacted
+    private static final Map<String, AtomicInteger> appendedRecords = new ConcurrentHashMap<>();
+
+    @Autowired
+    private DatabaseFacade dbf;
+
+    private final String backupStorageUuid;
+
+    public static class ExpungeRecord {
+        private String journalOp = EXPUNGE_OP;
+        private String imageUuid;
+
+        public String getJournalOp() {
+            return journalOp;
+        }
+
+        public void setJournalOp(String journalOp) {
+            this.journalOp = journalOp;
+        }
+
+        public String getImageUuid() {
+            return imageUuid;
+        }
+
+        public void setImageUuid(String imageUuid) {
+            this.imageUuid = imageUuid;
+        }
+    }
+
+    public ImageMetadataJournal(String backupStorageUuid) {
+        this.backupStorageUuid = backupStorageUuid;
+    }
+
+    public String imageRecord(ImageInventory img) {
+        return JSONObjectUtil.toJsonString(img);
+    }
+
+    public String expungeRecord(String imageUuid) {
+        ExpungeRecord record = new ExpungeRecord();
+        record.setImageUuid(imageUuid);
+        return JSONObjectUtil.toJsonString(record);
+    }
+
+    /**
+     * counts a record going to be appended to the journal
+     *
+     * @return true if the journal should be rewritten by a snapshot instead of appending the record
+     */
+    public boolean needCompaction() {
+        AtomicInteger count = appendedRecords.computeIfAbsent(backupStorageUuid, k -> new AtomicInteger());
+        return count.incrementAndGet() >= BackupStorageGlobalProperty.IMAGE_METADATA_COMPACTION_THRESHOLD;
+    }
+
+    /**
+     * @return the journal containing only ready images on the backup storage, images are loaded page by page
+     */
+    public String snapshot() {
+        appendedRecords.remove(backupStorageUuid);
+
+        StringBuilder sb = new StringBuilder();
+        int start = 0;
+        int pageSize = BackupStorageGlobalProperty.IMAGE_METADATA_BATCH_SIZE;
+        while (true) {
+            List<ImageVO> vos = SQL.New("select img from ImageVO img where img.status = :status and img.uuid in" +
+                    " (select ref.imageUuid from ImageBackupStorageRefVO ref where ref.backupStorageUuid = :bsUuid)" +
+                    " order by img.uuid", ImageVO.class)
+                    .param("status", ImageStatus.Ready)
+                    .param("bsUuid", backupStorageUuid)
+                    .offset(start)
+                    .limit(pageSize)
+                    .list();
+
+            List<ImageInventory> images = ImageInventory.valueOf(vos);
+            setSystemTags(images);
+            for (ImageInventory img : images) {
+                if (sb.length() > 0) {
+                    sb.append("\n");
+                }
+                sb.append(imageRecord(img));
+            }
+
+            if (vos.size() < pageSize) {
+                break;
+            }
+            start += pageSize;
+        }
+
+        return sb.toString();
+    }
+
+    private void setSystemTags(List<ImageInventory> images) {
+        if (images.isEmpty()) {
+            return;
+        }
+
+        List<SystemTagVO> vos = Q.New(SystemTagVO.class)
+                .in(SystemTagVO_.resourceUuid, images.stream().map(ImageInventory::getUuid).collect(Collectors.toList()))
+                .list();
+        Map<String, List<SystemTagInventory>> tags = new HashMap<>();
+        for (SystemTagVO vo : vos) {
+            tags.computeIfAbsent(vo.getResourceUuid(), k -> new ArrayList<>()).add(SystemTagInventory.valueOf(vo));
+        }
+        images.forEach(img -> img.setSystemTags(tags.get(img.getUuid())));
+    }
+
+    /**
+     * reads the journal line by line, and passes ready images which are not expunged later to the consumer
+     * in batches of BackupStorage.imageMetadata.batchSize. If an image is recorded more than once,
+     * the first record is used
+     */
+    public void replay(String journal, Consumer<List<ImageInventory>> consumer) {
+        if (journal == null || journal.isEmpty()) {
+            return;
+        }
+
+        // only expunge records are parsed in the first pass, they are few
+        Map<String, Integer> expunged = new HashMap<>();
+        readLines(journal, (lineNo, line) -> {
+            if (line.contains(EXPUNGE_RECORD_MARK)) {
+                ExpungeRecord record = JSONObjectUtil.toObject(line, ExpungeRecord.class);
+                if (EXPUNGE_OP.equals(record.getJournalOp())) {
+                    expunged.put(record.getImageUuid(), lineNo);
+                }
+            }
+        });
+
+        Set<String> seen = new HashSet<>();
+        List<ImageInventory> batch = new ArrayList<>();
+        readLines(journal, (lineNo, line) -> {
+            if (!line.contains(IMAGE_RECORD_MARK) || line.contains(EXPUNGE_RECORD_MARK)) {
+                return;
+            }
+
+            ImageInventory img = JSONObjectUtil.toObject(line, ImageInventory.class);
+            if (!ImageStatus.Ready.toString().equals(img.getStatus())) {
+                return;
+            }
+
+            Integer expungedAt = expunged.get(img.getUuid());
+            if (expungedAt != null && expungedAt > lineNo) {
+                return;
+            }
+
+            if (!seen.add(img.getUuid())) {
+                return;
+            }
+
+            batch.add(img);
+            if (batch.size() >= BackupStorageGlobalProperty.IMAGE_METADATA_BATCH_SIZE) {
+                consumer.accept(new ArrayList<>(batch));
+                batch.clear();
+            }
+        });
+
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    private interface LineHandler {
+        void handle(int lineNo, String line);
+    }
+
+    private void readLines(String journal, LineHandler handler) {
+        try (BufferedReader reader = new BufferedReader(new StringReader(journal))) {
+            int lineNo = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                handler.handle(lineNo++, line);
+            }
+        } catch (IOException e) {
+            throw new CloudRuntimeException(e);
+        }
+    }
+
+    /**
+     * restores images of the journal to the database batch by batch. An image whose ImageEO still exists
+     * is recovered from the ImageEO
+     */
+    public void restore(String journal) {
+        int[] count = {0};
+        replay(journal, images -> {
+            persist(images);
+            count[0] += images.size();
+        });
+        logger.debug(String.format("restored %s images from the metadata of backup storage[uuid:%s]", count[0], backupStorageUuid));
+    }
+
+    private void persist(List<ImageInventory> images) {
+        List<String> uuids = images.stream().map(ImageInventory::getUuid).collect(Collectors.toList());
+        Set<String> existing = new HashSet<>(SQL.New("select img.uuid from ImageEO img where img.uuid in (:uuids)", String.class)
+                .param("uuids", uuids)
+                .list());
+
+        List<ImageVO> imageVOs = new ArrayList<>();
+        List<ImageBackupStorageRefVO> backupStorageRefVOs = new ArrayList<>();
+        List<SystemTagVO> systemTagVOs = new ArrayList<>();
+        for (ImageInventory imageInventory : images) {
+            for (ImageBackupStorageRefInventory ref : imageInventory.getBackupStorageRefs()) {
+                ImageBackupStorageRefVO backupStorageRefVO = new ImageBackupStorageRefVO();
+                backupStorageRefVO.setStatus(ImageStatus.valueOf(ref.getStatus()));
+                backupStorageRefVO.setInstallPath(ref.getInstallPath());
+                backupStorageRefVO.setImageUuid(ref.getImageUuid());
+                backupStorageRefVO.setBackupStorageUuid(backupStorageUuid);
+                backupStorageRefVO.setExportMd5Sum(ref.getExportMd5Sum());
+                backupStorageRefVO.setExportUrl(ref.getExportUrl());
+                backupStorageRefVO.setCreateDate(ref.getCreateDate());
+                backupStorageRefVO.setLastOpDate(ref.getLastOpDate());
+                backupStorageRefVOs.add(backupStorageRefVO);
+            }
+
+            if (existing.contains(imageInventory.getUuid())) {
+                continue;
+            }
+
+            ImageVO imageVO = new ImageVO();
+            imageVO.setActualSize(imageInventory.getActualSize());
+            imageVO.setDescription(imageInventory.getDescription());
+            imageVO.setStatus(ImageStatus.valueOf(imageInventory.getStatus()));
+            imageVO.setFormat(imageInventory.getFormat());
+            imageVO.setGuestOsType(imageInventory.getGuestOsType());
+            imageVO.setMd5Sum(imageInventory.getMd5Sum());
+            imageVO.setMediaType(ImageConstant.ImageMediaType.valueOf(imageInventory.getMediaType()));
+            imageVO.setName(imageInventory.getName());
+            imageVO.setPlatform(ImagePlatform.valueOf(imageInventory.getPlatform()));
+            imageVO.setSize(imageInventory.getSize());
+            imageVO.setState(ImageState.valueOf(imageInventory.getState()));
+            imageVO.setSystem(imageInventory.isSystem());
+            imageVO.setType(imageInventory.getType());
+            imageVO.setUrl(imageInventory.getUrl());
+            imageVO.setUuid(imageInventory.getUuid());
+            imageVO.setCreateDate(imageInventory.getCreateDate());
+            imageVO.setLastOpDate(imageInventory.getLastOpDate());
+            imageVO.setAccountUuid(AccountConstant.INITIAL_SYSTEM_ADMIN_UUID);
+            imageVO.setVirtio(imageInventory.getVirtio());
+            imageVOs.add(imageVO);
+
+            if (imageInventory.getSystemTags() != null) {
+                for (SystemTagInventory tagInv : imageInventory.getSystemTags()) {
+                    SystemTagVO systemTagVO = new SystemTagVO();
+                    systemTagVO.setCreateDate(tagInv.getCreateDate());
+                    systemTagVO.setLastOpDate(tagInv.getLastOpDate());
+                    systemTagVO.setResourceType(tagInv.getResourceType());
+                    systemTagVO.setResourceUuid(tagInv.getResourceUuid());
+                    systemTagVO.setTag(tagInv.getTag());
+                    systemTagVO.setType(TagType.System.toString().equals(tagInv.getType()) ? TagType.System : TagType.User);
+                    systemTagVO.setUuid(tagInv.getUuid());
+                    systemTagVOs.add(systemTagVO);
+                }
+            }
+        }
+
+        if (!existing.isEmpty()) {
+            SQL.New("update ImageEO set status = :status, deleted = null where uuid in (:uuids)")
+                    .param("status", ImageStatus.Ready)
+                    .param("uuids", existing)
+                    .execute();
+        }
+        dbf.persistCollection(imageVOs);
+        dbf.persistCollection(backupStorageRefVOs);
+        dbf.bulkPersist(systemTagVOs);
+    }
+}
@@ -10,6 +10,7 @@ import org.zstack.core.componentloader.PluginRegistry;
 import org.zstack.core.config.GlobalConfig;
 import org.zstack.core.config.GlobalConfigUpdateExtensionPoint;
 import org.zstack.core.db.DatabaseFacade;
+import org.zstack.core.db.Q;
 import org.zstack.core.db.SQL;
 import org.zstack.core.thread.*;
 import org.zstack.core.workflow.SimpleFlowChain;
@@ -25,11 +26,15 @@ import org.zstack.header.errorcode.ErrorCodeList;
 import org.zstack.header.message.MessageReply;
 import org.zstack.header.storage.backup.BackupStoragePrimaryStorageExtensionPoint;
 import org.zstack.header.storage.primary.*;
+import org.zstack.header.volume.VolumeStatus;
 import org.zstack.header.volume.VolumeType;
 import org.zstack.utils.Utils;
 import org.zstack.utils.logging.CLogger;
 
 import javax.persistence.TypedQuery;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
@@ -51,6 +56,8 @@ public abstract class ImageCacheCleaner {
     protected ResourceDestinationMaker destMaker;
     @Autowired
     private PluginRegistry pluginRgty;
+    @Autowired
+    protected ImageCacheUsageTracker usageTracker;
 
     protected Future<Void> gcThread;
 
@@ -174,6 +181,12 @@ public abstract class ImageCacheCleaner {
         SimpleFlowChain chain = new SimpleFlowChain();
         chain.setName(String.format("do-clean-up-image-cache-on-%s", psUuid));
         chain.then(new NoRollbackFlow() {
+            @Override
+            public void run(FlowTrigger trigger, Map data) {
+                evictImageCache(psUuid, needDestinationCheck);
+                trigger.next();
+            }
+        }).then(new NoRollbackFlow() {
             @Override
             public void run(FlowTrigger trigger, Map data) {
                 cleanUpVolumeCache(psUuid, needDestinationCheck, new NoErrorCompletion() {
@@ -239,33 +252,170 @@ public abstract class ImageCacheCleaner {
         });
     }
 
-    @Transactional
-    protected List<Long> getStaleImageCacheIds(String psUuid) {
-        String sql;
-        if (psUuid == null) {
-            sql = "select count(*) from VolumeVO vol, PrimaryStorageVO pri where vol.primaryStorageUuid = pri.uuid" +
-                    " and vol.type = :volType and vol.rootImageUuid is null and pri.type = :psType";
+    private ImageCacheEvictionPolicy getEvictionPolicy() {
+        String name = PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_POLICY.value();
+        return pluginRgty.getExtensionList(ImageCacheEvictionPolicy.class).stream()
+                .filter(p -> p.getName().equals(name))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * when the used physical capacity of a primary storage exceeds primaryStorage.imageCache.eviction.highWatermark,
+     * caches without dependent volumes are moved to ImageCacheShadowVO in the order of the eviction policy,
+     * until the used capacity drops below primaryStorage.imageCache.eviction.lowWatermark. The shadows are
+     * deleted as stale caches
+     */
+    protected void evictImageCache(String psUuid, boolean needDestinationCheck) {
+        ImageCacheEvictionPolicy policy = getEvictionPolicy();
+        if (policy == null) {
+            return;
+        }
+
+        List<String> psUuids;
+        if (psUuid != null) {
+            psUuids = Collections.singletonList(psUuid);
         } else {
-            sql = "select count(*) from VolumeVO vol, PrimaryStorageVO pri where vol.primaryStorageUuid = pri.uuid" +
-                    " and vol.type = :volType and vol.rootImageUuid is null and pri.type = :psType and pri.uuid = :psUuid";
+            psUuids = Q.New(PrimaryStorageVO.class)
+                    .select(PrimaryStorageVO_.uuid)
+                    .eq(PrimaryStorageVO_.type, getPrimaryStorageType())
+                    .listValues();
         }
 
-        TypedQuery<Long> q = dbf.getEntityManager().createQuery(sql, Long.class);
-        q.setParameter("volType", VolumeType.Root);
-        q.setParameter("psType", getPrimaryStorageType());
+        for (String uuid : psUuids) {
+            if (needDestinationCheck && !destMaker.isManagedByUs(uuid)) {
+                continue;
+            }
+
+            try {
+                evictImageCache(uuid, policy);
+            } catch (Throwable t) {
+                logger.warn(String.format("failed to evict image cache on the primary storage[uuid:%s]", uuid), t);
+            }
+        }
+    }
+
+    private void evictImageCache(String psUuid, ImageCacheEvictionPolicy policy) {
+        PrimaryStorageCapacityVO capacity = dbf.findByUuid(psUuid, PrimaryStorageCapacityVO.class);
+        if (capacity == null || capacity.getTotalPhysicalCapacity() <= 0) {
+            return;
+        }
+
+        long total = capacity.getTotalPhysicalCapacity();
+        long used = total - capacity.getAvailablePhysicalCapacity();
+        int high = PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_HIGH_WATERMARK.value(Integer.class);
+        int low = Math.min(PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_LOW_WATERMARK.value(Integer.class), high);
+        double usedPercent = used * 100.0 / total;
+        if (usedPercent < high) {
+            return;
+        }
+
+        if (hasRootVolumesWithoutImageUuid(psUuid)) {
+            return;
+        }
+
+        long bytesToFree = used - (long) (total * (low / 100.0));
+        List<ImageCacheVO> candidates = getEvictableImageCaches(psUuid);
+        candidates.sort(policy.getEvictionOrder());
+
+        List<ImageCacheVO> victims = new ArrayList<>();
+        long freed = 0;
+        for (ImageCacheVO c : candidates) {
+            if (freed >= bytesToFree) {
+                break;
+            }
+
+            victims.add(c);
+            freed += c.getSize();
+        }
+
+        if (victims.isEmpty()) {
+            logger.debug(String.format("%.1f%% physical capacity of the primary storage[uuid:%s] is used, but no image cache" +
+                    " can be evicted", usedPercent, psUuid));
+            return;
+        }
+
+        for (ImageCacheVO c : shadowImageCaches(victims)) {
+            usageTracker.evicted(c, String.format("evicted the image cache[id:%s, imageUuid:%s, size:%s, accessCount:%s, lastAccessDate:%s]" +
+                            " on the primary storage[uuid:%s] by the %s policy, %.1f%% physical capacity is used, high watermark: %s%%, low watermark: %s%%",
+                    c.getId(), c.getImageUuid(), c.getSize(), c.getAccessCount(), c.getLastAccessDate(),
+                    psUuid, policy.getName(), usedPercent, high, low));
+        }
+    }
+
+    /**
+     * @return ready caches whose images are not used by any volume or cdrom on the primary storage, caches
+     * used since the last cleanup are excluded as volumes may be being created from them
+     */
+    @Transactional(readOnly = true)
+    protected List<ImageCacheVO> getEvictableImageCaches(String psUuid) {
+        long interval = TimeUnit.SECONDS.toMillis(cleanupIntervalConfig().value(Long.class));
+        String sql = "select c from ImageCacheVO c where c.primaryStorageUuid = :psUuid and c.state = :state" +
+                " and c.imageUuid not in (select vol.rootImageUuid from VolumeVO vol where vol.rootImageUuid is not null" +
+                " and (vol.primaryStorageUuid = :psUuid or vol.status = :notInstantiated))" +
+                " and c.imageUuid not in (select cd.isoUuid from VmCdRomVO cd where cd.isoUuid is not null)" +
+                " and (c.lastAccessDate is null or c.lastAccessDate < :accessedBefore)";
+        TypedQuery<ImageCacheVO> q = dbf.getEntityManager().createQuery(sql, ImageCacheVO.class);
+        q.setParameter("psUuid", psUuid);
+        q.setParameter("state", ImageCacheState.ready);
+        q.setParameter("notInstantiated", VolumeStatus.NotInstantiated);
+        q.setParameter("accessedBefore", new Timestamp(dbf.getCurrentSqlTime().getTime() - interval));
+        return q.getResultList();
+    }
+
+    @Transactional
+    protected List<ImageCacheVO> shadowImageCaches(List<ImageCacheVO> caches) {
+        List<ImageCacheVO> ret = new ArrayList<>();
+        for (ImageCacheVO c : caches) {
+            ImageCacheVO vo = dbf.getEntityManager().find(ImageCacheVO.class, c.getId());
+            if (vo == null) {
+                continue;
+            }
+
+            dbf.getEntityManager().persist(new ImageCacheShadowVO(vo));
+            dbf.getEntityManager().remove(vo);
+            ret.add(vo);
+        }
+        return ret;
+    }
+
+    /**
+     * caches used by root volumes with NULL rootImageUuid cannot be told from unused ones, so no cache of the
+     * primary storage is cleaned or evicted until the root volumes are fixed
+     *
+     * @param psUuid null for all primary storage of the type
+     */
+    protected boolean hasRootVolumesWithoutImageUuid(String psUuid) {
+        String sql = "select count(*) from VolumeVO vol, PrimaryStorageVO pri where vol.primaryStorageUuid = pri.uuid" +
+                " and vol.type = :volType and vol.rootImageUuid is null and pri.type = :psType";
         if (psUuid != null) {
-            q.setParameter("psUuid", psUuid);
+            sql += " and pri.uuid = :psUuid";
         }
 
-        Long count = q.getSingleResult();
+        SQL q = SQL.New(sql).param("volType", VolumeType.Root).param("psType", getPrimaryStorageType());
+        if (psUuid != null) {
+            q.param("psUuid", psUuid);
+        }
+
+        Long count = q.find();
         if (count != 0) {
             logger.warn(String.format("found %s volumes on the primary storage[type:%s] has NULL rootImageUuid. Please do following:\n" +
                     "1. zstack-ctl stop_node\n" +
                     "2. zstack-ctl start_node -DfixImageCacheUuid=true -DrootVolumeFindMissingImageUuid=true\n" +
                     "to fix the problem. For the data safety, we won't clean the image cache of the primary storage", count, getPrimaryStorageType()));
+            return true;
+        }
+
+        return false;
+    }
+
+    @Transactional
+    protected List<Long> getStaleImageCacheIds(String psUuid) {
+        if (hasRootVolumesWithoutImageUuid(psUuid)) {
             return null;
         }
 
+        String sql;
         if (psUuid == null) {
             sql = "select c.id from ImageCacheVO c, PrimaryStorageVO pri, ImageEO i where c.primaryStorageUuid = pri.uuid and i.uuid = c.imageUuid and i.deleted is not null and pri.type = :ptype";
         } else  {
@@ -303,27 +453,11 @@ public abstract class ImageCacheCleaner {
 
     @Transactional
     protected List<Long> getStaleImageCacheIdsForLocalStorage(String psUuid) {
-        String sql;
-        Long count;
-        if (psUuid == null) {
-            sql = "select count(*) from VolumeVO vol, PrimaryStorageVO pri where vol.primaryStorageUuid = pri.uuid" +
-                    " and vol.type = :volType and vol.rootImageUuid is null and pri.type = :psType";
-            count = SQL.New(sql).param("volType", VolumeType.Root).param("psType", getPrimaryStorageType()).find();
-
-        } else {
-            sql = "select count(*) from VolumeVO vol, PrimaryStorageVO pri where vol.primaryStorageUuid = pri.uuid" +
-                    " and vol.type = :volType and vol.rootImageUuid is null and pri.type = :psType and pri.uuid = :psUuid";
-            count = SQL.New(sql).param("volType", VolumeType.Root).param("psType", getPrimaryStorageType()).param("psUuid", psUuid).find();
-        }
-
-        if (count != 0) {
-            logger.warn(String.format("found %s volumes on the primary storage[type:%s] has NULL rootImageUuid. Please do following:\n" +
-                    "1. zstack-ctl stop_node\n" +
-                    "2. zstack-ctl start_node -DfixImageCacheUuid=true -DrootVolumeFindMissingImageUuid=true\n" +
-                    "to fix the problem. For the data safety, we won't clean the image cache of the primary storage", count, getPrimaryStorageType()));
+        if (hasRootVolumesWithoutImageUuid(psUuid)) {
             return null;
         }
 
+        String sql;
         List<Long> deleted;
         if (psUuid == null) {
             sql = "select c.id from ImageCacheVO c, PrimaryStorageVO pri, ImageEO i where c.primaryStorageUuid = pri.uuid and i.uuid = c.imageUuid and i.deleted is not null and pri.type = :ptype";
@@ -0,0 +1,165 @@
+package org.zstack.storage.primary;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.zstack.core.jmx.JmxFacade;
+import org.zstack.core.singleflight.CompletionSingleFlight;
+import org.zstack.header.core.ReturnValueCompletion;
+import org.zstack.header.errorcode.ErrorCode;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * merges concurrent downloads of the same image to the same image cache into one transfer.
+ *
+ * a download is identified by the primary storage, the host(for primary storages having caches per host, otherwise null)
+ * and the image. The first requester runs the download, requesters coming before it finishes wait for it and get
+ * the same result. Backends still serialize downloads in their own ways, the coordinator only makes requesters
+ * share one transfer instead of queueing and checking the cache one by one.
+ *
+ * transfers and merged requests of each primary storage are exposed by JMX.
+ */
+public class ImageCacheDownloadCoordinator implements ImageCacheDownloadCoordinatorMXBean {
+    private static final CLogger logger = Utils.getLogger(ImageCacheDownloadCoordinator.class);
+
+    @Autowired
+    private JmxFacade jmxf;
+
+    static class DownloadKey {
+        final String primaryStorageUuid;
+        final String hostUuid;
+        final String imageUuid;
+
+        DownloadKey(String primaryStorageUuid, String hostUuid, String imageUuid) {
+            this.primaryStorageUuid = primaryStorageUuid;
+            this.hostUuid = hostUuid;
+            this.imageUuid = imageUuid;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DownloadKey)) {
+                return false;
+            }
+            DownloadKey that = (DownloadKey) o;
+            return primaryStorageUuid.equals(that.primaryStorageUuid) &&
+                    Objects.equals(hostUuid, that.hostUuid) &&
+                    imageUuid.equals(that.imageUuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(primaryStorageUuid, hostUuid, imageUuid);
+        }
+
+        @Override
+        public String toString() {
+            return hostUuid == null ? String.format("image[uuid:%s] to primary storage[uuid:%s]", imageUuid, primaryStorageUuid) :
+                    String.format("image[uuid:%s] to primary storage[uuid:%s] on host[uuid:%s]", imageUuid, primaryStorageUuid, hostUuid);
+        }
+    }
+
+    private static class Counter {
+        final AtomicLong transfers = new AtomicLong();
+        final AtomicLong merged = new AtomicLong();
+    }
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final CompletionSingleFlight<DownloadKey, Object> flight = new CompletionSingleFlight<DownloadKey, Object>() {
+        @Override
+        protected void onFirstStart(DownloadKey key, SingleFlightContext context) {
+            counter(key.primaryStorageUuid).transfers.incrementAndGet();
+        }
+
+        @Override
+        protected void onNextPending(DownloadKey key, SingleFlightContext context) {
+            counter(key.primaryStorageUuid).merged.incrementAndGet();
+            logger.debug(String.format("merged the download of the %s into the running one, %s requesters are waiting",
+                    key, context.pendingCount()));
+        }
+    };
+
+    void init() {
+        jmxf.registerBean("ImageCacheDownloadCoordinator", this);
+    }
+
+    private Counter counter(String psUuid) {
+        return counters.computeIfAbsent(psUuid, k -> new Counter());
+    }
+
+    /**
+     * @param hostUuid the host for primary storages having caches per host, otherwise null
+     * @param downloader downloads the image to the cache, only called by the first requester
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void download(String psUuid, String hostUuid, String imageUuid,
+                             Consumer<ReturnValueCompletion<T>> downloader, ReturnValueCompletion<T> completion) {
+        flight.execute(new DownloadKey(psUuid, hostUuid, imageUuid), comp -> downloader.accept(new ReturnValueCompletion<T>(comp) {
+            @Override
+            public void success(T returnValue) {
+                comp.success(returnValue);
+            }
+
+            @Override
+            public void fail(ErrorCode errorCode) {
+                comp.fail(errorCode);
+            }
+        }), new ReturnValueCompletion<Object>(completion) {
+            @Override
+            public void success(Object returnValue) {
+                completion.success((T) returnValue);
+            }
+
+            @Override
+            public void fail(ErrorCode errorCode) {
+                completion.fail(errorCode);
+            }
+        });
+    }
+
+    /**
+     * @return number of requesters of the download including the one running it, 0 if the download is not running
+     */
+    public int count(String psUuid, String hostUuid, String imageUuid) {
+        return flight.count(new DownloadKey(psUuid, hostUuid, imageUuid));
+    }
+
+    private <T> Map<String, T> collect(Function<Counter, T> getter) {
+        Map<String, T> ret = new HashMap<>();
+        counters.forEach((psUuid, counter) -> ret.put(psUuid, getter.apply(counter)));
+        return ret;
+    }
+
+    @Override
+    public Map<String, Long> getTransfers() {
+        return collect(c -> c.transfers.get());
+    }
+
+    @Override
+    public Map<String, Long> getMergedRequests() {
+        return collect(c -> c.merged.get());
+    }
+
+    @Override
+    public Map<String, Integer> getInFlightDownloads() {
+        Map<String, Integer> ret = new HashMap<>();
+        for (DownloadKey key : flight.keys()) {
+            int count = flight.count(key);
+            if (count > 0) {
+                ret.put(key.toString(), count);
+            }
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,13 @@
+package org.zstack.storage.primary;
+
+import java.util.Map;
+
+/**
+ */
+public interface ImageCacheDownloadCoordinatorMXBean {
+    Map<String, Long> getTransfers();
+
+    Map<String, Long> getMergedRequests();
+
+    Map<String, Integer> getInFlightDownloads();
+}
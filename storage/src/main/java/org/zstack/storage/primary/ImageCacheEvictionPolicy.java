@@ -0,0 +1,22 @@
+package org.zstack.storage.primary;
+
+import org.zstack.header.storage.primary.ImageCacheVO;
+
+import java.util.Comparator;
+
+/**
+ * decides which image caches are evicted first when the used capacity of a primary storage exceeds
+ * primaryStorage.imageCache.eviction.highWatermark. A policy is chosen by its name in
+ * primaryStorage.imageCache.eviction.policy
+ */
+public interface ImageCacheEvictionPolicy {
+    // the value of primaryStorage.imageCache.eviction.policy disabling eviction
+    String NONE = "None";
+
+    String getName();
+
+    /**
+     * @return the order of caches to evict, the first is evicted first
+     */
+    Comparator<ImageCacheVO> getEvictionOrder();
+}
@@ -0,0 +1,313 @@
+package org.zstack.storage.primary;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.zstack.core.cloudbus.CloudBus;
+import org.zstack.core.cloudbus.CloudBusCallBack;
+import org.zstack.core.cloudbus.ResourceDestinationMaker;
+import org.zstack.core.config.GlobalConfig;
+import org.zstack.core.config.GlobalConfigUpdateExtensionPoint;
+import org.zstack.core.db.DatabaseFacade;
+import org.zstack.core.db.Q;
+import org.zstack.core.db.SQL;
+import org.zstack.core.thread.ChainTask;
+import org.zstack.core.thread.PeriodicTask;
+import org.zstack.core.thread.SyncTaskChain;
+import org.zstack.core.thread.ThreadFacade;
+import org.zstack.header.Component;
+import org.zstack.header.host.HostState;
+import org.zstack.header.host.HostStatus;
+import org.zstack.header.image.*;
+import org.zstack.header.message.MessageReply;
+import org.zstack.header.storage.primary.*;
+import org.zstack.header.tag.SystemTagVO;
+import org.zstack.header.tag.SystemTagVO_;
+import org.zstack.header.vm.VmInstanceSpec.ImageSpec;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * pushes images to caches of primary storages in the background, for images specified by
+ * {@link APIPrewarmImageCacheMsg} or having the imageCache::prewarm system tag, which are prewarmed to
+ * all primary storages supporting prewarm in their zones every primaryStorage.imageCache.prewarm.interval.
+ *
+ * a management node prewarms at most primaryStorage.imageCache.prewarm.concurrency caches at the same time,
+ * and starts downloads no faster than primaryStorage.imageCache.prewarm.bandwidth bytes per second on average.
+ * Caches are downloaded by {@link DownloadVolumeTemplateToPrimaryStorageMsg} like creating a vm, so a vm created
+ * during the prewarm waits for the download and uses the cache instead of downloading the image again.
+ */
+public class ImageCachePrewarmer implements Component {
+    private static final CLogger logger = Utils.getLogger(ImageCachePrewarmer.class);
+
+    @Autowired
+    private DatabaseFacade dbf;
+    @Autowired
+    private ThreadFacade thdf;
+    @Autowired
+    private CloudBus bus;
+    @Autowired
+    private ResourceDestinationMaker destMaker;
+
+    private Future<Void> prewarmThread;
+    // targets queued or being downloaded, so they are not queued again by the policy
+    private final Set<String> pendingTargets = ConcurrentHashMap.newKeySet();
+    // the time before which no download starts, to keep the average bandwidth under the limit
+    private long nextDownloadTime;
+
+    static class PrewarmTarget {
+        String primaryStorageUuid;
+        String hostUuid;
+
+        PrewarmTarget(String primaryStorageUuid, String hostUuid) {
+            this.primaryStorageUuid = primaryStorageUuid;
+            this.hostUuid = hostUuid;
+        }
+
+        String getKey(String imageUuid) {
+            return String.format("%s-%s-%s", imageUuid, primaryStorageUuid, hostUuid);
+        }
+
+        @Override
+        public String toString() {
+            return hostUuid == null ? String.format("primary storage[uuid:%s]", primaryStorageUuid) :
+                    String.format("primary storage[uuid:%s] on host[uuid:%s]", primaryStorageUuid, hostUuid);
+        }
+    }
+
+    @Override
+    public boolean start() {
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_PREWARM_INTERVAL.installUpdateExtension(new GlobalConfigUpdateExtensionPoint() {
+            @Override
+            public void updateGlobalConfig(GlobalConfig oldConfig, GlobalConfig newConfig) {
+                if (prewarmThread != null) {
+                    prewarmThread.cancel(true);
+                }
+
+                startPrewarmThread();
+            }
+        });
+
+        startPrewarmThread();
+        return true;
+    }
+
+    @Override
+    public boolean stop() {
+        if (prewarmThread != null) {
+            prewarmThread.cancel(true);
+        }
+        return true;
+    }
+
+    private void startPrewarmThread() {
+        prewarmThread = thdf.submitPeriodicTask(new PeriodicTask() {
+            @Override
+            public TimeUnit getTimeUnit() {
+                return TimeUnit.SECONDS;
+            }
+
+            @Override
+            public long getInterval() {
+                return PrimaryStorageGlobalConfig.IMAGE_CACHE_PREWARM_INTERVAL.value(Long.class);
+            }
+
+            @Override
+            public String getName() {
+                return "image-cache-prewarm-thread";
+            }
+
+            @Override
+            public void run() {
+                prewarmTaggedImages();
+            }
+        });
+    }
+
+    void prewarmTaggedImages() {
+        List<String> imageUuids = Q.New(SystemTagVO.class)
+                .select(SystemTagVO_.resourceUuid)
+                .eq(SystemTagVO_.resourceType, ImageVO.class.getSimpleName())
+                .eq(SystemTagVO_.tag, PrimaryStorageSystemTags.PREWARM_IMAGE_CACHE.getTagFormat())
+                .listValues();
+
+        for (String imageUuid : imageUuids) {
+            if (!destMaker.isManagedByUs(imageUuid)) {
+                continue;
+            }
+
+            try {
+                prewarm(imageUuid, null, null);
+            } catch (Throwable t) {
+                logger.warn(String.format("failed to prewarm caches of the image[uuid:%s]", imageUuid), t);
+            }
+        }
+    }
+
+    /**
+     * queues downloads of the image to caches of the primary storages and hosts, targets already having
+     * the cache or being prewarmed are skipped
+     *
+     * @param psUuids primary storages to prewarm, null means all primary storages supporting prewarm in zones
+     *                the image is available
+     * @param hostUuids hosts to prewarm for primary storages having caches per host, null means all connected hosts
+     * @return number of queued downloads
+     */
+    public int prewarm(String imageUuid, List<String> psUuids, List<String> hostUuids) {
+        ImageVO image = dbf.findByUuid(imageUuid, ImageVO.class);
+        if (image == null || image.getStatus() != ImageStatus.Ready || image.getState() != ImageState.Enabled) {
+            logger.debug(String.format("skip prewarming the image[uuid:%s] which is not ready or enabled", imageUuid));
+            return 0;
+        }
+
+        ImageInventory inv = ImageInventory.valueOf(image);
+        int count = 0;
+        for (PrewarmTarget target : collectTargets(imageUuid, psUuids, hostUuids)) {
+            if (pendingTargets.add(target.getKey(imageUuid))) {
+                submit(inv, target);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private List<PrewarmTarget> collectTargets(String imageUuid, List<String> psUuids, List<String> hostUuids) {
+        List<String> types = PrimaryStorageType.getSupportImageCachePrewarmTypeNames();
+        if (types.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<PrimaryStorageVO> pss;
+        if (psUuids == null) {
+            pss = SQL.New("select distinct ps from PrimaryStorageVO ps, BackupStorageZoneRefVO zref, ImageBackupStorageRefVO iref" +
+                    " where ps.zoneUuid = zref.zoneUuid and zref.backupStorageUuid = iref.backupStorageUuid" +
+                    " and iref.imageUuid = :imageUuid and iref.status = :imageStatus" +
+                    " and ps.type in (:types) and ps.state = :state and ps.status = :status", PrimaryStorageVO.class)
+                    .param("imageUuid", imageUuid)
+                    .param("imageStatus", ImageStatus.Ready)
+                    .param("types", types)
+                    .param("state", PrimaryStorageState.Enabled)
+                    .param("status", PrimaryStorageStatus.Connected)
+                    .list();
+        } else {
+            pss = Q.New(PrimaryStorageVO.class)
+                    .in(PrimaryStorageVO_.uuid, psUuids)
+                    .in(PrimaryStorageVO_.type, types)
+                    .eq(PrimaryStorageVO_.state, PrimaryStorageState.Enabled)
+                    .eq(PrimaryStorageVO_.status, PrimaryStorageStatus.Connected)
+                    .list();
+        }
+
+        List<PrewarmTarget> targets = new ArrayList<>();
+        for (PrimaryStorageVO ps : pss) {
+            if (!PrimaryStorageType.valueOf(ps.getType()).isImageCachePerHost()) {
+                if (!Q.New(ImageCacheVO.class)
+                        .eq(ImageCacheVO_.primaryStorageUuid, ps.getUuid())
+                        .eq(ImageCacheVO_.imageUuid, imageUuid)
+                        .isExists()) {
+                    targets.add(new PrewarmTarget(ps.getUuid(), null));
+                }
+                continue;
+            }
+
+            SQL q = SQL.New("select h.uuid from HostVO h, PrimaryStorageClusterRefVO ref" +
+                    " where ref.primaryStorageUuid = :psUuid and h.clusterUuid = ref.clusterUuid" +
+                    " and h.status = :hstatus and h.state = :hstate" +
+                    (hostUuids == null ? "" : " and h.uuid in (:hostUuids)"), String.class)
+                    .param("psUuid", ps.getUuid())
+                    .param("hstatus", HostStatus.Connected)
+                    .param("hstate", HostState.Enabled);
+            if (hostUuids != null) {
+                q.param("hostUuids", hostUuids);
+            }
+            List<String> hosts = q.list();
+
+            for (String hostUuid : hosts) {
+                // install urls of caches per host contain the host uuid
+                if (!Q.New(ImageCacheVO.class)
+                        .eq(ImageCacheVO_.primaryStorageUuid, ps.getUuid())
+                        .eq(ImageCacheVO_.imageUuid, imageUuid)
+                        .like(ImageCacheVO_.installUrl, String.format("%%%s%%", hostUuid))
+                        .isExists()) {
+                    targets.add(new PrewarmTarget(ps.getUuid(), hostUuid));
+                }
+            }
+        }
+
+        return targets;
+    }
+
+    // returns milliseconds to wait before downloading bytes of the size
+    private synchronized long reserveBandwidth(long size) {
+        long bandwidth = PrimaryStorageGlobalConfig.IMAGE_CACHE_PREWARM_BANDWIDTH.value(Long.class);
+        if (bandwidth <= 0) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        long start = Math.max(now, nextDownloadTime);
+        nextDownloadTime = start + TimeUnit.SECONDS.toMillis(size) / bandwidth;
+        return start - now;
+    }
+
+    private void submit(ImageInventory image, PrewarmTarget target) {
+        thdf.chainSubmit(new ChainTask(null) {
+            @Override
+            public String getSyncSignature() {
+                return "image-cache-prewarm";
+            }
+
+            @Override
+            protected int getSyncLevel() {
+                return PrimaryStorageGlobalConfig.IMAGE_CACHE_PREWARM_CONCURRENCY.value(Integer.class);
+            }
+
+            @Override
+            public void run(SyncTaskChain chain) {
+                long size = image.getActualSize() == null ? 0 : image.getActualSize();
+                long delay = reserveBandwidth(size);
+                if (delay > 0) {
+                    thdf.submitTimeoutTask(() -> download(image, target, chain), TimeUnit.MILLISECONDS, delay);
+                } else {
+                    download(image, target, chain);
+                }
+            }
+
+            @Override
+            public String getName() {
+                return String.format("prewarm-image-%s-cache-%s", image.getUuid(), target);
+            }
+        });
+    }
+
+    private void download(ImageInventory image, PrewarmTarget target, SyncTaskChain chain) {
+        ImageSpec spec = new ImageSpec();
+        spec.setInventory(image);
+
+        DownloadVolumeTemplateToPrimaryStorageMsg msg = new DownloadVolumeTemplateToPrimaryStorageMsg();
+        msg.setPrimaryStorageUuid(target.primaryStorageUuid);
+        msg.setHostUuid(target.hostUuid);
+        msg.setTemplateSpec(spec);
+        bus.makeTargetServiceIdByResourceUuid(msg, PrimaryStorageConstant.SERVICE_ID, target.primaryStorageUuid);
+        bus.send(msg, new CloudBusCallBack(chain) {
+            @Override
+            public void run(MessageReply reply) {
+                if (reply.isSuccess()) {
+                    logger.debug(String.format("prewarmed the image[uuid:%s] to the cache of the %s", image.getUuid(), target));
+                } else {
+                    logger.warn(String.format("failed to prewarm the image[uuid:%s] to the cache of the %s, %s",
+                            image.getUuid(), target, reply.getError()));
+                }
+
+                pendingTargets.remove(target.getKey(image.getUuid()));
+                chain.next();
+            }
+        });
+    }
+}
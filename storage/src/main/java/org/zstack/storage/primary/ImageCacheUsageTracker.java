@@ -0,0 +1,123 @@
+package org.zstack.storage.primary;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.zstack.core.db.DatabaseFacade;
+import org.zstack.core.db.SQL;
+import org.zstack.core.jmx.JmxFacade;
+import org.zstack.header.storage.primary.ImageCacheVO;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * tracks uses of image caches. A hit(a volume created from an existing cache) or a miss(an image
+ * downloaded to the cache) updates the access date and count of the cache, which are used by
+ * {@link ImageCacheEvictionPolicy} to pick caches to evict.
+ *
+ * hits, misses and evictions of each primary storage are exposed by JMX.
+ */
+public class ImageCacheUsageTracker implements ImageCacheUsageTrackerMXBean {
+    private static final CLogger logger = Utils.getLogger(ImageCacheUsageTracker.class);
+
+    private static final int RECENT_EVICTIONS_SIZE = 100;
+
+    @Autowired
+    private DatabaseFacade dbf;
+    @Autowired
+    private JmxFacade jmxf;
+
+    private static class Usage {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictedCount = new AtomicLong();
+        final AtomicLong evictedBytes = new AtomicLong();
+    }
+
+    private final Map<String, Usage> usages = new ConcurrentHashMap<>();
+    private final Deque<String> recentEvictions = new ConcurrentLinkedDeque<>();
+
+    void init() {
+        jmxf.registerBean("ImageCacheUsageTracker", this);
+    }
+
+    private Usage usage(String psUuid) {
+        return usages.computeIfAbsent(psUuid, k -> new Usage());
+    }
+
+    /**
+     * a volume is going to be created from the existing cache
+     */
+    public void hit(ImageCacheVO cache) {
+        usage(cache.getPrimaryStorageUuid()).hits.incrementAndGet();
+        SQL.New("update ImageCacheVO c set c.accessCount = c.accessCount + 1, c.lastAccessDate = :now where c.id = :id")
+                .param("now", dbf.getCurrentSqlTime())
+                .param("id", cache.getId())
+                .execute();
+    }
+
+    /**
+     * the image is downloaded to the cache, must be called before the cache is persisted
+     */
+    public void miss(ImageCacheVO cache) {
+        usage(cache.getPrimaryStorageUuid()).misses.incrementAndGet();
+        cache.setAccessCount(1);
+        cache.setLastAccessDate(dbf.getCurrentSqlTime());
+    }
+
+    void evicted(ImageCacheVO cache, String decision) {
+        Usage usage = usage(cache.getPrimaryStorageUuid());
+        usage.evictedCount.incrementAndGet();
+        usage.evictedBytes.addAndGet(cache.getSize());
+
+        logger.info(decision);
+        recentEvictions.addFirst(decision);
+        while (recentEvictions.size() > RECENT_EVICTIONS_SIZE) {
+            recentEvictions.pollLast();
+        }
+    }
+
+    private <T> Map<String, T> collect(Function<Usage, T> getter) {
+        Map<String, T> ret = new HashMap<>();
+        usages.forEach((psUuid, usage) -> ret.put(psUuid, getter.apply(usage)));
+        return ret;
+    }
+
+    @Override
+    public Map<String, Long> getHits() {
+        return collect(u -> u.hits.get());
+    }
+
+    @Override
+    public Map<String, Long> getMisses() {
+        return collect(u -> u.misses.get());
+    }
+
+    @Override
+    public Map<String, Double> getHitRates() {
+        return collect(u -> {
+            long hits = u.hits.get();
+            long total = hits + u.misses.get();
+            return total == 0 ? 0 : (double) hits / total;
+        });
+    }
+
+    @Override
+    public Map<String, Long> getEvictedCount() {
+        return collect(u -> u.evictedCount.get());
+    }
+
+    @Override
+    public Map<String, Long> getEvictedBytes() {
+        return collect(u -> u.evictedBytes.get());
+    }
+
+    @Override
+    public List<String> getRecentEvictions() {
+        return new ArrayList<>(recentEvictions);
+    }
+}
@@ -0,0 +1,20 @@
+package org.zstack.storage.primary;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ */
+public interface ImageCacheUsageTrackerMXBean {
+    Map<String, Long> getHits();
+
+    Map<String, Long> getMisses();
+
+    Map<String, Double> getHitRates();
+
+    Map<String, Long> getEvictedCount();
+
+    Map<String, Long> getEvictedBytes();
+
+    List<String> getRecentEvictions();
+}
@@ -0,0 +1,25 @@
+package org.zstack.storage.primary;
+
+import org.zstack.header.storage.primary.ImageCacheVO;
+
+import java.util.Comparator;
+
+/**
+ * evicts the least frequently used caches first, caches used equally are evicted by LRU
+ */
+public class LFUImageCacheEvictionPolicy implements ImageCacheEvictionPolicy {
+    public static final String NAME = "LFU";
+
+    private static final Comparator<ImageCacheVO> LEAST_FREQUENTLY_USED = Comparator.comparingLong(ImageCacheVO::getAccessCount)
+            .thenComparing(LRUImageCacheEvictionPolicy.LEAST_RECENTLY_USED);
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Comparator<ImageCacheVO> getEvictionOrder() {
+        return LEAST_FREQUENTLY_USED;
+    }
+}
@@ -0,0 +1,31 @@
+package org.zstack.storage.primary;
+
+import org.zstack.header.storage.primary.ImageCacheVO;
+
+import java.sql.Timestamp;
+import java.util.Comparator;
+
+/**
+ * evicts the least recently used caches first
+ */
+public class LRUImageCacheEvictionPolicy implements ImageCacheEvictionPolicy {
+    public static final String NAME = "LRU";
+
+    // caches created before access tracking have no access date
+    static Timestamp lastUsedDate(ImageCacheVO cache) {
+        return cache.getLastAccessDate() != null ? cache.getLastAccessDate() : cache.getCreateDate();
+    }
+
+    static final Comparator<ImageCacheVO> LEAST_RECENTLY_USED = Comparator.comparing(LRUImageCacheEvictionPolicy::lastUsedDate,
+            Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Comparator<ImageCacheVO> getEvictionOrder() {
+        return LEAST_RECENTLY_USED;
+    }
+}
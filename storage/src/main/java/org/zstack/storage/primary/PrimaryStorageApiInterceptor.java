@@ -12,6 +12,9 @@ import org.zstack.core.errorcode.ErrorFacade;
 import org.zstack.header.apimediator.ApiMessageInterceptionException;
 import org.zstack.header.apimediator.ApiMessageInterceptor;
 import org.zstack.header.apimediator.StopRoutingException;
+import org.zstack.header.image.ImageStatus;
+import org.zstack.header.image.ImageVO;
+import org.zstack.header.image.ImageVO_;
 import org.zstack.header.message.APIMessage;
 import org.zstack.header.storage.primary.*;
 import org.zstack.header.storage.snapshot.group.APIRevertVmFromSnapshotGroupMsg;
@@ -63,12 +66,36 @@ public class PrimaryStorageApiInterceptor implements ApiMessageInterceptor {
             validate(((APIGetTrashOnPrimaryStorageMsg) msg));
         } else if (msg instanceof APICreateVolumeSnapshotGroupMsg) {
             validate((APICreateVolumeSnapshotGroupMsg) msg);
+        } else if (msg instanceof APIPrewarmImageCacheMsg) {
+            validate((APIPrewarmImageCacheMsg) msg);
         }
 
         setServiceId(msg);
         return msg;
     }
 
+    private void validate(APIPrewarmImageCacheMsg msg) {
+        ImageStatus status = Q.New(ImageVO.class).select(ImageVO_.status).eq(ImageVO_.uuid, msg.getImageUuid()).findValue();
+        if (status != ImageStatus.Ready) {
+            throw new ApiMessageInterceptionException(operr("the image[uuid:%s] is not ready, its status is %s", msg.getImageUuid(), status));
+        }
+
+        if (msg.getPrimaryStorageUuids() == null) {
+            return;
+        }
+
+        List<String> types = PrimaryStorageType.getSupportImageCachePrewarmTypeNames();
+        List<String> unsupported = types.isEmpty() ? msg.getPrimaryStorageUuids() : Q.New(PrimaryStorageVO.class)
+                .select(PrimaryStorageVO_.uuid)
+                .in(PrimaryStorageVO_.uuid, msg.getPrimaryStorageUuids())
+                .notIn(PrimaryStorageVO_.type, types)
+                .listValues();
+        if (!unsupported.isEmpty()) {
+            throw new ApiMessageInterceptionException(argerr("primary storage%s don't support image cache prewarm, only types %s are supported",
+                    unsupported, types));
+        }
+    }
+
     private void validate(APIGetPrimaryStorageCapacityMsg msg) {
         boolean pass = false;
         if (msg.getZoneUuids() != null && !msg.getZoneUuids().isEmpty()) {
@@ -35,4 +35,23 @@ public class PrimaryStorageGlobalConfig {
     @GlobalConfigValidation(inNumberRange = {1, 255})
     @GlobalConfigDef(defaultValue = "10", type = Integer.class,  description = "allocator concurrency level, if enabled.")
     public static GlobalConfig ALLOCATE_PRIMARYSTORAGE_CONCURRENCY = new GlobalConfig(CATEGORY, "allocate.primaryStore.Concurrency");
+    // valid values are names of ImageCacheEvictionPolicy extensions, checked by PrimaryStorageManagerImpl
+    @GlobalConfigValidation
+    @GlobalConfigDef(defaultValue = ImageCacheEvictionPolicy.NONE, description = "policy to evict unused image caches when the used physical capacity of a primary storage exceeds the high watermark, None disables eviction")
+    public static GlobalConfig IMAGE_CACHE_EVICTION_POLICY = new GlobalConfig(CATEGORY, "imageCache.eviction.policy");
+    @GlobalConfigValidation(inNumberRange = {1, 100})
+    @GlobalConfigDef(defaultValue = "90", type = Integer.class, description = "percentage of used physical capacity above which image caches are evicted")
+    public static GlobalConfig IMAGE_CACHE_EVICTION_HIGH_WATERMARK = new GlobalConfig(CATEGORY, "imageCache.eviction.highWatermark");
+    @GlobalConfigValidation(inNumberRange = {1, 100})
+    @GlobalConfigDef(defaultValue = "80", type = Integer.class, description = "percentage of used physical capacity image cache eviction stops at")
+    public static GlobalConfig IMAGE_CACHE_EVICTION_LOW_WATERMARK = new GlobalConfig(CATEGORY, "imageCache.eviction.lowWatermark");
+    @GlobalConfigValidation(numberGreaterThan = 0)
+    @GlobalConfigDef(defaultValue = "600", type = Long.class, description = "interval in seconds to prewarm caches of images with the imageCache::prewarm system tag")
+    public static GlobalConfig IMAGE_CACHE_PREWARM_INTERVAL = new GlobalConfig(CATEGORY, "imageCache.prewarm.interval");
+    @GlobalConfigValidation(inNumberRange = {1, 64})
+    @GlobalConfigDef(defaultValue = "2", type = Integer.class, description = "max number of image caches prewarmed at the same time by a management node")
+    public static GlobalConfig IMAGE_CACHE_PREWARM_CONCURRENCY = new GlobalConfig(CATEGORY, "imageCache.prewarm.concurrency");
+    @GlobalConfigValidation(numberGreaterThan = -1)
+    @GlobalConfigDef(defaultValue = "0", type = Long.class, description = "max bytes per second of images prewarmed by a management node, 0 means no limit")
+    public static GlobalConfig IMAGE_CACHE_PREWARM_BANDWIDTH = new GlobalConfig(CATEGORY, "imageCache.prewarm.bandwidth");
 }
@@ -89,9 +89,12 @@ public class PrimaryStorageManagerImpl extends AbstractService implements Primar
     private PrimaryStorageOverProvisioningManager ratioMgr;
     @Autowired
     private PrimaryStoragePhysicalCapacityManager physicalCapacityMgr;
+    @Autowired
+    private ImageCachePrewarmer imageCachePrewarmer;
 
     private final Map<String, PrimaryStorageFactory> primaryStorageFactories = Collections.synchronizedMap(new HashMap<>());
     private final Map<String, PrimaryStorageAllocatorStrategyFactory> allocatorFactories = Collections.synchronizedMap(new HashMap<>());
+    private final Map<String, ImageCacheEvictionPolicy> imageCacheEvictionPolicies = Collections.synchronizedMap(new HashMap<>());
     private static final Set<Class> allowedMessageAfterSoftDeletion = new HashSet<>();
     private final Map<String, AutoDeleteTrashTask> autoDeleteTrashTask = new HashMap<>();
     private AutoDeleteTrashTask globalTrashTask;
@@ -130,11 +133,20 @@ public class PrimaryStorageManagerImpl extends AbstractService implements Primar
             handle((APIGetPrimaryStorageCapacityMsg) msg);
         } else if (msg instanceof APIGetPrimaryStorageLicenseInfoMsg) {
             handle((APIGetPrimaryStorageLicenseInfoMsg) msg);
+        } else if (msg instanceof APIPrewarmImageCacheMsg) {
+            handle((APIPrewarmImageCacheMsg) msg);
         } else {
             bus.dealWithUnknownMessage(msg);
         }
     }
 
+    private void handle(APIPrewarmImageCacheMsg msg) {
+        APIPrewarmImageCacheEvent evt = new APIPrewarmImageCacheEvent(msg.getId());
+        int count = imageCachePrewarmer.prewarm(msg.getImageUuid(), msg.getPrimaryStorageUuids(), msg.getHostUuids());
+        logger.debug(String.format("queued %s downloads to prewarm caches of the image[uuid:%s]", count, msg.getImageUuid()));
+        bus.publish(evt);
+    }
+
     private void handle(APIGetPrimaryStorageLicenseInfoMsg msg) {
         APIGetPrimaryStorageLicenseInfoReply sreply = new APIGetPrimaryStorageLicenseInfoReply();
         PrimaryStorageVO vo = dbf.findByUuid(msg.getUuid(), PrimaryStorageVO.class);
@@ -622,6 +634,16 @@ public class PrimaryStorageManagerImpl extends AbstractService implements Primar
             }
         });
 
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_POLICY.installValidateExtension(new GlobalConfigValidatorExtensionPoint() {
+            @Override
+            public void validateGlobalConfig(String category, String name, String oldValue, String newValue) throws GlobalConfigException {
+                if (!ImageCacheEvictionPolicy.NONE.equals(newValue) && !imageCacheEvictionPolicies.containsKey(newValue)) {
+                    throw new GlobalConfigException(String.format("unknown image cache eviction policy[%s], valid values are %s and %s",
+                            newValue, ImageCacheEvictionPolicy.NONE, imageCacheEvictionPolicies.keySet()));
+                }
+            }
+        });
+
         PrimaryStorageGlobalConfig.PRIMARY_STORAGE_AUTO_DELETE_TRASH.installUpdateExtension(new GlobalConfigUpdateExtensionPoint() {
             @Override
             public void updateGlobalConfig(GlobalConfig oldConfig, GlobalConfig newConfig) {
@@ -793,6 +815,15 @@ public class PrimaryStorageManagerImpl extends AbstractService implements Primar
             }
             primaryStorageFactories.put(f.getPrimaryStorageType().toString(), f);
         }
+
+        for (ImageCacheEvictionPolicy p : pluginRgty.getExtensionList(ImageCacheEvictionPolicy.class)) {
+            ImageCacheEvictionPolicy old = imageCacheEvictionPolicies.get(p.getName());
+            if (old != null || ImageCacheEvictionPolicy.NONE.equals(p.getName())) {
+                throw new CloudRuntimeException(String.format("duplicate ImageCacheEvictionPolicy[%s, %s] for name[%s]",
+                        p.getClass().getName(), old == null ? ImageCacheEvictionPolicy.NONE : old.getClass().getName(), p.getName()));
+            }
+            imageCacheEvictionPolicies.put(p.getName(), p);
+        }
     }
 
 
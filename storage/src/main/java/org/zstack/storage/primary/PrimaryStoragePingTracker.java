@@ -2,10 +2,8 @@ package org.zstack.storage.primary;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.zstack.core.cloudbus.CloudBus;
-import org.zstack.core.cloudbus.ResourceDestinationMaker;
 import org.zstack.core.config.GlobalConfig;
 import org.zstack.core.config.GlobalConfigUpdateExtensionPoint;
-import org.zstack.core.db.SQLBatch;
 import org.zstack.core.tacker.PingTracker;
 import org.zstack.header.managementnode.ManagementNodeChangeListener;
 import org.zstack.header.managementnode.ManagementNodeInventory;
@@ -14,17 +12,13 @@ import org.zstack.header.message.MessageReply;
 import org.zstack.header.message.NeedReplyMessage;
 import org.zstack.header.storage.primary.PingPrimaryStorageMsg;
 import org.zstack.header.storage.primary.PrimaryStorageConstant;
-
-import java.util.List;
-import java.util.stream.Collectors;
+import org.zstack.header.storage.primary.PrimaryStorageVO;
 
 /**
  */
 public class PrimaryStoragePingTracker extends PingTracker implements ManagementNodeReadyExtensionPoint, ManagementNodeChangeListener {
     @Autowired
     private CloudBus bus;
-    @Autowired
-    private ResourceDestinationMaker destMaker;
 
     @Override
     public String getResourceName() {
@@ -65,22 +59,7 @@ public class PrimaryStoragePingTracker extends PingTracker implements Management
     }
 
     private void reScanPrimaryStorage() {
-        untrackAll();
-
-        new SQLBatch() {
-            @Override
-            protected void scripts() {
-                long count = sql("select count(ps) from PrimaryStorageVO ps", Long.class).find();
-                sql("select ps.uuid from PrimaryStorageVO ps", String.class).limit(1000).paginate(count, (List<String> psUuids) -> {
-                    List<String> byUs = psUuids.stream()
-                            .filter(psUuid ->
-                                    destMaker.isManagedByUs(psUuid))
-                            .collect(Collectors.toList());
-
-                    track(byUs);
-                });
-            }
-        }.execute();
+        trackAllManagedByUs(PrimaryStorageVO.class);
     }
 
     @Override
@@ -90,12 +69,12 @@ public class PrimaryStoragePingTracker extends PingTracker implements Management
 
     @Override
     public void nodeJoin(ManagementNodeInventory inv) {
-        reScanPrimaryStorage();
+        trackMovedResources(PrimaryStorageVO.class);
     }
 
     @Override
     public void nodeLeft(ManagementNodeInventory inv) {
-        reScanPrimaryStorage();
+        trackMovedResources(PrimaryStorageVO.class);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package org.zstack.storage.primary;
 
+import org.zstack.header.image.ImageVO;
 import org.zstack.header.storage.primary.PrimaryStorageVO;
 import org.zstack.header.tag.TagDefinition;
 import org.zstack.tag.PatternedSystemTag;
@@ -24,4 +25,6 @@ public class PrimaryStorageSystemTags {
 
     public static final String PRIMARY_STORAGE_VENDOR_TOKEN = "vendor";
     public static PatternedSystemTag PRIMARY_STORAGE_VENDOR =  new PatternedSystemTag(String.format("primaryStorage::vendor::{%s}", PRIMARY_STORAGE_VENDOR_TOKEN), PrimaryStorageVO.class);
-}
\ No newline at end of file
+
+    public static SystemTag PREWARM_IMAGE_CACHE = new SystemTag("imageCache::prewarm", ImageVO.class);
+}
@@ -8,7 +8,7 @@ import org.zstack.core.cloudbus.EventFacade;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.SimpleQuery;
 import org.zstack.core.db.SimpleQuery.Op;
-import org.zstack.header.Component;
+import org.zstack.header.DependentComponent;
 import org.zstack.header.message.MessageReply;
 import org.zstack.header.storage.primary.*;
 import org.zstack.header.storage.primary.PrimaryStorageCanonicalEvent.PrimaryStorageStatusChangedData;
@@ -28,7 +28,7 @@ import static java.util.Arrays.asList;
 /**
  * Created by xing5 on 2016/5/25.
  */
-public class VolumeUpgradeExtension implements Component {
+public class VolumeUpgradeExtension implements DependentComponent {
     private static final CLogger logger = Utils.getLogger(VolumeUpgradeExtension.class);
 
     @Autowired
@@ -38,6 +38,12 @@ public class VolumeUpgradeExtension implements Component {
     @Autowired
     private CloudBus bus;
 
+    @Override
+    public List<Class<?>> getDependencies() {
+        // the volume size sync only hooks primary storage status events, it doesn't wait for other services
+        return asList(DatabaseFacade.class, EventFacade.class);
+    }
+
     @Override
     public boolean start() {
         if (VolumeGlobalProperty.SYNC_VOLUME_SIZE) {
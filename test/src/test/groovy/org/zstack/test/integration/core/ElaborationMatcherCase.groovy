@@ -0,0 +1,135 @@
+package org.zstack.test.integration.core
+
+import com.github.sisyphsu.retree.ReMatcher
+import com.github.sisyphsu.retree.ReTree
+import info.debatty.java.stringsimilarity.JaroWinkler
+import org.zstack.testlib.SubCase
+import org.zstack.utils.Utils
+import org.zstack.utils.logging.CLogger
+import org.zstack.utils.string.ElaborationSearchMethod
+import org.zstack.utils.string.ErrorCodeElaboration
+import org.zstack.utils.string.StringSimilarity
+
+import java.util.concurrent.TimeUnit
+
+class ElaborationMatcherCase extends SubCase {
+    private static final CLogger logger = Utils.getLogger(ElaborationMatcherCase.class)
+
+    List<ErrorCodeElaboration> elaborations
+    ReTree retree
+    JaroWinkler jaroWinkler = new JaroWinkler()
+
+    @Override
+    void clean() {
+    }
+
+    @Override
+    void setup() {
+    }
+
+    @Override
+    void environment() {
+    }
+
+    @Override
+    void test() {
+        elaborations = StringSimilarity.getElaborations()
+        retree = new ReTree(elaborations.findAll { it.method != ElaborationSearchMethod.distance }.collect { it.regex } as String[])
+
+        List<String> messages = makeMessages()
+        testSameResultAsScanningAllElaborations(messages)
+        benchmarkAgainstScanningAllElaborations(messages)
+    }
+
+    // messages derived from every shipped elaboration, plus some noise matching none of them
+    List<String> makeMessages() {
+        def rnd = new Random(1)
+        List<String> messages = []
+        elaborations.each { e ->
+            ["", "x", "4f5e6d7c8b9a", "host[uuid:a0b1c2] "].each { fill ->
+                String msg = e.regex.replace(".*", fill).replace("\\[", "[").replace("\\]", "]")
+                        .replace("[0-9]*", "12").replace("[0-9.]*", "4.3.0").replace("[0-9]", "7")
+                messages.add(msg)
+                messages.add(msg.toUpperCase())
+                messages.add("unexpected error, because: ${msg}, please check".toString())
+                if (msg.length() > 3) {
+                    def sb = new StringBuilder(msg)
+                    sb.setCharAt(rnd.nextInt(msg.length()), 'q' as char)
+                    messages.add(sb.toString())
+                }
+            }
+        }
+
+        500.times {
+            def sb = new StringBuilder()
+            (5 + rnd.nextInt(120)).times { sb.append((char) (32 + rnd.nextInt(95))) }
+            messages.add(sb.toString())
+        }
+
+        // findSimilar formats the message and skips redundant ones, leave them out to compare the search only
+        return messages.findAll { !it.contains("%") && !it.startsWith("unhandled exception happened when calling") }
+    }
+
+    // how elaborations were searched before they were indexed: every regex, then every distance template
+    ErrorCodeElaboration scanAllElaborations(String sub) {
+        ErrorCodeElaboration ret = null
+        if (new ReMatcher(retree, sub).find()) {
+            elaborations.each { e ->
+                if (e.method != ElaborationSearchMethod.distance && StringSimilarity.isRegexMatched(e.regex, sub)
+                        && (ret == null || e.regex.length() > ret.regex.length())) {
+                    ret = e
+                }
+            }
+        }
+
+        if (ret != null) {
+            return ret
+        }
+
+        elaborations.each { e ->
+            if (e.method == ElaborationSearchMethod.regex) {
+                return
+            }
+
+            double distance = jaroWinkler.distance(e.regex, sub)
+            if (ret == null || distance < ret.distance) {
+                ret = new ErrorCodeElaboration(e)
+                ret.distance = distance
+            }
+        }
+        return ret
+    }
+
+    void testSameResultAsScanningAllElaborations(List<String> messages) {
+        int regexMatched = 0
+        messages.each { msg ->
+            def expected = scanAllElaborations(msg)
+            def actual = StringSimilarity.findSimilar(msg)
+            assert actual?.regex == expected?.regex
+            assert actual?.code == expected?.code
+            assert actual?.distance == expected?.distance
+            if (expected?.method == ElaborationSearchMethod.regex) {
+                regexMatched ++
+            }
+        }
+
+        // make sure the messages do go through the regex elaborations
+        assert regexMatched > elaborations.size()
+    }
+
+    void benchmarkAgainstScanningAllElaborations(List<String> messages) {
+        // warm up both
+        messages.each { scanAllElaborations(it); StringSimilarity.findSimilar(it) }
+
+        long start = System.nanoTime()
+        messages.each { scanAllElaborations(it) }
+        long scanCost = System.nanoTime() - start
+
+        start = System.nanoTime()
+        messages.each { StringSimilarity.findSimilar(it) }
+        long indexCost = System.nanoTime() - start
+
+        logger.info(String.format("search elaborations for %s messages over %s elaborations: indexed %sms, scanning all %sms",
+                messages.size(), elaborations.size(), TimeUnit.NANOSECONDS.toMillis(indexCost), TimeUnit.NANOSECONDS.toMillis(scanCost)))
+    }
+}
@@ -0,0 +1,115 @@
+package org.zstack.test.integration.core
+
+import org.zstack.core.rest.HttpDestinationQueue
+import org.zstack.testlib.SubCase
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+class HttpDestinationQueueCase extends SubCase {
+    static class FakeRequest implements HttpDestinationQueue.Request {
+        String name
+        List<String> sent
+        AtomicBoolean completed = new AtomicBoolean(false)
+
+        @Override
+        boolean isCompleted() {
+            return completed.get()
+        }
+
+        @Override
+        void run() {
+            sent.add(name)
+        }
+    }
+
+    List<String> sent = []
+
+    @Override
+    void clean() {
+    }
+
+    @Override
+    void setup() {
+    }
+
+    @Override
+    void environment() {
+    }
+
+    @Override
+    void test() {
+        testConcurrencyLimit()
+        testRejectWhenQueueFull()
+        testDropRequestTimeoutInQueue()
+    }
+
+    private FakeRequest request(String name) {
+        return new FakeRequest(name: name, sent: sent)
+    }
+
+    void testConcurrencyLimit() {
+        sent.clear()
+        def queue = new HttpDestinationQueue("127.0.0.1:7070")
+
+        assert queue.offer(request("r1"), 2, 10)
+        assert queue.offer(request("r2"), 2, 10)
+        assert queue.offer(request("r3"), 2, 10)
+        assert sent == ["r1", "r2"]
+        assert queue.statistic.activeRequestNum == 2
+        assert queue.statistic.queuedRequestNum == 1
+
+        // a queued request is sent only after an in-flight one finishes
+        queue.release()
+        assert sent == ["r1", "r2", "r3"]
+        assert queue.statistic.activeRequestNum == 2
+
+        queue.release()
+        queue.release()
+        assert queue.statistic.activeRequestNum == 0
+        assert queue.statistic.queuedRequestNum == 0
+    }
+
+    void testRejectWhenQueueFull() {
+        sent.clear()
+        def queue = new HttpDestinationQueue("127.0.0.1:7070")
+
+        assert queue.offer(request("r1"), 1, 1)
+        assert queue.offer(request("r2"), 1, 1)
+        assert !queue.offer(request("r3"), 1, 1)
+        assert queue.statistic.rejectedRequestNum == 1
+
+        queue.release()
+        queue.release()
+        assert sent == ["r1", "r2"]
+    }
+
+    void testDropRequestTimeoutInQueue() {
+        sent.clear()
+        def queue = new HttpDestinationQueue("127.0.0.1:7070")
+
+        assert queue.offer(request("r1"), 1, 2)
+        def r2 = request("r2")
+        assert queue.offer(r2, 1, 2)
+        assert queue.offer(request("r3"), 1, 2)
+
+        // r2 times out while waiting, it's skipped and the slot goes to r3
+        r2.completed.set(true)
+        queue.release()
+        assert sent == ["r1", "r3"]
+        assert queue.statistic.droppedRequestNum == 1
+        assert queue.statistic.activeRequestNum == 1
+
+        // timed out requests don't keep the queue full
+        def r4 = request("r4")
+        assert queue.offer(r4, 1, 1)
+        r4.completed.set(true)
+        assert queue.offer(request("r5"), 1, 1)
+        assert queue.statistic.droppedRequestNum == 2
+        assert queue.statistic.rejectedRequestNum == 0
+
+        queue.release()
+        queue.release()
+        assert sent == ["r1", "r3", "r5"]
+        assert queue.statistic.activeRequestNum == 0
+    }
+}
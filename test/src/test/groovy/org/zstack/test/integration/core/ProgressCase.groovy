@@ -5,10 +5,12 @@ import org.zstack.core.Platform
 import org.zstack.core.db.Q
 import org.zstack.core.db.SQL
 import org.zstack.core.db.SimpleQuery
+import org.zstack.core.progress.ProgressGlobalConfig
 import org.zstack.core.progress.ProgressReportService
 import org.zstack.header.core.progress.TaskProgressRange
 import org.zstack.header.core.progress.TaskProgressVO
 import org.zstack.header.core.progress.TaskProgressVO_
+import org.zstack.header.core.progress.TaskType
 import org.zstack.testlib.SubCase
 
 import java.util.concurrent.TimeUnit
@@ -38,8 +40,13 @@ class ProgressCase extends SubCase {
 
     @Override
     void test() {
+        // every report is kept in the following cases
+        ProgressGlobalConfig.COALESCE.updateValue(false)
         testReportUntil()
         testParallelTaskStage()
+
+        ProgressGlobalConfig.COALESCE.updateValue(true)
+        testCoalesceProgress()
     }
 
     void testReportUntil() {
@@ -56,16 +63,22 @@ class ProgressCase extends SubCase {
 
         progRpt.reportProgressUntil("10", 10, TimeUnit.MILLISECONDS)
         sleep(500)
+        progRpt.flushTaskProgress()
         assert Q.New(TaskProgressVO.class).count() == 10 - 5 + 3
+        // the API completes, its progress is read from the database from now on
+        progRpt.cleanTaskProgress(apiId)
         SQL.New(TaskProgressVO.class).delete()
 
 
         progRpt.reportProgressUntil("10", 10, TimeUnit.MILLISECONDS)
         sleep(1000)
+        progRpt.flushTaskProgress()
         assert Q.New(TaskProgressVO.class).count() == 10 + 1
     }
 
     void testParallelTaskStage() {
+        ProgressReportService progRpt = bean(ProgressReportService.class)
+        progRpt.flushTaskProgress()
         SQL.New(TaskProgressVO.class).delete()
         def apiId = Platform.getUuid()
         ThreadContext.put(THREAD_CONTEXT_API, apiId)
@@ -118,10 +131,41 @@ class ProgressCase extends SubCase {
 
         threads.forEach({t -> t.join()})
         reportProgress("100")
+        progRpt.flushTaskProgress()
         List<TaskProgressVO> pvos = Q.New(TaskProgressVO.class).orderBy(TaskProgressVO_.time, SimpleQuery.Od.ASC)
                 .orderBy(TaskProgressVO_.content, SimpleQuery.Od.ASC).list()
         // TODO: solve the boundary condition
         assert pvos.content.unique() == ["0", "10", "20", "30", "40", "50", "60", "70", "100"]
     }
-}
 
+    void testCoalesceProgress() {
+        ProgressReportService progRpt = bean(ProgressReportService.class)
+        progRpt.flushTaskProgress()
+        SQL.New(TaskProgressVO.class).delete()
+
+        def apiId = Platform.getUuid()
+        ThreadContext.put(THREAD_CONTEXT_API, apiId)
+        ThreadContext.put(THREAD_CONTEXT_TASK_NAME, "testTaskName")
+
+        taskProgress("start task")
+        (1..50).each { reportProgress(String.valueOf(it)) }
+
+        // only the latest report between two flushes is written
+        progRpt.flushTaskProgress()
+        List<TaskProgressVO> vos = Q.New(TaskProgressVO.class).eq(TaskProgressVO_.apiId, apiId)
+                .eq(TaskProgressVO_.type, TaskType.Progress).list()
+        assert vos.size() == 1
+        assert vos[0].content == "50"
+        assert Q.New(TaskProgressVO.class).eq(TaskProgressVO_.apiId, apiId)
+                .eq(TaskProgressVO_.type, TaskType.Task).count() == 1
+
+        reportProgress("60")
+        reportProgress("70")
+        // records not flushed yet are written when the API completes
+        progRpt.cleanTaskProgress(apiId)
+        vos = Q.New(TaskProgressVO.class).eq(TaskProgressVO_.apiId, apiId)
+                .eq(TaskProgressVO_.type, TaskType.Progress).list()
+        assert vos.content.sort() == ["50", "70"]
+        assert Q.New(TaskProgressVO.class).eq(TaskProgressVO_.apiId, apiId).notNull(TaskProgressVO_.timeToDelete).count() == 3
+    }
+}
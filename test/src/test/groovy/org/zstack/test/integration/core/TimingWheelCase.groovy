@@ -0,0 +1,126 @@
+package org.zstack.test.integration.core
+
+import org.zstack.core.thread.HierarchicalTimingWheel
+import org.zstack.core.thread.ThreadFacadeImpl
+import org.zstack.testlib.SubCase
+import org.zstack.utils.Utils
+import org.zstack.utils.logging.CLogger
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TimingWheelCase extends SubCase {
+    private static final CLogger logger = Utils.getLogger(TimingWheelCase.class)
+
+    HierarchicalTimingWheel wheel
+
+    @Override
+    void clean() {
+        wheel?.stop()
+    }
+
+    @Override
+    void setup() {
+    }
+
+    @Override
+    void environment() {
+    }
+
+    @Override
+    void test() {
+        // a tiny wheel makes timeouts go through every level and the overflow path
+        wheel = new HierarchicalTimingWheel("test", 1, TimeUnit.MILLISECONDS, 4, 3, { Runnable r -> r.run() })
+        wheel.start()
+
+        testTimeoutsFireNotEarly()
+        testCancel()
+        benchmarkAgainstScheduledExecutor()
+    }
+
+    void testTimeoutsFireNotEarly() {
+        List<Long> delays = [0L, 1L, 3L, 5L, 17L, 63L, 65L, 150L, 300L]
+        Map<Long, Long> fired = new ConcurrentHashMap<>()
+        def latch = new CountDownLatch(delays.size())
+
+        long start = System.nanoTime()
+        delays.each { d ->
+            wheel.schedule({
+                fired[d] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                latch.countDown()
+            }, TimeUnit.MILLISECONDS, d)
+        }
+
+        assert latch.await(10, TimeUnit.SECONDS)
+        delays.each { d -> assert fired[d] >= d }
+        assert wheel.pendingTimeoutNum == 0
+    }
+
+    void testCancel() {
+        def count = new AtomicInteger()
+        List<ThreadFacadeImpl.TimeoutTaskReceipt> receipts = (1..100).collect { i ->
+            wheel.schedule({ count.incrementAndGet() }, TimeUnit.MILLISECONDS, 20L + i)
+        }
+
+        receipts.eachWithIndex { r, i ->
+            if (i % 2 == 0) {
+                assert r.cancel()
+                assert !r.cancel()
+            }
+        }
+
+        retryInSecs {
+            assert count.get() == 50
+            assert wheel.pendingTimeoutNum == 0
+        }
+
+        TimeUnit.MILLISECONDS.sleep(200)
+        assert count.get() == 50
+        // an expired timeout can't be cancelled
+        assert !receipts[1].cancel()
+    }
+
+    // not a JMH run, but enough to compare the schedule/cancel cost of the wheel with
+    // the executor based timers that most timeouts used to go through
+    void benchmarkAgainstScheduledExecutor() {
+        int num = 200000
+        def wheel = new HierarchicalTimingWheel("benchmark", 10, TimeUnit.MILLISECONDS, 256, 4, { Runnable r -> r.run() })
+        wheel.start()
+        def executor = new ScheduledThreadPoolExecutor(1, Executors.defaultThreadFactory())
+        executor.setRemoveOnCancelPolicy(true)
+
+        try {
+            Runnable noop = {}
+            long start = System.nanoTime()
+            List<ThreadFacadeImpl.TimeoutTaskReceipt> receipts = new ArrayList<>(num)
+            for (int i = 0; i < num; i++) {
+                receipts.add(wheel.schedule(noop, TimeUnit.SECONDS, 60 + i % 600))
+            }
+            receipts.each { it.cancel() }
+            long wheelCost = System.nanoTime() - start
+
+            start = System.nanoTime()
+            List<ScheduledFuture> futures = new ArrayList<>(num)
+            for (int i = 0; i < num; i++) {
+                futures.add(executor.schedule(noop, 60 + i % 600, TimeUnit.SECONDS))
+            }
+            futures.each { it.cancel(false) }
+            long executorCost = System.nanoTime() - start
+
+            logger.info(String.format("schedule and cancel %s timeouts: timing wheel %sms, scheduled executor %sms",
+                    num, TimeUnit.NANOSECONDS.toMillis(wheelCost), TimeUnit.NANOSECONDS.toMillis(executorCost)))
+            retryInSecs {
+                assert wheel.pendingTimeoutNum == 0
+                assert wheel.cancelledTimeoutNum == num
+            }
+        } finally {
+            wheel.stop()
+            executor.shutdownNow()
+        }
+    }
+}
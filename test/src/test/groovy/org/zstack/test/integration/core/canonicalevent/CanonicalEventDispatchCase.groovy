@@ -0,0 +1,190 @@
+package org.zstack.test.integration.core.canonicalevent
+
+import org.zstack.core.Platform
+import org.zstack.core.cloudbus.*
+import org.zstack.header.message.Event
+import org.zstack.testlib.SubCase
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class CanonicalEventDispatchCase extends SubCase {
+    EventFacadeImpl evtf
+    CloudBus bus
+
+    @Override
+    void clean() {
+    }
+
+    @Override
+    void setup() {
+        INCLUDE_CORE_SERVICES = false
+    }
+
+    @Override
+    void environment() {
+    }
+
+    @Override
+    void test() {
+        evtf = bean(EventFacadeImpl.class)
+        bus = bean(CloudBus.class)
+
+        testPathIndex()
+        testDispatchOnThisNode()
+        testDispatchFromOtherNode()
+        testPublishInBatch()
+    }
+
+    void testPathIndex() {
+        assert EventPathIndex.literalPrefix("/host/status/change") == "/host/status/change"
+        assert EventPathIndex.literalPrefix("/host/{uuid}/status") == "/host/"
+        assert EventPathIndex.literalPrefix("/vm/state*") == "/vm/"
+        assert EventPathIndex.literalPrefix("{uuid}") == ""
+
+        def index = new EventPathIndex<String>()
+        ["/a/b", "/a/{x}", "/a/{x}/c", "*", "/b/*"].each {
+            index.put(it, it, evtf.createRegexFromGlob(it.replaceAll("\\{.*\\}", ".*")), it)
+        }
+        assert index.match("/a/b") as Set == ["/a/b", "/a/{x}", "*"] as Set
+        assert index.match("/a/d/c") as Set == ["/a/{x}", "/a/{x}/c", "*"] as Set
+        assert index.match("/b/c") as Set == ["/b/*", "*"] as Set
+        assert index.match("/c") == ["*"]
+
+        assert index.remove("*") == "*"
+        assert index.match("/c").isEmpty()
+        assert index.size() == 4
+
+        // subscribing again with the same id replaces the subscription
+        index.put("/a/b", "/c", evtf.createRegexFromGlob("/c"), "/c")
+        assert index.match("/a/b") == ["/a/{x}"]
+        assert index.match("/c") == ["/c"]
+    }
+
+    void testDispatchOnThisNode() {
+        String path = "/test/dispatch/{uuid}/state"
+        String uuid = Platform.uuid
+
+        List<Map> globalTokens = Collections.synchronizedList([])
+        List<Object> localData = Collections.synchronizedList([])
+        def globalCb = new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                globalTokens.add(tokens)
+            }
+        }
+        def localCb = new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                localData.add(data)
+            }
+        }
+        AtomicInteger unmatched = new AtomicInteger()
+        def unmatchedCb = new EventRunnable() {
+            @Override
+            void run() {
+                unmatched.incrementAndGet()
+            }
+        }
+
+        evtf.on(path, globalCb)
+        evtf.onLocal(path, localCb)
+        evtf.on("/test/dispatch/other", unmatchedCb)
+
+        evtf.fire("/test/dispatch/${uuid}/state".toString(), "running")
+
+        retryInSecs {
+            assert globalTokens.size() == 1
+            assert globalTokens[0]["uuid"] == uuid
+            assert globalTokens[0][EventFacade.META_DATA_MANAGEMENT_NODE_ID] == Platform.getManagementServerId()
+            assert localData == ["running"]
+        }
+
+        // published back to this node, the event is not delivered again
+        CanonicalEvent evt = new CanonicalEvent()
+        evt.path = "/test/dispatch/${uuid}/state".toString()
+        evt.managementNodeId = Platform.getManagementServerId()
+        evtf.handleEvent(evt)
+        TimeUnit.MILLISECONDS.sleep(500)
+        assert globalTokens.size() == 1
+        assert unmatched.get() == 0
+
+        evtf.off(globalCb)
+        evtf.off(localCb)
+        evtf.off(unmatchedCb)
+        evtf.fire("/test/dispatch/${uuid}/state".toString(), "stopped")
+        TimeUnit.MILLISECONDS.sleep(500)
+        assert globalTokens.size() == 1
+        assert localData.size() == 1
+    }
+
+    void testDispatchFromOtherNode() {
+        String otherNode = Platform.uuid
+        List<String> globalPaths = Collections.synchronizedList([])
+        AtomicInteger localCount = new AtomicInteger()
+        def globalCb = new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                assert tokens[EventFacade.META_DATA_MANAGEMENT_NODE_ID] == otherNode
+                globalPaths.add(tokens[EventFacade.META_DATA_PATH] as String)
+            }
+        }
+        def localCb = new EventRunnable() {
+            @Override
+            void run() {
+                localCount.incrementAndGet()
+            }
+        }
+        evtf.on("/test/remote/*", globalCb)
+        evtf.onLocal("/test/remote/*", localCb)
+
+        CanonicalEventBatch batch = new CanonicalEventBatch()
+        batch.events = (0..<3).collect { i ->
+            CanonicalEvent evt = new CanonicalEvent()
+            evt.path = "/test/remote/${i}".toString()
+            evt.managementNodeId = otherNode
+            return evt
+        }
+        evtf.handleEvent(batch)
+
+        retryInSecs {
+            assert globalPaths as Set == ["/test/remote/0", "/test/remote/1", "/test/remote/2"] as Set
+        }
+        // local subscribers only get events fired on this node
+        assert localCount.get() == 0
+
+        evtf.off(globalCb)
+        evtf.off(localCb)
+    }
+
+    void testPublishInBatch() {
+        List<Event> published = Collections.synchronizedList([])
+        def receipt = bus.subscribeEvent({ Event e ->
+            published.add(e)
+            return false
+        } as CloudBusEventListener, new CanonicalEvent(), new CanonicalEventBatch())
+
+        int batchSize = CloudBusGlobalProperty.EVENT_PUBLISH_BATCH_SIZE
+        CloudBusGlobalProperty.EVENT_PUBLISH_BATCH_SIZE = 2
+        try {
+            (0..<5).each { i ->
+                CanonicalEvent evt = new CanonicalEvent()
+                evt.path = "/test/batch/${i}".toString()
+                evt.managementNodeId = Platform.getManagementServerId()
+                evtf.pendingEvents.add(evt)
+            }
+            evtf.publishPendingEvents()
+
+            retryInSecs {
+                // 5 events are published in 2 batches and a single event
+                assert published.size() == 3
+                assert published.findAll { it instanceof CanonicalEventBatch }.collect { it.events.size() } == [2, 2]
+                assert published.findAll { it instanceof CanonicalEvent }.size() == 1
+            }
+            assert evtf.pendingEvents.isEmpty()
+        } finally {
+            CloudBusGlobalProperty.EVENT_PUBLISH_BATCH_SIZE = batchSize
+            receipt.unsubscribeAll()
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.zstack.test.integration.core.chaintask
+
+import org.zstack.core.Platform
+import org.zstack.core.thread.*
+import org.zstack.testlib.SubCase
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class BlockingTaskCase extends SubCase {
+    ThreadFacadeImpl thdf
+
+    @Override
+    void clean() {
+        ThreadGlobalProperty.BLOCKING_POOL_ENABLED = false
+    }
+
+    @Override
+    void setup() {
+        INCLUDE_CORE_SERVICES = false
+    }
+
+    @Override
+    void environment() {
+    }
+
+    @Override
+    void test() {
+        thdf = bean(ThreadFacadeImpl.class)
+
+        ThreadGlobalProperty.BLOCKING_POOL_ENABLED = true
+        testBlockingChainTasks()
+        testBlockingSyncTasks()
+
+        ThreadGlobalProperty.BLOCKING_POOL_ENABLED = false
+        testBlockingPoolDisabled()
+    }
+
+    abstract class BlockingSyncTask<T> implements SyncTask<T>, BlockingTask {
+    }
+
+    void testBlockingChainTasks() {
+        // more blocked queues than the fixed thread pool has threads
+        int queueNum = ThreadGlobalProperty.MAX_THREAD_NUM + 10
+        CountDownLatch latch = new CountDownLatch(1)
+        AtomicInteger started = new AtomicInteger()
+        List<String> threadNames = Collections.synchronizedList([])
+        List<String> signatures = (0..<queueNum).collect { Platform.uuid }
+
+        signatures.each { sig ->
+            // two tasks in a queue of sync level 1
+            2.times { i ->
+                thdf.chainSubmit(new BlockingChainTask(null) {
+                    @Override
+                    String getSyncSignature() {
+                        return sig
+                    }
+
+                    @Override
+                    void run(SyncTaskChain chain) {
+                        threadNames.add(Thread.currentThread().name)
+                        started.incrementAndGet()
+                        latch.await(30, TimeUnit.SECONDS)
+                        chain.next()
+                    }
+
+                    @Override
+                    String getName() {
+                        return "blocking-chain-task-${i}"
+                    }
+                })
+            }
+        }
+
+        retryInSecs {
+            assert started.get() == queueNum
+            assert thdf.getBlockingThreadPoolStatistic().activeThreadNum >= queueNum
+        }
+
+        // the fixed pool is not starved by blocked tasks
+        def done = new CountDownLatch(1)
+        thdf.chainSubmit(new ChainTask(null) {
+            @Override
+            String getSyncSignature() {
+                return Platform.uuid
+            }
+
+            @Override
+            void run(SyncTaskChain chain) {
+                done.countDown()
+                chain.next()
+            }
+
+            @Override
+            String getName() {
+                return "unrelated-chain-task"
+            }
+        })
+        assert done.await(10, TimeUnit.SECONDS)
+
+        // the sync level keeps the second task of every queue waiting
+        TimeUnit.MILLISECONDS.sleep(300)
+        assert started.get() == queueNum
+
+        latch.countDown()
+        retryInSecs {
+            assert started.get() == queueNum * 2
+        }
+        assert threadNames.every { it.startsWith("zs-blocking-thread-") }
+    }
+
+    void testBlockingSyncTasks() {
+        String sig = Platform.uuid
+        AtomicInteger running = new AtomicInteger()
+        AtomicInteger maxRunning = new AtomicInteger()
+        List<String> threadNames = Collections.synchronizedList([])
+
+        List futures = (0..<6).collect {
+            thdf.syncSubmit(new BlockingSyncTask<Void>() {
+                @Override
+                String getSyncSignature() {
+                    return sig
+                }
+
+                @Override
+                int getSyncLevel() {
+                    return 2
+                }
+
+                @Override
+                Void call() throws Exception {
+                    threadNames.add(Thread.currentThread().name)
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), { a, b -> Math.max(a, b) })
+                    TimeUnit.MILLISECONDS.sleep(100)
+                    running.decrementAndGet()
+                    return null
+                }
+
+                @Override
+                String getName() {
+                    return "blocking-sync-task"
+                }
+            })
+        }
+
+        futures.each { it.get(10, TimeUnit.SECONDS) }
+        assert maxRunning.get() == 2
+        assert threadNames.every { it.startsWith("zs-blocking-thread-") }
+    }
+
+    void testBlockingPoolDisabled() {
+        String threadName = null
+        def latch = new CountDownLatch(1)
+        thdf.chainSubmit(new BlockingChainTask(null) {
+            @Override
+            String getSyncSignature() {
+                return Platform.uuid
+            }
+
+            @Override
+            void run(SyncTaskChain chain) {
+                threadName = Thread.currentThread().name
+                latch.countDown()
+                chain.next()
+            }
+
+            @Override
+            String getName() {
+                return "blocking-chain-task"
+            }
+        })
+
+        assert latch.await(10, TimeUnit.SECONDS)
+        assert threadName.startsWith("zs-thread-")
+    }
+}
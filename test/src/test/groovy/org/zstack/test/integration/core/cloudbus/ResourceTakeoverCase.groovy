@@ -0,0 +1,107 @@
+package org.zstack.test.integration.core.cloudbus
+
+import org.zstack.core.Platform
+import org.zstack.core.cloudbus.ResourceDestinationMaker
+import org.zstack.core.cloudbus.ResourceDestinationMakerImpl
+import org.zstack.core.cloudbus.ResourceTakeoverPipeline
+import org.zstack.header.managementnode.ManagementNodeInventory
+import org.zstack.header.zone.ZoneVO
+import org.zstack.sdk.ZoneInventory
+import org.zstack.test.integration.ZStackTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+
+class ResourceTakeoverCase extends SubCase {
+    EnvSpec env
+
+    Set<String> owned = Collections.synchronizedSet(new HashSet<String>())
+    List<String> zoneUuids = []
+    int takeOverCalls = 0
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(ZStackTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {}
+    }
+
+    @Override
+    void test() {
+        env.create {
+            20.times { i ->
+                ZoneInventory zone = createZone { name = "zone-${i}" }
+                zoneUuids.add(zone.uuid)
+            }
+
+            testTakeOverOnlyMovedResources()
+        }
+    }
+
+    void testTakeOverOnlyMovedResources() {
+        ResourceDestinationMaker destMaker = bean(ResourceDestinationMaker.class)
+        def pipeline = new ResourceTakeoverPipeline("zone-takeover-test", ZoneVO.class) {
+            @Override
+            protected void takeOver(List<String> resourceUuids) {
+                takeOverCalls ++
+                owned.addAll(resourceUuids)
+            }
+
+            @Override
+            protected void giveUp(List<String> resourceUuids) {
+                owned.removeAll(resourceUuids)
+            }
+
+            @Override
+            protected boolean isTakenOver(String resourceUuid) {
+                return owned.contains(resourceUuid)
+            }
+
+            @Override
+            protected int getPageSize() {
+                // make the pipeline page through resources and hand them over in parallel
+                return 3
+            }
+        }
+
+        pipeline.takeOverAll()
+        assert owned == zoneUuids as Set
+
+        // nothing changes, nothing is handed over
+        takeOverCalls = 0
+        pipeline.takeOverMovedResources()
+        assert takeOverCalls == 0
+
+        // resources dropped by the tracker itself, e.g. stop pinging, are taken over
+        // again on the next hash ring change if they are still ours
+        List<String> dropped = zoneUuids.take(10)
+        owned.removeAll(dropped)
+
+        def inv = new ManagementNodeInventory()
+        inv.setUuid(Platform.getUuid())
+        inv.setHostName("127.0.0.10")
+        ResourceDestinationMakerImpl maker = bean(ResourceDestinationMakerImpl.class)
+        maker.nodeJoin(inv)
+
+        pipeline.takeOverMovedResources()
+        assert owned == zoneUuids.findAll { destMaker.isManagedByUs(it) } as Set
+        assert owned.size() < zoneUuids.size()
+
+        maker.nodeLeft(inv)
+        pipeline.takeOverMovedResources()
+        assert owned == zoneUuids as Set
+
+        def stat = ResourceTakeoverPipeline.getStatistics()["zone-takeover-test"]
+        assert stat.runNum == 3
+        assert stat.lastScannedNum == zoneUuids.size()
+        assert stat.lastGivenUpNum == 0
+        assert stat.lastTakenOverNum > 0
+    }
+}
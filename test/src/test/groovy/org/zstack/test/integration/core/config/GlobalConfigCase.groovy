@@ -1,8 +1,10 @@
 package org.zstack.test.integration.core.config
 
+import org.zstack.compute.host.HostGlobalConfig
 import org.zstack.core.config.GlobalConfigException
 import org.zstack.compute.vm.VmGlobalConfig
 import org.zstack.core.Platform
+import org.zstack.core.cloudbus.CloudBusGlobalConfig
 import org.zstack.core.cloudbus.EventFacade
 import org.zstack.core.config.GlobalConfig
 import org.zstack.core.config.GlobalConfigCanonicalEvents
@@ -22,6 +24,11 @@ import org.zstack.sdk.UpdateGlobalConfigAction
 import org.zstack.test.integration.kvm.KvmTest
 import org.zstack.testlib.EnvSpec
 import org.zstack.testlib.SubCase
+import org.zstack.utils.TypeUtils
+import org.zstack.utils.Utils
+import org.zstack.utils.logging.CLogger
+
+import java.util.concurrent.TimeUnit
 
 import static org.zstack.utils.CollectionDSL.e
 import static org.zstack.utils.CollectionDSL.map
@@ -30,6 +37,8 @@ import static org.zstack.utils.StringDSL.s
  * Created by miao on 17-5-4.
  */
 class GlobalConfigCase extends SubCase {
+    private static final CLogger logger = Utils.getLogger(GlobalConfigCase.class)
+
     EnvSpec env
 
     @Override
@@ -65,6 +74,8 @@ class GlobalConfigCase extends SubCase {
             testNormalized()
             testUpdateApiTimeoutDefaultValue()
             testUpdateValueSkipValidation()
+            testTypedValueFollowsUpdates()
+            benchmarkTypedValueRead()
         }
     }
 
@@ -247,4 +258,62 @@ class GlobalConfigCase extends SubCase {
         VmGlobalConfig.VM_DEFAULT_CD_ROM_NUM.updateValueSkipValidation(-1)
         VmGlobalConfig.VM_DEFAULT_CD_ROM_NUM.resetValue()
     }
+
+    void testTypedValueFollowsUpdates() {
+        HostGlobalConfig.PING_HOST_INTERVAL.updateValue(30)
+        assert HostGlobalConfig.PING_HOST_INTERVAL.value(Integer.class) == 30
+        assert HostGlobalConfig.PING_HOST_INTERVAL.value(Long.class) == 30L
+        assert HostGlobalConfig.PING_HOST_INTERVAL.value(int.class) == 30
+        assert HostGlobalConfig.PING_HOST_INTERVAL.value(String.class) == "30"
+        // pre-parsed, the same object is returned until the value changes
+        assert HostGlobalConfig.PING_HOST_INTERVAL.value(Integer.class).is(HostGlobalConfig.PING_HOST_INTERVAL.value(Integer.class))
+
+        // updated by another management node
+        SQL.New(GlobalConfigVO.class).eq(GlobalConfigVO_.category, HostGlobalConfig.PING_HOST_INTERVAL.category)
+                .eq(GlobalConfigVO_.@name, HostGlobalConfig.PING_HOST_INTERVAL.name)
+                .set(GlobalConfigVO_.value, "45")
+                .update()
+
+        GlobalConfigCanonicalEvents.UpdateEvent d = new GlobalConfigCanonicalEvents.UpdateEvent()
+        d.oldValue = "30"
+        d.newValue = "45"
+        bean(EventFacade.class).fire(makeUpdateEventPath(HostGlobalConfig.PING_HOST_INTERVAL.category, HostGlobalConfig.PING_HOST_INTERVAL.name), d)
+
+        retryInSecs {
+            assert HostGlobalConfig.PING_HOST_INTERVAL.value(Integer.class) == 45
+            assert HostGlobalConfig.PING_HOST_INTERVAL.value(Long.class) == 45L
+        }
+
+        // not a number, still fails the same way as converting the string
+        expect(NumberFormatException.class) {
+            CloudBusGlobalConfig.STATISTICS_ON.value(Integer.class)
+        }
+
+        HostGlobalConfig.PING_HOST_INTERVAL.resetValue()
+        assert HostGlobalConfig.PING_HOST_INTERVAL.value(String.class) == HostGlobalConfig.PING_HOST_INTERVAL.defaultValue
+    }
+
+    // not a JMH run, but enough to compare reading the pre-parsed value with parsing the string on every read
+    void benchmarkTypedValueRead() {
+        int num = 10000000
+        GlobalConfig config = CloudBusGlobalConfig.STATISTICS_ON
+        boolean expected = config.value(Boolean.class)
+
+        2.times {
+            long start = System.nanoTime()
+            for (int i = 0; i < num; i++) {
+                assert config.value(Boolean.class) == expected
+            }
+            long typedCost = System.nanoTime() - start
+
+            start = System.nanoTime()
+            for (int i = 0; i < num; i++) {
+                assert TypeUtils.stringToValue(config.value(), Boolean.class) == expected
+            }
+            long parseCost = System.nanoTime() - start
+
+            logger.info(String.format("read %s %s times: pre-parsed %sns/read, parse on read %sns/read",
+                    config.canonicalName, num, typedCost / num, parseCost / num))
+        }
+    }
 }
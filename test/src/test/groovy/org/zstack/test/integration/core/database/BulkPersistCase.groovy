@@ -0,0 +1,149 @@
+package org.zstack.test.integration.core.database
+
+import org.zstack.core.Platform
+import org.zstack.core.db.DatabaseFacade
+import org.zstack.core.db.DbGlobalProperty
+import org.zstack.core.db.Q
+import org.zstack.core.eventlog.EventLogType
+import org.zstack.core.eventlog.EventLogVO
+import org.zstack.core.eventlog.EventLogVO_
+import org.zstack.header.tag.SystemTagVO
+import org.zstack.header.tag.SystemTagVO_
+import org.zstack.header.tag.TagType
+import org.zstack.header.zone.ZoneVO
+import org.zstack.testlib.SubCase
+import org.zstack.utils.Utils
+import org.zstack.utils.logging.CLogger
+
+import java.sql.Timestamp
+import java.util.concurrent.TimeUnit
+
+class BulkPersistCase extends SubCase {
+    private static final CLogger logger = Utils.getLogger(BulkPersistCase.class)
+
+    DatabaseFacade dbf
+
+    @Override
+    void clean() {
+        Q.New(EventLogVO.class).like(EventLogVO_.category, "bulk-%").list().each { dbf.remove(it) }
+        dbf.removeCollection(Q.New(SystemTagVO.class).eq(SystemTagVO_.resourceType, ZoneVO.class.simpleName).list(), SystemTagVO.class)
+    }
+
+    @Override
+    void setup() {
+        INCLUDE_CORE_SERVICES = false
+    }
+
+    @Override
+    void environment() {
+    }
+
+    @Override
+    void test() {
+        dbf = bean(DatabaseFacade.class)
+
+        testBulkPersistGeneratedIds()
+        testBulkPersistMultiRowInsert()
+        testBulkPersistAndUpdateAssignedIds()
+        benchmarkBulkPersist()
+    }
+
+    List<EventLogVO> makeEventLogs(String category, int num) {
+        def now = System.currentTimeMillis()
+        return (0..<num).collect { i ->
+            def vo = new EventLogVO()
+            vo.category = category
+            vo.content = "bulk log ${i}".toString()
+            vo.resourceUuid = Platform.uuid
+            vo.resourceType = ZoneVO.class.simpleName
+            vo.type = EventLogType.Info
+            vo.time = now
+            vo.createDate = new Timestamp(now)
+            return vo
+        }
+    }
+
+    void checkEventLogs(List<EventLogVO> vos, String category) {
+        // every id is read back, in the order of the rows
+        assert vos.every { it.id != null }
+        assert vos.collect { it.id }.unique().size() == vos.size()
+        assert vos.collect { it.id } == vos.collect { it.id }.sort()
+
+        def found = Q.New(EventLogVO.class).eq(EventLogVO_.category, category).list() as List<EventLogVO>
+        assert found.size() == vos.size()
+        vos.each { vo ->
+            EventLogVO f = found.find { it.id == vo.id }
+            assert f.content == vo.content
+            assert f.resourceUuid == vo.resourceUuid
+            assert f.type == EventLogType.Info
+        }
+    }
+
+    void testBulkPersistGeneratedIds() {
+        // more than one batch, the last one partial
+        def vos = makeEventLogs("bulk-jdbc", DbGlobalProperty.JDBC_BATCH_SIZE * 2 + 7)
+        dbf.bulkPersist(vos)
+        checkEventLogs(vos, "bulk-jdbc")
+    }
+
+    void testBulkPersistMultiRowInsert() {
+        boolean origin = DbGlobalProperty.MULTI_ROW_INSERT
+        DbGlobalProperty.MULTI_ROW_INSERT = true
+        try {
+            def vos = makeEventLogs("bulk-multi-row", DbGlobalProperty.JDBC_BATCH_SIZE + 3)
+            dbf.bulkPersist(vos)
+            checkEventLogs(vos, "bulk-multi-row")
+        } finally {
+            DbGlobalProperty.MULTI_ROW_INSERT = origin
+        }
+    }
+
+    void testBulkPersistAndUpdateAssignedIds() {
+        String resourceUuid = Platform.uuid
+        List<SystemTagVO> tags = (0..<DbGlobalProperty.JDBC_BATCH_SIZE + 5).collect { i ->
+            def vo = new SystemTagVO()
+            vo.uuid = Platform.uuid
+            vo.resourceUuid = resourceUuid
+            vo.resourceType = ZoneVO.class.simpleName
+            vo.tag = "bulk::${i}".toString()
+            vo.type = TagType.System
+            vo.inherent = false
+            return vo
+        }
+
+        dbf.bulkPersist(tags)
+        assert Q.New(SystemTagVO.class).eq(SystemTagVO_.resourceUuid, resourceUuid).count() == tags.size()
+
+        tags.each { it.tag = it.tag.replace("bulk::", "bulk-updated::") }
+        dbf.bulkUpdate(tags)
+
+        def found = Q.New(SystemTagVO.class).eq(SystemTagVO_.resourceUuid, resourceUuid).list() as List<SystemTagVO>
+        assert found.size() == tags.size()
+        assert found.every { it.tag.startsWith("bulk-updated::") }
+
+        // empty collections are no-op
+        dbf.bulkPersist([])
+        dbf.bulkUpdate([])
+    }
+
+    void benchmarkBulkPersist() {
+        int num = 2000
+
+        def vos = makeEventLogs("bulk-benchmark-collection", num)
+        long start = System.nanoTime()
+        dbf.persistCollection(vos)
+        long collectionCost = System.nanoTime() - start
+
+        vos = makeEventLogs("bulk-benchmark-bulk", num)
+        start = System.nanoTime()
+        dbf.bulkPersist(vos)
+        long bulkCost = System.nanoTime() - start
+
+        logger.info(String.format("persist %s event logs: bulkPersist %s rows/s, persistCollection %s rows/s", num,
+                rate(num, bulkCost), rate(num, collectionCost)))
+    }
+
+    private static long rate(int num, long costInNanos) {
+        return num * TimeUnit.SECONDS.toNanos(1) / Math.max(costInNanos, 1)
+    }
+}
@@ -0,0 +1,145 @@
+package org.zstack.test.integration.core.database
+
+import org.apache.logging.log4j.ThreadContext
+import org.zstack.core.Platform
+import org.zstack.core.db.DbGlobalProperty
+import org.zstack.core.db.DbQueryAccounting
+import org.zstack.core.db.DbQueryStatistic
+import org.zstack.core.db.Q
+import org.zstack.core.db.SQL
+import org.zstack.header.Constants
+import org.zstack.header.zone.ZoneVO
+import org.zstack.header.zone.ZoneVO_
+import org.zstack.sdk.GetDbQueryStatisticsResult
+import org.zstack.sdk.ZoneInventory
+import org.zstack.testlib.SubCase
+
+class DbQueryAccountingCase extends SubCase {
+    static final String FAKE_API = "org.zstack.test.APIFakeDbQueryMsg"
+
+    String adminSessionUuid
+
+    @Override
+    void clean() {
+        DbQueryAccounting.cleanStatistics()
+    }
+
+    @Override
+    void setup() {
+    }
+
+    @Override
+    void environment() {
+        adminSessionUuid = loginAsAdmin().uuid
+    }
+
+    @Override
+    void test() {
+        // drop statistics of APIs called by other cases
+        DbQueryAccounting.cleanStatistics()
+
+        testRepeatedQueries()
+        testAccountingOff()
+        testApiStatistics()
+    }
+
+    void runInFakeApi(Closure c) {
+        String apiId = Platform.uuid
+        ThreadContext.put(Constants.THREAD_CONTEXT_API, apiId)
+        ThreadContext.put(Constants.THREAD_CONTEXT_TASK_NAME, FAKE_API)
+        try {
+            c()
+        } finally {
+            ThreadContext.remove(Constants.THREAD_CONTEXT_API)
+            ThreadContext.remove(Constants.THREAD_CONTEXT_TASK_NAME)
+        }
+        DbQueryAccounting.complete(apiId)
+    }
+
+    DbQueryStatistic getFakeApiStatistic() {
+        List<DbQueryStatistic> stats = DbQueryAccounting.getStatistics("APIFakeDbQueryMsg")
+        assert stats.size() == 1
+        return stats[0]
+    }
+
+    void testRepeatedQueries() {
+        int threshold = DbGlobalProperty.REPEATED_QUERY_THRESHOLD
+        long zoneNum = Q.New(ZoneVO.class).count()
+
+        // load zones one by one, like an N+1 query does
+        runInFakeApi {
+            SQL.New("select zone.uuid from ZoneVO zone", String.class).list()
+            threshold.times {
+                Q.New(ZoneVO.class).eq(ZoneVO_.uuid, Platform.uuid).find()
+            }
+        }
+
+        DbQueryStatistic stat = fakeApiStatistic
+        assert stat.apiName == FAKE_API
+        assert stat.requestNum == 1
+        assert stat.queryNum == threshold + 1
+        assert stat.maxQueryNum == threshold + 1
+        assert stat.rowNum == zoneNum
+        assert stat.repeatedQueryRequestNum == 1
+        assert stat.repeatedQueries.size() == 1
+        assert stat.repeatedQueries[0] == "${threshold} times: ZoneVO.find where uuid =".toString()
+
+        // queries with different conditions are different shapes
+        runInFakeApi {
+            (threshold - 1).times {
+                Q.New(ZoneVO.class).eq(ZoneVO_.uuid, Platform.uuid).find()
+                Q.New(ZoneVO.class).eq(ZoneVO_.name, Platform.uuid).find()
+            }
+        }
+
+        stat = fakeApiStatistic
+        assert stat.requestNum == 2
+        assert stat.queryNum == threshold + 1 + (threshold - 1) * 2
+        assert stat.maxQueryNum == (threshold - 1) * 2
+        assert stat.repeatedQueryRequestNum == 1
+    }
+
+    void testAccountingOff() {
+        DbQueryStatistic before = fakeApiStatistic
+
+        DbGlobalProperty.QUERY_ACCOUNTING = false
+        try {
+            runInFakeApi {
+                Q.New(ZoneVO.class).list()
+            }
+        } finally {
+            DbGlobalProperty.QUERY_ACCOUNTING = true
+        }
+
+        DbQueryStatistic after = fakeApiStatistic
+        assert after.requestNum == before.requestNum
+        assert after.queryNum == before.queryNum
+    }
+
+    void testApiStatistics() {
+        ZoneInventory zone = createZone {
+            name = "zone"
+            sessionId = adminSessionUuid
+        }
+
+        GetDbQueryStatisticsResult res = getDbQueryStatistics {
+            apiName = "APICreateZoneMsg"
+            sessionId = adminSessionUuid
+        }
+        assert res.statistics.size() == 1
+        org.zstack.sdk.DbQueryStatistic stat = res.statistics[0] as org.zstack.sdk.DbQueryStatistic
+        assert stat.apiName == "org.zstack.header.zone.APICreateZoneMsg"
+        assert stat.requestNum == 1
+        assert stat.queryNum > 0
+
+        res = getDbQueryStatistics {
+            sessionId = adminSessionUuid
+        }
+        assert res.statistics.find { it.apiName == FAKE_API } != null
+
+        deleteZone {
+            uuid = zone.uuid
+            sessionId = adminSessionUuid
+        }
+    }
+}
@@ -10,6 +10,8 @@ import org.zstack.core.gc.GarbageCollectorVO
 import org.zstack.core.gc.GarbageCollectorManagerImpl
 import org.zstack.core.gc.TimeBasedGarbageCollector
 import org.zstack.sdk.GarbageCollectorInventory
+import org.zstack.sdk.GarbageCollectorTypeStatistic
+import org.zstack.sdk.GetGCJobStatisticsResult
 import org.zstack.testlib.SubCase
 
 import java.util.concurrent.TimeUnit
@@ -334,6 +336,74 @@ class TimeBasedGarbageCollectorCase extends SubCase {
         assert inv.status == GCStatus.Idle.toString()
     }
 
+    void testGCSchedulerStatistics() {
+        // jobs are queued in the shared scheduler, no thread is created for each of them
+        int threadNum = Thread.activeCount()
+        List<TimeBasedGC1> gcs = (1..100).collect { i ->
+            def gc = new TimeBasedGC1()
+            gc.NAME = "testGCSchedulerStatistics-${i}"
+            gc.triggerNowLogic = { return Behavior.SUCCESS }
+            gc.submit(1, TimeUnit.DAYS)
+            return gc
+        }
+        assert Thread.activeCount() < threadNum + 100
+
+        GetGCJobStatisticsResult res = getGCJobStatistics {
+            sessionId = adminSessionUuid
+        }
+        assert res.queueDepth >= 100
+        gcs.each { it.doCancel() }
+        res = getGCJobStatistics {
+            sessionId = adminSessionUuid
+        }
+        assert res.queueDepth < 100
+
+        int count = 0
+        def failed = new TimeBasedGC1()
+        failed.NAME = "testGCSchedulerStatisticsFailure"
+        failed.triggerNowLogic = {
+            count ++
+            return Behavior.FAILURE
+        }
+        failed.submit(200, TimeUnit.MILLISECONDS)
+
+        retryInSecs {
+            assert count > 1
+            GetGCJobStatisticsResult r = getGCJobStatistics {
+                sessionId = adminSessionUuid
+            }
+            GarbageCollectorTypeStatistic stat = r.typeStatistics.find { it.runnerClass == TimeBasedGC1.class.name } as GarbageCollectorTypeStatistic
+            assert stat != null
+            assert stat.failedTimes > 0
+        }
+
+        failed.doCancel()
+
+        // a job that succeeds after failures is recorded as succeeded for its last run
+        GarbageCollectorTypeStatistic before = getGCJobStatistics {
+            sessionId = adminSessionUuid
+        }.typeStatistics.find { it.runnerClass == TimeBasedGC1.class.name } as GarbageCollectorTypeStatistic
+
+        int runs = 0
+        def recovered = new TimeBasedGC1()
+        recovered.NAME = "testGCSchedulerStatisticsRecovered"
+        recovered.triggerNowLogic = {
+            runs ++
+            return runs < 3 ? Behavior.FAILURE : Behavior.SUCCESS
+        }
+        recovered.submit(200, TimeUnit.MILLISECONDS)
+
+        retryInSecs {
+            assert runs == 3
+            GetGCJobStatisticsResult r = getGCJobStatistics {
+                sessionId = adminSessionUuid
+            }
+            GarbageCollectorTypeStatistic stat = r.typeStatistics.find { it.runnerClass == TimeBasedGC1.class.name } as GarbageCollectorTypeStatistic
+            assert stat.executedTimes - before.executedTimes == 3
+            assert stat.failedTimes - before.failedTimes == 2
+        }
+    }
+
     @Override
     void test() {
         dbf = bean(DatabaseFacade.class)
@@ -350,6 +420,7 @@ class TimeBasedGarbageCollectorCase extends SubCase {
         testGCInDBTriggeredByApiWithMgmtUuidNull()
         testGCInDBTriggeredByApiWithMgmtUuidNotNull()
         testQueryGCJob()
+        testGCSchedulerStatistics()
     }
 
     @Override
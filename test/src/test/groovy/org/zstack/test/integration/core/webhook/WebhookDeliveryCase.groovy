@@ -0,0 +1,182 @@
+package org.zstack.test.integration.core.webhook
+
+import org.springframework.http.HttpEntity
+import org.zstack.core.Platform
+import org.zstack.core.cloudbus.CanonicalEvent
+import org.zstack.core.cloudbus.CanonicalEventWebhookIndex
+import org.zstack.core.cloudbus.EventFacade
+import org.zstack.core.cloudbus.EventFacadeImpl
+import org.zstack.core.db.SQL
+import org.zstack.core.webhook.WebhookDeliveryQueue
+import org.zstack.core.webhook.WebhookGlobalProperty
+import org.zstack.header.core.webhooks.WebhookVO
+import org.zstack.header.core.webhooks.WebhookVO_
+import org.zstack.sdk.WebhookInventory
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.HttpError
+import org.zstack.testlib.SubCase
+
+class WebhookDeliveryCase extends SubCase {
+    EnvSpec envSpec
+
+    String WEBHOOK_PATH = "/webhook-delivery"
+    WebhookInventory hook
+    CanonicalEventWebhookIndex index
+    WebhookDeliveryQueue queue
+
+    @Override
+    void clean() {
+        envSpec.delete()
+    }
+
+    @Override
+    void setup() {
+        INCLUDE_CORE_SERVICES = false
+        spring {
+            include("webhook.xml")
+        }
+    }
+
+    @Override
+    void environment() {
+        envSpec = env {
+            // nothing
+        }
+    }
+
+    @Override
+    void test() {
+        envSpec.create {
+            index = bean(CanonicalEventWebhookIndex.class)
+            queue = bean(WebhookDeliveryQueue.class)
+
+            testIndexRefreshedOnChange()
+            testIndexRefreshedByOtherNode()
+            testRetryOnServerError()
+            testNoRetryOnClientError()
+            testDropWhenQueueFull()
+        }
+    }
+
+    void testIndexRefreshedOnChange() {
+        hook = createWebhook {
+            name = "webhook"
+            url = "http://127.0.0.1:8989$WEBHOOK_PATH"
+            type = EventFacade.WEBHOOK_TYPE
+            opaque = "/delivery/{uuid}/event"
+        } as WebhookInventory
+
+        assert index.match("/delivery/${Platform.uuid}/event".toString())*.uuid == [hook.uuid]
+        assert index.match("/delivery/event").isEmpty()
+
+        updateWebhook {
+            uuid = hook.uuid
+            opaque = "/delivery/event"
+        }
+
+        assert index.match("/delivery/${Platform.uuid}/event".toString()).isEmpty()
+        assert index.match("/delivery/event")*.uuid == [hook.uuid]
+
+        WebhookInventory hook2 = createWebhook {
+            name = "webhook2"
+            url = "http://127.0.0.1:8989$WEBHOOK_PATH"
+            type = EventFacade.WEBHOOK_TYPE
+            opaque = "/delivery/*"
+        } as WebhookInventory
+
+        assert index.match("/delivery/event")*.uuid as Set == [hook.uuid, hook2.uuid] as Set
+
+        deleteWebhook {
+            uuid = hook2.uuid
+        }
+
+        assert index.match("/delivery/event")*.uuid == [hook.uuid]
+    }
+
+    void testIndexRefreshedByOtherNode() {
+        SQL.New(WebhookVO.class).eq(WebhookVO_.uuid, hook.uuid).set(WebhookVO_.opaque, "/delivery/other-node").update()
+        assert index.match("/delivery/other-node").isEmpty()
+
+        CanonicalEvent evt = new CanonicalEvent()
+        evt.path = CanonicalEventWebhookIndex.WEBHOOK_CHANGED_PATH
+        evt.content = hook.uuid
+        evt.managementNodeId = Platform.uuid
+        bean(EventFacadeImpl.class).handleEvent(evt)
+
+        retryInSecs {
+            assert index.match("/delivery/other-node")*.uuid == [hook.uuid]
+            assert index.match("/delivery/event").isEmpty()
+        }
+    }
+
+    void testRetryOnServerError() {
+        long retryInterval = WebhookGlobalProperty.DELIVERY_RETRY_INTERVAL
+        WebhookGlobalProperty.DELIVERY_RETRY_INTERVAL = 100
+
+        int calls = 0
+        List<CanonicalEvent> evts = []
+        envSpec.simulator(WEBHOOK_PATH) { HttpEntity<String> e ->
+            calls++
+            if (calls < 3) {
+                throw new HttpError(503, "on purpose")
+            }
+
+            evts.add(json(e.getBody(), CanonicalEvent.class))
+            return [:]
+        }
+
+        long retried = queue.retriedCount
+        long delivered = queue.deliveredCount
+        bean(EventFacade.class).fire("/delivery/other-node", "hello")
+
+        // the event is delivered asynchronously after two failures
+        retryInSecs {
+            assert evts.size() == 1
+            assert evts[0].path == "/delivery/other-node"
+            assert queue.retriedCount == retried + 2
+            assert queue.deliveredCount == delivered + 1
+            assert queue.pendingCount == 0
+        }
+
+        WebhookGlobalProperty.DELIVERY_RETRY_INTERVAL = retryInterval
+    }
+
+    void testNoRetryOnClientError() {
+        int calls = 0
+        envSpec.simulator(WEBHOOK_PATH) { HttpEntity<String> e ->
+            calls++
+            throw new HttpError(400, "on purpose")
+        }
+
+        long failed = queue.failedCount
+        bean(EventFacade.class).fire("/delivery/other-node", "hello")
+
+        retryInSecs {
+            assert queue.failedCount == failed + 1
+            assert queue.pendingCount == 0
+        }
+        assert calls == 1
+    }
+
+    void testDropWhenQueueFull() {
+        int queueSize = WebhookGlobalProperty.DELIVERY_QUEUE_SIZE
+        WebhookGlobalProperty.DELIVERY_QUEUE_SIZE = 0
+
+        int calls = 0
+        envSpec.simulator(WEBHOOK_PATH) { HttpEntity<String> e ->
+            calls++
+            return [:]
+        }
+
+        long dropped = queue.droppedCount
+        bean(EventFacade.class).fire("/delivery/other-node", "hello")
+        assert queue.droppedCount == dropped + 1
+
+        WebhookGlobalProperty.DELIVERY_QUEUE_SIZE = queueSize
+
+        bean(EventFacade.class).fire("/delivery/other-node", "hello")
+        retryInSecs {
+            assert calls == 1
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.zstack.test.integration.identity
+
+import org.zstack.core.Platform
+import org.zstack.core.cloudbus.CanonicalEvent
+import org.zstack.core.cloudbus.EventFacadeImpl
+import org.zstack.header.identity.APICreateUserGroupMsg
+import org.zstack.header.identity.IdentityCanonicalEvents
+import org.zstack.identity.rbac.CompiledPolicySet
+import org.zstack.identity.rbac.RBACAPIRequestChecker
+import org.zstack.identity.rbac.RBACPolicyCache
+import org.zstack.sdk.AccountInventory
+import org.zstack.sdk.PolicyInventory
+import org.zstack.sdk.PolicyStatement
+import org.zstack.sdk.PolicyStatementEffect
+import org.zstack.sdk.SessionInventory
+import org.zstack.sdk.UserInventory
+import org.zstack.test.integration.ZStackTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+
+class RBACPolicyCacheCase extends SubCase {
+    EnvSpec env
+    SessionInventory accountSession
+    UserInventory user
+    PolicyInventory policy
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(ZStackTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {}
+    }
+
+    @Override
+    void test() {
+        env.create {
+            prepare()
+            testPoliciesCached()
+            testInvalidateOnAttachment()
+            testInvalidateFromOtherNode()
+        }
+    }
+
+    void prepare() {
+        AccountInventory account = createAccount {
+            name = "rbac-cache"
+            password = "password"
+        } as AccountInventory
+
+        accountSession = logInByAccount {
+            accountName = account.name
+            password = "password"
+        } as SessionInventory
+
+        user = createUser {
+            name = "user"
+            password = "password"
+            sessionId = accountSession.uuid
+        } as UserInventory
+
+        policy = createPolicy {
+            name = "allow-create-user-group"
+            statements = [new PolicyStatement(
+                    name: "allow",
+                    effect: PolicyStatementEffect.Allow,
+                    actions: [APICreateUserGroupMsg.class.name]
+            )]
+            sessionId = accountSession.uuid
+        } as PolicyInventory
+    }
+
+    org.zstack.header.identity.SessionInventory userSession() {
+        def session = new org.zstack.header.identity.SessionInventory()
+        session.uuid = Platform.uuid
+        session.accountUuid = user.accountUuid
+        session.userUuid = user.uuid
+        return session
+    }
+
+    boolean canCreateUserGroup() {
+        Map<String, Boolean> ret = new RBACAPIRequestChecker().evalAPIPermission([APICreateUserGroupMsg.class], userSession())
+        return ret[APICreateUserGroupMsg.class.name]
+    }
+
+    void testPoliciesCached() {
+        CompiledPolicySet set = RBACPolicyCache.get(userSession())
+        assert RBACPolicyCache.get(userSession()).is(set)
+        assert !set.policies.any { it.uuid == policy.uuid }
+
+        // statements matching an API are memoized
+        def principalMatcher = { List<String> principals -> true }
+        assert set.getAllowMatch(APICreateUserGroupMsg.class.name, principalMatcher) == null
+        assert set.getDenyMatches(APICreateUserGroupMsg.class.name, principalMatcher).is(
+                set.getDenyMatches(APICreateUserGroupMsg.class.name, principalMatcher))
+
+        assert !canCreateUserGroup()
+    }
+
+    void testInvalidateOnAttachment() {
+        CompiledPolicySet set = RBACPolicyCache.get(userSession())
+
+        attachPolicyToUser {
+            userUuid = user.uuid
+            policyUuid = policy.uuid
+            sessionId = accountSession.uuid
+        }
+
+        CompiledPolicySet newSet = RBACPolicyCache.get(userSession())
+        assert !newSet.is(set)
+        assert newSet.policies.any { it.uuid == policy.uuid }
+        assert canCreateUserGroup()
+
+        detachPolicyFromUser {
+            userUuid = user.uuid
+            policyUuid = policy.uuid
+            sessionId = accountSession.uuid
+        }
+
+        assert !canCreateUserGroup()
+    }
+
+    void testInvalidateFromOtherNode() {
+        CompiledPolicySet set = RBACPolicyCache.get(userSession())
+
+        // the event fired by this node itself doesn't drop the cache again
+        CanonicalEvent evt = new CanonicalEvent()
+        evt.path = IdentityCanonicalEvents.RBAC_POLICY_CHANGED_PATH
+        evt.managementNodeId = Platform.getManagementServerId()
+        bean(EventFacadeImpl.class).handleEvent(evt)
+        assert RBACPolicyCache.get(userSession()).is(set)
+
+        evt = new CanonicalEvent()
+        evt.path = IdentityCanonicalEvents.RBAC_POLICY_CHANGED_PATH
+        evt.managementNodeId = Platform.uuid
+        bean(EventFacadeImpl.class).handleEvent(evt)
+
+        retryInSecs {
+            assert !RBACPolicyCache.get(userSession()).is(set)
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.zstack.test.integration.kvm.host
+
+import org.springframework.http.HttpEntity
+import org.zstack.core.Platform
+import org.zstack.core.ansible.AnsibleRunner
+import org.zstack.core.cloudbus.CloudBus
+import org.zstack.core.cloudbus.CloudBusCallBack
+import org.zstack.core.db.GLock
+import org.zstack.core.thread.BlockingChainTask
+import org.zstack.core.thread.SyncTaskChain
+import org.zstack.core.thread.ThreadFacade
+import org.zstack.core.thread.ThreadGlobalProperty
+import org.zstack.header.core.ReturnValueCompletion
+import org.zstack.header.errorcode.ErrorCode
+import org.zstack.header.host.HostConstant
+import org.zstack.header.message.MessageReply
+import org.zstack.kvm.KVMAgentCommands
+import org.zstack.kvm.KVMHostSyncHttpCallMsg
+import org.zstack.sdk.KVMHostInventory
+import org.zstack.test.integration.kvm.Env
+import org.zstack.test.integration.kvm.KvmTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * blocking calls of agent operations run on the blocking pool when it's enabled
+ */
+class BlockingAgentCallCase extends SubCase {
+    static final String SYNC_CALL_PATH = "/test/blocking/sync/call"
+
+    EnvSpec env
+    KVMHostInventory host
+    CloudBus bus
+    ThreadFacade thdf
+
+    @Override
+    void clean() {
+        ThreadGlobalProperty.BLOCKING_POOL_ENABLED = false
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(KvmTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = Env.noVmEnv()
+    }
+
+    @Override
+    void test() {
+        env.create {
+            host = env.inventoryByName("kvm") as KVMHostInventory
+            bus = bean(CloudBus.class)
+            thdf = bean(ThreadFacade.class)
+
+            ThreadGlobalProperty.BLOCKING_POOL_ENABLED = true
+            testSyncHttpCallOnBlockingPool()
+            testGLockWaitOnBlockingPool()
+            testAnsibleRunnerOnBlockingPool()
+        }
+    }
+
+    private static boolean isRunningOnBlockingPool(String methodName) {
+        return Thread.getAllStackTraces().any { t, stack ->
+            t.name.startsWith("zs-blocking-thread-") && stack.any { it.methodName == methodName }
+        }
+    }
+
+    void testSyncHttpCallOnBlockingPool() {
+        def entered = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        env.simulator(SYNC_CALL_PATH) { HttpEntity<String> e ->
+            entered.countDown()
+            release.await(30, TimeUnit.SECONDS)
+            return new KVMAgentCommands.AgentResponse()
+        }
+
+        def msg = new KVMHostSyncHttpCallMsg()
+        msg.hostUuid = host.uuid
+        msg.path = SYNC_CALL_PATH
+        msg.command = new KVMAgentCommands.AgentCommand()
+        bus.makeTargetServiceIdByResourceUuid(msg, HostConstant.SERVICE_ID, host.uuid)
+
+        MessageReply reply = null
+        bus.send(msg, new CloudBusCallBack(null) {
+            @Override
+            void run(MessageReply r) {
+                reply = r
+            }
+        })
+
+        assert entered.await(10, TimeUnit.SECONDS)
+        assert isRunningOnBlockingPool("executeSyncHttpCall")
+
+        release.countDown()
+        retryInSecs {
+            assert reply != null
+            assert reply.success
+        }
+    }
+
+    void testGLockWaitOnBlockingPool() {
+        String lockName = "blocking-agent-call-case-${Platform.uuid}"
+        def holder = new GLock(lockName, 60)
+        holder.lock()
+
+        String threadName = null
+        def locked = new CountDownLatch(1)
+        thdf.chainSubmit(new BlockingChainTask(null) {
+            @Override
+            String getSyncSignature() {
+                return lockName
+            }
+
+            @Override
+            void run(SyncTaskChain chain) {
+                threadName = Thread.currentThread().name
+                def lock = new GLock(lockName, 60)
+                lock.setAlsoUseMemoryLock(false)
+                lock.lock()
+                lock.unlock()
+                locked.countDown()
+                chain.next()
+            }
+
+            @Override
+            String getName() {
+                return lockName
+            }
+        })
+
+        retryInSecs {
+            assert threadName != null
+        }
+        // still waiting for the lock held above, on a thread of the blocking pool
+        assert threadName.startsWith("zs-blocking-thread-")
+        assert locked.count == 1
+
+        holder.unlock()
+        assert locked.await(10, TimeUnit.SECONDS)
+    }
+
+    void testAnsibleRunnerOnBlockingPool() {
+        String threadName = null
+        Boolean ran = null
+
+        def runner = new AnsibleRunner()
+        runner.setTargetIp(host.managementIp)
+        runner.setPlayBookName("kvm.py")
+        runner.setAnsibleNeedRun({
+            threadName = Thread.currentThread().name
+            return false
+        })
+        runner.run(new ReturnValueCompletion<Boolean>(null) {
+            @Override
+            void success(Boolean returnValue) {
+                ran = returnValue
+            }
+
+            @Override
+            void fail(ErrorCode errorCode) {
+                assert false : errorCode.toString()
+            }
+        })
+
+        retryInSecs {
+            assert ran == false
+        }
+        assert threadName.startsWith("zs-blocking-thread-")
+    }
+}
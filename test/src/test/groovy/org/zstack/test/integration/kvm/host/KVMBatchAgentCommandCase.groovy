@@ -0,0 +1,159 @@
+package org.zstack.test.integration.kvm.host
+
+import org.springframework.http.HttpEntity
+import org.zstack.header.vm.VmInstanceState
+import org.zstack.header.vm.VmInstanceVO
+import org.zstack.kvm.KVMAgentCommands
+import org.zstack.kvm.KVMConstant
+import org.zstack.kvm.KVMGlobalConfig
+import org.zstack.sdk.ImageInventory
+import org.zstack.sdk.InstanceOfferingInventory
+import org.zstack.sdk.L3NetworkInventory
+import org.zstack.sdk.StopVmInstanceAction
+import org.zstack.sdk.VmInstanceInventory
+import org.zstack.test.integration.kvm.Env
+import org.zstack.test.integration.kvm.KvmTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.HttpError
+import org.zstack.testlib.SubCase
+import org.zstack.utils.gson.JSONObjectUtil
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class KVMBatchAgentCommandCase extends SubCase {
+    EnvSpec env
+    List<VmInstanceInventory> vms = []
+
+    @Override
+    void clean() {
+        KVMGlobalConfig.AGENT_COMMAND_BATCH_WINDOW.updateValue(0)
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(KvmTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = Env.noVmEnv()
+    }
+
+    @Override
+    void test() {
+        env.create {
+            createVms()
+            KVMGlobalConfig.AGENT_COMMAND_BATCH_WINDOW.updateValue(500)
+            testStopVmsInOneBatch()
+            testFailureIsolatedInBatch()
+            testBatchHttpErrorNotReplayed()
+        }
+    }
+
+    void createVms() {
+        def offering = env.inventoryByName("instanceOffering") as InstanceOfferingInventory
+        def image = env.inventoryByName("image1") as ImageInventory
+        def l3 = env.inventoryByName("l3") as L3NetworkInventory
+
+        3.times { i ->
+            vms.add(createVmInstance {
+                name = "vm-${i}"
+                instanceOfferingUuid = offering.uuid
+                imageUuid = image.uuid
+                l3NetworkUuids = [l3.uuid]
+            } as VmInstanceInventory)
+        }
+    }
+
+    private Map<String, String> stopVmsConcurrently() {
+        Map<String, String> errors = [:].asSynchronized()
+        def latch = new CountDownLatch(vms.size())
+        vms.each { vm ->
+            def a = new StopVmInstanceAction()
+            a.uuid = vm.uuid
+            a.sessionId = adminSession()
+            a.call { StopVmInstanceAction.Result res ->
+                if (res.error != null) {
+                    errors[vm.uuid] = res.error.toString()
+                }
+                latch.countDown()
+            }
+        }
+
+        assert latch.await(30, TimeUnit.SECONDS)
+        return errors
+    }
+
+    void testStopVmsInOneBatch() {
+        List<KVMAgentCommands.BatchCommandsCmd> batches = [].asSynchronized()
+        env.afterSimulator(KVMConstant.KVM_BATCH_COMMANDS_PATH) { rsp, HttpEntity<String> e ->
+            batches.add(JSONObjectUtil.toObject(e.body, KVMAgentCommands.BatchCommandsCmd.class))
+            return rsp
+        }
+
+        assert stopVmsConcurrently().isEmpty()
+
+        def stopCmds = batches.collectMany { it.commands }.findAll { it.path == KVMConstant.KVM_STOP_VM_PATH }
+        assert stopCmds.size() > 1
+        vms.each { vm -> assert dbFindByUuid(vm.uuid, VmInstanceVO.class).state == VmInstanceState.Stopped }
+
+        vms.each { vm ->
+            startVmInstance {
+                uuid = vm.uuid
+            }
+        }
+    }
+
+    void testFailureIsolatedInBatch() {
+        String failedVmUuid = vms[0].uuid
+        env.simulator(KVMConstant.KVM_STOP_VM_PATH) { HttpEntity<String> e ->
+            def cmd = JSONObjectUtil.toObject(e.body, KVMAgentCommands.StopVmCmd.class)
+            def rsp = new KVMAgentCommands.StopVmResponse()
+            if (cmd.uuid == failedVmUuid) {
+                rsp.setError("on purpose")
+            }
+            return rsp
+        }
+
+        def errors = stopVmsConcurrently()
+        assert errors.keySet() == [failedVmUuid] as Set
+        vms.findAll { it.uuid != failedVmUuid }.each { vm ->
+            assert dbFindByUuid(vm.uuid, VmInstanceVO.class).state == VmInstanceState.Stopped
+        }
+    }
+
+    void testBatchHttpErrorNotReplayed() {
+        env.cleanSimulatorAndMessageHandlers()
+        startVmInstance {
+            uuid = vms[0].uuid
+        }
+
+        def stopCount = new AtomicInteger(0)
+        env.afterSimulator(KVMConstant.KVM_STOP_VM_PATH) { rsp ->
+            stopCount.incrementAndGet()
+            return rsp
+        }
+        env.afterSimulator(KVMConstant.KVM_BATCH_COMMANDS_PATH) {
+            throw new HttpError(500, "on purpose")
+        }
+
+        // the agent has run the commands, they fail instead of being sent again one by one
+        def errors = stopVmsConcurrently()
+        assert errors.size() == vms.size()
+        assert stopCount.get() == vms.size()
+
+        // a failure other than 404 does not turn batching off
+        env.cleanAfterSimulatorHandlers()
+        List<KVMAgentCommands.BatchCommandsCmd> batches = [].asSynchronized()
+        env.afterSimulator(KVMConstant.KVM_BATCH_COMMANDS_PATH) { rsp, HttpEntity<String> e ->
+            batches.add(JSONObjectUtil.toObject(e.body, KVMAgentCommands.BatchCommandsCmd.class))
+            return rsp
+        }
+
+        assert stopVmsConcurrently().isEmpty()
+        assert !batches.isEmpty()
+    }
+}
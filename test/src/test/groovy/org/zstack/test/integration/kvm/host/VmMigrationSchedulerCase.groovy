@@ -0,0 +1,495 @@
+package org.zstack.test.integration.kvm.host
+
+import org.springframework.http.HttpEntity
+import org.zstack.compute.host.HostGlobalConfig
+import org.zstack.compute.host.VmMigrationScheduler
+import org.zstack.core.db.Q
+import org.zstack.header.network.service.NetworkServiceType
+import org.zstack.header.vm.VmInstanceVO
+import org.zstack.header.vm.VmInstanceVO_
+import org.zstack.header.vm.VmPriorityLevel
+import org.zstack.kvm.KVMAgentCommands
+import org.zstack.kvm.KVMConstant
+import org.zstack.kvm.KVMGlobalConfig
+import org.zstack.network.service.virtualrouter.VirtualRouterConstant
+import org.zstack.sdk.ApplianceVmInventory
+import org.zstack.sdk.ClusterInventory
+import org.zstack.sdk.HostInventory
+import org.zstack.sdk.ImageInventory
+import org.zstack.sdk.InstanceOfferingInventory
+import org.zstack.sdk.L3NetworkInventory
+import org.zstack.sdk.VmInstanceInventory
+import org.zstack.test.integration.kvm.KvmTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.utils.data.SizeUnit
+import org.zstack.utils.gson.JSONObjectUtil
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/*
+ * three hosts with nfs primary storage, four vms on host1
+ * 1. put host1 into maintenance mode with 4 migrations in parallel and 1 migration per destination host
+ * 2. vms are spread over host2 and host3, and no host receives two vms at the same time
+ * 3. put host2 into maintenance mode with 1 migration per cluster, no two vms migrate at the same time
+ * 4. put host3 into maintenance mode and fail the first migration to host1, the vm is migrated to host2
+ *    by the allocator
+ * 5. put host1 into maintenance mode without planning destinations, vms migrate to hosts chosen by the allocator
+ * 6. put host2 with a virtual router into maintenance mode, the virtual router migrates first, then the vm
+ *    of High priority
+ */
+class VmMigrationSchedulerCase extends SubCase {
+    EnvSpec env
+
+    @Override
+    void clean() {
+        KVMGlobalConfig.VM_MIGRATION_QUANTITY.resetValue()
+        HostGlobalConfig.MAINTENANCE_MIGRATION_PLAN_DESTINATION.resetValue()
+        HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_DESTINATION_HOST.resetValue()
+        HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_CLUSTER.resetValue()
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(KvmTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+            instanceOffering {
+                name = "instanceOffering"
+                memory = SizeUnit.GIGABYTE.toByte(1)
+                cpu = 1
+            }
+
+            diskOffering {
+                name = "diskOffering"
+                diskSize = SizeUnit.GIGABYTE.toByte(20)
+            }
+
+            sftpBackupStorage {
+                name = "sftp"
+                url = "/sftp"
+                username = "root"
+                password = "password"
+                hostname = "localhost"
+
+                image {
+                    name = "image"
+                    url = "http://zstack.org/download/test.qcow2"
+                }
+
+                image {
+                    name = "vr"
+                    url = "http://zstack.org/download/vr.qcow2"
+                }
+            }
+
+            zone {
+                name = "zone"
+
+                cluster {
+                    name = "cluster"
+                    hypervisorType = "KVM"
+
+                    kvm {
+                        name = "host1"
+                        managementIp = "127.0.0.1"
+                        username = "root"
+                        password = "password"
+                    }
+
+                    kvm {
+                        name = "host2"
+                        managementIp = "127.0.0.2"
+                        username = "root"
+                        password = "password"
+                    }
+
+                    kvm {
+                        name = "host3"
+                        managementIp = "127.0.0.3"
+                        username = "root"
+                        password = "password"
+                    }
+
+                    attachPrimaryStorage("nfs")
+                    attachL2Network("l2")
+                }
+
+                nfsPrimaryStorage {
+                    name = "nfs"
+                    url = "/nfs_root"
+                }
+
+                l2NoVlanNetwork {
+                    name = "l2"
+                    physicalInterface = "eth0"
+
+                    l3Network {
+                        name = "l3"
+
+                        ip {
+                            startIp = "192.168.100.10"
+                            endIp = "192.168.100.100"
+                            netmask = "255.255.255.0"
+                            gateway = "192.168.100.1"
+                        }
+                    }
+
+                    l3Network {
+                        name = "vrL3"
+
+                        service {
+                            provider = VirtualRouterConstant.PROVIDER_TYPE
+                            types = [NetworkServiceType.DHCP.toString(), NetworkServiceType.DNS.toString()]
+                        }
+
+                        ip {
+                            startIp = "192.168.101.10"
+                            endIp = "192.168.101.100"
+                            netmask = "255.255.255.0"
+                            gateway = "192.168.101.1"
+                        }
+                    }
+
+                    l3Network {
+                        name = "pubL3"
+
+                        ip {
+                            startIp = "12.16.10.10"
+                            endIp = "12.16.10.100"
+                            netmask = "255.255.255.0"
+                            gateway = "12.16.10.1"
+                        }
+                    }
+                }
+
+                virtualRouterOffering {
+                    name = "vr"
+                    memory = SizeUnit.MEGABYTE.toByte(512)
+                    cpu = 2
+                    useManagementL3Network("pubL3")
+                    usePublicL3Network("pubL3")
+                    useImage("vr")
+                }
+
+                attachBackupStorage("sftp")
+            }
+
+            vm {
+                name = "vm1"
+                useInstanceOffering("instanceOffering")
+                useImage("image")
+                useL3Networks("l3")
+                useRootDiskOffering("diskOffering")
+                useHost("host1")
+            }
+
+            vm {
+                name = "vm2"
+                useInstanceOffering("instanceOffering")
+                useImage("image")
+                useL3Networks("l3")
+                useRootDiskOffering("diskOffering")
+                useHost("host1")
+            }
+
+            vm {
+                name = "vm3"
+                useInstanceOffering("instanceOffering")
+                useImage("image")
+                useL3Networks("l3")
+                useRootDiskOffering("diskOffering")
+                useHost("host1")
+            }
+
+            vm {
+                name = "vm4"
+                useInstanceOffering("instanceOffering")
+                useImage("image")
+                useL3Networks("l3")
+                useRootDiskOffering("diskOffering")
+                useHost("host1")
+            }
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            testMigrationsLimitedPerDestinationHost()
+            testMigrationsLimitedPerCluster()
+            testRetryVmFailedOnPlannedHost()
+            testMigrationsWithoutPlannedDestination()
+            testMigrationOrder()
+        }
+    }
+
+    void testMigrationsLimitedPerDestinationHost() {
+        HostInventory host1 = env.inventoryByName("host1")
+        HostInventory host2 = env.inventoryByName("host2")
+        HostInventory host3 = env.inventoryByName("host3")
+
+        KVMGlobalConfig.VM_MIGRATION_QUANTITY.updateValue(4)
+        HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_DESTINATION_HOST.updateValue(1)
+
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>()
+        def maxRunning = new AtomicInteger()
+        def migrations = new AtomicInteger()
+        env.afterSimulator(KVMConstant.KVM_MIGRATE_VM_PATH) { rsp, HttpEntity<String> e ->
+            def cmd = JSONObjectUtil.toObject(e.body, KVMAgentCommands.MigrateVmCmd.class)
+            def count = running.computeIfAbsent(cmd.destHostIp, { new AtomicInteger() })
+            maxRunning.set(Math.max(maxRunning.get(), count.incrementAndGet()))
+            TimeUnit.MILLISECONDS.sleep(300)
+            count.decrementAndGet()
+            migrations.incrementAndGet()
+            return rsp
+        }
+
+        changeHostState {
+            uuid = host1.uuid
+            stateEvent = "maintain"
+        }
+
+        assert migrations.get() == 4
+        assert maxRunning.get() == 1
+        assert !Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host1.uuid).isExists()
+        assert Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host2.uuid).count() == 2
+        assert Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host3.uuid).count() == 2
+
+        VmMigrationScheduler scheduler = bean(VmMigrationScheduler.class)
+        VmMigrationScheduler.EvacuationProgress progress = scheduler.evacuations[host1.uuid]
+        assert progress.finished
+        assert progress.succeeded == 4
+        assert progress.failed == 0
+        assert progress.migratedMemorySize == SizeUnit.GIGABYTE.toByte(4)
+        assert scheduler.runningMigrationsByDestinationHost.isEmpty()
+
+        env.cleanAfterSimulatorHandlers()
+        KVMGlobalConfig.VM_MIGRATION_QUANTITY.resetValue()
+        HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_DESTINATION_HOST.resetValue()
+    }
+
+    void testMigrationsLimitedPerCluster() {
+        HostInventory host1 = env.inventoryByName("host1")
+        HostInventory host2 = env.inventoryByName("host2")
+        HostInventory host3 = env.inventoryByName("host3")
+        ClusterInventory cluster = env.inventoryByName("cluster")
+
+        changeHostState {
+            uuid = host1.uuid
+            stateEvent = "enable"
+        }
+
+        KVMGlobalConfig.VM_MIGRATION_QUANTITY.updateValue(4)
+        HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_DESTINATION_HOST.updateValue(0)
+        HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_CLUSTER.updateValue(1)
+
+        VmMigrationScheduler scheduler = bean(VmMigrationScheduler.class)
+        def running = new AtomicInteger()
+        def maxRunning = new AtomicInteger()
+        def maxRunningInCluster = new AtomicInteger()
+        def migrations = new AtomicInteger()
+        env.afterSimulator(KVMConstant.KVM_MIGRATE_VM_PATH) { rsp, HttpEntity<String> e ->
+            maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()))
+            maxRunningInCluster.set(Math.max(maxRunningInCluster.get(), scheduler.runningMigrationsByCluster.getOrDefault(cluster.uuid, 0)))
+            TimeUnit.MILLISECONDS.sleep(300)
+            running.decrementAndGet()
+            migrations.incrementAndGet()
+            return rsp
+        }
+
+        long vmCount = Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host2.uuid).count()
+        assert vmCount > 1
+
+        changeHostState {
+            uuid = host2.uuid
+            stateEvent = "maintain"
+        }
+
+        assert migrations.get() == vmCount
+        assert maxRunning.get() == 1
+        assert maxRunningInCluster.get() == 1
+        assert !Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host2.uuid).isExists()
+        assert Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host1.uuid).isExists()
+        assert Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host3.uuid).isExists()
+
+        VmMigrationScheduler.EvacuationProgress progress = scheduler.evacuations[host2.uuid]
+        assert progress.finished
+        assert progress.succeeded == vmCount
+        assert progress.failed == 0
+        assert scheduler.runningMigrationsByCluster.isEmpty()
+
+        env.cleanAfterSimulatorHandlers()
+        KVMGlobalConfig.VM_MIGRATION_QUANTITY.resetValue()
+        HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_DESTINATION_HOST.resetValue()
+        HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_CLUSTER.resetValue()
+    }
+
+    void testRetryVmFailedOnPlannedHost() {
+        HostInventory host1 = env.inventoryByName("host1")
+        HostInventory host2 = env.inventoryByName("host2")
+        HostInventory host3 = env.inventoryByName("host3")
+
+        changeHostState {
+            uuid = host2.uuid
+            stateEvent = "enable"
+        }
+
+        String failedVmUuid = null
+        String retriedHostIp = null
+        env.afterSimulator(KVMConstant.KVM_MIGRATE_VM_PATH) { KVMAgentCommands.MigrateVmResponse rsp, HttpEntity<String> e ->
+            def cmd = JSONObjectUtil.toObject(e.body, KVMAgentCommands.MigrateVmCmd.class)
+            synchronized (this) {
+                if (failedVmUuid == null && cmd.destHostIp == host1.managementIp) {
+                    failedVmUuid = cmd.vmUuid
+                    rsp.setError("on purpose")
+                } else if (cmd.vmUuid == failedVmUuid) {
+                    retriedHostIp = cmd.destHostIp
+                }
+            }
+            return rsp
+        }
+
+        long vmCount = Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host3.uuid).count()
+        assert vmCount > 1
+
+        changeHostState {
+            uuid = host3.uuid
+            stateEvent = "maintain"
+        }
+
+        // the vm planned to host1 is migrated again avoiding host1, host2 is the only choice of the allocator
+        assert failedVmUuid != null
+        assert retriedHostIp == host2.managementIp
+        assert Q.New(VmInstanceVO.class).eq(VmInstanceVO_.uuid, failedVmUuid).select(VmInstanceVO_.hostUuid).findValue() == host2.uuid
+        assert !Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host3.uuid).isExists()
+
+        VmMigrationScheduler scheduler = bean(VmMigrationScheduler.class)
+        VmMigrationScheduler.EvacuationProgress progress = scheduler.evacuations[host3.uuid]
+        assert progress.finished
+        assert progress.succeeded == vmCount
+        assert progress.failed == 0
+        assert scheduler.runningMigrationsByDestinationHost.isEmpty()
+
+        env.cleanAfterSimulatorHandlers()
+    }
+
+    void testMigrationsWithoutPlannedDestination() {
+        HostInventory host1 = env.inventoryByName("host1")
+        HostInventory host3 = env.inventoryByName("host3")
+
+        changeHostState {
+            uuid = host3.uuid
+            stateEvent = "enable"
+        }
+
+        KVMGlobalConfig.VM_MIGRATION_QUANTITY.updateValue(4)
+        HostGlobalConfig.MAINTENANCE_MIGRATION_PLAN_DESTINATION.updateValue(false)
+        HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_DESTINATION_HOST.updateValue(1)
+
+        // vms without planned destinations are not counted by destination hosts
+        VmMigrationScheduler scheduler = bean(VmMigrationScheduler.class)
+        def counted = new AtomicInteger()
+        def migrations = new AtomicInteger()
+        env.afterSimulator(KVMConstant.KVM_MIGRATE_VM_PATH) { rsp, HttpEntity<String> e ->
+            if (!scheduler.runningMigrationsByDestinationHost.isEmpty()) {
+                counted.incrementAndGet()
+            }
+            migrations.incrementAndGet()
+            return rsp
+        }
+
+        long vmCount = Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host1.uuid).count()
+        assert vmCount > 0
+
+        changeHostState {
+            uuid = host1.uuid
+            stateEvent = "maintain"
+        }
+
+        assert migrations.get() == vmCount
+        assert counted.get() == 0
+        assert !Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host1.uuid).isExists()
+
+        VmMigrationScheduler.EvacuationProgress progress = scheduler.evacuations[host1.uuid]
+        assert progress.finished
+        assert progress.succeeded == vmCount
+        assert progress.failed == 0
+
+        env.cleanAfterSimulatorHandlers()
+        KVMGlobalConfig.VM_MIGRATION_QUANTITY.resetValue()
+        HostGlobalConfig.MAINTENANCE_MIGRATION_PLAN_DESTINATION.resetValue()
+        HostGlobalConfig.MAINTENANCE_MIGRATION_MAX_CONCURRENT_PER_DESTINATION_HOST.resetValue()
+    }
+
+    void testMigrationOrder() {
+        HostInventory host1 = env.inventoryByName("host1")
+        HostInventory host2 = env.inventoryByName("host2")
+        InstanceOfferingInventory instanceOffering = env.inventoryByName("instanceOffering")
+        ImageInventory image = env.inventoryByName("image")
+        L3NetworkInventory vrL3 = env.inventoryByName("vrL3")
+        VmInstanceInventory vm1 = env.inventoryByName("vm1")
+
+        changeHostState {
+            uuid = host1.uuid
+            stateEvent = "enable"
+        }
+
+        // the virtual router is created with the first vm on vrL3
+        createVmInstance {
+            name = "vm5"
+            instanceOfferingUuid = instanceOffering.uuid
+            imageUuid = image.uuid
+            l3NetworkUuids = [vrL3.uuid]
+            hostUuid = host2.uuid
+        }
+
+        ApplianceVmInventory vr = queryApplianceVm {}[0]
+        [vr.uuid, vm1.uuid].each { vmUuid ->
+            if (Q.New(VmInstanceVO.class).eq(VmInstanceVO_.uuid, vmUuid).select(VmInstanceVO_.hostUuid).findValue() != host2.uuid) {
+                migrateVm {
+                    vmInstanceUuid = vmUuid
+                    hostUuid = host2.uuid
+                }
+            }
+        }
+
+        updateVmPriority {
+            uuid = vm1.uuid
+            priority = VmPriorityLevel.High.toString()
+        }
+
+        // one migration at a time, vms are migrated in the order of the scheduler
+        KVMGlobalConfig.VM_MIGRATION_QUANTITY.updateValue(1)
+
+        List<String> migrated = Collections.synchronizedList([])
+        env.afterSimulator(KVMConstant.KVM_MIGRATE_VM_PATH) { rsp, HttpEntity<String> e ->
+            def cmd = JSONObjectUtil.toObject(e.body, KVMAgentCommands.MigrateVmCmd.class)
+            migrated.add(cmd.vmUuid)
+            return rsp
+        }
+
+        List<String> vmUuids = Q.New(VmInstanceVO.class).select(VmInstanceVO_.uuid).eq(VmInstanceVO_.hostUuid, host2.uuid).listValues()
+        assert vmUuids.size() > 2
+
+        changeHostState {
+            uuid = host2.uuid
+            stateEvent = "maintain"
+        }
+
+        assert migrated.size() == vmUuids.size()
+        assert migrated.toSet() == vmUuids.toSet()
+        assert migrated[0] == vr.uuid
+        assert migrated[1] == vm1.uuid
+        assert !Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host2.uuid).isExists()
+
+        env.cleanAfterSimulatorHandlers()
+        KVMGlobalConfig.VM_MIGRATION_QUANTITY.resetValue()
+    }
+}
@@ -0,0 +1,220 @@
+package org.zstack.test.integration.kvm.vm
+
+import org.springframework.http.HttpEntity
+import org.zstack.core.db.Q
+import org.zstack.header.Constants
+import org.zstack.header.vm.VmInstanceVO
+import org.zstack.header.vm.VmInstanceVO_
+import org.zstack.kvm.KVMAgentCommands
+import org.zstack.kvm.KVMConstant
+import org.zstack.sdk.BatchCreateVmInstanceResult
+import org.zstack.sdk.HostInventory
+import org.zstack.sdk.ImageInventory
+import org.zstack.sdk.InstanceOfferingInventory
+import org.zstack.sdk.L3NetworkInventory
+import org.zstack.test.integration.kvm.KvmTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.utils.data.SizeUnit
+
+/*
+ * two hosts with nfs primary storage
+ * 1. create four vms by one batch create api, vms are spread over the two hosts
+ * 2. resourceUuid, static ip and hostname can not be used by a batch create
+ * 3. a vm failing on its planned host is created on a host chosen by the allocator
+ */
+class BatchCreateVmInstanceCase extends SubCase {
+    EnvSpec env
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(KvmTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+            instanceOffering {
+                name = "instanceOffering"
+                memory = SizeUnit.GIGABYTE.toByte(1)
+                cpu = 1
+            }
+
+            sftpBackupStorage {
+                name = "sftp"
+                url = "/sftp"
+                username = "root"
+                password = "password"
+                hostname = "localhost"
+
+                image {
+                    name = "image"
+                    url = "http://zstack.org/download/test.qcow2"
+                }
+            }
+
+            zone {
+                name = "zone"
+
+                cluster {
+                    name = "cluster"
+                    hypervisorType = "KVM"
+
+                    kvm {
+                        name = "host1"
+                        managementIp = "127.0.0.1"
+                        username = "root"
+                        password = "password"
+                    }
+
+                    kvm {
+                        name = "host2"
+                        managementIp = "127.0.0.2"
+                        username = "root"
+                        password = "password"
+                    }
+
+                    attachPrimaryStorage("nfs")
+                    attachL2Network("l2")
+                }
+
+                nfsPrimaryStorage {
+                    name = "nfs"
+                    url = "/nfs_root"
+                }
+
+                l2NoVlanNetwork {
+                    name = "l2"
+                    physicalInterface = "eth0"
+
+                    l3Network {
+                        name = "l3"
+
+                        ip {
+                            startIp = "192.168.100.10"
+                            endIp = "192.168.100.100"
+                            netmask = "255.255.255.0"
+                            gateway = "192.168.100.1"
+                        }
+                    }
+                }
+
+                attachBackupStorage("sftp")
+            }
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            testBatchCreateVmsSpreadOverHosts()
+            testBatchCreateWithPerVmArgumentsRejected()
+            testRetryVmFailedOnPlannedHost()
+        }
+    }
+
+    void testBatchCreateVmsSpreadOverHosts() {
+        InstanceOfferingInventory offering = env.inventoryByName("instanceOffering")
+        ImageInventory image = env.inventoryByName("image")
+        L3NetworkInventory l3 = env.inventoryByName("l3")
+        HostInventory host1 = env.inventoryByName("host1")
+        HostInventory host2 = env.inventoryByName("host2")
+
+        BatchCreateVmInstanceResult result = batchCreateVmInstance {
+            name = "vm"
+            instanceOfferingUuid = offering.uuid
+            imageUuid = image.uuid
+            l3NetworkUuids = [l3.uuid]
+            count = 4
+        }
+
+        def results = result.results
+        assert results.size() == 4
+        assert results.every { it.success && it.error == null }
+        assert results.collect { it.name } == ["vm-1", "vm-2", "vm-3", "vm-4"]
+        assert results.collect { it.inventory.name } == ["vm-1", "vm-2", "vm-3", "vm-4"]
+
+        assert Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host1.uuid).count() == 2
+        assert Q.New(VmInstanceVO.class).eq(VmInstanceVO_.hostUuid, host2.uuid).count() == 2
+    }
+
+    void testBatchCreateWithPerVmArgumentsRejected() {
+        InstanceOfferingInventory offering = env.inventoryByName("instanceOffering")
+        ImageInventory image = env.inventoryByName("image")
+        L3NetworkInventory l3 = env.inventoryByName("l3")
+
+        expect(AssertionError.class) {
+            batchCreateVmInstance {
+                name = "vm"
+                instanceOfferingUuid = offering.uuid
+                imageUuid = image.uuid
+                l3NetworkUuids = [l3.uuid]
+                count = 2
+                resourceUuid = "36c27e8ff05c4780bf6d2fa65700f22e"
+            }
+        }
+
+        expect(AssertionError.class) {
+            batchCreateVmInstance {
+                name = "vm"
+                instanceOfferingUuid = offering.uuid
+                imageUuid = image.uuid
+                l3NetworkUuids = [l3.uuid]
+                count = 2
+                systemTags = ["staticIp::${l3.uuid}::192.168.100.50".toString()]
+            }
+        }
+
+        // vms of a batch on the same l3 network can't share one hostname
+        expect(AssertionError.class) {
+            batchCreateVmInstance {
+                name = "vm"
+                instanceOfferingUuid = offering.uuid
+                imageUuid = image.uuid
+                l3NetworkUuids = [l3.uuid]
+                count = 2
+                systemTags = ["hostname::batch-vm"]
+            }
+        }
+
+        assert Q.New(VmInstanceVO.class).count() == 4
+    }
+
+    void testRetryVmFailedOnPlannedHost() {
+        InstanceOfferingInventory offering = env.inventoryByName("instanceOffering")
+        ImageInventory image = env.inventoryByName("image")
+        L3NetworkInventory l3 = env.inventoryByName("l3")
+        HostInventory host1 = env.inventoryByName("host1")
+
+        // the first vm starting on host1 fails, e.g. its primary storage is full
+        boolean failed = false
+        env.afterSimulator(KVMConstant.KVM_START_VM_PATH) { KVMAgentCommands.StartVmResponse rsp, HttpEntity<String> e ->
+            if (!failed && e.getHeaders().getFirst(Constants.AGENT_HTTP_HEADER_RESOURCE_UUID) == host1.uuid) {
+                failed = true
+                rsp.success = false
+                rsp.error = "on purpose"
+            }
+            return rsp
+        }
+
+        BatchCreateVmInstanceResult result = batchCreateVmInstance {
+            name = "retry"
+            instanceOfferingUuid = offering.uuid
+            imageUuid = image.uuid
+            l3NetworkUuids = [l3.uuid]
+            count = 2
+        }
+
+        assert failed
+        assert result.results.size() == 2
+        assert result.results.every { it.success && it.inventory.state == "Running" }
+        assert Q.New(VmInstanceVO.class).count() == 6
+
+        env.cleanAfterSimulatorHandlers()
+    }
+}
@@ -0,0 +1,112 @@
+package org.zstack.test.integration.networkservice.provider.flat.dhcp
+
+import org.springframework.http.HttpEntity
+import org.zstack.network.service.flat.FlatDhcpBackend
+import org.zstack.network.service.flat.FlatNetwordProviderGlobalConfig
+import org.zstack.network.service.flat.FlatUserdataBackend
+import org.zstack.sdk.ImageInventory
+import org.zstack.sdk.InstanceOfferingInventory
+import org.zstack.sdk.L3NetworkInventory
+import org.zstack.sdk.StartVmInstanceAction
+import org.zstack.sdk.VmInstanceInventory
+import org.zstack.test.integration.networkservice.provider.NetworkServiceProviderTest
+import org.zstack.test.integration.networkservice.provider.flat.FlatNetworkServiceEnv
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.utils.gson.JSONObjectUtil
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class CoalesceDhcpApplyCase extends SubCase {
+    EnvSpec env
+
+    L3NetworkInventory l3
+    List<VmInstanceInventory> vms = []
+
+    @Override
+    void clean() {
+        FlatNetwordProviderGlobalConfig.APPLY_COALESCE_WINDOW.resetValue()
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(NetworkServiceProviderTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = FlatNetworkServiceEnv.oneHostNoVmEnv()
+    }
+
+    @Override
+    void test() {
+        env.create {
+            l3 = env.inventoryByName("l3") as L3NetworkInventory
+            prepareVms()
+            testStartVmsWithCoalescedApply()
+        }
+    }
+
+    void prepareVms() {
+        def offering = env.inventoryByName("instanceOffering") as InstanceOfferingInventory
+        def image = env.inventoryByName("image") as ImageInventory
+
+        3.times { i ->
+            VmInstanceInventory vm = createVmInstance {
+                name = "vm-${i}"
+                instanceOfferingUuid = offering.uuid
+                imageUuid = image.uuid
+                l3NetworkUuids = [l3.uuid]
+            }
+
+            stopVmInstance {
+                uuid = vm.uuid
+            }
+
+            vms.add(vm)
+        }
+    }
+
+    void testStartVmsWithCoalescedApply() {
+        FlatNetwordProviderGlobalConfig.APPLY_COALESCE_WINDOW.updateValue(1000)
+
+        List<FlatDhcpBackend.BatchApplyDhcpCmd> dhcpCmds = Collections.synchronizedList([])
+        env.afterSimulator(FlatDhcpBackend.BATCH_APPLY_DHCP_PATH) { rsp, HttpEntity<String> e ->
+            dhcpCmds.add(JSONObjectUtil.toObject(e.body, FlatDhcpBackend.BatchApplyDhcpCmd.class))
+            return rsp
+        }
+
+        List<FlatUserdataBackend.BatchApplyUserdataCmd> userdataCmds = Collections.synchronizedList([])
+        env.afterSimulator(FlatUserdataBackend.BATCH_APPLY_USER_DATA) { rsp, HttpEntity<String> e ->
+            userdataCmds.add(JSONObjectUtil.toObject(e.body, FlatUserdataBackend.BatchApplyUserdataCmd.class))
+            return rsp
+        }
+
+        def latch = new CountDownLatch(vms.size())
+        List<String> errors = Collections.synchronizedList([])
+        vms.each { vm ->
+            def a = new StartVmInstanceAction()
+            a.uuid = vm.uuid
+            a.sessionId = adminSession()
+            a.call { StartVmInstanceAction.Result res ->
+                if (res.error != null) {
+                    errors.add(res.error.toString())
+                }
+                latch.countDown()
+            }
+        }
+
+        assert latch.await(30, TimeUnit.SECONDS)
+        assert errors.isEmpty()
+
+        // all VMs are on the same host, their dhcp entries are sent together
+        def macs = dhcpCmds.collectMany { cmd -> cmd.dhcpInfos.collectMany { it.dhcp.collect { it.mac } } } as Set
+        vms.each { vm -> assert macs.contains(vm.vmNics[0].mac) }
+        assert dhcpCmds.size() < vms.size()
+
+        assert userdataCmds.every { !it.rebuild }
+        assert userdataCmds.sum(0) { it.userdata.size() } <= vms.size()
+    }
+}
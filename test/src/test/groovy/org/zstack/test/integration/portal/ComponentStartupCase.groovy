@@ -0,0 +1,222 @@
+package org.zstack.test.integration.portal
+
+import org.zstack.core.cloudbus.CanonicalEventWebhookIndex
+import org.zstack.core.cloudbus.EventFacadeImpl
+import org.zstack.core.db.DatabaseFacadeImpl
+import org.zstack.header.Component
+import org.zstack.header.DependentComponent
+import org.zstack.header.exception.CloudRuntimeException
+import org.zstack.image.ImageUpgradeExtension
+import org.zstack.ldap.LdapUpgradeExtension
+import org.zstack.network.service.flat.FlatDhcpUpgradeExtension
+import org.zstack.portal.managementnode.ComponentStartup
+import org.zstack.portal.managementnode.ManagementNodeManagerImpl
+import org.zstack.storage.volume.VolumeUpgradeExtension
+import org.zstack.testlib.SubCase
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+class ComponentStartupCase extends SubCase {
+    static Map<String, List<Long>> startTimes = new ConcurrentHashMap<>()
+
+    static abstract class FakeComponent implements Component {
+        long cost = 0
+
+        @Override
+        boolean start() {
+            long start = System.nanoTime()
+            TimeUnit.MILLISECONDS.sleep(cost)
+            startTimes[getClass().simpleName] = [start, System.nanoTime()]
+            return true
+        }
+
+        @Override
+        boolean stop() {
+            return true
+        }
+    }
+
+    static abstract class FakeDependentComponent extends FakeComponent implements DependentComponent {
+        List<Class<?>> dependencies = []
+    }
+
+    static class ComponentA extends FakeComponent {}
+    static class ComponentB extends FakeDependentComponent {}
+    static class ComponentC extends FakeDependentComponent {}
+    static class ComponentD extends FakeComponent {}
+    static class ComponentE extends FakeDependentComponent {}
+    static class ComponentF extends FakeDependentComponent {}
+
+    @Override
+    void clean() {
+    }
+
+    @Override
+    void setup() {
+        INCLUDE_CORE_SERVICES = false
+    }
+
+    @Override
+    void environment() {
+    }
+
+    @Override
+    void test() {
+        testDependencies()
+        testStartInParallel()
+        testStartInSequence()
+        testCircularDependencies()
+        testStartFailure()
+        testUpgradeExtensionsStartInParallel()
+    }
+
+    static ManagementNodeManagerImpl.ComponentWrapper wrap(Component c) {
+        return [
+                getComponent: { c },
+                start       : { c.start() },
+                stop        : { c.stop() }
+        ] as ManagementNodeManagerImpl.ComponentWrapper
+    }
+
+    static String nameOf(Class clz) {
+        return clz.name
+    }
+
+    List<Component> prepareComponents() {
+        startTimes.clear()
+        return [
+                new ComponentA(),
+                new ComponentB(cost: 300),
+                new ComponentC(dependencies: [ComponentB.class]),
+                new ComponentE(cost: 300, dependencies: [ComponentA.class]),
+                new ComponentD(),
+                new ComponentF(dependencies: [ComponentD.class]),
+        ]
+    }
+
+    void testDependencies() {
+        def startup = new ComponentStartup(prepareComponents().collect { wrap(it) })
+
+        assert startup.getDependencies(nameOf(ComponentA.class)).isEmpty()
+        assert startup.getDependencies(nameOf(ComponentB.class)).isEmpty()
+        assert startup.getDependencies(nameOf(ComponentC.class)) == [nameOf(ComponentB.class)]
+        assert startup.getDependencies(nameOf(ComponentE.class)) == [nameOf(ComponentA.class)]
+        // a component not declaring dependencies waits for all components before it
+        assert startup.getDependencies(nameOf(ComponentD.class)) as Set == [ComponentA, ComponentB, ComponentC, ComponentE].collect { nameOf(it) } as Set
+        assert startup.getDependencies(nameOf(ComponentF.class)) == [nameOf(ComponentD.class)]
+    }
+
+    void assertStartOrder() {
+        def after = { String c, String dep -> assert startTimes[c][0] >= startTimes[dep][1] }
+        after("ComponentC", "ComponentB")
+        after("ComponentE", "ComponentA")
+        ["ComponentA", "ComponentB", "ComponentC", "ComponentE"].each { after("ComponentD", it) }
+        after("ComponentF", "ComponentD")
+    }
+
+    void testStartInParallel() {
+        def startup = new ComponentStartup(prepareComponents().collect { wrap(it) })
+        startup.start(4)
+
+        assert startTimes.size() == 6
+        assertStartOrder()
+        // B and E don't depend on each other, they start at the same time
+        assert startTimes["ComponentB"][0] < startTimes["ComponentE"][1]
+        assert startTimes["ComponentE"][0] < startTimes["ComponentB"][1]
+        assert startup.totalStartTimeInMillis < 600
+
+        assert startup.componentStartTimeInMillis.size() == 6
+        assert startup.componentStartTimeInMillis[nameOf(ComponentB.class)] >= 300
+    }
+
+    void testStartInSequence() {
+        def startup = new ComponentStartup(prepareComponents().collect { wrap(it) })
+        startup.start(1)
+
+        assert startTimes.size() == 6
+        assertStartOrder()
+        assert startup.totalStartTimeInMillis >= 600
+    }
+
+    void testCircularDependencies() {
+        def b = new ComponentB(dependencies: [ComponentC.class])
+        def c = new ComponentC(dependencies: [ComponentB.class])
+
+        expect(CloudRuntimeException.class) {
+            new ComponentStartup([new ComponentA(), b, c].collect { wrap(it) })
+        }
+    }
+
+    void testStartFailure() {
+        startTimes.clear()
+        def b = new ComponentB(dependencies: []) {
+            @Override
+            boolean start() {
+                throw new CloudRuntimeException("on purpose")
+            }
+        }
+        def components = [new ComponentA(), b, new ComponentC(dependencies: [ComponentB.class]), new ComponentE(cost: 100)]
+
+        def startup = new ComponentStartup(components.collect { wrap(it) })
+        expect(CloudRuntimeException.class) {
+            startup.start(4)
+        }
+
+        // components depending on the failed one are not started
+        assert !startTimes.containsKey("ComponentC")
+        assert startTimes.containsKey("ComponentA")
+        assert startTimes.containsKey("ComponentE")
+    }
+
+    static ManagementNodeManagerImpl.ComponentWrapper wrapWithCost(Component c, long cost) {
+        return [
+                getComponent: { c },
+                start       : {
+                    long start = System.nanoTime()
+                    TimeUnit.MILLISECONDS.sleep(cost)
+                    startTimes[c.getClass().simpleName] = [start, System.nanoTime()]
+                },
+                stop        : { }
+        ] as ManagementNodeManagerImpl.ComponentWrapper
+    }
+
+    void testUpgradeExtensionsStartInParallel() {
+        startTimes.clear()
+        // the real components in the order they are loaded, starting each of them costs 200ms;
+        // only the dependency graph is real, the start() of components is not called
+        def upgradeExtensions = [
+                new VolumeUpgradeExtension(),
+                new ImageUpgradeExtension(),
+                new LdapUpgradeExtension(),
+                new FlatDhcpUpgradeExtension(),
+                new CanonicalEventWebhookIndex(),
+        ]
+        def components = [new DatabaseFacadeImpl(), new EventFacadeImpl(), new ComponentA()] + upgradeExtensions + [new ComponentD()]
+
+        def startup = new ComponentStartup(components.collect { wrapWithCost(it, 200) })
+        upgradeExtensions.each {
+            def deps = startup.getDependencies(nameOf(it.class))
+            assert !deps.isEmpty()
+            assert deps.every { it in [nameOf(DatabaseFacadeImpl.class), nameOf(EventFacadeImpl.class)] }
+        }
+
+        startup.start(8)
+
+        assert startTimes.size() == components.size()
+        def names = upgradeExtensions.collect { it.class.simpleName } + ["ComponentA"]
+        // the upgrade extensions don't wait for each other, nor for the slow component loaded before them
+        names.each { c1 ->
+            names.findAll { it != c1 }.each { c2 ->
+                assert startTimes[c1][0] < startTimes[c2][1]
+            }
+        }
+        // a component not declaring dependencies still waits for all of them
+        names.each { assert startTimes["ComponentD"][0] >= startTimes[it][1] }
+
+        // Database, Event, one round for A and upgrade extensions, D; sequentially it's 9 * 200ms
+        assert startup.totalStartTimeInMillis < 9 * 200
+        logger.info("started ${components.size()} components in ${startup.totalStartTimeInMillis}ms, " +
+                "${startup.componentStartTimeInMillis.values().sum()}ms in sequence")
+    }
+}
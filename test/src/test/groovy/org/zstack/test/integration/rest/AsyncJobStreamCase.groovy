@@ -0,0 +1,143 @@
+package org.zstack.test.integration.rest
+
+import org.zstack.rest.RestGlobalProperty
+import org.zstack.sdk.Completion
+import org.zstack.sdk.CreateZoneAction
+import org.zstack.sdk.ZSClient
+import org.zstack.sdk.ZSConfig
+import org.zstack.test.integration.ZStackTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.testlib.WebBeanConstructor
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+class AsyncJobStreamCase extends SubCase {
+    EnvSpec env
+    ZSConfig config
+    List<String> zoneUuids = Collections.synchronizedList([])
+
+    @Override
+    void clean() {
+        ZSClient.configure(config)
+        zoneUuids.each { zoneUuid ->
+            deleteZone {
+                uuid = zoneUuid
+            }
+        }
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(ZStackTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            config = ZSClient.config
+
+            testSyncCallOnJobStream()
+            testAsyncCallsShareJobStreams()
+            testFallbackToPolling()
+        }
+    }
+
+    void configureSDK(long pollingInterval) {
+        // no webhook, a result polled after the first poll takes pollingInterval
+        ZSClient.configure(
+                new ZSConfig.Builder()
+                        .setHostname("127.0.0.1")
+                        .setPort(WebBeanConstructor.port)
+                        .setDefaultPollingInterval(pollingInterval, TimeUnit.MILLISECONDS)
+                        .setDefaultPollingTimeout(5, TimeUnit.MINUTES)
+                        .build()
+        )
+    }
+
+    CreateZoneAction createZoneAction(String zoneName) {
+        CreateZoneAction action = new CreateZoneAction()
+        action.name = zoneName
+        action.sessionId = adminSession()
+        return action
+    }
+
+    void testSyncCallOnJobStream() {
+        configureSDK(TimeUnit.MINUTES.toMillis(10))
+
+        long start = System.currentTimeMillis()
+        CreateZoneAction.Result ret = createZoneAction("zone-sync").call()
+        assert ret.error == null
+        assert ret.value.inventory.name == "zone-sync"
+        zoneUuids.add(ret.value.inventory.uuid)
+        assert System.currentTimeMillis() - start < TimeUnit.MINUTES.toMillis(1)
+    }
+
+    void testAsyncCallsShareJobStreams() {
+        configureSDK(TimeUnit.MINUTES.toMillis(10))
+
+        Map<String, CreateZoneAction.Result> results = new ConcurrentHashMap<>()
+        (1..20).each { i ->
+            String zoneName = "zone-async-$i".toString()
+            createZoneAction(zoneName).call(new Completion<CreateZoneAction.Result>() {
+                @Override
+                void complete(CreateZoneAction.Result ret) {
+                    results[zoneName] = ret
+                    if (ret.value != null) {
+                        zoneUuids.add(ret.value.inventory.uuid)
+                    }
+                }
+            })
+        }
+
+        retryInSecs {
+            assert results.size() == 20
+            results.each { name, ret ->
+                assert ret.error == null
+                assert ret.value.inventory.name == name
+            }
+        }
+    }
+
+    void testFallbackToPolling() {
+        configureSDK(100)
+
+        int maxStreams = RestGlobalProperty.JOB_STREAM_MAX_STREAMS
+        // the server rejects job streams, jobs are polled instead
+        RestGlobalProperty.JOB_STREAM_MAX_STREAMS = 0
+
+        try {
+            CreateZoneAction.Result ret = createZoneAction("zone-polling").call()
+            assert ret.error == null
+            assert ret.value.inventory.name == "zone-polling"
+            zoneUuids.add(ret.value.inventory.uuid)
+
+            CreateZoneAction.Result asyncRet = null
+            createZoneAction("zone-async-polling").call(new Completion<CreateZoneAction.Result>() {
+                @Override
+                void complete(CreateZoneAction.Result r) {
+                    asyncRet = r
+                    if (r.value != null) {
+                        zoneUuids.add(r.value.inventory.uuid)
+                    }
+                }
+            })
+
+            retryInSecs {
+                assert asyncRet != null
+                assert asyncRet.error == null
+                assert asyncRet.value.inventory.name == "zone-async-polling"
+            }
+        } finally {
+            RestGlobalProperty.JOB_STREAM_MAX_STREAMS = maxStreams
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.zstack.test.integration.scale
+
+import org.zstack.test.integration.kvm.KvmTest
+import org.zstack.testlib.SpringSpec
+import org.zstack.testlib.Test
+
+/**
+ * runs the scale cases, the size of the environment and the workload are set by
+ * system properties, see ScaleProfile, e.g.
+ *
+ * mvn test -Dtest=ScaleTest -Dscale.zones=2 -Dscale.clustersPerZone=10 -Dscale.hostsPerCluster=100
+ * -Dscale.vmsPerHost=10 -Dscale.concurrency=200 -Dscale.operations=20000 -Dscale.simulatorLatencyInMillis=50
+ *
+ * the report is printed to the log, search 'scale test report' in management-server.log
+ */
+class ScaleTest extends Test {
+    static SpringSpec springSpec = KvmTest.springSpec
+
+    @Override
+    void setup() {
+        useSpring(springSpec)
+    }
+
+    @Override
+    void environment() {
+    }
+
+    @Override
+    void test() {
+        runSubCases()
+    }
+}
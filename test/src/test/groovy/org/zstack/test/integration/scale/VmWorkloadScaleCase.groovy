@@ -0,0 +1,70 @@
+package org.zstack.test.integration.scale
+
+import org.zstack.test.integration.kvm.KvmTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.testlib.scale.ScaleEnv
+import org.zstack.testlib.scale.ScaleProfile
+import org.zstack.testlib.scale.ScaleReport
+import org.zstack.testlib.scale.ScaleWorkload
+
+/**
+ * the default profile is small enough to run with other cases, it only checks the
+ * harness works; run it with a larger profile by system properties for a baseline
+ */
+class VmWorkloadScaleCase extends SubCase {
+    EnvSpec env
+    ScaleProfile profile
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(KvmTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        profile = new ScaleProfile(
+                zones: 1,
+                clustersPerZone: 2,
+                hostsPerCluster: 3,
+                vmsPerHost: 2,
+                concurrency: 8,
+                operations: 60,
+                simulatorLatencyInMillis: 5
+        ).overrideBySystemProperties()
+
+        env = ScaleEnv.makeEnv(profile)
+    }
+
+    @Override
+    void test() {
+        env.create {
+            testEnvironmentSize()
+            testWorkload()
+        }
+    }
+
+    void testEnvironmentSize() {
+        assert queryHost {}.size() == profile.hostNum
+        assert queryVmInstance {}.size() == profile.vmNum
+    }
+
+    void testWorkload() {
+        ScaleReport report = new ScaleWorkload(profile, env).run()
+
+        assert report.totalOperations + report.latencies.values().sum { it.skipped } == profile.operations
+        assert report.totalErrors == 0
+        assert report.throughput > 0
+        assert report.dbStatements > 0
+        assert report.threadPoolSamples > 0
+
+        def query = report.latencies["query"]
+        List<Long> ps = query.percentiles(ScaleReport.PERCENTILES)
+        assert ps[0] <= ps[1] && ps[1] <= ps[2] && ps[2] <= query.max
+    }
+}
@@ -1,6 +1,7 @@
 package org.zstack.test.integration.storage.backup.sftp
 
 import org.springframework.http.HttpEntity
+import org.zstack.core.Platform
 import org.zstack.core.db.Q
 import org.zstack.header.image.ImageVO
 import org.zstack.header.image.ImageVO_
@@ -8,8 +9,10 @@ import org.zstack.header.network.service.NetworkServiceType
 import org.zstack.network.securitygroup.SecurityGroupConstant
 import org.zstack.network.service.virtualrouter.VirtualRouterConstant
 import org.zstack.sdk.AddSftpBackupStorageAction
+import org.zstack.sdk.BackupStorageInventory
 import org.zstack.sdk.ImageInventory
 import org.zstack.sdk.VmInstanceInventory
+import org.zstack.storage.backup.ImageMetadataJournal
 import org.zstack.storage.backup.sftp.SftpBackupStorageCommands
 import org.zstack.storage.backup.sftp.SftpBackupStorageConstant
 import org.zstack.test.integration.networkservice.provider.NetworkServiceProviderTest
@@ -154,6 +157,8 @@ class AddSftpBackupStorageCase extends SubCase {
             addDevicePathBSFailure()
             testCreateTemplateWillRecordMetadate()
             testImportImageFlagWhenAddBS()
+            testExpungeImageAppendsRecord()
+            testImportImagesSkipExpungedOnes()
         }
     }
 
@@ -226,6 +231,70 @@ class AddSftpBackupStorageCase extends SubCase {
         assert image.backupStorageRefs.size() == 1
     }
 
+    void testExpungeImageAppendsRecord() {
+        def bs = env.inventoryByName("sftp") as BackupStorageInventory
+
+        def image = addImage {
+            name = "to-expunge"
+            url = "http://zstack.org/download/to-expunge.qcow2"
+            format = "qcow2"
+            backupStorageUuids = [bs.uuid]
+        } as ImageInventory
+
+        List<SftpBackupStorageCommands.DumpImageInfoToMetaDataFileCmd> cmds = Collections.synchronizedList([])
+        env.afterSimulator(SftpBackupStorageConstant.DUMP_IMAGE_METADATA_TO_FILE) { rsp, HttpEntity<String> e ->
+            cmds.add(json(e.body, SftpBackupStorageCommands.DumpImageInfoToMetaDataFileCmd.class))
+            return rsp
+        }
+
+        deleteImage {
+            uuid = image.uuid
+        }
+
+        expungeImage {
+            imageUuid = image.uuid
+        }
+
+        // the metadata file is not rewritten, an expunge record is appended
+        retryInSecs {
+            def cmd = cmds.find { it.imageMetaData == new ImageMetadataJournal(bs.uuid).expungeRecord(image.uuid) }
+            assert cmd != null
+            assert !cmd.dumpAllMetaData
+        }
+    }
+
+    void testImportImagesSkipExpungedOnes() {
+        def expungedUuid = Platform.uuid
+        def importedUuid = Platform.uuid
+        def record = { String uuid ->
+            return "{\"uuid\":\"${uuid}\",\"name\":\"test\",\"description\":\"\",\"state\":\"Enabled\",\"status\":\"Ready\",\"size\":19862528,\"actualSize\":15794176,\"md5Sum\":\"not calculated\",\"url\":\"http://192.168.200.1/mirror/diskimages/zstack-image-1.2.qcow2\",\"mediaType\":\"RootVolumeTemplate\",\"type\":\"zstack\",\"platform\":\"Linux\",\"format\":\"qcow2\",\"system\":false,\"createDate\":\"Dec 22, 2016 5:10:06 PM\",\"lastOpDate\":\"Dec 22, 2016 5:10:08 PM\",\"backupStorageRefs\":[{\"id\":45,\"imageUuid\":\"${uuid}\",\"backupStorageUuid\":\"63879ceb90764f839d3de772aa646c83\",\"installPath\":\"/bs-sftp/rootVolumeTemplates/acct-36c27e8ff05c4780bf6d2fa65700f22e/${uuid}/zstack-image-1.2.template\",\"status\":\"Ready\",\"createDate\":\"Dec 22, 2016 5:10:08 PM\",\"lastOpDate\":\"Dec 22, 2016 5:10:08 PM\"}]}".toString()
+        }
+
+        env.simulator(SftpBackupStorageConstant.GET_IMAGES_METADATA) {
+            def rsp = new SftpBackupStorageCommands.GetImagesMetaDataRsp()
+            rsp.imagesMetaData = [
+                    record(expungedUuid),
+                    record(importedUuid),
+                    new ImageMetadataJournal(null).expungeRecord(expungedUuid)
+            ].join("\n")
+            return rsp
+        }
+
+        addSftpBackupStorage {
+            name = "journal"
+            username = "username"
+            password = "password"
+            hostname = "journal-hostname"
+            url = "/journal"
+            importImages = true
+        }
+
+        retryInSecs {
+            assert Q.New(ImageVO.class).eq(ImageVO_.uuid, importedUuid).isExists()
+        }
+        assert !Q.New(ImageVO.class).eq(ImageVO_.uuid, expungedUuid).isExists()
+    }
+
     void addDevicePathBSFailure() {
         AddSftpBackupStorageAction action = new AddSftpBackupStorageAction()
         action.name = "sftp"
@@ -0,0 +1,316 @@
+package org.zstack.test.integration.storage.primary.local
+
+import org.zstack.compute.vm.VmGlobalConfig
+import org.zstack.core.config.GlobalConfigException
+import org.zstack.core.db.Q
+import org.zstack.core.db.SQL
+import org.zstack.core.thread.ChainTask
+import org.zstack.core.thread.SyncTaskChain
+import org.zstack.core.thread.ThreadFacade
+import org.zstack.header.network.service.NetworkServiceType
+import org.zstack.header.storage.primary.ImageCacheVO
+import org.zstack.header.storage.primary.ImageCacheVO_
+import org.zstack.header.storage.primary.PrimaryStorageCapacityVO
+import org.zstack.header.storage.primary.PrimaryStorageCapacityVO_
+import org.zstack.header.vm.VmInstanceDeletionPolicyManager
+import org.zstack.header.volume.VolumeType
+import org.zstack.header.volume.VolumeVO
+import org.zstack.header.volume.VolumeVO_
+import org.zstack.network.securitygroup.SecurityGroupConstant
+import org.zstack.network.service.virtualrouter.VirtualRouterConstant
+import org.zstack.sdk.ImageInventory
+import org.zstack.sdk.PrimaryStorageInventory
+import org.zstack.sdk.VmInstanceInventory
+import org.zstack.storage.primary.ImageCacheEvictionPolicy
+import org.zstack.storage.primary.ImageCacheUsageTracker
+import org.zstack.storage.primary.LFUImageCacheEvictionPolicy
+import org.zstack.storage.primary.LRUImageCacheEvictionPolicy
+import org.zstack.storage.primary.PrimaryStorageGlobalConfig
+import org.zstack.storage.primary.local.LocalStorageImageCleaner
+import org.zstack.test.integration.storage.StorageTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.utils.data.SizeUnit
+
+import java.sql.Timestamp
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class ImageCacheEvictionCase extends SubCase {
+
+    EnvSpec env
+
+    @Override
+    void clean() {
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_POLICY.resetValue()
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_HIGH_WATERMARK.resetValue()
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_LOW_WATERMARK.resetValue()
+        VmGlobalConfig.VM_DELETION_POLICY.resetValue()
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(StorageTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+            instanceOffering {
+                name = "instanceOffering"
+                memory = SizeUnit.GIGABYTE.toByte(8)
+                cpu = 4
+            }
+
+            diskOffering {
+                name = "diskOffering"
+                diskSize = SizeUnit.GIGABYTE.toByte(20)
+            }
+
+            sftpBackupStorage {
+                name = "sftp"
+                url = "/sftp"
+                username = "root"
+                password = "password"
+                hostname = "localhost"
+
+                image {
+                    name = "image1"
+                    url  = "http://zstack.org/download/test.qcow2"
+                }
+
+                image {
+                    name = "vr"
+                    url  = "http://zstack.org/download/vr.qcow2"
+                }
+            }
+
+            zone {
+                name = "zone"
+                description = "test"
+
+                localPrimaryStorage {
+                    name = "local-ps"
+                    url = "/local_ps"
+                    totalCapacity = SizeUnit.GIGABYTE.toByte(100)
+                    availableCapacity = SizeUnit.GIGABYTE.toByte(100)
+                }
+
+                cluster {
+                    name = "cluster"
+                    hypervisorType = "KVM"
+
+                    kvm {
+                        name = "kvm"
+                        managementIp = "localhost"
+                        username = "root"
+                        password = "password"
+                    }
+
+                    attachPrimaryStorage("local-ps")
+                    attachL2Network("l2")
+                }
+
+                l2NoVlanNetwork {
+                    name = "l2"
+                    physicalInterface = "eth0"
+
+                    l3Network {
+                        name = "l3"
+
+                        service {
+                            provider = VirtualRouterConstant.PROVIDER_TYPE
+                            types = [NetworkServiceType.DHCP.toString(), NetworkServiceType.DNS.toString()]
+                        }
+
+                        service {
+                            provider = SecurityGroupConstant.SECURITY_GROUP_PROVIDER_TYPE
+                            types = [SecurityGroupConstant.SECURITY_GROUP_NETWORK_SERVICE_TYPE]
+                        }
+
+                        ip {
+                            startIp = "192.168.100.10"
+                            endIp = "192.168.100.100"
+                            netmask = "255.255.255.0"
+                            gateway = "192.168.100.1"
+                        }
+                    }
+
+                    l3Network {
+                        name = "pubL3"
+
+                        ip {
+                            startIp = "12.16.10.10"
+                            endIp = "12.16.10.100"
+                            netmask = "255.255.255.0"
+                            gateway = "12.16.10.1"
+                        }
+                    }
+                }
+
+                virtualRouterOffering {
+                    name = "vr"
+                    memory = SizeUnit.MEGABYTE.toByte(512)
+                    cpu = 2
+                    useManagementL3Network("pubL3")
+                    usePublicL3Network("pubL3")
+                    useImage("vr")
+                }
+
+                attachBackupStorage("sftp")
+            }
+
+            vm {
+                name = "vm"
+                useInstanceOffering("instanceOffering")
+                useCluster("cluster")
+                useImage("image1")
+                useL3Networks("l3")
+                useRootDiskOffering("diskOffering")
+                useHost("kvm")
+            }
+
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            testEvictionPolicyValidation()
+            testNoEvictionBelowHighWatermark()
+            testNoEvictionWithNullRootImageUuid()
+            testEvictUnusedImageCache()
+        }
+    }
+
+    void setPhysicalCapacity(String psUuid, long total, long available) {
+        SQL.New(PrimaryStorageCapacityVO.class)
+                .eq(PrimaryStorageCapacityVO_.uuid, psUuid)
+                .set(PrimaryStorageCapacityVO_.totalPhysicalCapacity, total)
+                .set(PrimaryStorageCapacityVO_.availablePhysicalCapacity, available)
+                .update()
+    }
+
+    /**
+     * the cleanup is queued by the cleaner, it's done once a task queued after it runs
+     */
+    void waitForImageCacheCleanup() {
+        String signature = bean(LocalStorageImageCleaner.class).getClass().name
+        def done = new CountDownLatch(1)
+        bean(ThreadFacade.class).chainSubmit(new ChainTask(null) {
+            @Override
+            String getSyncSignature() {
+                return signature
+            }
+
+            @Override
+            void run(SyncTaskChain chain) {
+                done.countDown()
+                chain.next()
+            }
+
+            @Override
+            String getName() {
+                return "wait-for-image-cache-cleanup"
+            }
+        })
+
+        assert done.await(30, TimeUnit.SECONDS)
+    }
+
+    void testEvictionPolicyValidation() {
+        // any registered policy can be chosen, other names are rejected
+        expect(GlobalConfigException.class) {
+            PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_POLICY.updateValue("Unknown")
+        }
+
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_POLICY.updateValue(LFUImageCacheEvictionPolicy.NAME)
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_POLICY.updateValue(ImageCacheEvictionPolicy.NONE)
+    }
+
+    void testNoEvictionBelowHighWatermark() {
+        PrimaryStorageInventory ps = env.inventoryByName("local-ps")
+        ImageInventory image = env.inventoryByName("image1")
+
+        ImageCacheVO c = Q.New(ImageCacheVO.class).eq(ImageCacheVO_.imageUuid, image.uuid).find()
+        // the image was downloaded to create the vm
+        assert c.accessCount == 1
+        assert c.lastAccessDate != null
+
+        ImageCacheUsageTracker tracker = bean(ImageCacheUsageTracker.class)
+        assert tracker.misses[ps.uuid] >= 1
+
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_POLICY.updateValue(LRUImageCacheEvictionPolicy.NAME)
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_HIGH_WATERMARK.updateValue(90)
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_EVICTION_LOW_WATERMARK.updateValue(50)
+
+        VmGlobalConfig.VM_DELETION_POLICY.updateValue(VmInstanceDeletionPolicyManager.VmInstanceDeletionPolicy.Direct.toString())
+        VmInstanceInventory vm = env.inventoryByName("vm")
+        destroyVmInstance {
+            uuid = vm.uuid
+        }
+
+        SQL.New(ImageCacheVO.class).eq(ImageCacheVO_.id, c.id)
+                .set(ImageCacheVO_.lastAccessDate, new Timestamp(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)))
+                .update()
+        setPhysicalCapacity(ps.uuid, SizeUnit.GIGABYTE.toByte(100), SizeUnit.GIGABYTE.toByte(20))
+
+        cleanUpImageCacheOnPrimaryStorage {
+            uuid = ps.uuid
+        }
+
+        waitForImageCacheCleanup()
+        assert Q.New(ImageCacheVO.class).eq(ImageCacheVO_.id, c.id).isExists()
+        assert !tracker.evictedCount.containsKey(ps.uuid)
+    }
+
+    void testNoEvictionWithNullRootImageUuid() {
+        PrimaryStorageInventory ps = env.inventoryByName("local-ps")
+        ImageInventory image = env.inventoryByName("image1")
+        ImageInventory vrImage = env.inventoryByName("vr")
+
+        VolumeVO root = Q.New(VolumeVO.class)
+                .eq(VolumeVO_.type, VolumeType.Root)
+                .eq(VolumeVO_.rootImageUuid, vrImage.uuid)
+                .find()
+        SQL.New(VolumeVO.class).eq(VolumeVO_.uuid, root.uuid).set(VolumeVO_.rootImageUuid, null).update()
+        setPhysicalCapacity(ps.uuid, SizeUnit.GIGABYTE.toByte(100), SizeUnit.GIGABYTE.toByte(5))
+
+        cleanUpImageCacheOnPrimaryStorage {
+            uuid = ps.uuid
+        }
+        waitForImageCacheCleanup()
+
+        // caches used by the volume can't be known, nothing is evicted
+        assert Q.New(ImageCacheVO.class).eq(ImageCacheVO_.imageUuid, image.uuid).isExists()
+        assert Q.New(ImageCacheVO.class).eq(ImageCacheVO_.imageUuid, vrImage.uuid).isExists()
+        assert !bean(ImageCacheUsageTracker.class).evictedCount.containsKey(ps.uuid)
+
+        SQL.New(VolumeVO.class).eq(VolumeVO_.uuid, root.uuid).set(VolumeVO_.rootImageUuid, vrImage.uuid).update()
+    }
+
+    void testEvictUnusedImageCache() {
+        PrimaryStorageInventory ps = env.inventoryByName("local-ps")
+        ImageInventory image = env.inventoryByName("image1")
+        ImageInventory vrImage = env.inventoryByName("vr")
+
+        ImageCacheVO c = Q.New(ImageCacheVO.class).eq(ImageCacheVO_.imageUuid, image.uuid).find()
+        setPhysicalCapacity(ps.uuid, SizeUnit.GIGABYTE.toByte(100), SizeUnit.GIGABYTE.toByte(5))
+
+        cleanUpImageCacheOnPrimaryStorage {
+            uuid = ps.uuid
+        }
+
+        retryInSecs {
+            assert !Q.New(ImageCacheVO.class).eq(ImageCacheVO_.id, c.id).isExists()
+        }
+        // the cache of the virtual router image is still used by the virtual router
+        assert Q.New(ImageCacheVO.class).eq(ImageCacheVO_.imageUuid, vrImage.uuid).isExists()
+
+        ImageCacheUsageTracker tracker = bean(ImageCacheUsageTracker.class)
+        assert tracker.evictedCount[ps.uuid] == 1
+        assert tracker.evictedBytes[ps.uuid] == c.size
+        assert tracker.recentEvictions[0].contains(image.uuid)
+    }
+}
@@ -0,0 +1,135 @@
+package org.zstack.test.integration.storage.primary.local
+
+import org.zstack.core.cloudbus.CloudBus
+import org.zstack.core.cloudbus.CloudBusCallBack
+import org.zstack.core.db.Q
+import org.zstack.header.image.ImageInventory
+import org.zstack.header.image.ImageVO
+import org.zstack.header.message.MessageReply
+import org.zstack.header.storage.primary.DownloadVolumeTemplateToPrimaryStorageMsg
+import org.zstack.header.storage.primary.ImageCacheVO
+import org.zstack.header.storage.primary.ImageCacheVO_
+import org.zstack.header.storage.primary.PrimaryStorageConstant
+import org.zstack.header.vm.VmInstanceSpec
+import org.zstack.sdk.HostInventory
+import org.zstack.sdk.PrimaryStorageInventory
+import org.zstack.storage.primary.ImageCacheDownloadCoordinator
+import org.zstack.storage.primary.local.LocalStorageKvmSftpBackupStorageMediatorImpl
+import org.zstack.test.integration.storage.StorageTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.utils.data.SizeUnit
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class MergeImageCacheDownloadCase extends SubCase {
+    EnvSpec env
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(StorageTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+            sftpBackupStorage {
+                name = "sftp"
+                url = "/sftp"
+                username = "root"
+                password = "password"
+                hostname = "localhost"
+
+                image {
+                    name = "image"
+                    url = "http://zstack.org/download/test.qcow2"
+                }
+            }
+
+            zone {
+                name = "zone"
+
+                localPrimaryStorage {
+                    name = "local-ps"
+                    url = "/local_ps"
+                    totalCapacity = SizeUnit.GIGABYTE.toByte(100)
+                    availableCapacity = SizeUnit.GIGABYTE.toByte(100)
+                }
+
+                cluster {
+                    name = "cluster"
+                    hypervisorType = "KVM"
+
+                    kvm {
+                        name = "kvm"
+                        managementIp = "127.0.0.1"
+                        username = "root"
+                        password = "password"
+                    }
+
+                    attachPrimaryStorage("local-ps")
+                }
+
+                attachBackupStorage("sftp")
+            }
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            testConcurrentDownloadsMerged()
+        }
+    }
+
+    void testConcurrentDownloadsMerged() {
+        PrimaryStorageInventory ps = env.inventoryByName("local-ps")
+        ImageInventory image = ImageInventory.valueOf(dbFindByUuid(env.inventoryByName("image").uuid, ImageVO.class))
+        HostInventory host = env.inventoryByName("kvm")
+        ImageCacheDownloadCoordinator coordinator = bean(ImageCacheDownloadCoordinator.class)
+
+        def downloads = new AtomicInteger()
+        env.simulator(LocalStorageKvmSftpBackupStorageMediatorImpl.DOWNLOAD_BIT_PATH) {
+            downloads.incrementAndGet()
+            TimeUnit.SECONDS.sleep(1)
+            return new LocalStorageKvmSftpBackupStorageMediatorImpl.SftpDownloadBitsRsp()
+        }
+
+        CloudBus bus = bean(CloudBus.class)
+        def replies = Collections.synchronizedList([])
+        3.times {
+            VmInstanceSpec.ImageSpec spec = new VmInstanceSpec.ImageSpec()
+            spec.setInventory(image)
+
+            DownloadVolumeTemplateToPrimaryStorageMsg msg = new DownloadVolumeTemplateToPrimaryStorageMsg()
+            msg.setPrimaryStorageUuid(ps.uuid)
+            msg.setHostUuid(host.uuid)
+            msg.setTemplateSpec(spec)
+            bus.makeTargetServiceIdByResourceUuid(msg, PrimaryStorageConstant.SERVICE_ID, ps.uuid)
+            bus.send(msg, new CloudBusCallBack(null) {
+                @Override
+                void run(MessageReply reply) {
+                    replies.add(reply)
+                }
+            })
+        }
+
+        retryInSecs {
+            assert replies.size() == 3
+        }
+        assert replies.every { it.success }
+        assert downloads.get() == 1
+        assert Q.New(ImageCacheVO.class).eq(ImageCacheVO_.imageUuid, image.uuid).count() == 1
+
+        assert coordinator.transfers[ps.uuid] == 1
+        assert coordinator.mergedRequests[ps.uuid] == 2
+        assert coordinator.count(ps.uuid, host.uuid, image.uuid) == 0
+        assert coordinator.inFlightDownloads.isEmpty()
+    }
+}
@@ -0,0 +1,193 @@
+package org.zstack.test.integration.storage.primary.local
+
+import org.springframework.http.HttpEntity
+import org.zstack.core.db.Q
+import org.zstack.header.Constants
+import org.zstack.header.image.ImageVO
+import org.zstack.header.storage.primary.ImageCacheVO
+import org.zstack.header.storage.primary.ImageCacheVO_
+import org.zstack.sdk.HostInventory
+import org.zstack.sdk.ImageInventory
+import org.zstack.sdk.PrimaryStorageInventory
+import org.zstack.storage.primary.PrimaryStorageGlobalConfig
+import org.zstack.storage.primary.PrimaryStorageSystemTags
+import org.zstack.storage.primary.local.LocalStorageKvmSftpBackupStorageMediatorImpl
+import org.zstack.test.integration.storage.StorageTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.utils.data.SizeUnit
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class PrewarmImageCacheCase extends SubCase {
+    EnvSpec env
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(StorageTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+            sftpBackupStorage {
+                name = "sftp"
+                url = "/sftp"
+                username = "root"
+                password = "password"
+                hostname = "localhost"
+
+                image {
+                    name = "image1"
+                    url = "http://zstack.org/download/test.qcow2"
+                }
+
+                image {
+                    name = "image2"
+                    url = "http://zstack.org/download/test2.qcow2"
+                }
+            }
+
+            zone {
+                name = "zone"
+
+                localPrimaryStorage {
+                    name = "local-ps"
+                    url = "/local_ps"
+                    totalCapacity = SizeUnit.GIGABYTE.toByte(100)
+                    availableCapacity = SizeUnit.GIGABYTE.toByte(100)
+                }
+
+                cluster {
+                    name = "cluster"
+                    hypervisorType = "KVM"
+
+                    kvm {
+                        name = "kvm1"
+                        managementIp = "127.0.0.1"
+                        username = "root"
+                        password = "password"
+                    }
+
+                    kvm {
+                        name = "kvm2"
+                        managementIp = "127.0.0.2"
+                        username = "root"
+                        password = "password"
+                    }
+
+                    attachPrimaryStorage("local-ps")
+                }
+
+                attachBackupStorage("sftp")
+            }
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            testPrewarmToHost()
+            testPrewarmToAllHosts()
+            testPrewarmTaggedImages()
+        }
+    }
+
+    long cacheCount(String imageUuid, String hostUuid) {
+        return Q.New(ImageCacheVO.class)
+                .eq(ImageCacheVO_.imageUuid, imageUuid)
+                .like(ImageCacheVO_.installUrl, "%${hostUuid}%".toString())
+                .count()
+    }
+
+    void testPrewarmToHost() {
+        PrimaryStorageInventory ps = env.inventoryByName("local-ps")
+        ImageInventory image = env.inventoryByName("image1")
+        HostInventory host1 = env.inventoryByName("kvm1")
+        HostInventory host2 = env.inventoryByName("kvm2")
+
+        prewarmImageCache {
+            imageUuid = image.uuid
+            primaryStorageUuids = [ps.uuid]
+            hostUuids = [host1.uuid]
+        }
+
+        retryInSecs {
+            assert cacheCount(image.uuid, host1.uuid) == 1
+        }
+        assert cacheCount(image.uuid, host2.uuid) == 0
+    }
+
+    void testPrewarmToAllHosts() {
+        PrimaryStorageInventory ps = env.inventoryByName("local-ps")
+        ImageInventory image = env.inventoryByName("image1")
+        HostInventory host1 = env.inventoryByName("kvm1")
+        HostInventory host2 = env.inventoryByName("kvm2")
+
+        def downloadHosts = Collections.synchronizedList([])
+        env.afterSimulator(LocalStorageKvmSftpBackupStorageMediatorImpl.DOWNLOAD_BIT_PATH) { rsp, HttpEntity<String> e ->
+            downloadHosts.add(e.getHeaders().getFirst(Constants.AGENT_HTTP_HEADER_RESOURCE_UUID))
+            return rsp
+        }
+
+        // host1 already has the cache, only host2 downloads the image
+        prewarmImageCache {
+            imageUuid = image.uuid
+        }
+
+        retryInSecs {
+            assert cacheCount(image.uuid, host2.uuid) == 1
+        }
+        assert cacheCount(image.uuid, host1.uuid) == 1
+        assert downloadHosts.size() == 1
+
+        // nothing to prewarm any more
+        prewarmImageCache {
+            imageUuid = image.uuid
+            primaryStorageUuids = [ps.uuid]
+        }
+        TimeUnit.SECONDS.sleep(1)
+        assert downloadHosts.size() == 1
+
+        env.cleanAfterSimulatorHandlers()
+    }
+
+    void testPrewarmTaggedImages() {
+        ImageInventory image = env.inventoryByName("image2")
+        HostInventory host1 = env.inventoryByName("kvm1")
+        HostInventory host2 = env.inventoryByName("kvm2")
+
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_PREWARM_CONCURRENCY.updateValue(1)
+
+        def concurrent = new AtomicInteger()
+        def maxConcurrent = new AtomicInteger()
+        env.simulator(LocalStorageKvmSftpBackupStorageMediatorImpl.DOWNLOAD_BIT_PATH) {
+            maxConcurrent.set(Math.max(maxConcurrent.get(), concurrent.incrementAndGet()))
+            TimeUnit.MILLISECONDS.sleep(500)
+            concurrent.decrementAndGet()
+            return new LocalStorageKvmSftpBackupStorageMediatorImpl.SftpDownloadBitsRsp()
+        }
+
+        createSystemTag {
+            resourceType = ImageVO.class.simpleName
+            resourceUuid = image.uuid
+            tag = PrimaryStorageSystemTags.PREWARM_IMAGE_CACHE.getTagFormat()
+        }
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_PREWARM_INTERVAL.updateValue(1)
+
+        retryInSecs {
+            assert cacheCount(image.uuid, host1.uuid) == 1
+            assert cacheCount(image.uuid, host2.uuid) == 1
+        }
+        assert maxConcurrent.get() == 1
+
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_PREWARM_INTERVAL.resetValue()
+        PrimaryStorageGlobalConfig.IMAGE_CACHE_PREWARM_CONCURRENCY.resetValue()
+    }
+}
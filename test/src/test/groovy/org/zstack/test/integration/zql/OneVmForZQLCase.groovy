@@ -299,6 +299,7 @@ query zone return with (total) named as 'zone'
             logger.debug(JSONObjectUtil.toJsonString(fs))
 
             testQueryField()
+            testQueryNestedField()
 
             def l3s = zqlQuery("query l3network group by uuid, name")
             assert l3s.size() == Q.New(L3NetworkVO.class).count()
@@ -344,4 +345,28 @@ query zone return with (total) named as 'zone'
         assert nameAndCpus.size() == vmInstances.size()
 
     }
+
+    void testQueryNestedField() {
+        VmInstanceInventory vm = env.inventoryByName("vm")
+
+        VmInstanceInventory vm1 = queryVmInstance {
+            fields = ["name", "vmNics"]
+            conditions = ["uuid=${vm.uuid}"]
+        }[0]
+
+        assert vm1.name == vm.name
+        assert vm1.vmNics.collect { it.uuid } == vm.vmNics.collect { it.uuid }
+        assert vm1.vmNics[0].l3NetworkUuid == vm.vmNics[0].l3NetworkUuid
+        // fields not asked are neither loaded nor returned, including the primary key used to fill the nested fields
+        assert vm1.uuid == null
+        assert vm1.allVolumes == null
+        assert vm1.vmCdRoms == null
+
+        ZQLQueryReturn ret = ZQL.fromString("query vminstance.uuid,allVolumes where uuid = '${vm.uuid}'").getSingleResult()
+        def inv = ret.inventories[0]
+        assert inv.uuid == vm.uuid
+        assert inv.allVolumes.collect { it.uuid }.toSet() == vm.allVolumes.collect { it.uuid }.toSet()
+        assert inv.vmNics == null
+        assert inv.name == null
+    }
 }
@@ -3770,6 +3770,33 @@ abstract class ApiHelper {
     }
 
 
+    def batchCreateVmInstance(@DelegatesTo(strategy = Closure.OWNER_FIRST, value = org.zstack.sdk.BatchCreateVmInstanceAction.class) Closure c) {
+        def a = new org.zstack.sdk.BatchCreateVmInstanceAction()
+        a.sessionId = Test.currentEnvSpec?.session?.uuid
+        c.resolveStrategy = Closure.OWNER_FIRST
+        c.delegate = a
+        c()
+        
+
+        if (System.getProperty("apipath") != null) {
+            if (a.apiId == null) {
+                a.apiId = Platform.uuid
+            }
+    
+            def tracker = new ApiPathTracker(a.apiId)
+            def out = errorOut(a.call())
+            def path = tracker.getApiPath()
+            if (!path.isEmpty()) {
+                Test.apiPaths[a.class.name] = path.join(" --->\n")
+            }
+        
+            return out
+        } else {
+            return errorOut(a.call())
+        }
+    }
+
+
     def batchDeleteVolumeSnapshot(@DelegatesTo(strategy = Closure.OWNER_FIRST, value = org.zstack.sdk.BatchDeleteVolumeSnapshotAction.class) Closure c) {
         def a = new org.zstack.sdk.BatchDeleteVolumeSnapshotAction()
         a.sessionId = Test.currentEnvSpec?.session?.uuid
@@ -16676,6 +16703,33 @@ abstract class ApiHelper {
     }
 
 
+    def getDbQueryStatistics(@DelegatesTo(strategy = Closure.OWNER_FIRST, value = org.zstack.sdk.GetDbQueryStatisticsAction.class) Closure c) {
+        def a = new org.zstack.sdk.GetDbQueryStatisticsAction()
+        a.sessionId = Test.currentEnvSpec?.session?.uuid
+        c.resolveStrategy = Closure.OWNER_FIRST
+        c.delegate = a
+        c()
+        
+
+        if (System.getProperty("apipath") != null) {
+            if (a.apiId == null) {
+                a.apiId = Platform.uuid
+            }
+    
+            def tracker = new ApiPathTracker(a.apiId)
+            def out = errorOut(a.call())
+            def path = tracker.getApiPath()
+            if (!path.isEmpty()) {
+                Test.apiPaths[a.class.name] = path.join(" --->\n")
+            }
+        
+            return out
+        } else {
+            return errorOut(a.call())
+        }
+    }
+
+
     def getDebugSignal(@DelegatesTo(strategy = Closure.OWNER_FIRST, value = org.zstack.sdk.GetDebugSignalAction.class) Closure c) {
         def a = new org.zstack.sdk.GetDebugSignalAction()
         a.sessionId = Test.currentEnvSpec?.session?.uuid
@@ -17000,6 +17054,33 @@ abstract class ApiHelper {
     }
 
 
+    def getGCJobStatistics(@DelegatesTo(strategy = Closure.OWNER_FIRST, value = org.zstack.sdk.GetGCJobStatisticsAction.class) Closure c) {
+        def a = new org.zstack.sdk.GetGCJobStatisticsAction()
+        a.sessionId = Test.currentEnvSpec?.session?.uuid
+        c.resolveStrategy = Closure.OWNER_FIRST
+        c.delegate = a
+        c()
+        
+
+        if (System.getProperty("apipath") != null) {
+            if (a.apiId == null) {
+                a.apiId = Platform.uuid
+            }
+    
+            def tracker = new ApiPathTracker(a.apiId)
+            def out = errorOut(a.call())
+            def path = tracker.getApiPath()
+            if (!path.isEmpty()) {
+                Test.apiPaths[a.class.name] = path.join(" --->\n")
+            }
+        
+            return out
+        } else {
+            return errorOut(a.call())
+        }
+    }
+
+
     def getHostAllocatorStrategies(@DelegatesTo(strategy = Closure.OWNER_FIRST, value = org.zstack.sdk.GetHostAllocatorStrategiesAction.class) Closure c) {
         def a = new org.zstack.sdk.GetHostAllocatorStrategiesAction()
         a.sessionId = Test.currentEnvSpec?.session?.uuid
@@ -21241,6 +21322,33 @@ abstract class ApiHelper {
     }
 
 
+    def prewarmImageCache(@DelegatesTo(strategy = Closure.OWNER_FIRST, value = org.zstack.sdk.PrewarmImageCacheAction.class) Closure c) {
+        def a = new org.zstack.sdk.PrewarmImageCacheAction()
+        a.sessionId = Test.currentEnvSpec?.session?.uuid
+        c.resolveStrategy = Closure.OWNER_FIRST
+        c.delegate = a
+        c()
+        
+
+        if (System.getProperty("apipath") != null) {
+            if (a.apiId == null) {
+                a.apiId = Platform.uuid
+            }
+    
+            def tracker = new ApiPathTracker(a.apiId)
+            def out = errorOut(a.call())
+            def path = tracker.getApiPath()
+            if (!path.isEmpty()) {
+                Test.apiPaths[a.class.name] = path.join(" --->\n")
+            }
+        
+            return out
+        } else {
+            return errorOut(a.call())
+        }
+    }
+
+
     def previewResourceFromApp(@DelegatesTo(strategy = Closure.OWNER_FIRST, value = org.zstack.sdk.PreviewResourceFromAppAction.class) Closure c) {
         def a = new org.zstack.sdk.PreviewResourceFromAppAction()
         a.sessionId = Test.currentEnvSpec?.session?.uuid
@@ -129,13 +129,6 @@ class CephBackupStorageSpec extends BackupStorageSpec {
                 return rsp
             }
 
-            simulator(CephBackupStorageBase.DELETE_IMAGES_METADATA) {
-                def rsp = new CephBackupStorageBase.DeleteImageInfoFromMetaDataFileRsp()
-                rsp.out = "success delete"
-                rsp.ret = 0
-                return rsp
-            }
-
             simulator(CephBackupStorageBase.DUMP_IMAGE_METADATA_TO_FILE) {
                 return new CephBackupStorageBase.DumpImageInfoToMetaDataFileRsp()
             }
@@ -102,6 +102,7 @@ class EnvSpec extends ApiHelper implements Node  {
     private ConcurrentHashMap<Class, List<Tuple>> defaultMessageHandlers = [:]
     private ConcurrentHashMap<String, List<Tuple>> httpConditionHandlers = [:]
     private ConcurrentHashMap<String, List<Tuple>> defaultHttpConditionHandlers = [:]
+    private Closure simulatorLatency
     protected static RestTemplate restTemplate
     protected static Set<Class> simulatorClasses = Platform.reflections.getSubTypesOf(Simulator.class)
 
@@ -264,6 +265,7 @@ class EnvSpec extends ApiHelper implements Node  {
     }
 
     void cleanSimulatorAndMessageHandlers() {
+        simulatorLatency = null
         cleanSimulatorHandlers()
         cleanAfterSimulatorHandlers()
         cleanMessageHandlers()
@@ -878,6 +880,13 @@ class EnvSpec extends ApiHelper implements Node  {
         httpPostHandlers[path] = c
     }
 
+    /**
+     * delay every simulator call, the closure takes the url and returns the delay in milliseconds
+     */
+    void simulatorLatency(Closure c) {
+        simulatorLatency = c
+    }
+
     void conditionSimulator(String path, Closure condition, Closure c) {
         def lst = httpConditionHandlers[path]
         if (lst == null) {
@@ -966,50 +975,95 @@ class EnvSpec extends ApiHelper implements Node  {
         }
 
         try {
-            def ret
-            if (handler.maximumNumberOfParameters == 0) {
-                ret = handler()
-            } else if (handler.maximumNumberOfParameters == 1) {
-                ret = handler(entity)
-            } else {
-                ret = handler(entity, this)
+            def ret = invokeSimulatorHandler(url, handler, entity)
+            replyHttpCall(entity, rsp, ret)
+        } catch (HttpError he) {
+            logger.warn("the simulator[$url] reports a http error[status code:${he.status}, message:${he.message}]", he)
+            rsp.sendError(he.status, he.message)
+        } catch (Throwable t) {
+            logger.warn("error happened when handling $url", t)
+            rsp.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value(), t.message)
+        } finally {
+            httpHandlerCounters.putIfAbsent(url, new AtomicInteger(0))
+            httpHandlerCounters.get(url).incrementAndGet()
+        }
+    }
+
+    private Object invokeSimulatorHandler(String url, Closure handler, HttpEntity entity) {
+        Closure latency = simulatorLatency
+        if (latency != null) {
+            long delay = latency(url) as long
+            if (delay > 0) {
+                TimeUnit.MILLISECONDS.sleep(delay)
             }
+        }
 
-            Closure postHandler = httpPostHandlers[url]
+        def ret
+        if (handler.maximumNumberOfParameters == 0) {
+            ret = handler()
+        } else if (handler.maximumNumberOfParameters == 1) {
+            ret = handler(entity)
+        } else {
+            ret = handler(entity, this)
+        }
 
-            if (postHandler == null) {
-                for (String httpUrl : httpPostHandlers.keys()) {
-                    if (Pattern.matches(httpUrl, url)) {
-                        postHandler = httpPostHandlers.get(httpUrl)
-                        break
-                    }
-                }
-            }
+        Closure postHandler = httpPostHandlers[url]
 
-            if (postHandler != null) {
-                if (postHandler.maximumNumberOfParameters <= 1) {
-                    ret = postHandler(ret)
-                } else if (postHandler.maximumNumberOfParameters == 2) {
-                    ret = postHandler(ret, entity)
-                } else {
-                    ret = postHandler(ret, entity, this)
+        if (postHandler == null) {
+            for (String httpUrl : httpPostHandlers.keys()) {
+                if (Pattern.matches(httpUrl, url)) {
+                    postHandler = httpPostHandlers.get(httpUrl)
+                    break
                 }
+            }
+        }
 
-                httpPostHandlerCounters.putIfAbsent(url, new AtomicInteger(0))
-                httpPostHandlerCounters.get(url).incrementAndGet()
+        if (postHandler != null) {
+            if (postHandler.maximumNumberOfParameters <= 1) {
+                ret = postHandler(ret)
+            } else if (postHandler.maximumNumberOfParameters == 2) {
+                ret = postHandler(ret, entity)
+            } else {
+                ret = postHandler(ret, entity, this)
             }
 
-            if (ret == null) {
-                ret = [:]
+            httpPostHandlerCounters.putIfAbsent(url, new AtomicInteger(0))
+            httpPostHandlerCounters.get(url).incrementAndGet()
+        }
+
+        if (ret == null) {
+            ret = [:]
+        }
+
+        return ret
+    }
+
+    /**
+     * call the simulator of the url directly, used by simulators that dispatch
+     * sub commands to other simulators, e.g. the batch commands of KVM agent
+     */
+    Object callSimulator(String url, HttpEntity<String> entity) {
+        def handler = httpHandlers[url]
+
+        if (handler == null) {
+            for (String httpUrl : httpHandlers.keys()) {
+                if (Pattern.matches(httpUrl, url)) {
+                    handler = httpHandlers.get(httpUrl)
+                    break
+                }
             }
+        }
 
-            replyHttpCall(entity, rsp, ret)
-        } catch (HttpError he) {
-            logger.warn("the simulator[$url] reports a http error[status code:${he.status}, message:${he.message}]", he)
-            rsp.sendError(he.status, he.message)
-        } catch (Throwable t) {
-            logger.warn("error happened when handling $url", t)
-            rsp.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value(), t.message)
+        if (handler == null && httpConditionHandlers[url] != null) {
+            handler = conditionHandler(httpConditionHandlers[url], entity, null)
+        }
+
+        if (handler == null) {
+            throw new HttpError(HttpStatus.NOT_FOUND.value(), "no handler found for the path $url")
+        }
+
+        try {
+            return invokeSimulatorHandler(url, handler, entity)
         } finally {
             httpHandlerCounters.putIfAbsent(url, new AtomicInteger(0))
             httpHandlerCounters.get(url).incrementAndGet()
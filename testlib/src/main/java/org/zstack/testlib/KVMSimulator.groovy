@@ -1,6 +1,8 @@
 package org.zstack.testlib
 
 import org.springframework.http.HttpEntity
+import org.springframework.http.HttpHeaders
+import org.springframework.http.MediaType
 import org.zstack.core.db.Q
 import org.zstack.header.Constants
 import org.zstack.header.storage.primary.PrimaryStorageVO
@@ -54,6 +56,24 @@ class KVMSimulator implements Simulator {
             return rsp
         }
 
+        spec.simulator(KVMConstant.KVM_BATCH_COMMANDS_PATH) { HttpEntity<String> e, EnvSpec espec ->
+            def cmd = JSONObjectUtil.toObject(e.body, KVMAgentCommands.BatchCommandsCmd.class)
+            def rsp = new KVMAgentCommands.BatchCommandsRsp()
+            rsp.responses = cmd.commands.collect { sub ->
+                HttpHeaders headers = new HttpHeaders()
+                headers.setContentType(MediaType.APPLICATION_JSON)
+                sub.headers?.each { k, v -> headers.set(k, v) }
+
+                def ret = espec.callSimulator(sub.path, new HttpEntity<String>(sub.command, headers))
+                return new KVMAgentCommands.BatchSubResponse(
+                        id: sub.id,
+                        response: ret instanceof String ? ret : JSONObjectUtil.toJsonString(ret)
+                )
+            }
+
+            return rsp
+        }
+
         spec.simulator(KVMConstant.KVM_HARDEN_CONSOLE_PATH) {
             return new KVMAgentCommands.AgentResponse()
         }
@@ -95,13 +95,6 @@ class SftpBackupStorageSpec extends BackupStorageSpec {
                 return new SftpBackupStorageCommands.DumpImageInfoToMetaDataFileRsp()
             }
 
-            simulator(SftpBackupStorageConstant.DELETE_IMAGES_METADATA) {
-                def rsp = new SftpBackupStorageCommands.DeleteImageInfoFromMetaDataFileRsp()
-                rsp.out = "success"
-                rsp.ret = 0
-                return rsp
-            }
-
             simulator(SftpBackupStorageConstant.GET_IMAGES_METADATA) {
                 def rsp = new SftpBackupStorageCommands.GetImagesMetaDataRsp()
                 rsp.imagesMetaData = "{\"uuid\":\"a603e80ea18f424f8a5f00371d484537\",\"name\":\"test\",\"description\":\"\",\"state\":\"Enabled\",\"status\":\"Ready\",\"size\":19862528,\"actualSize\":15794176,\"md5Sum\":\"not calculated\",\"url\":\"http://192.168.200.1/mirror/diskimages/zstack-image-1.2.qcow2\",\"mediaType\":\"RootVolumeTemplate\",\"type\":\"zstack\",\"platform\":\"Linux\",\"format\":\"qcow2\",\"system\":false,\"createDate\":\"Dec 22, 2016 5:10:06 PM\",\"lastOpDate\":\"Dec 22, 2016 5:10:08 PM\",\"backupStorageRefs\":[{\"id\":45,\"imageUuid\":\"a603e80ea18f424f8a5f00371d484537\",\"backupStorageUuid\":\"63879ceb90764f839d3de772aa646c83\",\"installPath\":\"/bs-sftp/rootVolumeTemplates/acct-36c27e8ff05c4780bf6d2fa65700f22e/a603e80ea18f424f8a5f00371d484537/zstack-image-1.2.template\",\"status\":\"Ready\",\"createDate\":\"Dec 22, 2016 5:10:08 PM\",\"lastOpDate\":\"Dec 22, 2016 5:10:08 PM\"}]}";
@@ -0,0 +1,68 @@
+package org.zstack.testlib.scale
+
+/**
+ * latencies of one kind of operation, in milliseconds
+ */
+class LatencyRecorder {
+    final String name
+
+    private long[] samples = new long[1024]
+    private int size
+    private int errors
+    private int skipped
+
+    LatencyRecorder(String name) {
+        this.name = name
+    }
+
+    synchronized void record(long latencyInMillis, boolean success) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2)
+        }
+        samples[size++] = latencyInMillis
+        if (!success) {
+            errors++
+        }
+    }
+
+    // the operation had nothing to work on, e.g. no stopped VM to start
+    synchronized void skip() {
+        skipped++
+    }
+
+    synchronized int getCount() {
+        return size
+    }
+
+    synchronized int getErrors() {
+        return errors
+    }
+
+    synchronized int getSkipped() {
+        return skipped
+    }
+
+    /**
+     * the latencies at the given percentiles, e.g. [50, 90, 99], by the nearest rank
+     */
+    synchronized List<Long> percentiles(List<Double> percents) {
+        if (size == 0) {
+            return percents.collect { 0L }
+        }
+
+        long[] sorted = Arrays.copyOf(samples, size)
+        Arrays.sort(sorted)
+        return percents.collect { p ->
+            int rank = (int) Math.ceil(p / 100 * size)
+            return sorted[Math.min(Math.max(rank, 1), size) - 1]
+        }
+    }
+
+    synchronized long getMax() {
+        long max = 0
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, samples[i])
+        }
+        return max
+    }
+}
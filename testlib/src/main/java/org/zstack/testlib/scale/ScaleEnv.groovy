@@ -0,0 +1,141 @@
+package org.zstack.testlib.scale
+
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.Test
+import org.zstack.utils.data.SizeUnit
+
+/**
+ * builds a synthetic environment of the size given by a ScaleProfile with the env DSL.
+ *
+ * every zone has an NFS primary storage and a flat L3 network attached to all its
+ * clusters, so VMs can be migrated among all hosts of the zone. Specs are named as
+ * zone-0, cluster-0-1, host-0-1-2, vm-0-1-2-3 and so on.
+ */
+class ScaleEnv {
+    static final String INSTANCE_OFFERING = "scale-instance-offering"
+    static final String IMAGE = "scale-image"
+    static final String BACKUP_STORAGE = "scale-sftp"
+
+    static String zoneName(int z) {
+        return "zone-$z"
+    }
+
+    static String l3Name(int z) {
+        return "l3-$z"
+    }
+
+    static String hostName(int z, int c, int h) {
+        return "host-$z-$c-$h"
+    }
+
+    // every host gets an address of its own in 127.0.0.0/8
+    private static String hostIp(int index) {
+        index += 2
+        return "127.${(index >> 16) & 0xff}.${(index >> 8) & 0xff}.${index & 0xff}"
+    }
+
+    // the L3 network of a zone is 10.z.0.0/16, enough for the VMs of the zone and the workload
+    private static int checkZoneSize(ScaleProfile profile) {
+        int vmsPerZone = profile.clustersPerZone * profile.hostsPerCluster * profile.vmsPerHost + profile.operations
+        assert vmsPerZone < 65000: "too many VMs in a zone for a /16 L3 network: $vmsPerZone"
+        assert profile.zones < 256: "too many zones: ${profile.zones}"
+        return vmsPerZone
+    }
+
+    static EnvSpec makeEnv(ScaleProfile profile) {
+        checkZoneSize(profile)
+
+        return Test.makeEnv {
+            instanceOffering {
+                name = INSTANCE_OFFERING
+                memory = SizeUnit.MEGABYTE.toByte(64)
+                cpu = 1
+            }
+
+            sftpBackupStorage {
+                name = BACKUP_STORAGE
+                url = "/sftp"
+                username = "root"
+                password = "password"
+                hostname = "localhost"
+
+                image {
+                    name = IMAGE
+                    url = "http://zstack.org/download/test.qcow2"
+                }
+            }
+
+            int hostIndex = 0
+            for (int z = 0; z < profile.zones; z++) {
+                int zi = z
+
+                zone {
+                    name = zoneName(zi)
+
+                    nfsPrimaryStorage {
+                        name = "nfs-$zi"
+                        url = "/nfs_root_$zi"
+                    }
+
+                    l2NoVlanNetwork {
+                        name = "l2-$zi"
+                        physicalInterface = "eth0"
+
+                        l3Network {
+                            name = l3Name(zi)
+
+                            ip {
+                                startIp = "10.${zi}.0.2"
+                                endIp = "10.${zi}.255.254"
+                                netmask = "255.255.0.0"
+                                gateway = "10.${zi}.0.1"
+                            }
+                        }
+                    }
+
+                    for (int c = 0; c < profile.clustersPerZone; c++) {
+                        int ci = c
+
+                        cluster {
+                            name = "cluster-$zi-$ci"
+                            hypervisorType = "KVM"
+
+                            for (int h = 0; h < profile.hostsPerCluster; h++) {
+                                String ip = hostIp(hostIndex++)
+                                kvm {
+                                    name = hostName(zi, ci, h)
+                                    managementIp = ip
+                                    username = "root"
+                                    password = "password"
+                                    totalCpu = 10000
+                                    totalMem = SizeUnit.TERABYTE.toByte(100)
+                                }
+                            }
+
+                            attachPrimaryStorage("nfs-$zi")
+                            attachL2Network("l2-$zi")
+                        }
+                    }
+
+                    attachBackupStorage(BACKUP_STORAGE)
+                }
+
+                for (int c = 0; c < profile.clustersPerZone; c++) {
+                    for (int h = 0; h < profile.hostsPerCluster; h++) {
+                        for (int v = 0; v < profile.vmsPerHost; v++) {
+                            String host = hostName(zi, c, h)
+                            String vmName = "vm-$zi-$c-$h-$v"
+                            vm {
+                                name = vmName
+                                useInstanceOffering(INSTANCE_OFFERING)
+                                useImage(IMAGE)
+                                useL3Networks(l3Name(zi))
+                                useHost(host)
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
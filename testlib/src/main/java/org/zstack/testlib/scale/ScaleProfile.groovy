@@ -0,0 +1,65 @@
+package org.zstack.testlib.scale
+
+/**
+ * sizes of a synthetic environment and the API workload driven against it.
+ *
+ * every field can be overridden by a system property of "scale." + field name, e.g.
+ * mvn test -Dtest=ScaleTest -Dscale.hostsPerCluster=500 -Dscale.concurrency=200
+ * -Dscale.workload=create:1,query:10
+ */
+class ScaleProfile {
+    static final String PROPERTY_PREFIX = "scale."
+
+    int zones = 1
+    int clustersPerZone = 1
+    int hostsPerCluster = 2
+    int vmsPerHost = 1
+
+    // number of API calls running at the same time
+    int concurrency = 10
+    // total API calls of the workload
+    int operations = 100
+    // delay of every simulated agent command
+    long simulatorLatencyInMillis = 0
+    // operation name -> weight, see ScaleWorkload for the operations
+    Map<String, Integer> workload = [create: 2, start: 2, stop: 2, migrate: 1, query: 5]
+
+    int getHostNum() {
+        return zones * clustersPerZone * hostsPerCluster
+    }
+
+    int getVmNum() {
+        return hostNum * vmsPerHost
+    }
+
+    ScaleProfile overrideBySystemProperties() {
+        ["zones", "clustersPerZone", "hostsPerCluster", "vmsPerHost", "concurrency", "operations"].each { name ->
+            String v = System.getProperty(PROPERTY_PREFIX + name)
+            if (v != null) {
+                setProperty(name, Integer.parseInt(v))
+            }
+        }
+
+        String latency = System.getProperty(PROPERTY_PREFIX + "simulatorLatencyInMillis")
+        if (latency != null) {
+            simulatorLatencyInMillis = Long.parseLong(latency)
+        }
+
+        String wl = System.getProperty(PROPERTY_PREFIX + "workload")
+        if (wl != null) {
+            workload = wl.split(",").collectEntries {
+                def (String op, String weight) = it.split(":").toList()
+                return [(op.trim()): Integer.parseInt(weight.trim())]
+            }
+        }
+
+        return this
+    }
+
+    @Override
+    String toString() {
+        return "zones: $zones, clusters per zone: $clustersPerZone, hosts per cluster: $hostsPerCluster, " +
+                "vms per host: $vmsPerHost, concurrency: $concurrency, operations: $operations, " +
+                "simulator latency: ${simulatorLatencyInMillis}ms, workload: $workload"
+    }
+}
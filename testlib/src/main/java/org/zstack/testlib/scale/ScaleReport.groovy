@@ -0,0 +1,61 @@
+package org.zstack.testlib.scale
+
+/**
+ * results of a workload run, see {@link #format()} for the report printed to the log
+ */
+class ScaleReport {
+    static final List<Double> PERCENTILES = [50d, 90d, 99d]
+
+    ScaleProfile profile
+    long durationInMillis
+    Map<String, LatencyRecorder> latencies = [:]
+
+    // SQL statements prepared by hibernate during the run
+    long dbStatements
+    long dbQueries
+
+    // samples of the thread pool of ThreadFacade taken during the run
+    int threadPoolSamples
+    int threadPoolSaturatedSamples
+    int maxActiveThreads
+    long maxQueuedTasks
+    long maxPoolSize
+
+    int getTotalOperations() {
+        return (latencies.values().sum { it.count } ?: 0) as int
+    }
+
+    int getTotalErrors() {
+        return (latencies.values().sum { it.errors } ?: 0) as int
+    }
+
+    double getThroughput() {
+        return durationInMillis == 0 ? 0 : totalOperations * 1000d / durationInMillis
+    }
+
+    // ratio of samples the pool had all threads busy
+    double getThreadPoolSaturation() {
+        return threadPoolSamples == 0 ? 0 : threadPoolSaturatedSamples / (double) threadPoolSamples
+    }
+
+    String format() {
+        StringBuilder sb = new StringBuilder()
+        sb.append("\n========================= scale test report =========================\n")
+        sb.append("profile: ${profile}\n")
+        sb.append(String.format("duration: %sms, operations: %s, errors: %s, throughput: %.2f ops/s\n",
+                durationInMillis, totalOperations, totalErrors, throughput))
+        sb.append(String.format("%-10s %8s %8s %8s %10s %10s %10s %10s\n", "operation", "count", "errors", "skipped",
+                "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)"))
+        latencies.values().each { r ->
+            List<Long> ps = r.percentiles(PERCENTILES)
+            sb.append(String.format("%-10s %8s %8s %8s %10s %10s %10s %10s\n", r.name, r.count, r.errors, r.skipped,
+                    ps[0], ps[1], ps[2], r.max))
+        }
+        sb.append(String.format("db: %s statements, %s queries, %.2f statements per operation\n", dbStatements, dbQueries,
+                totalOperations == 0 ? 0d : dbStatements / (double) totalOperations))
+        sb.append(String.format("thread pool: max active %s/%s, max queued %s, saturated in %.1f%% of %s samples\n",
+                maxActiveThreads, maxPoolSize, maxQueuedTasks, threadPoolSaturation * 100, threadPoolSamples))
+        sb.append("======================================================================")
+        return sb.toString()
+    }
+}
@@ -0,0 +1,224 @@
+package org.zstack.testlib.scale
+
+import org.hibernate.SessionFactory
+import org.hibernate.stat.Statistics
+import org.zstack.core.Platform
+import org.zstack.core.db.DatabaseFacade
+import org.zstack.core.db.Q
+import org.zstack.core.thread.ThreadFacade
+import org.zstack.core.thread.ThreadPoolStatistic
+import org.zstack.header.vm.VmInstanceState
+import org.zstack.header.vm.VmInstanceVO
+import org.zstack.header.vm.VmInstanceVO_
+import org.zstack.sdk.*
+import org.zstack.testlib.EnvSpec
+import org.zstack.utils.Utils
+import org.zstack.utils.logging.CLogger
+
+import java.util.concurrent.*
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * drives a weighted mix of API calls against an environment built by ScaleEnv, with
+ * ScaleProfile.concurrency calls in flight until ScaleProfile.operations calls are made.
+ *
+ * built-in operations: create, start, stop, migrate and query of VMs. An operation works
+ * on a VM taken out of the pool of running or stopped VMs, so no two operations work on the
+ * same VM at the same time; it's skipped if there is no VM to work on. More operations can
+ * be added by {@link #operation(String, Closure)}.
+ */
+class ScaleWorkload {
+    private static final CLogger logger = Utils.getLogger(ScaleWorkload.class)
+
+    final ScaleProfile profile
+    final EnvSpec env
+    final String sessionUuid
+
+    // the closure returns false if it has nothing to work on, or throws an exception on failure
+    private final Map<String, Closure<Boolean>> operations = [:]
+
+    private final Queue<String> runningVms = new ConcurrentLinkedQueue<>()
+    private final Queue<String> stoppedVms = new ConcurrentLinkedQueue<>()
+    private final AtomicInteger vmCounter = new AtomicInteger()
+
+    ScaleWorkload(ScaleProfile profile, EnvSpec env) {
+        this.profile = profile
+        this.env = env
+        this.sessionUuid = env.session.uuid
+
+        operation("create", this.&createVm)
+        operation("start", this.&startVm)
+        operation("stop", this.&stopVm)
+        operation("migrate", this.&migrateVm)
+        operation("query", this.&queryVm)
+    }
+
+    void operation(String name, Closure<Boolean> c) {
+        operations[name] = c
+    }
+
+    private static void checkError(ErrorCode error) {
+        if (error != null) {
+            throw new Exception(error.toString())
+        }
+    }
+
+    private boolean createVm() {
+        int z = ThreadLocalRandom.current().nextInt(profile.zones)
+        def a = new CreateVmInstanceAction()
+        a.name = "scale-vm-${vmCounter.incrementAndGet()}"
+        a.instanceOfferingUuid = env.inventoryByName(ScaleEnv.INSTANCE_OFFERING).uuid
+        a.imageUuid = env.inventoryByName(ScaleEnv.IMAGE).uuid
+        a.l3NetworkUuids = [env.inventoryByName(ScaleEnv.l3Name(z)).uuid]
+        a.sessionId = sessionUuid
+        def res = a.call()
+        checkError(res.error)
+        runningVms.add(res.value.inventory.uuid)
+        return true
+    }
+
+    private boolean startVm() {
+        String uuid = stoppedVms.poll()
+        if (uuid == null) {
+            return false
+        }
+
+        def res = new StartVmInstanceAction(uuid: uuid, sessionId: sessionUuid).call()
+        (res.error == null ? runningVms : stoppedVms).add(uuid)
+        checkError(res.error)
+        return true
+    }
+
+    private boolean stopVm() {
+        String uuid = runningVms.poll()
+        if (uuid == null) {
+            return false
+        }
+
+        def res = new StopVmInstanceAction(uuid: uuid, sessionId: sessionUuid).call()
+        (res.error == null ? stoppedVms : runningVms).add(uuid)
+        checkError(res.error)
+        return true
+    }
+
+    private boolean migrateVm() {
+        String uuid = runningVms.poll()
+        if (uuid == null) {
+            return false
+        }
+
+        try {
+            // let the host allocator choose the destination
+            checkError(new MigrateVmAction(vmInstanceUuid: uuid, sessionId: sessionUuid).call().error)
+        } finally {
+            runningVms.add(uuid)
+        }
+        return true
+    }
+
+    private boolean queryVm() {
+        def a = new QueryVmInstanceAction()
+        a.conditions = ["state=${VmInstanceState.Running}".toString()]
+        a.limit = 100
+        a.sessionId = sessionUuid
+        checkError(a.call().error)
+        return true
+    }
+
+    private String pickOperation() {
+        int total = profile.workload.values().sum() as int
+        int r = ThreadLocalRandom.current().nextInt(total)
+        for (Map.Entry<String, Integer> e : profile.workload.entrySet()) {
+            r -= e.value
+            if (r < 0) {
+                return e.key
+            }
+        }
+        return profile.workload.keySet().toList().last()
+    }
+
+    private static Statistics getDbStatistics() {
+        DatabaseFacade dbf = Platform.getComponentLoader().getComponent(DatabaseFacade.class)
+        return dbf.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics()
+    }
+
+    private static void sampleThreadPool(ScaleReport report) {
+        ThreadPoolStatistic s = Platform.getComponentLoader().getComponent(ThreadFacade.class).getThreadPoolStatistic()
+        synchronized (report) {
+            report.threadPoolSamples++
+            report.maxActiveThreads = Math.max(report.maxActiveThreads, s.activeThreadNum)
+            report.maxQueuedTasks = Math.max(report.maxQueuedTasks, s.queuedTaskNum)
+            report.maxPoolSize = s.maxPoolSize
+            if (s.activeThreadNum >= s.maxPoolSize) {
+                report.threadPoolSaturatedSamples++
+            }
+        }
+    }
+
+    ScaleReport run() {
+        profile.workload.keySet().each {
+            assert operations.containsKey(it): "unknown operation[$it], known operations are ${operations.keySet()}"
+        }
+
+        runningVms.addAll(Q.New(VmInstanceVO.class).select(VmInstanceVO_.uuid)
+                .eq(VmInstanceVO_.state, VmInstanceState.Running).listValues())
+        stoppedVms.addAll(Q.New(VmInstanceVO.class).select(VmInstanceVO_.uuid)
+                .eq(VmInstanceVO_.state, VmInstanceState.Stopped).listValues())
+
+        if (profile.simulatorLatencyInMillis > 0) {
+            env.simulatorLatency { profile.simulatorLatencyInMillis }
+        }
+
+        ScaleReport report = new ScaleReport(profile: profile)
+        profile.workload.keySet().each { report.latencies[it] = new LatencyRecorder(it) }
+
+        Statistics dbStats = getDbStatistics()
+        boolean dbStatsEnabled = dbStats.isStatisticsEnabled()
+        dbStats.setStatisticsEnabled(true)
+        long statements = dbStats.prepareStatementCount
+        long queries = dbStats.queryExecutionCount
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor()
+        sampler.scheduleAtFixedRate({ sampleThreadPool(report) }, 0, 100, TimeUnit.MILLISECONDS)
+
+        ExecutorService workers = Executors.newFixedThreadPool(profile.concurrency)
+        AtomicInteger remaining = new AtomicInteger(profile.operations)
+        logger.info("start scale workload, ${profile}")
+        long start = System.currentTimeMillis()
+        try {
+            List<Future> futures = (1..profile.concurrency).collect {
+                workers.submit {
+                    while (remaining.getAndDecrement() > 0) {
+                        String op = pickOperation()
+                        LatencyRecorder recorder = report.latencies[op]
+                        long opStart = System.currentTimeMillis()
+                        try {
+                            if (operations[op].call()) {
+                                recorder.record(System.currentTimeMillis() - opStart, true)
+                            } else {
+                                recorder.skip()
+                            }
+                        } catch (Throwable t) {
+                            logger.warn("scale operation[$op] failed: ${t.message}")
+                            recorder.record(System.currentTimeMillis() - opStart, false)
+                        }
+                    }
+                }
+            }
+            futures.each { it.get() }
+        } finally {
+            report.durationInMillis = System.currentTimeMillis() - start
+            workers.shutdownNow()
+            sampler.shutdownNow()
+            report.dbStatements = dbStats.prepareStatementCount - statements
+            report.dbQueries = dbStats.queryExecutionCount - queries
+            dbStats.setStatisticsEnabled(dbStatsEnabled)
+            if (profile.simulatorLatencyInMillis > 0) {
+                env.simulatorLatency(null)
+            }
+        }
+
+        logger.info(report.format())
+        return report
+    }
+}
@@ -0,0 +1,90 @@
+package org.zstack.utils.string;
+
+import java.util.*;
+
+/**
+ * Aho-Corasick automaton finding all keywords contained in a text in one pass.
+ *
+ * keywords and text are compared ignoring US-ASCII case, the same as
+ * {@link java.util.regex.Pattern#CASE_INSENSITIVE} without UNICODE_CASE.
+ */
+class AhoCorasickAutomaton {
+    private static class Node {
+        final Map<Character, Node> next = new HashMap<>();
+        Node fail;
+        int[] outputs = new int[0];
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * @param keywords keyword i is reported as i when found; null or empty keywords are ignored
+     */
+    AhoCorasickAutomaton(List<String> keywords) {
+        for (int i = 0; i < keywords.size(); i++) {
+            String k = keywords.get(i);
+            if (k == null || k.isEmpty()) {
+                continue;
+            }
+
+            Node n = root;
+            for (int j = 0; j < k.length(); j++) {
+                n = n.next.computeIfAbsent(fold(k.charAt(j)), c -> new Node());
+            }
+            n.outputs = append(n.outputs, i);
+        }
+
+        Queue<Node> queue = new ArrayDeque<>();
+        for (Node n : root.next.values()) {
+            n.fail = root;
+            queue.add(n);
+        }
+
+        while (!queue.isEmpty()) {
+            Node n = queue.poll();
+            for (Map.Entry<Character, Node> e : n.next.entrySet()) {
+                Node child = e.getValue();
+                Node f = n.fail;
+                while (f != root && !f.next.containsKey(e.getKey())) {
+                    f = f.fail;
+                }
+                Node target = f.next.get(e.getKey());
+                child.fail = target != null ? target : root;
+                // merge outputs of the suffix, so matching never walks the fail links for outputs
+                for (int o : child.fail.outputs) {
+                    child.outputs = append(child.outputs, o);
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static int[] append(int[] arr, int v) {
+        int[] ret = Arrays.copyOf(arr, arr.length + 1);
+        ret[arr.length] = v;
+        return ret;
+    }
+
+    /**
+     * set bit i of the result for every keyword i contained in the text
+     */
+    BitSet find(String text) {
+        BitSet ret = new BitSet();
+        Node n = root;
+        for (int i = 0; i < text.length(); i++) {
+            Character c = fold(text.charAt(i));
+            while (n != root && !n.next.containsKey(c)) {
+                n = n.fail;
+            }
+            n = n.next.getOrDefault(c, root);
+            for (int o : n.outputs) {
+                ret.set(o);
+            }
+        }
+        return ret;
+    }
+}
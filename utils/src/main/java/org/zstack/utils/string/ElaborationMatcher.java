@@ -0,0 +1,275 @@
+package org.zstack.utils.string;
+
+import java.util.*;
+
+/**
+ * Precompiled index over all error elaborations, rebuilt every time the templates are loaded.
+ *
+ * regex elaborations: the longest literal every match of a regex must contain is extracted
+ * and all of them are put into one {@link AhoCorasickAutomaton}, so a message is scanned once
+ * to find the few regexes that can match it; only those are run, in the order of
+ * {@link StringSimilarity#findSimilar(String, Object...)} preference (longer regex first,
+ * then the order in the templates). Regexes without such a literal are always run.
+ *
+ * distance elaborations: each template keeps its character profile, which bounds the
+ * Jaro-Winkler similarity from above, so templates can be visited from the most promising
+ * one and the search stops once no remaining template can beat the best distance found.
+ */
+class ElaborationMatcher {
+    // Jaro-Winkler adds min(0.1, 1 / longer length) * common prefix length of the remaining
+    // similarity, only when the Jaro similarity is above 0.7
+    private static final double JW_THRESHOLD = 0.7;
+    private static final double JW_COEF = 0.1;
+    // the similarity is calculated in float by the library, leave room for rounding
+    private static final double BOUND_EPSILON = 1e-6;
+
+    private final List<ErrorCodeElaboration> regexElaborations = new ArrayList<>();
+    private final BitSet alwaysRun = new BitSet();
+    private final AhoCorasickAutomaton automaton;
+
+    private final List<DistanceTemplate> distanceTemplates = new ArrayList<>();
+
+    static class DistanceCandidate {
+        final ErrorCodeElaboration elaboration;
+        final int index;
+        final double lowerBound;
+
+        DistanceCandidate(ErrorCodeElaboration elaboration, int index, double lowerBound) {
+            this.elaboration = elaboration;
+            this.index = index;
+            this.lowerBound = lowerBound;
+        }
+    }
+
+    private static class DistanceTemplate {
+        final ErrorCodeElaboration elaboration;
+        final int length;
+        final Map<Character, Integer> profile;
+
+        DistanceTemplate(ErrorCodeElaboration elaboration) {
+            this.elaboration = elaboration;
+            this.length = elaboration.getRegex().length();
+            this.profile = profile(elaboration.getRegex());
+        }
+    }
+
+    ElaborationMatcher(List<ErrorCodeElaboration> elaborations) {
+        for (ErrorCodeElaboration e : elaborations) {
+            if (ElaborationSearchMethod.distance == e.getMethod()) {
+                distanceTemplates.add(new DistanceTemplate(e));
+            } else {
+                regexElaborations.add(e);
+            }
+        }
+
+        // stable sort keeps the template order for regexes of the same length
+        regexElaborations.sort((e1, e2) -> Integer.compare(e2.getRegex().length(), e1.getRegex().length()));
+        List<String> literals = new ArrayList<>();
+        for (int i = 0; i < regexElaborations.size(); i++) {
+            String literal = requiredLiteral(regexElaborations.get(i).getRegex());
+            literals.add(literal);
+            if (literal == null || literal.isEmpty()) {
+                alwaysRun.set(i);
+            }
+        }
+        automaton = new AhoCorasickAutomaton(literals);
+    }
+
+    /**
+     * the regex elaborations possibly matching the message, as bits of their preference order
+     */
+    BitSet findRegexCandidates(String sub) {
+        BitSet ret = automaton.find(sub);
+        ret.or(alwaysRun);
+        return ret;
+    }
+
+    /**
+     * the most preferred regex elaboration matching the message, same as checking all regexes
+     * and picking the longest one
+     */
+    ErrorCodeElaboration findMostSimilarRegex(String sub, BitSet candidates) {
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            ErrorCodeElaboration e = regexElaborations.get(i);
+            if (StringSimilarity.isRegexMatched(e.getRegex(), sub)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * distance templates ordered by the lower bound of their Jaro-Winkler distance to the message
+     */
+    List<DistanceCandidate> getDistanceCandidates(String sub) {
+        Map<Character, Integer> subProfile = profile(sub);
+        List<DistanceCandidate> ret = new ArrayList<>(distanceTemplates.size());
+        for (int i = 0; i < distanceTemplates.size(); i++) {
+            DistanceTemplate t = distanceTemplates.get(i);
+            ret.add(new DistanceCandidate(t.elaboration, i, lowerBound(t, sub, subProfile)));
+        }
+        ret.sort(Comparator.comparingDouble((DistanceCandidate c) -> c.lowerBound).thenComparingInt(c -> c.index));
+        return ret;
+    }
+
+    private static Map<Character, Integer> profile(String str) {
+        Map<Character, Integer> ret = new HashMap<>();
+        for (int i = 0; i < str.length(); i++) {
+            ret.merge(str.charAt(i), 1, Integer::sum);
+        }
+        return ret;
+    }
+
+    private static double lowerBound(DistanceTemplate t, String sub, Map<Character, Integer> subProfile) {
+        // two strings can't have more matching characters than their common characters
+        int common = 0;
+        for (Map.Entry<Character, Integer> e : t.profile.entrySet()) {
+            Integer c = subProfile.get(e.getKey());
+            if (c != null) {
+                common += Math.min(c, e.getValue());
+            }
+        }
+
+        if (common == 0) {
+            return 1 - BOUND_EPSILON;
+        }
+
+        String regex = t.elaboration.getRegex();
+        int prefix = 0;
+        while (prefix < t.length && prefix < sub.length() && regex.charAt(prefix) == sub.charAt(prefix)) {
+            prefix++;
+        }
+
+        // the boost never exceeds 1 and the similarity grows with the Jaro similarity, so
+        // an upper bound of the Jaro similarity gives an upper bound of the similarity
+        double jaro = ((double) common / t.length + (double) common / sub.length() + 1) / 3;
+        double boost = Math.min(JW_COEF, 1.0 / Math.max(t.length, sub.length())) * prefix;
+        double similarity = jaro > JW_THRESHOLD ? jaro + boost * (1 - jaro) : jaro;
+        return 1 - Math.min(similarity, 1) - BOUND_EPSILON;
+    }
+
+    /**
+     * the longest run of literal characters that every match of the regex must contain,
+     * null if it can't be told safely
+     */
+    static String requiredLiteral(String regex) {
+        String best = "";
+        StringBuilder run = new StringBuilder();
+        boolean lastIsLiteral = false;
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '?' || c == '*' || c == '+' || c == '{') {
+                if (lastIsLiteral) {
+                    // the character may repeat, or not appear at all except for '+'
+                    if (c != '+') {
+                        run.setLength(run.length() - 1);
+                    }
+                    best = longer(best, run);
+                    run.setLength(0);
+                }
+
+                i = c == '{' ? regex.indexOf('}', i) + 1 : i + 1;
+                if (i == 0) {
+                    return null;
+                }
+                // lazy or possessive quantifier
+                if (i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+                    i++;
+                }
+                lastIsLiteral = false;
+                continue;
+            }
+
+            lastIsLiteral = false;
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    return null;
+                }
+
+                char n = regex.charAt(i + 1);
+                if (!Character.isLetterOrDigit(n)) {
+                    run.append(n);
+                    lastIsLiteral = true;
+                } else if ("dDsSwWbBAzZGhHvVRXtnrfea".indexOf(n) < 0) {
+                    // back references, quotations, unicode and hex escapes, character properties and so on
+                    return null;
+                } else {
+                    best = longer(best, run);
+                    run.setLength(0);
+                }
+                i += 2;
+            } else if (c == '[' || c == '(') {
+                int end = c == '[' ? skipClass(regex, i) : skipGroup(regex, i);
+                if (end < 0) {
+                    return null;
+                }
+                best = longer(best, run);
+                run.setLength(0);
+                i = end;
+            } else if (c == '|' || c == ')') {
+                // alternation at the top level, nothing is required
+                return null;
+            } else if (c == '.' || c == '^' || c == '$') {
+                best = longer(best, run);
+                run.setLength(0);
+                i++;
+            } else {
+                run.append(c);
+                lastIsLiteral = true;
+                i++;
+            }
+        }
+
+        best = longer(best, run);
+        return best.isEmpty() ? null : best;
+    }
+
+    private static String longer(String best, StringBuilder run) {
+        return run.length() > best.length() ? run.toString() : best;
+    }
+
+    // returns the index after the closing ']', or -1
+    private static int skipClass(String regex, int start) {
+        int depth = 0;
+        for (int i = start; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    // returns the index after the closing ')', or -1
+    private static int skipGroup(String regex, int start) {
+        if (regex.startsWith("(?", start) && !regex.startsWith("(?:", start) && !regex.startsWith("(?=", start)
+                && !regex.startsWith("(?!", start) && !regex.startsWith("(?<=", start) && !regex.startsWith("(?<!", start)) {
+            // inline flags or named groups, which may change how the rest of the regex is read
+            return -1;
+        }
+
+        int depth = 0;
+        for (int i = start; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                int end = skipClass(regex, i);
+                if (end < 0) {
+                    return -1;
+                }
+                i = end - 1;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
@@ -49,6 +49,9 @@ public class StringSimilarity {
 
     private static ReTree retrees;
 
+    // rebuilt together with the elaborations, never modified after that
+    private static volatile ElaborationMatcher matcher;
+
     // initial errors from json files
     private static List<ErrorCodeElaboration> elaborations = initialElaborations();
 
@@ -160,6 +163,7 @@ public class StringSimilarity {
         validate(els);
         pattern(els);
         retress(els);
+        matcher = new ElaborationMatcher(els);
         logger.info(String.format("finish initializing system elaborations, got %s elaborations", els.size()));
         return els;
     }
@@ -280,41 +284,29 @@ public class StringSimilarity {
 
     // better precision, worse performance
     private static ErrorCodeElaboration findMostSimilarRegex(String sub) {
-        if (!isRegexMatchedByRetrees(sub)) {
+        ElaborationMatcher m = matcher;
+        BitSet candidates = m.findRegexCandidates(sub);
+        if (candidates.isEmpty() || !isRegexMatchedByRetrees(sub)) {
             return null;
         }
-        ErrorCodeElaboration matchE = null;
-        for (ErrorCodeElaboration elaboration: elaborations) {
-            if (ElaborationSearchMethod.distance == elaboration.getMethod()) {
-                continue;
-            }
-            if (isRegexMatched(elaboration.getRegex(), sub)) {
-                if (matchE == null) {
-                    matchE = elaboration;
-                } else if (elaboration.getRegex().length() > matchE.getRegex().length()) {
-                    matchE = elaboration;
-                }
-            }
-        }
 
-        return matchE;
+        return m.findMostSimilarRegex(sub, candidates);
     }
 
     private static ErrorCodeElaboration findSimilarDistance(String sub) {
         ErrorCodeElaboration result = null;
-        for (ErrorCodeElaboration elaboration: elaborations) {
-            if (ElaborationSearchMethod.regex == elaboration.getMethod()) {
-                continue;
+        int resultIndex = -1;
+        for (ElaborationMatcher.DistanceCandidate c : matcher.getDistanceCandidates(sub)) {
+            if (result != null && c.lowerBound > result.getDistance()) {
+                // candidates are sorted by the lower bound, none of the rest can be closer
+                break;
             }
-            double distance = getSimilar(elaboration.getRegex(), sub);
-            if (result == null) {
-                result = new ErrorCodeElaboration(elaboration);
+
+            double distance = getSimilar(c.elaboration.getRegex(), sub);
+            if (result == null || distance < result.getDistance() || (distance == result.getDistance() && c.index < resultIndex)) {
+                result = new ErrorCodeElaboration(c.elaboration);
                 result.setDistance(distance);
-            } else {
-                if (distance < result.getDistance()) {
-                    result = new ErrorCodeElaboration(elaboration);
-                    result.setDistance(distance);
-                }
+                resultIndex = c.index;
             }
         }
 